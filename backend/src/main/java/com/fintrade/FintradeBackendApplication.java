@@ -2,8 +2,10 @@ package com.fintrade;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FintradeBackendApplication {
 
     public static void main(String[] args) {
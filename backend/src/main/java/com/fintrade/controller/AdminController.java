@@ -1,15 +1,43 @@
 package com.fintrade.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintrade.deletion.UserDeletionPendingException;
+import com.fintrade.deletion.UserDeletionService;
+import com.fintrade.dto.MessageResponse;
+import com.fintrade.entity.TradingLimit;
 import com.fintrade.entity.User;
+import com.fintrade.entity.UserDeletionJob;
+import com.fintrade.performance.NavEngine;
+import com.fintrade.pretrade.PreTradeService;
+import com.fintrade.pretrade.TradingLimits;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.fintrade.repository.UserDirectory;
+import com.fintrade.risk.RiskService;
+import com.fintrade.rollup.RollupService;
+import com.fintrade.rollup.RollupVerifier;
 import com.fintrade.service.UserService;
+import com.fintrade.taxlots.TaxLotService;
+import com.fintrade.trading.Units;
+import com.fintrade.web.JsonRowWriters;
+import com.fintrade.web.StreamingJsonArray;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -17,13 +45,79 @@ import java.util.Optional;
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    @Autowired
+    private NavEngine navEngine;
+
+    @Autowired
+    private RiskService riskService;
+
+    @Autowired
+    private TaxLotService taxLotService;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private UserDeletionService userDeletionService;
+
+    @Autowired
+    private RollupVerifier rollupVerifier;
+
+    @Autowired
+    private PreTradeService preTradeService;
+
+    /**
+     * One page of the user directory, keyset-paged. {@code sort} is ID, USERNAME, EMAIL, NAME
+     * or CREATED; {@code q} matches the start of username, email, first or last name.
+     */
     @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<?> getUsers(@RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "ID") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        UserDirectory.Sort order;
+        try {
+            order = UserDirectory.Sort.valueOf(sort.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: sort must be ID, USERNAME, EMAIL, NAME or CREATED"));
+        }
+        if (!direction.equalsIgnoreCase("asc") && !direction.equalsIgnoreCase("desc")) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: direction must be asc or desc"));
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        try {
+            boolean ascending = direction.equalsIgnoreCase("asc");
+            return ResponseEntity.ok(userService.getUserPage(q, order, ascending, after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    /** Every user as one streamed JSON array, for exports; the admin page reads {@code /users}. */
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = StreamingJsonArray.of(objectMapper.getFactory(), userService::streamAllUsers,
+                JsonRowWriters.USER);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @GetMapping("/users/{id}")
@@ -36,45 +130,193 @@ public class AdminController {
         }
     }
 
+    /** Refused with 409 once the user's deletion has been requested. */
     @PutMapping("/users/{id}")
-    public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody User userDetails) {
-        Optional<User> user = userService.getUserById(id);
-        if (user.isPresent()) {
-            User existingUser = user.get();
+    public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody User userDetails) {
+        return updateUnlessDeleting(id, existingUser -> {
             existingUser.setFirstName(userDetails.getFirstName());
             existingUser.setLastName(userDetails.getLastName());
             existingUser.setEmail(userDetails.getEmail());
             existingUser.setEnabled(userDetails.getEnabled());
             existingUser.setRole(userDetails.getRole());
+        });
+    }
 
-            User updatedUser = userService.updateUser(existingUser);
-            return ResponseEntity.ok(updatedUser);
-        } else {
-            return ResponseEntity.notFound().build();
+    /**
+     * Disables the user at once and deletes them with all their data in the background.
+     * Poll the returned job at {@code /users/deletions/{jobId}}.
+     */
+    @DeleteMapping("/users/{id}")
+    public ResponseEntity<UserDeletionJob> deleteUser(@PathVariable Long id) {
+        return userDeletionService.request(id)
+                .map(job -> ResponseEntity.accepted().body(job))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/users/deletions/{jobId}")
+    public ResponseEntity<UserDeletionJob> getUserDeletion(@PathVariable Long jobId) {
+        return userDeletionService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /** Refused with 409 once the user's deletion has been requested. */
+    @PutMapping("/users/{id}/toggle-status")
+    public ResponseEntity<?> toggleUserStatus(@PathVariable Long id) {
+        return updateUnlessDeleting(id, existingUser -> existingUser.setEnabled(!existingUser.getEnabled()));
+    }
+
+    private ResponseEntity<?> updateUnlessDeleting(Long id, Consumer<User> change) {
+        try {
+            return userDeletionService.updateUnlessDeleting(id, change)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (UserDeletionPendingException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse("Error: " + e.getMessage()));
         }
     }
 
-    @DeleteMapping("/users/{id}")
-    public ResponseEntity<?> deleteUser(@PathVariable Long id) {
-        Optional<User> user = userService.getUserById(id);
-        if (user.isPresent()) {
-            userService.deleteUser(id);
-            return ResponseEntity.ok(Map.of("message", "User deleted successfully"));
-        } else {
+    @GetMapping("/users/{id}/trading-limits")
+    public ResponseEntity<TradingLimit> getTradingLimits(@PathVariable Long id) {
+        return preTradeService.getLimits(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /** Sets the user's own order and position limits; a field left out falls back to {@code pretrade.defaults}. */
+    @PutMapping("/users/{id}/trading-limits")
+    public ResponseEntity<?> setTradingLimits(@PathVariable Long id, @RequestBody TradingLimits limits) {
+        if (userService.getUserById(id).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        for (BigDecimal value : new BigDecimal[] { limits.getMaxOrderQuantity(), limits.getMaxOrderNotional(),
+                limits.getMaxPositionQuantity() }) {
+            if (value != null && value.signum() < 0) {
+                return ResponseEntity.badRequest().body(new MessageResponse("Error: limits must not be negative"));
+            }
+        }
+        return ResponseEntity.ok(preTradeService.setLimits(id, limits));
     }
 
-    @PutMapping("/users/{id}/toggle-status")
-    public ResponseEntity<User> toggleUserStatus(@PathVariable Long id) {
-        Optional<User> user = userService.getUserById(id);
-        if (user.isPresent()) {
-            User existingUser = user.get();
-            existingUser.setEnabled(!existingUser.getEnabled());
-            User updatedUser = userService.updateUser(existingUser);
-            return ResponseEntity.ok(updatedUser);
-        } else {
+    @DeleteMapping("/users/{id}/trading-limits")
+    public ResponseEntity<MessageResponse> clearTradingLimits(@PathVariable Long id) {
+        preTradeService.clearLimits(id);
+        return ResponseEntity.ok(new MessageResponse("Trading limits reset to the defaults"));
+    }
+
+    /**
+     * Loads trades from an outside feed into the price history. {@code time} is an ISO-8601
+     * instant or epoch milliseconds; ticks older than a symbol's newest bar are dropped.
+     */
+    @PostMapping("/prices/ticks")
+    public ResponseEntity<?> recordTicks(@RequestBody List<Map<String, Object>> ticks) {
+        try {
+            for (Map<String, Object> tick : ticks) {
+                String symbol = tick.get("symbol").toString().toUpperCase();
+                String time = tick.get("time").toString();
+                long epochMillis = time.chars().allMatch(Character::isDigit) ? Long.parseLong(time)
+                        : Instant.parse(time).toEpochMilli();
+                priceHistoryStore.record(symbol, epochMillis,
+                        Units.price(new BigDecimal(tick.get("price").toString())),
+                        Units.quantity(new BigDecimal(tick.get("quantity").toString())));
+            }
+        } catch (NullPointerException | IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: every tick needs a valid symbol, time, price and quantity"));
+        }
+        return ResponseEntity.ok(Map.of("message", "Recorded " + ticks.size() + " ticks"));
+    }
+
+    /**
+     * Starts a NAV history run through {@code through} (default yesterday, UTC) in the
+     * background. {@code fromScratch} empties the table and recomputes every user.
+     */
+    @PostMapping("/performance/nav")
+    public ResponseEntity<?> runNav(@RequestParam(required = false) String through,
+            @RequestParam(defaultValue = "false") boolean fromScratch) {
+        LocalDate lastDay;
+        try {
+            lastDay = through != null ? LocalDate.parse(through) : LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: through must be an ISO date"));
+        }
+        if (!navEngine.start(lastDay, fromScratch)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new MessageResponse("Error: a NAV run is already in progress"));
+        }
+        return ResponseEntity.accepted().body(Map.of("message", "NAV run through " + lastDay + " started"));
+    }
+
+    @GetMapping("/performance/nav")
+    public ResponseEntity<?> getNavStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", navEngine.isRunning());
+        status.put("lastRun", navEngine.getLastRun().orElse(null));
+        return ResponseEntity.ok(status);
+    }
+
+    /** Recomputes every portfolio's risk as of {@code asOf} (default yesterday, UTC) and waits for it. */
+    @PostMapping("/risk/run")
+    public ResponseEntity<?> runRisk(@RequestParam(required = false) String asOf) {
+        LocalDate day;
+        try {
+            day = asOf != null ? LocalDate.parse(asOf) : LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: asOf must be an ISO date"));
+        }
+        return ResponseEntity.ok(riskService.run(day));
+    }
+
+    /** Rebuilds tax lots and realized gains from transactions, for one user or everyone. */
+    @PostMapping("/tax-lots/rebuild")
+    public ResponseEntity<?> rebuildTaxLots(@RequestParam(required = false) Long userId) {
+        if (userId == null) {
+            return ResponseEntity.ok(taxLotService.rebuildAll());
+        }
+        if (userService.getUserById(userId).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok(taxLotService.rebuild(userId));
+    }
+
+    /** Platform AUM with the {@code limit} largest symbols by market value, read from the rollups. */
+    @GetMapping("/rollups/aum")
+    public ResponseEntity<?> getAum(@RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        return ResponseEntity.ok(rollupService.getAum(limit));
+    }
+
+    /** Daily trade volume from {@code from} to {@code to} inclusive (default the last 30 days, UTC). */
+    @GetMapping("/rollups/volume")
+    public ResponseEntity<?> getTradeVolume(@RequestParam(required = false) String from,
+            @RequestParam(required = false) String to, @RequestParam(required = false) String symbol) {
+        LocalDate last;
+        LocalDate first;
+        try {
+            last = to != null ? LocalDate.parse(to) : LocalDate.now(ZoneOffset.UTC);
+            first = from != null ? LocalDate.parse(from) : last.minusDays(29);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: from and to must be ISO dates"));
+        }
+        if (first.isAfter(last)) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: from must not be after to"));
+        }
+        return ResponseEntity.ok(rollupService.getVolume(first, last, symbol));
+    }
+
+    /** Checks the rollups against a full recompute now and repairs any drift. */
+    @PostMapping("/rollups/verify")
+    public ResponseEntity<?> verifyRollups() {
+        return ResponseEntity.ok(rollupVerifier.verify());
+    }
+
+    @GetMapping("/rollups/verify")
+    public ResponseEntity<?> getRollupVerification() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("lastResult", rollupVerifier.getLastResult());
+        return ResponseEntity.ok(status);
     }
 }
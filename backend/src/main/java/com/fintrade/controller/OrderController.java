@@ -0,0 +1,193 @@
+package com.fintrade.controller;
+
+import com.fintrade.dto.MessageResponse;
+import com.fintrade.entity.Security;
+import com.fintrade.entity.User;
+import com.fintrade.pretrade.PreTradeService;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.fintrade.securitymaster.SecurityMaster;
+import com.fintrade.trading.BookDepth;
+import com.fintrade.trading.BookLevel;
+import com.fintrade.trading.Fill;
+import com.fintrade.trading.MatchingEngine;
+import com.fintrade.trading.OrderResult;
+import com.fintrade.trading.OrderSide;
+import com.fintrade.trading.OrderType;
+import com.fintrade.trading.Units;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/orders")
+public class OrderController {
+
+    private static final long REPLY_TIMEOUT_SECONDS = 5;
+    private static final String REQUIRED = "Error: symbol, side, quantity and a limit price are required";
+
+    @Autowired
+    private MatchingEngine matchingEngine;
+
+    @Autowired
+    private PreTradeService preTradeService;
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @PostMapping
+    public ResponseEntity<?> placeOrder(@RequestBody Map<String, Object> request, Authentication authentication)
+            throws InterruptedException {
+        User user = (User) authentication.getPrincipal();
+
+        String symbolText = text(request, "symbol");
+        String sideText = text(request, "side");
+        String typeText = text(request, "type");
+        String quantityText = text(request, "quantity");
+        String priceText = text(request, "price");
+        String companyName = text(request, "companyName");
+        if (symbolText == null || sideText == null || quantityText == null) {
+            return ResponseEntity.badRequest().body(new MessageResponse(REQUIRED));
+        }
+        String symbol = symbolText.toUpperCase();
+        OrderSide side;
+        OrderType type;
+        long quantity;
+        long price = 0;
+        try {
+            if (!PriceHistoryStore.isValidSymbol(symbol) || symbol.length() > Security.SYMBOL_LENGTH) {
+                throw new IllegalArgumentException("symbol must be 1-" + Security.SYMBOL_LENGTH
+                        + " letters, digits, dots or dashes, starting with a letter or digit");
+            }
+            if (companyName != null && companyName.length() > Security.COMPANY_NAME_LENGTH) {
+                throw new IllegalArgumentException("companyName must be at most " + Security.COMPANY_NAME_LENGTH
+                        + " characters");
+            }
+            side = OrderSide.valueOf(sideText.toUpperCase());
+            type = typeText != null ? OrderType.valueOf(typeText.toUpperCase()) : OrderType.LIMIT;
+            quantity = Units.quantity(new BigDecimal(quantityText));
+            if (type == OrderType.LIMIT) {
+                if (priceText == null) {
+                    return ResponseEntity.badRequest().body(new MessageResponse(REQUIRED));
+                }
+                price = Units.price(new BigDecimal(priceText));
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+        // The book, the reservation and the fills all go by the symbol as listed.
+        String listed = securityMaster.canonical(symbol);
+        // A sell's quantity stays reserved until it fills or is cancelled, so open sells cannot oversell.
+        preTradeService.checkOrder(user.getId(), listed, side, Units.quantity(quantity),
+                type == OrderType.LIMIT ? Units.price(price) : null);
+
+        long orderId = matchingEngine.nextOrderId();
+        return reply(matchingEngine.submit(orderId, user.getId(), listed, companyName, side, type, price, quantity),
+                result -> ResponseEntity.ok(toBody(listed, side, type, result)),
+                // Still queued, and may yet fill or rest: answering with the id lets the client cancel it.
+                () -> ResponseEntity.status(HttpStatus.ACCEPTED).body(pendingBody(orderId, listed, side, type)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancelOrder(@PathVariable Long id, Authentication authentication)
+            throws InterruptedException {
+        User user = (User) authentication.getPrincipal();
+        return reply(matchingEngine.cancel(user.getId(), id), cancelled -> cancelled
+                ? ResponseEntity.ok(new MessageResponse("Order cancelled successfully"))
+                : ResponseEntity.notFound().build(),
+                () -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .body(new MessageResponse("Cancel queued; the matching engine has not confirmed it yet")));
+    }
+
+    @GetMapping("/book/{symbol}")
+    public ResponseEntity<?> getOrderBook(@PathVariable String symbol,
+            @RequestParam(defaultValue = "10") int depth) throws InterruptedException {
+        return reply(matchingEngine.depth(securityMaster.canonical(symbol), Math.max(1, Math.min(depth, 100))),
+                book -> ResponseEntity.ok(toBody(book)),
+                () -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(new MessageResponse("Error: the matching engine did not answer in time")));
+    }
+
+    /**
+     * Waits for the matching engine's reply. A request still queued after the timeout is
+     * not withdrawn, so {@code onTimeout} must not tell the client it failed.
+     */
+    private static <T> ResponseEntity<?> reply(CompletableFuture<T> future, Function<T, ResponseEntity<?>> onReply,
+            Supplier<ResponseEntity<?>> onTimeout) throws InterruptedException {
+        try {
+            return onReply.apply(future.get(REPLY_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(new MessageResponse("Error: too many orders in flight, retry shortly"));
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            return onTimeout.get();
+        }
+    }
+
+    private static String text(Map<String, Object> request, String key) {
+        Object value = request.get(key);
+        return value != null ? value.toString().trim() : null;
+    }
+
+    private static Map<String, Object> pendingBody(long orderId, String symbol, OrderSide side, OrderType type) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("orderId", orderId);
+        body.put("symbol", symbol);
+        body.put("side", side);
+        body.put("type", type);
+        body.put("status", "PENDING");
+        body.put("message", "The matching engine has not answered yet; the order may still fill or rest");
+        return body;
+    }
+
+    private static Map<String, Object> toBody(String symbol, OrderSide side, OrderType type, OrderResult result) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("orderId", result.orderId());
+        body.put("symbol", symbol);
+        body.put("side", side);
+        body.put("type", type);
+        body.put("status", result.status());
+        body.put("filledQuantity", Units.quantity(result.filledQuantity()));
+        body.put("remainingQuantity", Units.quantity(result.remainingQuantity()));
+        body.put("fills", result.fills().stream().map(fill -> Map.of(
+                "price", Units.price(fill.price()),
+                "quantity", Units.quantity(fill.quantity()),
+                "counterpartyOrderId", counterparty(fill, side))).toList());
+        return body;
+    }
+
+    private static long counterparty(Fill fill, OrderSide side) {
+        return side == OrderSide.BUY ? fill.sellOrderId() : fill.buyOrderId();
+    }
+
+    private static Map<String, Object> toBody(BookDepth book) {
+        return Map.of(
+                "symbol", book.symbol(),
+                "bids", levels(book.bids()),
+                "asks", levels(book.asks()));
+    }
+
+    private static List<Map<String, Object>> levels(List<BookLevel> levels) {
+        return levels.stream().map(level -> Map.<String, Object>of(
+                "price", Units.price(level.price()),
+                "quantity", Units.quantity(level.quantity()),
+                "orders", level.orders())).toList();
+    }
+}
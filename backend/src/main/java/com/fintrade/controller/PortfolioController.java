@@ -1,15 +1,32 @@
 package com.fintrade.controller;
 
+import com.fintrade.dto.MessageResponse;
+import com.fintrade.dto.PortfolioSummaryView;
+import com.fintrade.dto.PortfolioView;
+import com.fintrade.dto.RiskView;
+import com.fintrade.dto.TaxLotView;
 import com.fintrade.entity.Portfolio;
 import com.fintrade.entity.User;
+import com.fintrade.performance.PerformanceService;
+import com.fintrade.risk.RiskService;
 import com.fintrade.service.PortfolioService;
+import com.fintrade.service.ResourceVersionService;
 import com.fintrade.service.UserService;
+import com.fintrade.taxlots.TaxLotService;
+import com.fintrade.web.ResponseFormat;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,30 +42,101 @@ public class PortfolioController {
     @Autowired
     private UserService userService;
 
-    @GetMapping("/all")
-    public ResponseEntity<List<Portfolio>> getAllPortfolios(Authentication authentication) {
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private PerformanceService performanceService;
+
+    @Autowired
+    private RiskService riskService;
+
+    @Autowired
+    private TaxLotService taxLotService;
+
+    @GetMapping(value = "/all", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ResponseFormat.PROTOBUF_VALUE })
+    public ResponseEntity<List<PortfolioView>> getAllPortfolios(Authentication authentication, WebRequest request) {
         User user = (User) authentication.getPrincipal();
-        List<Portfolio> portfolios = portfolioService.getPortfoliosByUser(user);
-        return ResponseEntity.ok(portfolios);
+        ResponseFormat format = ResponseFormat.negotiate(request);
+        String eTag = resourceVersionService.getETag(user.getId(), ResourceVersionService.Resource.PORTFOLIO,
+                format.qualify("all"));
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        List<PortfolioView> portfolios = portfolioService.getPortfoliosByUser(user);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(eTag)
+                .body(portfolios);
     }
 
-    @GetMapping("/search")
-    public ResponseEntity<List<Portfolio>> searchPortfolios(@RequestParam String symbol,
+    @GetMapping(value = "/search", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ResponseFormat.PROTOBUF_VALUE })
+    public ResponseEntity<List<PortfolioView>> searchPortfolios(@RequestParam String symbol,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        List<Portfolio> portfolios = portfolioService.searchPortfoliosBySymbol(user, symbol);
+        List<PortfolioView> portfolios = portfolioService.searchPortfoliosBySymbol(user, symbol);
         return ResponseEntity.ok(portfolios);
     }
 
-    @GetMapping("/summary")
-    public ResponseEntity<Map<String, BigDecimal>> getPortfolioSummary(Authentication authentication) {
+    @GetMapping(value = "/summary", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ResponseFormat.PROTOBUF_VALUE })
+    public ResponseEntity<PortfolioSummaryView> getPortfolioSummary(Authentication authentication,
+            WebRequest request) {
+        User user = (User) authentication.getPrincipal();
+        ResponseFormat format = ResponseFormat.negotiate(request);
+        String eTag = resourceVersionService.getETag(user.getId(), ResourceVersionService.Resource.PORTFOLIO,
+                format.qualify("summary"));
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        PortfolioSummaryView summary = portfolioService.getPortfolioSummary(user);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(eTag)
+                .body(summary);
+    }
+
+    /** Volatility, beta, correlation and one-day historical VaR of the current holdings. */
+    @GetMapping("/risk")
+    public ResponseEntity<RiskView> getRisk(Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return ResponseEntity.ok(riskService.getRisk(user));
+    }
+
+    /** Open tax lots, oldest first within each symbol. */
+    @GetMapping("/lots")
+    public ResponseEntity<List<TaxLotView>> getLots(@RequestParam(required = false) String symbol,
+            Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        BigDecimal totalValue = portfolioService.getTotalPortfolioValue(user);
-        BigDecimal totalProfitLoss = portfolioService.getTotalProfitLoss(user);
+        return ResponseEntity.ok(taxLotService.getOpenLots(user, symbol));
+    }
 
-        return ResponseEntity.ok(Map.of(
-                "totalValue", totalValue,
-                "totalProfitLoss", totalProfitLoss));
+    /**
+     * Daily NAV and returns from the nightly NAV history. {@code from} defaults to the
+     * first stored day and {@code to} to today (ISO dates).
+     */
+    @GetMapping("/performance")
+    public ResponseEntity<?> getPerformance(@RequestParam(required = false) String from,
+            @RequestParam(required = false) String to, Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = from != null ? LocalDate.parse(from) : LocalDate.EPOCH;
+            end = to != null ? LocalDate.parse(to) : LocalDate.now(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: from and to must be ISO dates"));
+        }
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: from must not be after to"));
+        }
+        return ResponseEntity.ok(performanceService.getPerformance(user, start, end));
     }
 
     @PostMapping("/add")
@@ -0,0 +1,91 @@
+package com.fintrade.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintrade.dto.MessageResponse;
+import com.fintrade.pricehistory.Bar;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.fintrade.pricehistory.Resolution;
+import com.fintrade.web.JsonRowWriters;
+import com.fintrade.web.ProtobufRowWriters;
+import com.fintrade.web.ResponseFormat;
+import com.fintrade.web.StreamingJsonArray;
+import com.fintrade.web.StreamingProtobufList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.function.Consumer;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/prices")
+public class PriceHistoryController {
+
+    private static final int MAX_BARS = 100_000;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * OHLCV bars with {@code from <= time < to}, oldest first. {@code from} and {@code to}
+     * take an ISO-8601 instant or epoch milliseconds; {@code to} defaults to now and
+     * {@code from} to {@code limit} bars before it.
+     */
+    @GetMapping(value = "/{symbol}/bars", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, ResponseFormat.PROTOBUF_VALUE })
+    public ResponseEntity<StreamingResponseBody> getBars(@PathVariable String symbol,
+            @RequestParam(defaultValue = "DAY") String resolution,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "1000") int limit,
+            WebRequest request) {
+        String ticker = symbol.toUpperCase();
+        Resolution barSize;
+        long start;
+        long end;
+        int maxBars = Math.max(1, Math.min(limit, MAX_BARS));
+        try {
+            barSize = Resolution.valueOf(resolution.toUpperCase());
+            end = to != null ? parseTime(to) : System.currentTimeMillis();
+            start = from != null ? parseTime(from) : end - maxBars * barSize.getMillis();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return badRequest("Error: resolution must be MINUTE, HOUR or DAY and from/to "
+                    + "an ISO-8601 instant or epoch milliseconds");
+        }
+        if (!PriceHistoryStore.isValidSymbol(ticker)) {
+            return badRequest("Error: invalid symbol");
+        }
+
+        ResponseFormat format = ResponseFormat.negotiate(request);
+        Consumer<Consumer<Bar>> rows = sink -> priceHistoryStore.read(ticker, barSize, start, end, maxBars, sink);
+        StreamingResponseBody body = switch (format) {
+            case JSON -> StreamingJsonArray.of(objectMapper.getFactory(), rows, JsonRowWriters.BAR);
+            case CBOR -> StreamingJsonArray.cbor(rows, JsonRowWriters.BAR);
+            case PROTOBUF -> StreamingProtobufList.of(rows, ProtobufRowWriters.BAR);
+        };
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    /** The handler streams, so the error body is streamed too. */
+    private ResponseEntity<StreamingResponseBody> badRequest(String message) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, new MessageResponse(message)));
+    }
+
+    private static long parseTime(String value) {
+        return value.chars().allMatch(Character::isDigit) ? Long.parseLong(value) : Instant.parse(value).toEpochMilli();
+    }
+}
@@ -0,0 +1,118 @@
+package com.fintrade.controller;
+
+import com.fintrade.dto.MessageResponse;
+import com.fintrade.entity.ReportJob;
+import com.fintrade.entity.User;
+import com.fintrade.reports.ReportService;
+import com.fintrade.reports.ReportType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    @Autowired
+    private ReportService reportService;
+
+    /**
+     * Queues a report: {@code STATEMENT} with {@code from} and {@code to} ISO dates,
+     * {@code TAX_SUMMARY} with a {@code year}, or {@code TRANSACTION_HISTORY}. Answers at
+     * once with the job; poll it until it is {@code DONE}, then download the file.
+     */
+    @PostMapping
+    public ResponseEntity<?> requestReport(@RequestBody Map<String, Object> request, Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        ReportType type;
+        try {
+            type = ReportType.valueOf(String.valueOf(request.get("type")).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(
+                    "Error: type must be STATEMENT, TAX_SUMMARY or TRANSACTION_HISTORY"));
+        }
+
+        LocalDate from = null;
+        LocalDate to = null;
+        if (type == ReportType.STATEMENT) {
+            try {
+                from = LocalDate.parse(String.valueOf(request.get("from")));
+                to = LocalDate.parse(String.valueOf(request.get("to")));
+            } catch (DateTimeParseException e) {
+                return ResponseEntity.badRequest().body(new MessageResponse("Error: from and to must be ISO dates"));
+            }
+            if (from.isAfter(to)) {
+                return ResponseEntity.badRequest().body(new MessageResponse("Error: from must not be after to"));
+            }
+        } else if (type == ReportType.TAX_SUMMARY) {
+            try {
+                from = LocalDate.of(Integer.parseInt(String.valueOf(request.get("year"))), 1, 1);
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(new MessageResponse("Error: year must be a year"));
+            }
+            to = from.withDayOfYear(from.lengthOfYear());
+        }
+
+        Optional<ReportJob> job = reportService.request(user.getId(), type, from, to);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(new MessageResponse(
+                    "Error: too many reports are unfinished; request more once they are done"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.get());
+    }
+
+    /** The user's 50 latest reports, newest first. */
+    @GetMapping
+    public ResponseEntity<List<ReportJob>> getReports(Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return ResponseEntity.ok(reportService.getJobs(user.getId()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportJob> getReport(@PathVariable Long id, Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return reportService.getJob(user.getId(), id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /** The report's file, sent from disk; 409 until the report is done. */
+    @GetMapping("/{id}/download")
+    public ResponseEntity<?> downloadReport(@PathVariable Long id, Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        Optional<ReportJob> job = reportService.getJob(user.getId(), id);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.get().getStatus() != ReportJob.Status.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new MessageResponse("Error: report is " + job.get().getStatus()));
+        }
+        Path file = reportService.file(job.get());
+        if (!Files.isRegularFile(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        String fileName = "fintrade-" + job.get().getType().name().toLowerCase().replace('_', '-') + "-" + id + "."
+                + job.get().getType().getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(job.get().getType().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(new FileSystemResource(file));
+    }
+}
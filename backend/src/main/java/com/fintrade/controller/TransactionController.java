@@ -1,18 +1,41 @@
 package com.fintrade.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintrade.dto.MessageResponse;
+import com.fintrade.dto.TransactionView;
 import com.fintrade.entity.Transaction;
 import com.fintrade.entity.User;
+import com.fintrade.pretrade.PreTradeService;
+import com.fintrade.service.ResourceVersionService;
 import com.fintrade.service.TransactionService;
+import com.fintrade.taxlots.LotPick;
+import com.fintrade.taxlots.TaxLotService;
+import com.fintrade.trading.OrderSide;
+import com.fintrade.web.JsonRowWriters;
+import com.fintrade.web.ProtobufRowWriters;
+import com.fintrade.web.ResponseFormat;
+import com.fintrade.web.StreamingJsonArray;
+import com.fintrade.web.StreamingProtobufList;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -22,38 +45,75 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
-    @GetMapping("/all")
-    public ResponseEntity<List<Transaction>> getAllTransactions(Authentication authentication) {
+    @Autowired
+    private TaxLotService taxLotService;
+
+    @Autowired
+    private PreTradeService preTradeService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @GetMapping(value = "/all", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ResponseFormat.PROTOBUF_VALUE })
+    public ResponseEntity<StreamingResponseBody> getAllTransactions(Authentication authentication,
+            WebRequest request) {
         User user = (User) authentication.getPrincipal();
-        List<Transaction> transactions = transactionService.getTransactionsByUser(user);
-        return ResponseEntity.ok(transactions);
+        ResponseFormat format = ResponseFormat.negotiate(request);
+        String eTag = resourceVersionService.getETag(user.getId(), ResourceVersionService.Resource.TRANSACTIONS,
+                format.qualify("all"));
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        // Read before the body runs so that overlapping refreshes share one query; the rows are still written
+        // one at a time.
+        List<TransactionView> transactions = transactionService.getTransactionsByUser(user);
+        Consumer<Consumer<TransactionView>> rows = transactions::forEach;
+        StreamingResponseBody body = switch (format) {
+            case JSON -> StreamingJsonArray.of(objectMapper.getFactory(), rows, JsonRowWriters.TRANSACTION);
+            case CBOR -> StreamingJsonArray.cbor(rows, JsonRowWriters.TRANSACTION);
+            case PROTOBUF -> StreamingProtobufList.of(rows, ProtobufRowWriters.TRANSACTION);
+        };
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(eTag)
+                .body(body);
     }
 
-    @GetMapping("/recent")
-    public ResponseEntity<List<Transaction>> getRecentTransactions(@RequestParam(defaultValue = "10") int limit,
+    @GetMapping(value = "/recent", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ResponseFormat.PROTOBUF_VALUE })
+    public ResponseEntity<List<TransactionView>> getRecentTransactions(@RequestParam(defaultValue = "10") int limit,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        List<Transaction> transactions = transactionService.getRecentTransactions(user, limit);
+        List<TransactionView> transactions = transactionService.getRecentTransactions(user, limit);
         return ResponseEntity.ok(transactions);
     }
 
-    @GetMapping("/search")
-    public ResponseEntity<List<Transaction>> searchTransactions(@RequestParam String symbol,
+    @GetMapping(value = "/search", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ResponseFormat.PROTOBUF_VALUE })
+    public ResponseEntity<List<TransactionView>> searchTransactions(@RequestParam String symbol,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        List<Transaction> transactions = transactionService.searchTransactionsBySymbol(user, symbol);
+        List<TransactionView> transactions = transactionService.searchTransactionsBySymbol(user, symbol);
         return ResponseEntity.ok(transactions);
     }
 
-    @GetMapping("/filter")
-    public ResponseEntity<List<Transaction>> filterTransactions(
+    @GetMapping(value = "/filter", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            ResponseFormat.PROTOBUF_VALUE })
+    public ResponseEntity<List<TransactionView>> filterTransactions(
             @RequestParam(required = false) String type,
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate,
             Authentication authentication) {
 
         User user = (User) authentication.getPrincipal();
-        List<Transaction> transactions;
+        List<TransactionView> transactions;
 
         if (type != null) {
             Transaction.TransactionType transactionType = Transaction.TransactionType.valueOf(type.toUpperCase());
@@ -70,7 +130,7 @@ public class TransactionController {
     }
 
     @PostMapping("/create")
-    public ResponseEntity<Transaction> createTransaction(@RequestBody Map<String, Object> request,
+    public ResponseEntity<?> createTransaction(@RequestBody Map<String, Object> request,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
 
@@ -83,12 +143,52 @@ public class TransactionController {
         BigDecimal commission = request.get("commission") != null ? new BigDecimal(request.get("commission").toString())
                 : BigDecimal.ZERO;
         String notes = (String) request.get("notes");
+        preTradeService.check(user.getId(), symbol, transactionType == Transaction.TransactionType.SELL
+                ? OrderSide.SELL : OrderSide.BUY, quantity, price);
 
         Transaction transaction = new Transaction(symbol, companyName, transactionType, quantity, price, commission,
                 notes, user);
-        Transaction createdTransaction = transactionService.createTransaction(transaction);
+        List<LotPick> picks = new ArrayList<>();
+        if (request.get("lots") instanceof List<?> lots) {
+            for (Object lot : lots) {
+                if (!(lot instanceof Map<?, ?> pick) || pick.get("transactionId") == null
+                        || pick.get("quantity") == null) {
+                    return ResponseEntity.badRequest()
+                            .body(new MessageResponse("Error: each lot needs a transactionId and a quantity"));
+                }
+                picks.add(new LotPick(Long.valueOf(pick.get("transactionId").toString()),
+                        new BigDecimal(pick.get("quantity").toString())));
+            }
+        }
+        try {
+            if (request.get("lotMethod") != null) {
+                transaction.setLotMethod(
+                        Transaction.LotMethod.valueOf(((String) request.get("lotMethod")).toUpperCase()));
+            }
+            Transaction createdTransaction = transactionService.createTransaction(transaction, picks);
+            return ResponseEntity.ok(createdTransaction);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
 
-        return ResponseEntity.ok(createdTransaction);
+    /** Gains realized by sells between two dates, matched against tax lots. */
+    @GetMapping("/realized-gains")
+    public ResponseEntity<?> getRealizedGains(@RequestParam(required = false) String from,
+            @RequestParam(required = false) String to, Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = from != null ? LocalDate.parse(from) : LocalDate.EPOCH;
+            end = to != null ? LocalDate.parse(to) : LocalDate.now(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: from and to must be ISO dates"));
+        }
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: from must not be after to"));
+        }
+        return ResponseEntity.ok(taxLotService.getRealizedGains(user, start, end));
     }
 
     @GetMapping("/{id}")
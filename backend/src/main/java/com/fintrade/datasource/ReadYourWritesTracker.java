@@ -0,0 +1,91 @@
+package com.fintrade.datasource;
+
+import com.fintrade.entity.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users committed a write recently so their reads stay on the
+ * primary until the replicas have had time to catch up. Writes are noticed on the
+ * request that makes them, or reported with {@link #recordWrite} when the writer is not
+ * the user, such as a settlement booking both sides of a fill.
+ */
+public class ReadYourWritesTracker {
+
+    private final Map<Long, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    private final long stickyWindowMillis;
+
+    public ReadYourWritesTracker(long stickyWindowMillis) {
+        this.stickyWindowMillis = stickyWindowMillis;
+    }
+
+    /** The current user wrote; their reads become sticky once the transaction, if any, commits. */
+    public void recordWriteOnCommit() {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recordWrite(userId);
+            return;
+        }
+        // Once per transaction, however many statements it runs.
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, userId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordWrite(userId);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReadYourWritesTracker.this);
+            }
+        });
+    }
+
+    /** Keeps {@code userId}'s reads on the primary for the sticky window from now. */
+    public void recordWrite(Long userId) {
+        lastWriteByUser.put(userId, System.currentTimeMillis());
+    }
+
+    public boolean isSticky() {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return false;
+        }
+
+        Long lastWrite = lastWriteByUser.get(userId);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - lastWrite > stickyWindowMillis) {
+            lastWriteByUser.remove(userId, lastWrite);
+            return false;
+        }
+        return true;
+    }
+
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - stickyWindowMillis;
+        lastWriteByUser.values().removeIf(lastWrite -> lastWrite < cutoff);
+    }
+
+    private Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof User user)) {
+            return null;
+        }
+        return user.getId();
+    }
+}
@@ -0,0 +1,99 @@
+package com.fintrade.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(prefix = "replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Value("${replica.urls}")
+    private String[] replicaUrls;
+
+    @Value("${replica.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${replica.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Value("${replica.pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${replica.max-lag-seconds:5}")
+    private long maxLagSeconds;
+
+    @Value("${replica.sticky-window:5000}")
+    private long stickyWindowMillis;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(stickyWindowMillis);
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+            ReadYourWritesTracker readYourWritesTracker, ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            String key = "replica-" + i;
+            replicas.put(key, createReplica(primaryDataSource, key, replicaUrls[i].trim(),
+                    meterRegistry.getIfAvailable()));
+        }
+        return new ReadWriteRoutingDataSource(new WriteTrackingDataSource(primaryDataSource, readYourWritesTracker),
+                replicas, readYourWritesTracker);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReadWriteRoutingDataSource routingDataSource,
+            ReadYourWritesTracker readYourWritesTracker) {
+        return new ReplicaLagMonitor(routingDataSource, readYourWritesTracker, maxLagSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private HikariDataSource createReplica(HikariDataSource primary, String poolName, String url,
+            MeterRegistry meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        primary.copyStateTo(config);
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        config.setUsername(replicaUsername);
+        config.setPassword(replicaPassword);
+        config.setMaximumPoolSize(replicaPoolSize);
+        config.setReadOnly(true);
+        // A replica that is down at startup just stays out of rotation until the lag monitor sees it.
+        config.setInitializationFailTimeout(-1);
+        // Replica pools are not beans, so Boot's pool metrics never see them.
+        if (meterRegistry != null) {
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        }
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,72 @@
+package com.fintrade.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Polls each replica's replication lag and takes it out of rotation while it is
+ * further behind than the configured tolerance, unreachable, or cannot tell how far
+ * behind it is.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final ReadYourWritesTracker writeTracker;
+    private final long maxLagSeconds;
+
+    public ReplicaLagMonitor(ReadWriteRoutingDataSource routingDataSource, ReadYourWritesTracker writeTracker,
+            long maxLagSeconds) {
+        this.routingDataSource = routingDataSource;
+        this.writeTracker = writeTracker;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${replica.lag-check-interval:2000}")
+    public void checkReplicas() {
+        for (Map.Entry<String, DataSource> replica : routingDataSource.getReplicas().entrySet()) {
+            String key = replica.getKey();
+            boolean healthy;
+            try {
+                Long lag = readLagSeconds(replica.getValue());
+                healthy = lag != null && lag <= maxLagSeconds;
+                if (lag == null) {
+                    log.warn("Replica {} reports no replication lag; replication is not configured or stopped", key);
+                } else if (!healthy) {
+                    log.warn("Replica {} is lagging ({}s behind, tolerance {}s)", key, lag, maxLagSeconds);
+                }
+            } catch (SQLException e) {
+                healthy = false;
+                log.warn("Replica {} is unreachable: {}", key, e.getMessage());
+            }
+
+            if (healthy != routingDataSource.isReplicaHealthy(key)) {
+                log.info("Replica {} is now {}", key, healthy ? "in rotation" : "out of rotation");
+            }
+            routingDataSource.markReplicaHealth(key, healthy);
+        }
+        writeTracker.evictExpired();
+    }
+
+    private Long readLagSeconds(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+            if (!rs.next()) {
+                // Replication was never set up or has been reset: nothing says how far behind it is.
+                return null;
+            }
+            long lag = rs.getLong("Seconds_Behind_Source");
+            return rs.wasNull() ? null : lag;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.fintrade.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * The primary, reporting every statement that changed rows to the {@link ReadYourWritesTracker}.
+ * A transaction that is not read-only but only reads, such as a service's class-level
+ * {@code @Transactional}, runs on the primary without making its user's reads sticky.
+ */
+public class WriteTrackingDataSource extends DelegatingDataSource {
+
+    private final ReadYourWritesTracker writeTracker;
+
+    public WriteTrackingDataSource(DataSource primary, ReadYourWritesTracker writeTracker) {
+        super(primary);
+        this.writeTracker = writeTracker;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return tracked(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return tracked(super.getConnection(username, password));
+    }
+
+    private Connection tracked(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    Object result = invoke(connection, method, args);
+                    return result instanceof Statement statement ? tracked(statement) : result;
+                });
+    }
+
+    private Statement tracked(Statement statement) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    Object result = invoke(statement, method, args);
+                    if (wrote(method.getName(), result)) {
+                        writeTracker.recordWriteOnCommit();
+                    }
+                    return result;
+                });
+    }
+
+    /** Whether a statement call with this result changed rows; {@code execute} tells only that it did not query. */
+    private static boolean wrote(String method, Object result) {
+        return switch (method) {
+            case "executeUpdate", "executeLargeUpdate" -> ((Number) result).longValue() > 0;
+            case "executeBatch" -> Arrays.stream((int[]) result).anyMatch(count -> count != 0);
+            case "executeLargeBatch" -> Arrays.stream((long[]) result).anyMatch(count -> count != 0);
+            case "execute" -> Boolean.FALSE.equals(result);
+            default -> false;
+        };
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
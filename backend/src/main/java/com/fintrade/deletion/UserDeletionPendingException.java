@@ -0,0 +1,9 @@
+package com.fintrade.deletion;
+
+/** A change that would re-enable or otherwise edit a user whose deletion has been requested; answered with 409. */
+public class UserDeletionPendingException extends RuntimeException {
+
+    public UserDeletionPendingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,344 @@
+package com.fintrade.deletion;
+
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.User;
+import com.fintrade.entity.UserDeletionJob;
+import com.fintrade.journal.TradeJournal;
+import com.fintrade.pretrade.PositionCache;
+import com.fintrade.reports.ReportService;
+import com.fintrade.repository.UserDeletionJobRepository;
+import com.fintrade.repository.UserRepository;
+import com.fintrade.rollup.RollupService;
+import com.fintrade.trading.MatchingEngine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Deletes users in the background. The account is disabled as soon as the deletion is
+ * requested, which also locks out tokens already issued. A single worker then cancels the
+ * user's resting orders, waits until their fills are settled, and deletes the rows that
+ * refer to the user one table at a time in chunks of {@code user-deletion.chunk-size}
+ * primary keys. Each chunk is its own short transaction, followed by a pause of
+ * {@code user-deletion.pause-millis}, so trading never waits long on these row locks.
+ * Deleted holdings and transactions come off the rollups like any other delete; the
+ * journal records the user's deletion as a single entry once it is complete, and the
+ * user's report files are removed. Progress is written to the job row with every chunk.
+ *
+ * <p>A job is claimed for this instance with a lease of {@code user-deletion.lease}
+ * milliseconds, renewed with every chunk and every {@code user-deletion.lease-renewal}.
+ * Only a pending job, or one whose lease ran out because its instance stopped, can be
+ * claimed, and a chunk whose instance lost the claim is rolled back, so a user is deleted
+ * by one instance at a time. The renewal also picks up pending jobs and jobs whose lease
+ * ran out, including those cut short by a restart.
+ */
+@Service
+public class UserDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDeletionService.class);
+
+    private static final String START = "UPDATE user_deletion_jobs SET status = 'RUNNING', "
+            + "started_at = COALESCE(started_at, ?), claimed_by = ?, lease_until = ? "
+            + "WHERE id = ? AND (status = 'PENDING' OR (status = 'RUNNING' AND lease_until < ?))";
+    private static final String RENEW = "UPDATE user_deletion_jobs SET lease_until = ? "
+            + "WHERE claimed_by = ? AND status = 'RUNNING'";
+    private static final String PROGRESS = "UPDATE user_deletion_jobs SET step = ?, rows_deleted = rows_deleted + ?, "
+            + "lease_until = ? WHERE id = ? AND claimed_by = ?";
+    private static final String FINISH = "UPDATE user_deletion_jobs SET status = ?, finished_at = ?, error = ? "
+            + "WHERE id = ? AND claimed_by = ?";
+    private static final String SELECT_PORTFOLIOS = "SELECT p.id, s.symbol, p.quantity, p.total_value, "
+            + "p.total_cost FROM portfolios p JOIN securities s ON s.id = p.security_id WHERE p.user_id = ? "
+            + "ORDER BY p.id LIMIT ? FOR UPDATE";
+    private static final String SELECT_TRANSACTIONS = "SELECT t.id, t.transaction_date, s.symbol, "
+            + "t.transaction_type, t.quantity, t.total_amount FROM transactions t "
+            + "JOIN securities s ON s.id = t.security_id WHERE t.user_id = ? ORDER BY t.id LIMIT ? FOR UPDATE";
+    private static final long ORDER_CANCEL_TIMEOUT_SECONDS = 30;
+    private static final int ERROR_LENGTH = 500;
+
+    /** Tables in the order they are emptied: whatever refers to a row goes before that row. */
+    private enum Step {
+        REPORT_JOBS("report_jobs", "id", "SELECT id FROM report_jobs WHERE user_id = ? ORDER BY id LIMIT ?"),
+        REALIZED_GAINS("realized_gains", "id", "SELECT id FROM realized_gains WHERE user_id = ? ORDER BY id LIMIT ?"),
+        TAX_LOT_SELECTIONS("tax_lot_selections", "id", "SELECT s.id FROM tax_lot_selections s "
+                + "JOIN transactions t ON t.id = s.sell_transaction_id WHERE t.user_id = ? ORDER BY s.id LIMIT ?"),
+        TAX_LOTS("tax_lots", "transaction_id",
+                "SELECT transaction_id FROM tax_lots WHERE user_id = ? ORDER BY transaction_id LIMIT ?"),
+        NAV_HISTORY("nav_history", "id", "SELECT id FROM nav_history WHERE user_id = ? ORDER BY id LIMIT ?"),
+        TRADING_LIMITS("trading_limits", "user_id",
+                "SELECT user_id FROM trading_limits WHERE user_id = ? ORDER BY user_id LIMIT ?"),
+        PORTFOLIOS("portfolios", "id", SELECT_PORTFOLIOS),
+        TRANSACTIONS("transactions", "id", SELECT_TRANSACTIONS);
+
+        final String table;
+        final String key;
+        final String select;
+
+        Step(String table, String key, String select) {
+            this.table = table;
+            this.key = key;
+            this.select = select;
+        }
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserDeletionJobRepository jobRepository;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private MatchingEngine matchingEngine;
+
+    @Autowired
+    private TradeJournal tradeJournal;
+
+    @Autowired
+    private PositionCache positionCache;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${user-deletion.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${user-deletion.pause-millis:50}")
+    private long pauseMillis;
+
+    @Value("${user-deletion.lease:60000}")
+    private long leaseMillis;
+
+    /** Identifies this instance's claims. */
+    private final String instance = UUID.randomUUID().toString();
+
+    /** Ids of the jobs waiting or running here, so none is taken twice. */
+    private final Set<Long> accepted = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Disables the user and queues their deletion once this transaction commits. A
+     * deletion already queued or running is returned as it is; empty if there is no such user.
+     * The user's row stays locked until then.
+     */
+    @Transactional
+    public Optional<UserDeletionJob> request(Long userId) {
+        return userRepository.findForUpdateById(userId).map(this::request);
+    }
+
+    /**
+     * Applies an admin's {@code change} to the user and saves it, unless a deletion of theirs
+     * has been requested: such a user stays disabled while their rows are removed, and after
+     * a failure until the deletion is requested again. The user's row is locked, as in
+     * {@link #request}, so the two cannot pass each other. Empty if there is no such user.
+     *
+     * @throws UserDeletionPendingException if the user has a deletion job
+     */
+    @Transactional
+    public Optional<User> updateUnlessDeleting(Long userId, Consumer<User> change) {
+        Optional<User> user = userRepository.findForUpdateById(userId);
+        if (user.isPresent() && jobRepository.findTopByUserIdOrderByIdDesc(userId).isPresent()) {
+            throw new UserDeletionPendingException("user " + userId + " is being deleted");
+        }
+        user.ifPresent(change);
+        return user.map(userRepository::save);
+    }
+
+    private UserDeletionJob request(User user) {
+        Optional<UserDeletionJob> latest = jobRepository.findTopByUserIdOrderByIdDesc(user.getId());
+        if (latest.isPresent() && isActive(latest.get())) {
+            return latest.get();
+        }
+        user.setEnabled(false);
+        UserDeletionJob job = jobRepository.save(new UserDeletionJob(user.getId(), user.getUsername()));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(job.getId(), job.getUserId());
+            }
+        });
+        return job;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<UserDeletionJob> getJob(Long id) {
+        return jobRepository.findById(id);
+    }
+
+    /**
+     * Renews the leases of the deletions running here, then picks up pending jobs not yet
+     * taken and jobs whose instance stopped renewing their lease. Runs from startup on.
+     */
+    @Scheduled(fixedDelayString = "${user-deletion.lease-renewal:20000}")
+    public void renewAndResume() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(RENEW, leaseUntil(now), instance);
+        List<UserDeletionJob> unclaimed = jobRepository.findByStatusOrStatusAndLeaseUntilBeforeOrderById(
+                UserDeletionJob.Status.PENDING, UserDeletionJob.Status.RUNNING, now);
+        long expired = unclaimed.stream().filter(job -> job.getStatus() == UserDeletionJob.Status.RUNNING).count();
+        if (expired > 0) {
+            log.info("Taking over {} user deletions whose lease ran out", expired);
+        }
+        unclaimed.forEach(job -> submit(job.getId(), job.getUserId()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        background.shutdownNow();
+    }
+
+    private void submit(Long jobId, long userId) {
+        if (accepted.add(jobId)) {
+            background.execute(() -> {
+                try {
+                    run(jobId, userId);
+                } finally {
+                    accepted.remove(jobId);
+                }
+            });
+        }
+    }
+
+    private void run(Long jobId, long userId) {
+        long started = System.nanoTime();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (jdbcTemplate.update(START, Timestamp.valueOf(now), instance, leaseUntil(now), jobId,
+                    Timestamp.valueOf(now)) == 0) {
+                return;
+            }
+            int cancelled = matchingEngine.cancelAll(userId).get(ORDER_CANCEL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (cancelled > 0) {
+                log.info("Cancelled {} resting orders of user {}", cancelled, userId);
+            }
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            long rows = 0;
+            for (Step step : Step.values()) {
+                int deleted;
+                do {
+                    deleted = transaction.execute(status -> deleteChunk(jobId, userId, step));
+                    rows += deleted;
+                    pause(deleted);
+                } while (deleted == chunkSize);
+            }
+            rows += transaction.execute(status -> {
+                int deleted = jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+                progress(jobId, "users", deleted);
+                jdbcTemplate.update(FINISH, UserDeletionJob.Status.DONE.name(), Timestamp.valueOf(LocalDateTime.now()),
+                        null, jobId, instance);
+                tradeJournal.userDeleted(userId);
+                positionCache.userChanged(userId);
+                return deleted;
+            });
+            reportService.userDeleted(userId);
+            log.info("Deleted user {} ({} rows) in {} ms", userId, rows, (System.nanoTime() - started) / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("User deletion {} interrupted; it resumes once its lease runs out", jobId);
+        } catch (ClaimLost e) {
+            log.warn("User deletion {} was taken over by another instance after its lease ran out", jobId);
+        } catch (Exception e) {
+            log.error("User deletion {} failed", jobId, e);
+            String message = String.valueOf(e.getMessage());
+            jdbcTemplate.update(FINISH, UserDeletionJob.Status.FAILED.name(), Timestamp.valueOf(LocalDateTime.now()),
+                    message.substring(0, Math.min(message.length(), ERROR_LENGTH)), jobId, instance);
+        }
+    }
+
+    /** Deletes up to one chunk of the user's rows from one table and records the progress. */
+    private int deleteChunk(Long jobId, long userId, Step step) {
+        List<Long> ids = jdbcTemplate.query(step.select, (row, i) -> {
+            switch (step) {
+                case PORTFOLIOS -> {
+                    RollupService.Holding holding = new RollupService.Holding(row.getString(2), row.getBigDecimal(3),
+                            row.getBigDecimal(4), row.getBigDecimal(5));
+                    rollupService.holdingChanged(userId, holding, null);
+                    positionCache.holdingChanged(userId, holding, null);
+                }
+                case TRANSACTIONS -> {
+                    Timestamp date = row.getTimestamp(2);
+                    rollupService.tradeChanged(userId, RollupService.Trade.of(
+                            date != null ? date.toLocalDateTime() : null, row.getString(3),
+                            Transaction.TransactionType.valueOf(row.getString(4)), row.getBigDecimal(5),
+                            row.getBigDecimal(6)), null);
+                }
+                default -> {
+                }
+            }
+            return row.getLong(1);
+        }, userId, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        int deleted = jdbcTemplate.update("DELETE FROM " + step.table + " WHERE " + step.key + " IN (" + placeholders
+                + ")", ids.toArray());
+        progress(jobId, step.table, deleted);
+        return ids.size();
+    }
+
+    /** Records a chunk and renews the lease; rolls the chunk back if another instance has taken the job over. */
+    private void progress(Long jobId, String table, int deleted) {
+        if (jdbcTemplate.update(PROGRESS, table, deleted, leaseUntil(LocalDateTime.now()), jobId, instance) == 0) {
+            throw new ClaimLost();
+        }
+    }
+
+    private Timestamp leaseUntil(LocalDateTime now) {
+        return Timestamp.valueOf(now.plus(leaseMillis, ChronoUnit.MILLIS));
+    }
+
+    private void pause(int deleted) throws InterruptedException {
+        if (deleted > 0 && pauseMillis > 0) {
+            Thread.sleep(pauseMillis);
+        }
+    }
+
+    private static boolean isActive(UserDeletionJob job) {
+        return job.getStatus() == UserDeletionJob.Status.PENDING || job.getStatus() == UserDeletionJob.Status.RUNNING;
+    }
+
+    /** Thrown when the job's lease ran out and another instance claimed it. */
+    private static final class ClaimLost extends RuntimeException {
+
+        ClaimLost() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.fintrade.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class AumView {
+
+    private final BigDecimal marketValue;
+    private final BigDecimal costBasis;
+    private final long positions;
+    private final int symbolCount;
+    private final List<SymbolAum> symbols;
+
+    public AumView(BigDecimal marketValue, BigDecimal costBasis, long positions, int symbolCount,
+            List<SymbolAum> symbols) {
+        this.marketValue = marketValue;
+        this.costBasis = costBasis;
+        this.positions = positions;
+        this.symbolCount = symbolCount;
+        this.symbols = symbols;
+    }
+
+    public BigDecimal getMarketValue() {
+        return marketValue;
+    }
+
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public long getPositions() {
+        return positions;
+    }
+
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    public List<SymbolAum> getSymbols() {
+        return symbols;
+    }
+
+    /** Holdings in one symbol across all users; {@code holders} counts users with a positive quantity. */
+    public record SymbolAum(String symbol, long holders, BigDecimal quantity, BigDecimal marketValue,
+            BigDecimal costBasis) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.fintrade.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public class PerformanceView {
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final BigDecimal startNav;
+    private final BigDecimal endNav;
+    private final BigDecimal netFlow;
+    private final BigDecimal timeWeightedReturn;
+    private final BigDecimal moneyWeightedReturn;
+    private final List<Point> series;
+
+    public PerformanceView(LocalDate from, LocalDate to, BigDecimal startNav, BigDecimal endNav, BigDecimal netFlow,
+            BigDecimal timeWeightedReturn, BigDecimal moneyWeightedReturn, List<Point> series) {
+        this.from = from;
+        this.to = to;
+        this.startNav = startNav;
+        this.endNav = endNav;
+        this.netFlow = netFlow;
+        this.timeWeightedReturn = timeWeightedReturn;
+        this.moneyWeightedReturn = moneyWeightedReturn;
+        this.series = series;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public BigDecimal getStartNav() {
+        return startNav;
+    }
+
+    public BigDecimal getEndNav() {
+        return endNav;
+    }
+
+    public BigDecimal getNetFlow() {
+        return netFlow;
+    }
+
+    public BigDecimal getTimeWeightedReturn() {
+        return timeWeightedReturn;
+    }
+
+    public BigDecimal getMoneyWeightedReturn() {
+        return moneyWeightedReturn;
+    }
+
+    public List<Point> getSeries() {
+        return series;
+    }
+
+    /** One day: NAV at the close, the day's net flow and the TWR since the start of the range. */
+    public record Point(LocalDate date, BigDecimal nav, BigDecimal netFlow, BigDecimal timeWeightedReturn) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.fintrade.dto;
+
+import java.math.BigDecimal;
+
+public class PortfolioSummaryView {
+
+    private final BigDecimal totalValue;
+    private final BigDecimal totalProfitLoss;
+
+    public PortfolioSummaryView(BigDecimal totalValue, BigDecimal totalProfitLoss) {
+        this.totalValue = totalValue;
+        this.totalProfitLoss = totalProfitLoss;
+    }
+
+    public BigDecimal getTotalValue() {
+        return totalValue;
+    }
+
+    public BigDecimal getTotalProfitLoss() {
+        return totalProfitLoss;
+    }
+}
@@ -0,0 +1,72 @@
+package com.fintrade.dto;
+
+import java.math.BigDecimal;
+
+public class PortfolioView {
+
+    private final Long id;
+    private final String symbol;
+    private final String companyName;
+    private final BigDecimal quantity;
+    private final BigDecimal averagePrice;
+    private final BigDecimal currentPrice;
+    private final BigDecimal totalValue;
+    private final BigDecimal totalCost;
+    private final BigDecimal profitLoss;
+    private final BigDecimal profitLossPercentage;
+
+    public PortfolioView(Long id, String symbol, String companyName, BigDecimal quantity,
+            BigDecimal averagePrice, BigDecimal currentPrice, BigDecimal totalValue, BigDecimal totalCost,
+            BigDecimal profitLoss, BigDecimal profitLossPercentage) {
+        this.id = id;
+        this.symbol = symbol;
+        this.companyName = companyName;
+        this.quantity = quantity;
+        this.averagePrice = averagePrice;
+        this.currentPrice = currentPrice;
+        this.totalValue = totalValue;
+        this.totalCost = totalCost;
+        this.profitLoss = profitLoss;
+        this.profitLossPercentage = profitLossPercentage;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getAveragePrice() {
+        return averagePrice;
+    }
+
+    public BigDecimal getCurrentPrice() {
+        return currentPrice;
+    }
+
+    public BigDecimal getTotalValue() {
+        return totalValue;
+    }
+
+    public BigDecimal getTotalCost() {
+        return totalCost;
+    }
+
+    public BigDecimal getProfitLoss() {
+        return profitLoss;
+    }
+
+    public BigDecimal getProfitLossPercentage() {
+        return profitLossPercentage;
+    }
+}
@@ -0,0 +1,68 @@
+package com.fintrade.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class RealizedGainsView {
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final BigDecimal proceeds;
+    private final BigDecimal costBasis;
+    private final BigDecimal shortTermGain;
+    private final BigDecimal longTermGain;
+    private final BigDecimal totalGain;
+    private final List<Gain> gains;
+
+    public RealizedGainsView(LocalDate from, LocalDate to, BigDecimal proceeds, BigDecimal costBasis,
+            BigDecimal shortTermGain, BigDecimal longTermGain, BigDecimal totalGain, List<Gain> gains) {
+        this.from = from;
+        this.to = to;
+        this.proceeds = proceeds;
+        this.costBasis = costBasis;
+        this.shortTermGain = shortTermGain;
+        this.longTermGain = longTermGain;
+        this.totalGain = totalGain;
+        this.gains = gains;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public BigDecimal getProceeds() {
+        return proceeds;
+    }
+
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public BigDecimal getShortTermGain() {
+        return shortTermGain;
+    }
+
+    public BigDecimal getLongTermGain() {
+        return longTermGain;
+    }
+
+    public BigDecimal getTotalGain() {
+        return totalGain;
+    }
+
+    public List<Gain> getGains() {
+        return gains;
+    }
+
+    /** One sell matched against one lot. */
+    public record Gain(String symbol, Long sellTransactionId, Long lotTransactionId, BigDecimal quantity,
+            LocalDateTime acquiredAt, LocalDateTime soldAt, BigDecimal proceeds, BigDecimal costBasis, BigDecimal gain,
+            boolean longTerm) {
+    }
+}
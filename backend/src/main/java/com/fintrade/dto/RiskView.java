@@ -0,0 +1,66 @@
+package com.fintrade.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class RiskView {
+
+    private final LocalDate asOf;
+    private final int days;
+    private final String benchmark;
+    private final BigDecimal portfolioValue;
+    private final BigDecimal volatility;
+    private final BigDecimal beta;
+    private final BigDecimal correlation;
+    private final BigDecimal valueAtRisk95;
+    private final BigDecimal valueAtRisk99;
+
+    public RiskView(LocalDate asOf, int days, String benchmark, BigDecimal portfolioValue, BigDecimal volatility,
+            BigDecimal beta, BigDecimal correlation, BigDecimal valueAtRisk95, BigDecimal valueAtRisk99) {
+        this.asOf = asOf;
+        this.days = days;
+        this.benchmark = benchmark;
+        this.portfolioValue = portfolioValue;
+        this.volatility = volatility;
+        this.beta = beta;
+        this.correlation = correlation;
+        this.valueAtRisk95 = valueAtRisk95;
+        this.valueAtRisk99 = valueAtRisk99;
+    }
+
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public String getBenchmark() {
+        return benchmark;
+    }
+
+    public BigDecimal getPortfolioValue() {
+        return portfolioValue;
+    }
+
+    public BigDecimal getVolatility() {
+        return volatility;
+    }
+
+    public BigDecimal getBeta() {
+        return beta;
+    }
+
+    public BigDecimal getCorrelation() {
+        return correlation;
+    }
+
+    public BigDecimal getValueAtRisk95() {
+        return valueAtRisk95;
+    }
+
+    public BigDecimal getValueAtRisk99() {
+        return valueAtRisk99;
+    }
+}
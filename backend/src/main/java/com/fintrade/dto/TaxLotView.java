@@ -0,0 +1,56 @@
+package com.fintrade.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class TaxLotView {
+
+    private final Long transactionId;
+    private final String symbol;
+    private final LocalDateTime acquiredAt;
+    private final BigDecimal quantity;
+    private final BigDecimal remainingQuantity;
+    private final BigDecimal costBasis;
+    private final BigDecimal costPerShare;
+
+    public TaxLotView(Long transactionId, String symbol, LocalDateTime acquiredAt, BigDecimal quantity,
+            BigDecimal remainingQuantity, BigDecimal costBasis, BigDecimal costPerShare) {
+        this.transactionId = transactionId;
+        this.symbol = symbol;
+        this.acquiredAt = acquiredAt;
+        this.quantity = quantity;
+        this.remainingQuantity = remainingQuantity;
+        this.costBasis = costBasis;
+        this.costPerShare = costPerShare;
+    }
+
+    /** The BUY transaction that opened the lot; sells name lots by it. */
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public LocalDateTime getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getRemainingQuantity() {
+        return remainingQuantity;
+    }
+
+    /** Cost basis of the remaining shares, commission included. */
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public BigDecimal getCostPerShare() {
+        return costPerShare;
+    }
+}
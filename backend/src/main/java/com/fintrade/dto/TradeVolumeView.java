@@ -0,0 +1,54 @@
+package com.fintrade.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public class TradeVolumeView {
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final String symbol;
+    private final long trades;
+    private final BigDecimal notional;
+    private final List<Day> days;
+
+    public TradeVolumeView(LocalDate from, LocalDate to, String symbol, long trades, BigDecimal notional,
+            List<Day> days) {
+        this.from = from;
+        this.to = to;
+        this.symbol = symbol;
+        this.trades = trades;
+        this.notional = notional;
+        this.days = days;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public long getTrades() {
+        return trades;
+    }
+
+    public BigDecimal getNotional() {
+        return notional;
+    }
+
+    public List<Day> getDays() {
+        return days;
+    }
+
+    /** One day with trades; days without any are left out. */
+    public record Day(LocalDate date, long trades, BigDecimal buyQuantity, BigDecimal sellQuantity,
+            BigDecimal notional) {
+    }
+}
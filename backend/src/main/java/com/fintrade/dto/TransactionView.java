@@ -0,0 +1,77 @@
+package com.fintrade.dto;
+
+import com.fintrade.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class TransactionView {
+
+    public static final int NOTES_PREVIEW_LENGTH = 60;
+
+    private final Long id;
+    private final String symbol;
+    private final String companyName;
+    private final Transaction.TransactionType transactionType;
+    private final BigDecimal quantity;
+    private final BigDecimal price;
+    private final BigDecimal totalAmount;
+    private final BigDecimal commission;
+    private final String notesPreview;
+    private final LocalDateTime transactionDate;
+
+    public TransactionView(Long id, String symbol, String companyName, Transaction.TransactionType transactionType,
+            BigDecimal quantity, BigDecimal price, BigDecimal totalAmount, BigDecimal commission,
+            String notesPreview, LocalDateTime transactionDate) {
+        this.id = id;
+        this.symbol = symbol;
+        this.companyName = companyName;
+        this.transactionType = transactionType;
+        this.quantity = quantity;
+        this.price = price;
+        this.totalAmount = totalAmount;
+        this.commission = commission;
+        this.notesPreview = notesPreview;
+        this.transactionDate = transactionDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    public Transaction.TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public BigDecimal getCommission() {
+        return commission;
+    }
+
+    public String getNotesPreview() {
+        return notesPreview;
+    }
+
+    public LocalDateTime getTransactionDate() {
+        return transactionDate;
+    }
+}
@@ -0,0 +1,23 @@
+package com.fintrade.dto;
+
+import java.util.List;
+
+public class UserPage {
+
+    private final List<UserView> items;
+    private final String nextCursor;
+
+    public UserPage(List<UserView> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<UserView> getItems() {
+        return items;
+    }
+
+    /** Pass back as {@code after} for the next page; null on the last page. */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
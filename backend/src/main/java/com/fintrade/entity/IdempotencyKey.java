@@ -0,0 +1,110 @@
+package com.fintrade.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A request made with an {@code Idempotency-Key} header, kept by {@code IdempotencyStore}
+ * until it expires. While the first request runs the row only claims the key; it is marked
+ * booked in the same database transaction that books the request's changes, and once the
+ * request has finished the row holds the response that is replayed to retries.
+ */
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_keys_scope_key", columnNames = { "scope", "idempotency_key" })
+}, indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+public class IdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** The id of the user the key belongs to; keys of different users never collide. */
+    @Column(name = "scope", length = 50, nullable = false)
+    private String scope;
+
+    @Column(name = "idempotency_key", length = 100, nullable = false)
+    private String key;
+
+    /** SHA-256 of the method, path and body, so a key reused for another request is caught. */
+    @Column(name = "fingerprint", length = 64, nullable = false)
+    private String fingerprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 12, nullable = false)
+    private Status status;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Lob
+    @Column(name = "response_body")
+    private byte[] responseBody;
+
+    /** Identifies the request holding the key; a new one is set when an abandoned claim is taken over. */
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public IdempotencyKey() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Integer getResponseStatus() {
+        return responseStatus;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getResponseBody() {
+        return responseBody;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public enum Status {
+        IN_PROGRESS, BOOKED, COMPLETED
+    }
+}
@@ -0,0 +1,69 @@
+package com.fintrade.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One user's portfolio value at the close of one day. Rows are appended by
+ * {@code NavEngine} and never updated.
+ */
+@Entity
+@Table(name = "nav_history", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_nav_history_user_date", columnNames = { "user_id", "nav_date" })
+})
+public class NavHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "nav_date", nullable = false)
+    private LocalDate navDate;
+
+    /** Holdings valued at the day's closing prices. */
+    @Column(name = "nav", precision = 19, scale = 2, nullable = false)
+    private BigDecimal nav;
+
+    /** Money put in by buys minus money taken out by sells during the day. */
+    @Column(name = "net_flow", precision = 19, scale = 2, nullable = false)
+    private BigDecimal netFlow;
+
+    /** Growth of one unit invested on the first day, chained daily; minus one is the TWR. */
+    @Column(name = "twr_index", precision = 24, scale = 10, nullable = false)
+    private BigDecimal twrIndex;
+
+    public NavHistory() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public LocalDate getNavDate() {
+        return navDate;
+    }
+
+    public BigDecimal getNav() {
+        return nav;
+    }
+
+    public BigDecimal getNetFlow() {
+        return netFlow;
+    }
+
+    public BigDecimal getTwrIndex() {
+        return twrIndex;
+    }
+}
@@ -1,29 +1,42 @@
 package com.fintrade.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fintrade.securitymaster.CompanyNameConverter;
+import com.fintrade.securitymaster.SecurityIdConverter;
+import com.fintrade.securitymaster.SecurityListingListener;
+import com.fintrade.securitymaster.SecurityReference;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "portfolios")
-public class Portfolio {
+@Table(name = "portfolios", indexes = {
+        @Index(name = "idx_portfolios_user_security", columnList = "user_id, security_id")
+})
+@EntityListeners(SecurityListingListener.class)
+public class Portfolio implements SecurityReference {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /** Stored as the security id of the symbol in the security master. */
     @NotBlank
     @Size(max = 10)
-    @Column(name = "symbol")
+    @Convert(converter = SecurityIdConverter.class)
+    @Column(name = "security_id", nullable = false)
     private String symbol;
 
+    /** The security master's name for the symbol; a name given here only lists a new symbol. */
     @NotBlank
     @Size(max = 100)
-    @Column(name = "company_name")
+    @Convert(converter = CompanyNameConverter.class)
+    @Column(name = "security_id", insertable = false, updatable = false)
     private String companyName;
 
     @NotNull
@@ -53,6 +66,7 @@ public class Portfolio {
     @Column(name = "profit_loss_percentage", precision = 5, scale = 2)
     private BigDecimal profitLossPercentage;
 
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -0,0 +1,111 @@
+package com.fintrade.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The part of one SELL transaction matched against one tax lot. Rows are written by
+ * {@code TaxLotService} and replaced whenever the symbol's lots are rebuilt.
+ */
+@Entity
+@Table(name = "realized_gains", indexes = {
+        @Index(name = "idx_realized_gains_user_sold", columnList = "user_id, sold_at"),
+        @Index(name = "idx_realized_gains_user_symbol", columnList = "user_id, symbol")
+})
+public class RealizedGain {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "symbol", length = 10, nullable = false)
+    private String symbol;
+
+    @Column(name = "sell_transaction_id", nullable = false)
+    private Long sellTransactionId;
+
+    @Column(name = "lot_transaction_id", nullable = false)
+    private Long lotTransactionId;
+
+    @Column(name = "quantity", precision = 19, scale = 4, nullable = false)
+    private BigDecimal quantity;
+
+    @Column(name = "acquired_at", nullable = false)
+    private LocalDateTime acquiredAt;
+
+    @Column(name = "sold_at", nullable = false)
+    private LocalDateTime soldAt;
+
+    @Column(name = "cost_basis", precision = 19, scale = 6, nullable = false)
+    private BigDecimal costBasis;
+
+    /** The lot's share of the sale, net of the sell commission. */
+    @Column(name = "proceeds", precision = 19, scale = 6, nullable = false)
+    private BigDecimal proceeds;
+
+    @Column(name = "gain", precision = 19, scale = 6, nullable = false)
+    private BigDecimal gain;
+
+    /** Held for more than a year. */
+    @Column(name = "long_term", nullable = false)
+    private boolean longTerm;
+
+    public RealizedGain() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public Long getSellTransactionId() {
+        return sellTransactionId;
+    }
+
+    public Long getLotTransactionId() {
+        return lotTransactionId;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public LocalDateTime getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    public LocalDateTime getSoldAt() {
+        return soldAt;
+    }
+
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public BigDecimal getProceeds() {
+        return proceeds;
+    }
+
+    public BigDecimal getGain() {
+        return gain;
+    }
+
+    public boolean isLongTerm() {
+        return longTerm;
+    }
+}
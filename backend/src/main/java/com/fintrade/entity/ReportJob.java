@@ -0,0 +1,132 @@
+package com.fintrade.entity;
+
+import com.fintrade.reports.ReportType;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A report generated in the background by {@code ReportService}. The file is written to
+ * local disk once the job is {@code DONE} and removed with the row after the retention period.
+ */
+@Entity
+@Table(name = "report_jobs", indexes = {
+        @Index(name = "idx_report_jobs_user", columnList = "user_id, id"),
+        @Index(name = "idx_report_jobs_status", columnList = "status, finished_at")
+})
+public class ReportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 30, nullable = false)
+    private ReportType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 10, nullable = false)
+    private Status status;
+
+    /** First day covered, or null for the whole history. */
+    @Column(name = "period_from")
+    private LocalDate periodFrom;
+
+    /** Last day covered, inclusive, or null for the whole history. */
+    @Column(name = "period_to")
+    private LocalDate periodTo;
+
+    @Column(name = "rows_written", nullable = false)
+    private long rowsWritten;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "error", length = 500)
+    private String error;
+
+    /** The instance generating the report, while it is {@code RUNNING}. */
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    /** When the claim runs out unless its instance renews it; another instance may then take the job over. */
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    public ReportJob() {
+    }
+
+    public ReportJob(Long userId, ReportType type, LocalDate periodFrom, LocalDate periodTo) {
+        this.userId = userId;
+        this.type = type;
+        this.periodFrom = periodFrom;
+        this.periodTo = periodTo;
+        this.status = Status.QUEUED;
+        this.requestedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public ReportType getType() {
+        return type;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDate getPeriodFrom() {
+        return periodFrom;
+    }
+
+    public LocalDate getPeriodTo() {
+        return periodTo;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+}
@@ -0,0 +1,52 @@
+package com.fintrade.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of the security master. Portfolios and transactions refer to it by its integer id
+ * instead of repeating the symbol and company name; {@code SecurityMaster} keeps the table
+ * in memory.
+ */
+@Entity
+@Table(name = "securities", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_securities_symbol", columnNames = "symbol")
+})
+public class Security {
+
+    public static final int SYMBOL_LENGTH = 10;
+    public static final int COMPANY_NAME_LENGTH = 100;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "symbol", length = SYMBOL_LENGTH, nullable = false)
+    private String symbol;
+
+    @Column(name = "company_name", length = COMPANY_NAME_LENGTH)
+    private String companyName;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public Security() {
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
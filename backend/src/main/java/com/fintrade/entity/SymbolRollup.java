@@ -0,0 +1,86 @@
+package com.fintrade.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Holdings across all users in one symbol, kept by {@code RollupService} from signed
+ * deltas. A symbol is spread over a few stripes so that concurrent writers rarely wait on
+ * the same row; its figures are the sum of its stripes.
+ */
+@Entity
+@Table(name = "symbol_rollups")
+@IdClass(SymbolRollup.Key.class)
+public class SymbolRollup {
+
+    @Id
+    @Column(name = "symbol", length = 10)
+    private String symbol;
+
+    @Id
+    @Column(name = "stripe")
+    private int stripe;
+
+    /** Users with a positive quantity. */
+    @Column(name = "holders", nullable = false)
+    private long holders;
+
+    @Column(name = "quantity", precision = 19, scale = 4, nullable = false)
+    private BigDecimal quantity;
+
+    /** Sum of the holdings' total value at their current prices: assets under management. */
+    @Column(name = "market_value", precision = 19, scale = 2, nullable = false)
+    private BigDecimal marketValue;
+
+    @Column(name = "cost_basis", precision = 19, scale = 2, nullable = false)
+    private BigDecimal costBasis;
+
+    public SymbolRollup() {
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getStripe() {
+        return stripe;
+    }
+
+    public long getHolders() {
+        return holders;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getMarketValue() {
+        return marketValue;
+    }
+
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public static class Key implements Serializable {
+
+        private String symbol;
+        private int stripe;
+
+        public Key() {
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && stripe == key.stripe && Objects.equals(symbol, key.symbol);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(symbol, stripe);
+        }
+    }
+}
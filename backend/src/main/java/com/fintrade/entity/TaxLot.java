@@ -0,0 +1,84 @@
+package com.fintrade.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Shares bought by one BUY transaction and how many of them are still held. Money is kept
+ * to the millionth so that splitting a lot across sells never loses a cent to rounding.
+ * Rows are written by {@code TaxLotService}.
+ */
+@Entity
+@Table(name = "tax_lots", indexes = {
+        @Index(name = "idx_tax_lots_user_symbol", columnList = "user_id, symbol, acquired_at")
+})
+public class TaxLot {
+
+    /** The BUY transaction; lots are named by it so that a rebuild keeps their identity. */
+    @Id
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "symbol", length = 10, nullable = false)
+    private String symbol;
+
+    @Column(name = "acquired_at", nullable = false)
+    private LocalDateTime acquiredAt;
+
+    @Column(name = "quantity", precision = 19, scale = 4, nullable = false)
+    private BigDecimal quantity;
+
+    /** Price paid for the whole lot plus the buy commission. */
+    @Column(name = "cost_basis", precision = 19, scale = 6, nullable = false)
+    private BigDecimal costBasis;
+
+    @Column(name = "remaining_quantity", precision = 19, scale = 4, nullable = false)
+    private BigDecimal remainingQuantity;
+
+    /** The part of the cost basis not yet matched against a sell. */
+    @Column(name = "remaining_cost", precision = 19, scale = 6, nullable = false)
+    private BigDecimal remainingCost;
+
+    public TaxLot() {
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public LocalDateTime getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public BigDecimal getRemainingQuantity() {
+        return remainingQuantity;
+    }
+
+    public BigDecimal getRemainingCost() {
+        return remainingCost;
+    }
+}
@@ -0,0 +1,56 @@
+package com.fintrade.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * A lot named on a SPECIFIC sell and how much of it to sell. Kept so that rebuilding the
+ * lots matches the sell the same way again.
+ */
+@Entity
+@Table(name = "tax_lot_selections", indexes = {
+        @Index(name = "idx_tax_lot_selections_sell", columnList = "sell_transaction_id, pick_order")
+})
+public class TaxLotSelection {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sell_transaction_id", nullable = false)
+    private Long sellTransactionId;
+
+    @Column(name = "lot_transaction_id", nullable = false)
+    private Long lotTransactionId;
+
+    @Column(name = "quantity", precision = 19, scale = 4, nullable = false)
+    private BigDecimal quantity;
+
+    /** Order in which the lots were named. */
+    @Column(name = "pick_order", nullable = false)
+    private int position;
+
+    public TaxLotSelection() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getSellTransactionId() {
+        return sellTransactionId;
+    }
+
+    public Long getLotTransactionId() {
+        return lotTransactionId;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
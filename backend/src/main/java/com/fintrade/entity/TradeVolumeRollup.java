@@ -0,0 +1,95 @@
+package com.fintrade.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Trades recorded in one symbol on one day, kept by {@code RollupService} from signed
+ * deltas and striped like {@link SymbolRollup}.
+ */
+@Entity
+@Table(name = "trade_volume_daily")
+@IdClass(TradeVolumeRollup.Key.class)
+public class TradeVolumeRollup {
+
+    @Id
+    @Column(name = "trade_date")
+    private LocalDate tradeDate;
+
+    @Id
+    @Column(name = "symbol", length = 10)
+    private String symbol;
+
+    @Id
+    @Column(name = "stripe")
+    private int stripe;
+
+    @Column(name = "trades", nullable = false)
+    private long trades;
+
+    @Column(name = "buy_quantity", precision = 19, scale = 4, nullable = false)
+    private BigDecimal buyQuantity;
+
+    @Column(name = "sell_quantity", precision = 19, scale = 4, nullable = false)
+    private BigDecimal sellQuantity;
+
+    /** Sum of the transactions' total amounts, commission included. */
+    @Column(name = "notional", precision = 19, scale = 2, nullable = false)
+    private BigDecimal notional;
+
+    public TradeVolumeRollup() {
+    }
+
+    public LocalDate getTradeDate() {
+        return tradeDate;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getStripe() {
+        return stripe;
+    }
+
+    public long getTrades() {
+        return trades;
+    }
+
+    public BigDecimal getBuyQuantity() {
+        return buyQuantity;
+    }
+
+    public BigDecimal getSellQuantity() {
+        return sellQuantity;
+    }
+
+    public BigDecimal getNotional() {
+        return notional;
+    }
+
+    public static class Key implements Serializable {
+
+        private LocalDate tradeDate;
+        private String symbol;
+        private int stripe;
+
+        public Key() {
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && stripe == key.stripe && Objects.equals(tradeDate, key.tradeDate)
+                    && Objects.equals(symbol, key.symbol);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tradeDate, symbol, stripe);
+        }
+    }
+}
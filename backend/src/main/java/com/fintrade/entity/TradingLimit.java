@@ -0,0 +1,76 @@
+package com.fintrade.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A user's own trading limits, replacing the configured defaults for them. A null column
+ * falls back to the default.
+ */
+@Entity
+@Table(name = "trading_limits")
+public class TradingLimit {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "max_order_quantity", precision = 19, scale = 4)
+    private BigDecimal maxOrderQuantity;
+
+    @Column(name = "max_order_notional", precision = 19, scale = 2)
+    private BigDecimal maxOrderNotional;
+
+    @Column(name = "max_position_quantity", precision = 19, scale = 4)
+    private BigDecimal maxPositionQuantity;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public TradingLimit() {
+    }
+
+    public TradingLimit(Long userId) {
+        this.userId = userId;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public BigDecimal getMaxOrderQuantity() {
+        return maxOrderQuantity;
+    }
+
+    public void setMaxOrderQuantity(BigDecimal maxOrderQuantity) {
+        this.maxOrderQuantity = maxOrderQuantity;
+    }
+
+    public BigDecimal getMaxOrderNotional() {
+        return maxOrderNotional;
+    }
+
+    public void setMaxOrderNotional(BigDecimal maxOrderNotional) {
+        this.maxOrderNotional = maxOrderNotional;
+    }
+
+    public BigDecimal getMaxPositionQuantity() {
+        return maxPositionQuantity;
+    }
+
+    public void setMaxPositionQuantity(BigDecimal maxPositionQuantity) {
+        this.maxPositionQuantity = maxPositionQuantity;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
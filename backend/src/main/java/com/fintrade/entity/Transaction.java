@@ -1,29 +1,43 @@
 package com.fintrade.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fintrade.securitymaster.CompanyNameConverter;
+import com.fintrade.securitymaster.SecurityIdConverter;
+import com.fintrade.securitymaster.SecurityListingListener;
+import com.fintrade.securitymaster.SecurityReference;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
-public class Transaction {
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_user_date", columnList = "user_id, transaction_date"),
+        @Index(name = "idx_transactions_user_security_date", columnList = "user_id, security_id, transaction_date")
+})
+@EntityListeners(SecurityListingListener.class)
+public class Transaction implements SecurityReference {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /** Stored as the security id of the symbol in the security master. */
     @NotBlank
     @Size(max = 10)
-    @Column(name = "symbol")
+    @Convert(converter = SecurityIdConverter.class)
+    @Column(name = "security_id", nullable = false)
     private String symbol;
 
+    /** The security master's name for the symbol; a name given here only lists a new symbol. */
     @NotBlank
     @Size(max = 100)
-    @Column(name = "company_name")
+    @Convert(converter = CompanyNameConverter.class)
+    @Column(name = "security_id", insertable = false, updatable = false)
     private String companyName;
 
     @NotNull
@@ -52,6 +66,12 @@ public class Transaction {
     @Column(name = "notes", length = 500)
     private String notes;
 
+    /** How a sell is matched against open tax lots; null means {@code tax-lots.default-method}. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "lot_method", length = 10)
+    private LotMethod lotMethod;
+
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -180,6 +200,14 @@ public class Transaction {
         this.notes = notes;
     }
 
+    public LotMethod getLotMethod() {
+        return lotMethod;
+    }
+
+    public void setLotMethod(LotMethod lotMethod) {
+        this.lotMethod = lotMethod;
+    }
+
     public User getUser() {
         return user;
     }
@@ -215,4 +243,9 @@ public class Transaction {
     public enum TransactionType {
         BUY, SELL
     }
+
+    /** Which open lots a sell closes: oldest first, newest first, or the lots named on the sell. */
+    public enum LotMethod {
+        FIFO, LIFO, SPECIFIC
+    }
 }
@@ -0,0 +1,119 @@
+package com.fintrade.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A fill the matching engine made but could not book, kept with the reason so it can be
+ * booked by hand. The orders were already consumed from the book, so dropping the fill
+ * would lose the trade.
+ */
+@Entity
+@Table(name = "unsettled_fills")
+public class UnsettledFill {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "symbol", length = 20, nullable = false)
+    private String symbol;
+
+    @Column(name = "company_name", length = 255)
+    private String companyName;
+
+    @Column(name = "price", precision = 12, scale = 2, nullable = false)
+    private BigDecimal price;
+
+    @Column(name = "quantity", precision = 14, scale = 4, nullable = false)
+    private BigDecimal quantity;
+
+    @Column(name = "buy_order_id", nullable = false)
+    private Long buyOrderId;
+
+    @Column(name = "buy_user_id", nullable = false)
+    private Long buyUserId;
+
+    @Column(name = "sell_order_id", nullable = false)
+    private Long sellOrderId;
+
+    @Column(name = "sell_user_id", nullable = false)
+    private Long sellUserId;
+
+    @Column(name = "executed_at", nullable = false)
+    private LocalDateTime executedAt;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+
+    @Column(name = "error", length = 500)
+    private String error;
+
+    public UnsettledFill() {
+    }
+
+    public UnsettledFill(String symbol, String companyName, BigDecimal price, BigDecimal quantity, Long buyOrderId,
+            Long buyUserId, Long sellOrderId, Long sellUserId, LocalDateTime executedAt, String error) {
+        this.symbol = symbol;
+        this.companyName = companyName;
+        this.price = price;
+        this.quantity = quantity;
+        this.buyOrderId = buyOrderId;
+        this.buyUserId = buyUserId;
+        this.sellOrderId = sellOrderId;
+        this.sellUserId = sellUserId;
+        this.executedAt = executedAt;
+        this.failedAt = LocalDateTime.now();
+        this.error = error;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public Long getBuyOrderId() {
+        return buyOrderId;
+    }
+
+    public Long getBuyUserId() {
+        return buyUserId;
+    }
+
+    public Long getSellOrderId() {
+        return sellOrderId;
+    }
+
+    public Long getSellUserId() {
+        return sellUserId;
+    }
+
+    public LocalDateTime getExecutedAt() {
+        return executedAt;
+    }
+
+    public LocalDateTime getFailedAt() {
+        return failedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
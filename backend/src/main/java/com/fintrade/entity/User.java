@@ -13,7 +13,11 @@ import java.util.Collection;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_first_name", columnList = "first_name"),
+        @Index(name = "idx_users_last_name", columnList = "last_name"),
+        @Index(name = "idx_users_created_at", columnList = "created_at")
+})
 public class User implements UserDetails {
 
     @Id
@@ -112,7 +116,7 @@ public class User implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return enabled;
+        return !Boolean.FALSE.equals(enabled);
     }
 
     // Getters and Setters
@@ -0,0 +1,112 @@
+package com.fintrade.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user being deleted in the background by {@code UserDeletionService}. The row outlives
+ * the user, so it keeps the id and username rather than a reference.
+ */
+@Entity
+@Table(name = "user_deletion_jobs", indexes = {
+        @Index(name = "idx_user_deletion_jobs_user", columnList = "user_id"),
+        @Index(name = "idx_user_deletion_jobs_status", columnList = "status")
+})
+public class UserDeletionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "username", length = 50)
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 10, nullable = false)
+    private Status status;
+
+    /** The table being emptied, or null before the first chunk. */
+    @Column(name = "step", length = 30)
+    private String step;
+
+    @Column(name = "rows_deleted", nullable = false)
+    private long rowsDeleted;
+
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "error", length = 500)
+    private String error;
+
+    /** The instance running the deletion, while it is {@code RUNNING}. */
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    /** When the claim runs out unless its instance renews it; another instance may then take the job over. */
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    public UserDeletionJob() {
+    }
+
+    public UserDeletionJob(Long userId, String username) {
+        this.userId = userId;
+        this.username = username;
+        this.status = Status.PENDING;
+        this.requestedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getStep() {
+        return step;
+    }
+
+    public long getRowsDeleted() {
+        return rowsDeleted;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public enum Status {
+        PENDING, RUNNING, DONE, FAILED
+    }
+}
@@ -0,0 +1,14 @@
+package com.fintrade.event;
+
+public class PortfolioChangedEvent {
+
+    private final Long userId;
+
+    public PortfolioChangedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,14 @@
+package com.fintrade.event;
+
+public class TransactionChangedEvent {
+
+    private final Long userId;
+
+    public TransactionChangedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -1,5 +1,7 @@
 package com.fintrade.exception;
 
+import com.fintrade.dto.MessageResponse;
+import com.fintrade.pretrade.PreTradeRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -56,6 +58,11 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(PreTradeRejectedException.class)
+    public ResponseEntity<MessageResponse> handlePreTradeRejected(PreTradeRejectedException ex) {
+        return ResponseEntity.badRequest().body(new MessageResponse("Error: " + ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGlobalException(Exception ex, WebRequest request) {
         Map<String, Object> body = new HashMap<>();
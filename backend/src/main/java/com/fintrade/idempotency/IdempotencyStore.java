@@ -0,0 +1,370 @@
+package com.fintrade.idempotency;
+
+import com.fintrade.event.PortfolioChangedEvent;
+import com.fintrade.event.TransactionChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Responses to requests made with an {@code Idempotency-Key}, kept for
+ * {@code idempotency.ttl} milliseconds.
+ *
+ * <p>The {@code idempotency_keys} table is the record every instance shares: the first
+ * request inserts its key, and the unique constraint turns away every other. The last
+ * {@code idempotency.cache-size} finished responses are also held in memory, so most
+ * retries are answered without a query. A duplicate that arrives while the first request
+ * is still running waits for it, on a future when both are on this instance and by
+ * polling the table otherwise, for at most {@code idempotency.wait-timeout} milliseconds.
+ *
+ * <p>A request's changes and the mark that its key was booked commit in the same database
+ * transaction (see {@link #onBooking}), so a retry can tell whether anything was booked
+ * even when the request died before its response was stored. A claim with nothing booked,
+ * left behind by an instance that died mid-request or by a request still running after
+ * {@code idempotency.lock-timeout} milliseconds, can be taken over; the request that lost
+ * its claim then has its booking rolled back. A booked key is never run again: without a
+ * response its retries are told so.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final String CLAIM = "INSERT INTO idempotency_keys (scope, idempotency_key, fingerprint, status, "
+            + "claim_token, created_at, expires_at) VALUES (?, ?, ?, 'IN_PROGRESS', ?, ?, ?)";
+    private static final String FIND = "SELECT id, status, fingerprint, response_status, content_type, response_body, "
+            + "created_at, expires_at FROM idempotency_keys WHERE scope = ? AND idempotency_key = ?";
+    private static final String TAKE_OVER = "UPDATE idempotency_keys SET fingerprint = ?, claim_token = ?, "
+            + "created_at = ?, expires_at = ? WHERE id = ? AND status = 'IN_PROGRESS' AND created_at < ?";
+    private static final String BOOK = "UPDATE idempotency_keys SET status = 'BOOKED' WHERE scope = ? "
+            + "AND idempotency_key = ? AND claim_token = ? AND status IN ('IN_PROGRESS', 'BOOKED')";
+    private static final String COMPLETE = "UPDATE idempotency_keys SET status = 'COMPLETED', response_status = ?, "
+            + "content_type = ?, response_body = ?, expires_at = ? WHERE scope = ? AND idempotency_key = ? "
+            + "AND claim_token = ? AND status IN ('IN_PROGRESS', 'BOOKED')";
+    private static final String RELEASE = "DELETE FROM idempotency_keys WHERE scope = ? AND idempotency_key = ? "
+            + "AND claim_token = ? AND status = 'IN_PROGRESS'";
+    private static final String DELETE_EXPIRED = "DELETE FROM idempotency_keys WHERE id = ? AND expires_at < ?";
+    private static final String CLEAN_UP = "DELETE FROM idempotency_keys WHERE expires_at < ? LIMIT ?";
+    private static final long POLL_MILLIS = 50;
+    private static final int CLEAN_UP_BATCH = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${idempotency.ttl:86400000}")
+    private long ttlMillis;
+
+    @Value("${idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${idempotency.wait-timeout:10000}")
+    private long waitTimeoutMillis;
+
+    @Value("${idempotency.lock-timeout:60000}")
+    private long lockTimeoutMillis;
+
+    private Map<Key, StoredResponse> finished;
+
+    /** Requests running on this instance, completed with their response or with null if they left none. */
+    private final Map<Key, CompletableFuture<StoredResponse>> running = new ConcurrentHashMap<>();
+
+    /** The claim of the request running on this thread, between {@link #begin} and its completion. */
+    private final ThreadLocal<Claim> claimed = new ThreadLocal<>();
+
+    @PostConstruct
+    public void init() {
+        int capacity = Math.max(1, cacheSize);
+        finished = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, StoredResponse> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * Decides what to do with a request: run it, having claimed its key, or answer it with
+     * the response of the request that claimed the key first.
+     */
+    public Decision begin(Key key, String fingerprint) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis);
+        while (true) {
+            StoredResponse cached = cached(key);
+            if (cached != null) {
+                return Decision.of(cached, fingerprint);
+            }
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> first = running.putIfAbsent(key, mine);
+            if (first != null) {
+                if (!await(first, deadline)) {
+                    return Decision.IN_PROGRESS;
+                }
+                continue;
+            }
+            Claim claim = new Claim(key, UUID.randomUUID().toString());
+            Existing existing;
+            try {
+                existing = claim(claim, fingerprint);
+            } catch (RuntimeException e) {
+                finish(key, null);
+                throw e;
+            }
+            if (existing == null) {
+                claimed.set(claim);
+                return new Decision(Outcome.PROCEED, null, claim);
+            }
+            finish(key, null);
+            if (existing.response() != null) {
+                finished.put(key, existing.response());
+                return Decision.of(existing.response(), fingerprint);
+            }
+            if (existing.unanswered()) {
+                return Decision.UNANSWERED;
+            }
+            if (System.nanoTime() > deadline) {
+                return Decision.IN_PROGRESS;
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+
+    /** Stores the response of a request that {@link #begin} let run and wakes its duplicates. */
+    public void complete(Claim claim, String fingerprint, int status, String contentType, byte[] body) {
+        Key key = claim.key();
+        StoredResponse response = null;
+        try {
+            LocalDateTime expiresAt = LocalDateTime.now().plus(ttlMillis, ChronoUnit.MILLIS);
+            if (jdbcTemplate.update(COMPLETE, status, contentType, body, Timestamp.valueOf(expiresAt), key.scope(),
+                    key.key(), claim.token()) == 1) {
+                response = new StoredResponse(fingerprint, status, contentType, body, expiresAt);
+                finished.put(key, response);
+            }
+        } catch (DataAccessException e) {
+            // The request has been served. A booked key is never run again; one with nothing booked
+            // can be taken over once the claim is older than idempotency.lock-timeout.
+            log.error("Could not store the response for idempotency key {}", key.key(), e);
+        } finally {
+            claimed.remove();
+            finish(key, response);
+        }
+    }
+
+    /** Gives up the key of a request that failed without booking anything, so that a retry runs it again. */
+    public void release(Claim claim) {
+        try {
+            jdbcTemplate.update(RELEASE, claim.key().scope(), claim.key().key(), claim.token());
+        } finally {
+            claimed.remove();
+            finish(claim.key(), null);
+        }
+    }
+
+    /**
+     * Called as a request's changes are booked: marks its key booked in the transaction that
+     * books them. If the claim was taken over meanwhile, the transaction is rolled back
+     * instead, so the request is booked once, by whoever holds the key.
+     */
+    @EventListener({ PortfolioChangedEvent.class, TransactionChangedEvent.class })
+    public void onBooking() {
+        Claim claim = claimed.get();
+        if (claim == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            book(claim);
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Booking booking && booking.claim == claim) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new Booking(claim));
+    }
+
+    private void book(Claim claim) {
+        if (jdbcTemplate.update(BOOK, claim.key().scope(), claim.key().key(), claim.token()) == 0) {
+            throw new IllegalStateException("Idempotency key " + claim.key().key()
+                    + " was taken over by a retry; its changes are booked there");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval:600000}")
+    public void cleanUpScheduled() {
+        cleanUp();
+    }
+
+    /** Deletes expired keys in batches and returns how many. */
+    public int cleanUp() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(CLEAN_UP, now, CLEAN_UP_BATCH);
+            total += deleted;
+        } while (deleted == CLEAN_UP_BATCH);
+        if (total > 0) {
+            log.info("Deleted {} expired idempotency keys", total);
+        }
+        return total;
+    }
+
+    /** Null if the key is now ours; otherwise who has it, with their response once there is one. */
+    private Existing claim(Claim claim, String fingerprint) {
+        Key key = claim.key();
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp expiresAt = Timestamp.valueOf(now.plus(ttlMillis, ChronoUnit.MILLIS));
+        try {
+            jdbcTemplate.update(CLAIM, key.scope(), key.key(), fingerprint, claim.token(), Timestamp.valueOf(now),
+                    expiresAt);
+            return null;
+        } catch (DuplicateKeyException e) {
+            // Someone has it; see below whether they finished, gave up or died.
+        }
+        List<Row> rows = jdbcTemplate.query(FIND, (row, i) -> new Row(row.getLong(1), row.getString(2),
+                new StoredResponse(row.getString(3), row.getInt(4), row.getString(5), row.getBytes(6),
+                        row.getTimestamp(8).toLocalDateTime()), row.getTimestamp(7).toLocalDateTime()),
+                key.scope(), key.key());
+        if (rows.isEmpty()) {
+            return new Existing(null, false);
+        }
+        Row row = rows.get(0);
+        if (!row.response().expiresAt().isAfter(now)) {
+            jdbcTemplate.update(DELETE_EXPIRED, row.id(), Timestamp.valueOf(now));
+            return new Existing(null, false);
+        }
+        if ("COMPLETED".equals(row.status())) {
+            return new Existing(row.response(), false);
+        }
+        Timestamp stale = Timestamp.valueOf(now.minus(lockTimeoutMillis, ChronoUnit.MILLIS));
+        boolean abandoned = row.createdAt().isBefore(stale.toLocalDateTime());
+        if ("BOOKED".equals(row.status())) {
+            // Its changes are committed: running it again would book them twice.
+            return new Existing(null, abandoned);
+        }
+        if (abandoned && jdbcTemplate.update(TAKE_OVER, fingerprint, claim.token(), Timestamp.valueOf(now),
+                expiresAt, row.id(), stale) == 1) {
+            log.warn("Took over idempotency key {} abandoned since {}", key.key(), row.createdAt());
+            return null;
+        }
+        return new Existing(null, false);
+    }
+
+    private StoredResponse cached(Key key) {
+        StoredResponse response = finished.get(key);
+        if (response != null && !response.expiresAt().isAfter(LocalDateTime.now())) {
+            finished.remove(key);
+            return null;
+        }
+        return response;
+    }
+
+    private void finish(Key key, StoredResponse response) {
+        CompletableFuture<StoredResponse> claim = running.remove(key);
+        if (claim != null) {
+            claim.complete(response);
+        }
+    }
+
+    private static boolean await(CompletableFuture<StoredResponse> first, long deadline) throws InterruptedException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return false;
+        }
+        try {
+            first.get(remaining, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
+    /** The id of the user a key belongs to and the key. */
+    public record Key(String scope, String key) {
+    }
+
+    /** A key held by one request; the token tells it apart from a retry that took the key over. */
+    public record Claim(Key key, String token) {
+    }
+
+    /** A finished request's response and the fingerprint of the request it answered. */
+    public record StoredResponse(String fingerprint, int status, String contentType, byte[] body,
+            LocalDateTime expiresAt) {
+    }
+
+    /** {@code unanswered} when the key was booked long ago and has no response to send. */
+    private record Existing(StoredResponse response, boolean unanswered) {
+    }
+
+    private record Row(long id, String status, StoredResponse response, LocalDateTime createdAt) {
+    }
+
+    /**
+     * What {@link #begin} decided; {@link #response()} is set when the request is answered
+     * from the store, {@link #claim()} when it is to run.
+     */
+    public record Decision(Outcome outcome, StoredResponse response, Claim claim) {
+
+        static final Decision IN_PROGRESS = new Decision(Outcome.IN_PROGRESS, null, null);
+        static final Decision UNANSWERED = new Decision(Outcome.UNANSWERED, null, null);
+
+        static Decision of(StoredResponse response, String fingerprint) {
+            return response.fingerprint().equals(fingerprint) ? new Decision(Outcome.REPLAY, response, null)
+                    : new Decision(Outcome.MISMATCH, response, null);
+        }
+    }
+
+    /** Marks the key booked just before the transaction booking the request's changes commits. */
+    private final class Booking implements TransactionSynchronization {
+
+        private final Claim claim;
+
+        Booking(Claim claim) {
+            this.claim = claim;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            book(claim);
+        }
+    }
+
+    public enum Outcome {
+        /** The key is new: run the request. */
+        PROCEED,
+        /** The key has a response to this same request: send it again. */
+        REPLAY,
+        /** The key was used for a different request. */
+        MISMATCH,
+        /** The first request with the key is still running after the wait. */
+        IN_PROGRESS,
+        /** The first request with the key booked its changes but left no response: it is not run again. */
+        UNANSWERED
+    }
+}
@@ -0,0 +1,313 @@
+package com.fintrade.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only sequence of fixed-size entries in memory-mapped segment files.
+ *
+ * <p>Sequences start at 1 and have no gaps. A single writer fills in an entry, its
+ * checksum, and finally its sequence, and only then publishes the new last sequence, so
+ * readers never see a half-written entry and need no lock. When a segment is full it is
+ * forced to disk and the next one is created. Opening a journal finds the last complete
+ * entry and drops a torn tail left by a crash. Entries reach the disk when the operating
+ * system writes the mapping back or when {@link #force()} is called.
+ *
+ * <p>{@link #replay} reads entries straight from the mapping into a listener; a
+ * {@link Subscription} does the same on its own thread and then waits for new appends.
+ */
+public final class Journal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(Journal.class);
+
+    private static final long IDLE_WAIT_MILLIS = 100;
+    private static final int TAIL_BATCH = 4096;
+
+    private final Path directory;
+    private final int segmentEntries;
+    private final CRC32C crc = new CRC32C();
+    private final Object signal = new Object();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriptionCount = new AtomicInteger();
+
+    /** Oldest first; replaced, never changed, when a segment is added. */
+    private volatile JournalSegment[] segments;
+    private volatile long lastSequence;
+    private volatile int waiting;
+    private volatile boolean closed;
+
+    private Journal(Path directory, int segmentEntries, JournalSegment[] segments, long lastSequence) {
+        this.directory = directory;
+        this.segmentEntries = segmentEntries;
+        this.segments = segments;
+        this.lastSequence = lastSequence;
+    }
+
+    /**
+     * Opens the journal in {@code directory}, creating it if needed. New segments hold
+     * {@code segmentEntries} entries; existing ones keep the size they were created with.
+     */
+    public static Journal open(Path directory, int segmentEntries) throws IOException {
+        if (segmentEntries <= 0 || (long) segmentEntries * JournalEntry.BYTES > Integer.MAX_VALUE
+                - JournalSegment.HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment entries out of range: " + segmentEntries);
+        }
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+        List<JournalSegment> segments = new ArrayList<>(files.size());
+        for (Path file : files) {
+            JournalSegment segment = JournalSegment.open(file);
+            if (!segments.isEmpty() && segments.get(segments.size() - 1).endSequence() != segment.firstSequence) {
+                throw new IOException("Journal segment " + file + " does not follow on from the one before");
+            }
+            segments.add(segment);
+        }
+        long lastSequence = 0;
+        if (!segments.isEmpty()) {
+            JournalSegment last = segments.get(segments.size() - 1);
+            lastSequence = last.firstSequence + last.recover(new CRC32C()) - 1;
+        }
+        return new Journal(directory, segmentEntries, segments.toArray(JournalSegment[]::new), lastSequence);
+    }
+
+    /** The sequence of the oldest entry kept, or 1 for an empty journal. */
+    public long firstSequence() {
+        JournalSegment[] current = segments;
+        return current.length == 0 ? 1 : current[0].firstSequence;
+    }
+
+    /** The sequence of the newest entry, or {@link #firstSequence()} - 1 for an empty journal. */
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /** Appends an entry and returns its sequence. */
+    public synchronized long append(JournalRecord record) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        long sequence = lastSequence + 1;
+        JournalSegment segment = segmentForAppend(sequence);
+        ByteBuffer buffer = segment.buffer;
+        int offset = segment.offset(sequence);
+        byte[] symbol = record.symbol() != null ? record.symbol().getBytes(StandardCharsets.US_ASCII) : new byte[0];
+        buffer.put(offset + JournalEntry.TYPE_OFFSET, record.type().code());
+        buffer.put(offset + JournalEntry.SIDE_OFFSET, record.side());
+        buffer.put(offset + JournalEntry.SYMBOL_LENGTH_OFFSET, (byte) symbol.length);
+        buffer.put(offset + JournalEntry.SYMBOL_LENGTH_OFFSET + 1, (byte) 0);
+        buffer.putLong(offset + JournalEntry.RECORDED_AT_OFFSET, System.currentTimeMillis());
+        buffer.putLong(offset + JournalEntry.EFFECTIVE_AT_OFFSET, record.effectiveAt());
+        buffer.putLong(offset + JournalEntry.ENTITY_ID_OFFSET, record.entityId());
+        buffer.putLong(offset + JournalEntry.USER_ID_OFFSET, record.userId());
+        buffer.putLong(offset + JournalEntry.QUANTITY_OFFSET, record.quantity());
+        buffer.putLong(offset + JournalEntry.PRICE_OFFSET, record.price());
+        buffer.putLong(offset + JournalEntry.AMOUNT_OFFSET, record.amount());
+        buffer.put(offset + JournalEntry.SYMBOL_OFFSET, symbol);
+        for (int i = JournalEntry.SYMBOL_OFFSET + symbol.length; i < JournalEntry.BYTES; i++) {
+            buffer.put(offset + i, (byte) 0);
+        }
+        buffer.putInt(offset + JournalEntry.CRC_OFFSET, segment.checksum(offset, crc));
+        buffer.putLong(offset, sequence);
+
+        lastSequence = sequence;
+        if (waiting > 0) {
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Passes every entry from {@code fromSequence} up to the last one appended when the
+     * call started to {@code listener}, on the calling thread, and returns the sequence of
+     * the last entry passed ({@code fromSequence} - 1 if there was none).
+     *
+     * @throws IllegalStateException if an entry fails its checksum
+     */
+    public long replay(long fromSequence, JournalListener listener) {
+        long from = Math.max(fromSequence, firstSequence());
+        long to = lastSequence;
+        if (from > to) {
+            return fromSequence - 1;
+        }
+        return deliver(from, to, listener, new JournalEntry(), new CRC32C());
+    }
+
+    /**
+     * Starts a daemon thread that replays from {@code fromSequence} and then passes each
+     * new entry to {@code listener} as it is appended. A listener that throws ends the
+     * subscription.
+     */
+    public Subscription subscribe(long fromSequence, JournalListener listener) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        Subscription subscription = new Subscription(Math.max(fromSequence, firstSequence()), listener);
+        subscriptions.add(subscription);
+        Thread thread = new Thread(subscription::run, "journal-tail-" + subscriptionCount.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+        return subscription;
+    }
+
+    /** Writes what has been appended so far to disk. */
+    public void force() {
+        JournalSegment[] current = segments;
+        if (current.length > 0) {
+            current[current.length - 1].force();
+        }
+    }
+
+    /** Stops every subscription and forces the last segment. The mappings stay valid until collected. */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        subscriptions.forEach(Subscription::close);
+        force();
+    }
+
+    private JournalSegment segmentForAppend(long sequence) {
+        JournalSegment[] current = segments;
+        if (current.length > 0 && sequence < current[current.length - 1].endSequence()) {
+            return current[current.length - 1];
+        }
+        try {
+            if (current.length > 0) {
+                current[current.length - 1].force();
+            }
+            JournalSegment created = JournalSegment.create(directory, sequence, segmentEntries);
+            JournalSegment[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = created;
+            segments = grown;
+            log.debug("Started journal segment {}", created.path);
+            return created;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create journal segment at sequence " + sequence, e);
+        }
+    }
+
+    private JournalSegment segmentFor(long sequence) {
+        JournalSegment[] current = segments;
+        int low = 0;
+        int high = current.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (current[mid].firstSequence <= sequence) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return current[low];
+    }
+
+    /** Passes entries {@code from}..{@code to}, all of them published, and returns {@code to}. */
+    private long deliver(long from, long to, JournalListener listener, JournalEntry entry, CRC32C checksum) {
+        long sequence = from;
+        while (sequence <= to) {
+            JournalSegment segment = segmentFor(sequence);
+            long end = Math.min(to + 1, segment.endSequence());
+            for (; sequence < end; sequence++) {
+                if (!segment.isIntact(sequence, checksum)) {
+                    throw new IllegalStateException("Journal entry " + sequence + " in " + segment.path
+                            + " is corrupt");
+                }
+                listener.onEntry(entry.wrap(segment.buffer, segment.offset(sequence)));
+            }
+        }
+        return to;
+    }
+
+    /** A listener fed by its own thread; closing it stops the thread after the entry in hand. */
+    public final class Subscription implements AutoCloseable {
+
+        private final JournalListener listener;
+        private volatile long position;
+        private volatile boolean running = true;
+
+        private Subscription(long fromSequence, JournalListener listener) {
+            this.position = fromSequence - 1;
+            this.listener = listener;
+        }
+
+        /** The sequence of the last entry passed to the listener. */
+        public long position() {
+            return position;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+
+        private void run() {
+            JournalEntry entry = new JournalEntry();
+            CRC32C checksum = new CRC32C();
+            try {
+                while (running) {
+                    long last = lastSequence;
+                    if (position < last) {
+                        // In batches, so that a closed subscription stops soon even far behind.
+                        deliver(position + 1, Math.min(last, position + TAIL_BATCH), this::pass, entry, checksum);
+                    } else {
+                        await(last);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Journal subscription stopped after sequence {}", position, e);
+            } finally {
+                running = false;
+                subscriptions.remove(this);
+            }
+        }
+
+        private void pass(JournalEntry entry) {
+            listener.onEntry(entry);
+            position = entry.sequence();
+        }
+
+        private void await(long last) throws InterruptedException {
+            synchronized (signal) {
+                waiting++;
+                try {
+                    while (running && lastSequence == last) {
+                        signal.wait(IDLE_WAIT_MILLIS);
+                    }
+                } finally {
+                    waiting--;
+                }
+            }
+        }
+    }
+}
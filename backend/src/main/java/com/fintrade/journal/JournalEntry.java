@@ -0,0 +1,109 @@
+package com.fintrade.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One journal entry read in place from its segment's mapping. An instance is a cursor
+ * that is moved from entry to entry, so it is only valid inside the listener call it was
+ * passed to; copy out what you keep.
+ *
+ * <pre>
+ * 0   long sequence       written last; zero until the entry is complete
+ * 8   int  crc32c         of bytes 12..95
+ * 12  byte type, byte side, byte symbol length, byte unused
+ * 16  long recordedAt     epoch millis of the append
+ * 24  long effectiveAt
+ * 32  long entityId
+ * 40  long userId
+ * 48  long quantity
+ * 56  long price
+ * 64  long amount
+ * 72  16 bytes symbol     US-ASCII
+ * 88  8 bytes unused
+ * </pre>
+ */
+public final class JournalEntry {
+
+    static final int BYTES = 96;
+    static final int SYMBOL_BYTES = 16;
+    static final int CRC_OFFSET = 8;
+    static final int CHECKED_OFFSET = 12;
+    static final int TYPE_OFFSET = 12;
+    static final int SIDE_OFFSET = 13;
+    static final int SYMBOL_LENGTH_OFFSET = 14;
+    static final int RECORDED_AT_OFFSET = 16;
+    static final int EFFECTIVE_AT_OFFSET = 24;
+    static final int ENTITY_ID_OFFSET = 32;
+    static final int USER_ID_OFFSET = 40;
+    static final int QUANTITY_OFFSET = 48;
+    static final int PRICE_OFFSET = 56;
+    static final int AMOUNT_OFFSET = 64;
+    static final int SYMBOL_OFFSET = 72;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    JournalEntry wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public long sequence() {
+        return buffer.getLong(offset);
+    }
+
+    public JournalEntryType type() {
+        return JournalEntryType.of(buffer.get(offset + TYPE_OFFSET));
+    }
+
+    /** {@link JournalRecord#BUY}, {@link JournalRecord#SELL} or {@link JournalRecord#NO_SIDE}. */
+    public byte side() {
+        return buffer.get(offset + SIDE_OFFSET);
+    }
+
+    public long recordedAt() {
+        return buffer.getLong(offset + RECORDED_AT_OFFSET);
+    }
+
+    public long effectiveAt() {
+        return buffer.getLong(offset + EFFECTIVE_AT_OFFSET);
+    }
+
+    public long entityId() {
+        return buffer.getLong(offset + ENTITY_ID_OFFSET);
+    }
+
+    public long userId() {
+        return buffer.getLong(offset + USER_ID_OFFSET);
+    }
+
+    /** In ten-thousandths. */
+    public long quantity() {
+        return buffer.getLong(offset + QUANTITY_OFFSET);
+    }
+
+    /** In cents. */
+    public long price() {
+        return buffer.getLong(offset + PRICE_OFFSET);
+    }
+
+    /** In cents. */
+    public long amount() {
+        return buffer.getLong(offset + AMOUNT_OFFSET);
+    }
+
+    public String symbol() {
+        int length = buffer.get(offset + SYMBOL_LENGTH_OFFSET);
+        byte[] bytes = new byte[length];
+        buffer.get(offset + SYMBOL_OFFSET, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /** Copies the entry out of the mapping. */
+    public JournalRecord toRecord() {
+        return new JournalRecord(type(), effectiveAt(), entityId(), userId(), side(), quantity(), price(), amount(),
+                symbol());
+    }
+}
@@ -0,0 +1,44 @@
+package com.fintrade.journal;
+
+/** What a journal entry records; the code is what is stored. */
+public enum JournalEntryType {
+
+    /** A transaction was saved; the entry carries it as saved. */
+    TRANSACTION_BOOKED(1),
+    /** A transaction was edited; the entry carries it as it is now. */
+    TRANSACTION_UPDATED(2),
+    /** A transaction was deleted; the entry carries it as it was. */
+    TRANSACTION_DELETED(3),
+    /** A holding was created or changed; the entry carries it as it is now. */
+    HOLDING_CHANGED(4),
+    /** A holding was deleted; the entry carries it as it was. */
+    HOLDING_DELETED(5),
+    /** A user and everything they owned is gone; only the user id is set. */
+    USER_DELETED(6);
+
+    private static final JournalEntryType[] BY_CODE = new JournalEntryType[7];
+
+    static {
+        for (JournalEntryType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    JournalEntryType(int code) {
+        this.code = (byte) code;
+    }
+
+    byte code() {
+        return code;
+    }
+
+    static JournalEntryType of(byte code) {
+        JournalEntryType type = code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (type == null) {
+            throw new IllegalStateException("Unknown journal entry type " + code);
+        }
+        return type;
+    }
+}
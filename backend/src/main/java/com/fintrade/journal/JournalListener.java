@@ -0,0 +1,9 @@
+package com.fintrade.journal;
+
+/** Receives journal entries in sequence order. */
+@FunctionalInterface
+public interface JournalListener {
+
+    /** {@code entry} is only valid during this call. */
+    void onEntry(JournalEntry entry);
+}
@@ -0,0 +1,26 @@
+package com.fintrade.journal;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The fields of one entry before it is appended. Quantities are in ten-thousandths and
+ * money in cents, as in {@link com.fintrade.trading.Units}.
+ *
+ * @param effectiveAt epoch millis the change takes effect: a transaction's date, a holding's update time
+ * @param side        1 for a buy, 2 for a sell, 0 for a holding
+ * @param price       a transaction's price or a holding's average price
+ * @param amount      a transaction's commission or a holding's current price
+ */
+public record JournalRecord(JournalEntryType type, long effectiveAt, long entityId, long userId, byte side,
+        long quantity, long price, long amount, String symbol) {
+
+    public static final byte NO_SIDE = 0;
+    public static final byte BUY = 1;
+    public static final byte SELL = 2;
+
+    public JournalRecord {
+        if (symbol != null && symbol.getBytes(StandardCharsets.US_ASCII).length > JournalEntry.SYMBOL_BYTES) {
+            throw new IllegalArgumentException("Symbol too long for the journal: " + symbol);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.fintrade.journal;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One fixed-size, memory-mapped journal file holding the entries from
+ * {@code firstSequence} on.
+ *
+ * <pre>
+ * header  (64 bytes)  int magic, int version, int entry bytes, int capacity, long first sequence
+ * entries (96 bytes)  see {@link JournalEntry}                          (little-endian)
+ * </pre>
+ */
+final class JournalSegment {
+
+    static final int HEADER_BYTES = 64;
+
+    private static final int MAGIC = 0x46544a31; // "FTJ1"
+    private static final int VERSION = 1;
+
+    final Path path;
+    final long firstSequence;
+    final int capacity;
+    final MappedByteBuffer buffer;
+
+    private JournalSegment(Path path, long firstSequence, int capacity, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.capacity = capacity;
+        this.buffer = buffer;
+    }
+
+    static Path fileName(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%020d.journal", firstSequence));
+    }
+
+    static JournalSegment create(Path directory, long firstSequence, int capacity) throws IOException {
+        Path path = fileName(directory, firstSequence);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_BYTES + (long) capacity * JournalEntry.BYTES);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, JournalEntry.BYTES);
+            buffer.putInt(12, capacity);
+            buffer.putLong(16, firstSequence);
+            return new JournalSegment(path, firstSequence, capacity, buffer);
+        }
+    }
+
+    static JournalSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(8) != JournalEntry.BYTES) {
+                throw new IOException(path + " is not a journal segment");
+            }
+            int capacity = header.getInt(12);
+            long size = HEADER_BYTES + (long) capacity * JournalEntry.BYTES;
+            if (Files.size(path) < size) {
+                throw new IOException(path + " is shorter than its header says");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new JournalSegment(path, header.getLong(16), capacity, buffer);
+        }
+    }
+
+    long endSequence() {
+        return firstSequence + capacity;
+    }
+
+    int offset(long sequence) {
+        return HEADER_BYTES + (int) (sequence - firstSequence) * JournalEntry.BYTES;
+    }
+
+    /** Whether the entry at {@code sequence} is complete and matches its checksum. */
+    boolean isIntact(long sequence, CRC32C crc) {
+        int offset = offset(sequence);
+        return buffer.getLong(offset) == sequence
+                && buffer.getInt(offset + JournalEntry.CRC_OFFSET) == checksum(offset, crc);
+    }
+
+    int checksum(int offset, CRC32C crc) {
+        crc.reset();
+        crc.update(buffer.slice(offset + JournalEntry.CHECKED_OFFSET,
+                JournalEntry.BYTES - JournalEntry.CHECKED_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * The number of complete entries. Entries are written in order with their sequence
+     * last, so the complete ones are a prefix and can be found by binary search; a torn
+     * entry at the end is wiped.
+     */
+    int recover(CRC32C crc) {
+        int low = 0;
+        int high = capacity;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(offset(firstSequence + mid)) == firstSequence + mid) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int count = low;
+        while (count > 0 && !isIntact(firstSequence + count - 1, crc)) {
+            count--;
+            buffer.putLong(offset(firstSequence + count), 0);
+        }
+        return count;
+    }
+
+    void force() {
+        buffer.force();
+    }
+}
@@ -0,0 +1,211 @@
+package com.fintrade.journal;
+
+import com.fintrade.entity.Portfolio;
+import com.fintrade.entity.Transaction;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The journal of booking events in {@code journal.directory}: every saved, edited or
+ * deleted transaction and holding, and every deleted user, in the order they committed.
+ *
+ * <p>Entries made in a database transaction are held back until it commits and dropped if
+ * it rolls back, so the journal only ever shows what the database kept. Their place is
+ * taken just before the commit, while the transaction still holds the locks on the rows
+ * it wrote, and entries are appended strictly in that order however late their commits
+ * report back; so two changes to the same row are always journaled in the order they
+ * committed. Callers record a change after writing it, so that its row is locked by then.
+ * The journal is
+ * forced to disk every {@code journal.force-interval} milliseconds; a crash in between
+ * can lose the newest entries, never reorder them. Consumers that keep state derived from
+ * bookings can {@link #replay} it at startup and {@link #subscribe} from where the
+ * replay ended instead of querying MySQL.
+ */
+@Component
+public class TradeJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(TradeJournal.class);
+
+    private static final int QUANTITY_SCALE = 4;
+    private static final int PRICE_SCALE = 2;
+
+    private final Journal journal;
+
+    /** Places in the journal, taken before commit; appended in order as their transactions complete. */
+    private long nextTicket;
+    private long nextToAppend;
+    private final Map<Long, List<JournalRecord>> completed = new TreeMap<>();
+
+    public TradeJournal(@Value("${journal.directory:data/journal}") String directory,
+            @Value("${journal.segment-entries:1048576}") int segmentEntries) {
+        try {
+            this.journal = Journal.open(Paths.get(directory), segmentEntries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the trade journal in " + directory, e);
+        }
+    }
+
+    public void transactionBooked(Transaction transaction) {
+        record(transaction(JournalEntryType.TRANSACTION_BOOKED, transaction));
+    }
+
+    public void transactionUpdated(Transaction transaction) {
+        record(transaction(JournalEntryType.TRANSACTION_UPDATED, transaction));
+    }
+
+    public void transactionDeleted(Transaction transaction) {
+        record(transaction(JournalEntryType.TRANSACTION_DELETED, transaction));
+    }
+
+    public void holdingChanged(Portfolio portfolio) {
+        record(holding(JournalEntryType.HOLDING_CHANGED, portfolio));
+    }
+
+    public void holdingDeleted(Portfolio portfolio) {
+        record(holding(JournalEntryType.HOLDING_DELETED, portfolio));
+    }
+
+    /** The user and everything that referred to them are gone. */
+    public void userDeleted(long userId) {
+        record(new JournalRecord(JournalEntryType.USER_DELETED, System.currentTimeMillis(), userId, userId,
+                JournalRecord.NO_SIDE, 0, 0, 0, null));
+    }
+
+    /** See {@link Journal#replay}. */
+    public long replay(long fromSequence, JournalListener listener) {
+        return journal.replay(fromSequence, listener);
+    }
+
+    /** See {@link Journal#subscribe}. */
+    public Journal.Subscription subscribe(long fromSequence, JournalListener listener) {
+        return journal.subscribe(fromSequence, listener);
+    }
+
+    public long firstSequence() {
+        return journal.firstSequence();
+    }
+
+    public long lastSequence() {
+        return journal.lastSequence();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logRecovered() {
+        log.info("Trade journal holds sequences {} to {}", journal.firstSequence(), journal.lastSequence());
+    }
+
+    @Scheduled(fixedDelayString = "${journal.force-interval:1000}")
+    public void force() {
+        journal.force();
+    }
+
+    @PreDestroy
+    public void close() {
+        journal.close();
+    }
+
+    private void record(JournalRecord record) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(takeTicket(), List.of(record));
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Append append && append.owner == this) {
+                append.records.add(record);
+                return;
+            }
+        }
+        Append append = new Append(this);
+        append.records.add(record);
+        TransactionSynchronizationManager.registerSynchronization(append);
+    }
+
+    private synchronized long takeTicket() {
+        return nextTicket++;
+    }
+
+    /**
+     * Hands in the entries of a ticket, none if its transaction rolled back, and appends
+     * every entry whose turn has come.
+     */
+    private synchronized void complete(long ticket, List<JournalRecord> records) {
+        completed.put(ticket, records);
+        List<JournalRecord> next;
+        while ((next = completed.remove(nextToAppend)) != null) {
+            nextToAppend++;
+            try {
+                next.forEach(journal::append);
+            } catch (RuntimeException e) {
+                // The booking is committed either way; failing the request now would only hide that.
+                log.error("Could not journal {} committed entries", next.size(), e);
+            }
+        }
+    }
+
+    private static final class Append implements TransactionSynchronization {
+
+        private final TradeJournal owner;
+        private final List<JournalRecord> records = new ArrayList<>();
+        private long ticket = -1;
+
+        Append(TradeJournal owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            ticket = owner.takeTicket();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (ticket >= 0) {
+                owner.complete(ticket, status == STATUS_COMMITTED ? records : List.of());
+            }
+        }
+    }
+
+    private static JournalRecord transaction(JournalEntryType type, Transaction transaction) {
+        byte side = transaction.getTransactionType() == Transaction.TransactionType.BUY ? JournalRecord.BUY
+                : JournalRecord.SELL;
+        return new JournalRecord(type, epochMillis(transaction.getTransactionDate()), transaction.getId(),
+                transaction.getUser().getId(), side, units(transaction.getQuantity(), QUANTITY_SCALE),
+                units(transaction.getPrice(), PRICE_SCALE), units(transaction.getCommission(), PRICE_SCALE),
+                transaction.getSymbol());
+    }
+
+    private static JournalRecord holding(JournalEntryType type, Portfolio portfolio) {
+        return new JournalRecord(type, epochMillis(portfolio.getUpdatedAt()), portfolio.getId(),
+                portfolio.getUser().getId(), JournalRecord.NO_SIDE, units(portfolio.getQuantity(), QUANTITY_SCALE),
+                units(portfolio.getAveragePrice(), PRICE_SCALE), units(portfolio.getCurrentPrice(), PRICE_SCALE),
+                portfolio.getSymbol());
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : System.currentTimeMillis();
+    }
+
+    private static long units(BigDecimal value, int scale) {
+        return value != null ? value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0;
+    }
+}
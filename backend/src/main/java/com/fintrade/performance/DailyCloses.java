@@ -0,0 +1,66 @@
+package com.fintrade.performance;
+
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.fintrade.pricehistory.Resolution;
+import com.fintrade.trading.Units;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Closing prices by symbol and day for one run, read from the daily bars of the price
+ * history the first time a symbol is asked for and shared by every worker after that.
+ */
+final class DailyCloses {
+
+    private static final long DAY_MILLIS = Resolution.DAY.getMillis();
+
+    private final PriceHistoryStore priceHistoryStore;
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    DailyCloses(PriceHistoryStore priceHistoryStore) {
+        this.priceHistoryStore = priceHistoryStore;
+    }
+
+    /**
+     * The close of the newest daily bar on or before {@code day}, or NaN if the symbol
+     * has not traded by then.
+     */
+    double closeOn(String symbol, LocalDate day) {
+        return series.computeIfAbsent(symbol, this::load).closeOn(day.toEpochDay() * DAY_MILLIS);
+    }
+
+    private Series load(String symbol) {
+        long[][] bars = { new long[64], new long[64] };
+        int[] count = { 0 };
+        if (PriceHistoryStore.isValidSymbol(symbol)) {
+            priceHistoryStore.read(symbol, Resolution.DAY, 0, Long.MAX_VALUE, Integer.MAX_VALUE, bar -> {
+                if (count[0] == bars[0].length) {
+                    bars[0] = Arrays.copyOf(bars[0], count[0] * 2);
+                    bars[1] = Arrays.copyOf(bars[1], count[0] * 2);
+                }
+                bars[0][count[0]] = bar.getTime();
+                bars[1][count[0]] = bar.getClose();
+                count[0]++;
+            });
+        }
+        double[] closes = new double[count[0]];
+        for (int i = 0; i < closes.length; i++) {
+            closes[i] = Units.price(bars[1][i]).doubleValue();
+        }
+        return new Series(Arrays.copyOf(bars[0], count[0]), closes);
+    }
+
+    private record Series(long[] times, double[] closes) {
+
+        double closeOn(long dayStart) {
+            int index = Arrays.binarySearch(times, dayStart);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            return index >= 0 ? closes[index] : Double.NaN;
+        }
+    }
+}
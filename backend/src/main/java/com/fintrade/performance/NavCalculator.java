@@ -0,0 +1,108 @@
+package com.fintrade.performance;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Walks one user's trades day by day, values the holdings at each day's close and chains
+ * the daily returns into a time-weighted index.
+ *
+ * <p>There is no cash account, so every buy is money put into the portfolio and every
+ * sell money taken out. A day's return is
+ * {@code (nav - previousNav - buys + sells) / (previousNav + buys)}: buys count as
+ * invested for the whole day, so a position opened today earns from its purchase price
+ * to the close, and sells count only at the close, so selling out never leaves an empty
+ * base. A holding whose symbol has no daily bar yet is valued at its last trade price.
+ */
+final class NavCalculator {
+
+    private static final double FLAT = 1e-9;
+
+    private final Map<String, Position> positions = new HashMap<>();
+    private double nav;
+    private double twrIndex;
+
+    NavCalculator() {
+        this(0, 1);
+    }
+
+    /** Continues from the last stored day. */
+    NavCalculator(double nav, double twrIndex) {
+        this.nav = nav;
+        this.twrIndex = twrIndex;
+    }
+
+    void hold(String symbol, double quantity, double lastPrice) {
+        if (Math.abs(quantity) > FLAT) {
+            positions.put(symbol, new Position(quantity, lastPrice));
+        }
+    }
+
+    boolean isFlat() {
+        return positions.isEmpty();
+    }
+
+    /**
+     * One point per day from {@code first} through {@code last}. {@code trades} must be in
+     * time order; trades dated before {@code first} are folded into the first day.
+     */
+    List<NavPoint> walk(LocalDate first, LocalDate last, List<NavTrade> trades, DailyCloses closes) {
+        List<NavPoint> points = new ArrayList<>((int) Math.max(0, last.toEpochDay() - first.toEpochDay() + 1));
+        int next = 0;
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            double buys = 0;
+            double sells = 0;
+            while (next < trades.size() && !trades.get(next).transactionDate().toLocalDate().isAfter(day)) {
+                NavTrade trade = trades.get(next++);
+                apply(trade);
+                double flow = trade.flow();
+                if (flow > 0) {
+                    buys += flow;
+                } else {
+                    sells -= flow;
+                }
+            }
+
+            double value = value(day, closes);
+            double base = nav + buys;
+            double dailyReturn = base > 0 ? (value - nav - buys + sells) / base : 0;
+            twrIndex *= 1 + dailyReturn;
+            nav = value;
+            points.add(new NavPoint(day, value, buys - sells, twrIndex));
+        }
+        return points;
+    }
+
+    private void apply(NavTrade trade) {
+        Position position = positions.computeIfAbsent(trade.symbol(), symbol -> new Position(0, 0));
+        position.quantity += trade.signedQuantity();
+        position.lastPrice = trade.price().doubleValue();
+        if (Math.abs(position.quantity) <= FLAT) {
+            positions.remove(trade.symbol());
+        }
+    }
+
+    private double value(LocalDate day, DailyCloses closes) {
+        double value = 0;
+        for (Map.Entry<String, Position> entry : positions.entrySet()) {
+            Position position = entry.getValue();
+            double close = closes.closeOn(entry.getKey(), day);
+            value += position.quantity * (Double.isNaN(close) ? position.lastPrice : close);
+        }
+        return value;
+    }
+
+    private static final class Position {
+
+        double quantity;
+        double lastPrice;
+
+        Position(double quantity, double lastPrice) {
+            this.quantity = quantity;
+            this.lastPrice = lastPrice;
+        }
+    }
+}
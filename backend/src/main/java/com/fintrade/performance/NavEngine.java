@@ -0,0 +1,273 @@
+package com.fintrade.performance;
+
+import com.fintrade.entity.NavHistory;
+import com.fintrade.entity.User;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.fintrade.repository.NavHistoryRepository;
+import com.fintrade.repository.TransactionRepository;
+import com.fintrade.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Fills {@code nav_history}: each user's daily NAV and time-weighted return index,
+ * computed from their transactions and the daily closes in the price history.
+ *
+ * <p>Runs are incremental. A user's walk resumes the day after their newest stored row,
+ * starting from the holdings their earlier trades add up to, so the nightly run only
+ * computes one new day per user. Users are split across a fork-join pool; each user is
+ * read and written in its own transaction, so a failure only loses that user until the
+ * next run. The workers block on the database, so {@code performance.parallelism}
+ * should stay below the connection pool size.
+ *
+ * <p>Trades back-dated before a user's newest row are only picked up by a recompute.
+ */
+@Component
+public class NavEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(NavEngine.class);
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String INSERT = "INSERT INTO nav_history (user_id, nav_date, nav, net_flow, twr_index) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private NavHistoryRepository navHistoryRepository;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${performance.parallelism:4}")
+    private int parallelism;
+
+    @Value("${performance.users-per-task:32}")
+    private int usersPerTask;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "nav-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile NavRunResult lastRun;
+
+    /** Brings every user up to yesterday's close. */
+    @Scheduled(cron = "${performance.nightly-cron:0 30 0 * * *}", zone = "UTC")
+    public void runNightly() {
+        try {
+            run(LocalDate.now(ZoneOffset.UTC).minusDays(1), false);
+        } catch (IllegalStateException e) {
+            log.warn("Skipping the nightly NAV run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a run on a background thread.
+     *
+     * @return false if a run is already in progress
+     */
+    public boolean start(LocalDate through, boolean fromScratch) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        background.execute(() -> {
+            try {
+                execute(through, fromScratch);
+            } catch (RuntimeException e) {
+                log.error("NAV run through {} failed", through, e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Computes every user's history through {@code through}. With {@code fromScratch} the
+     * table is emptied first and rebuilt from each user's first trade.
+     *
+     * @throws IllegalStateException if another run is in progress
+     */
+    public NavRunResult run(LocalDate through, boolean fromScratch) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("a NAV run is already in progress");
+        }
+        try {
+            return execute(through, fromScratch);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public Optional<NavRunResult> getLastRun() {
+        return Optional.ofNullable(lastRun);
+    }
+
+    @PreDestroy
+    public void stop() {
+        background.shutdownNow();
+    }
+
+    private NavRunResult execute(LocalDate through, boolean fromScratch) {
+        long started = System.nanoTime();
+        if (fromScratch) {
+            jdbcTemplate.execute("TRUNCATE TABLE nav_history");
+        }
+        List<Long> userIds = userRepository.findAllIds();
+        DailyCloses closes = new DailyCloses(priceHistoryStore);
+        AtomicInteger failures = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        long rows;
+        try {
+            rows = pool.invoke(new UserRange(userIds, 0, userIds.size(), through, closes, failures));
+        } finally {
+            pool.shutdown();
+        }
+        NavRunResult result = new NavRunResult(through, fromScratch, userIds.size(), failures.get(), rows,
+                (System.nanoTime() - started) / 1_000_000);
+        lastRun = result;
+        log.info("NAV run through {}: {} users, {} rows, {} failed, {} ms", through, result.users(), rows,
+                result.failedUsers(), result.elapsedMillis());
+        return result;
+    }
+
+    private long processUser(Long userId, LocalDate through, DailyCloses closes) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> {
+            User user = userRepository.getReferenceById(userId);
+            LocalDateTime before = through.plusDays(1).atStartOfDay();
+            Optional<NavHistory> newest = navHistoryRepository.findTopByUserOrderByNavDateDesc(user);
+
+            NavCalculator calculator;
+            LocalDate first;
+            List<NavTrade> trades;
+            if (newest.isPresent()) {
+                first = newest.get().getNavDate().plusDays(1);
+                if (first.isAfter(through)) {
+                    return 0L;
+                }
+                calculator = new NavCalculator(newest.get().getNav().doubleValue(),
+                        newest.get().getTwrIndex().doubleValue());
+                List<NavPosition> positions = transactionRepository.findNavPositions(userId, first.atStartOfDay());
+                if (!positions.isEmpty()) {
+                    Map<Long, BigDecimal> lastPrices = transactionRepository
+                            .findNavTradesByIds(positions.stream().map(NavPosition::lastTradeId).toList())
+                            .stream().collect(Collectors.toMap(NavTrade::id, NavTrade::price));
+                    positions.forEach(position -> calculator.hold(position.symbol(),
+                            position.quantity().doubleValue(), lastPrices.get(position.lastTradeId()).doubleValue()));
+                }
+                trades = transactionRepository.findNavTrades(userId, first.atStartOfDay(), before);
+            } else {
+                calculator = new NavCalculator();
+                trades = transactionRepository.findNavTrades(userId, BEGINNING, before);
+                first = null;
+            }
+            if (calculator.isFlat()) {
+                // Nothing held: resume at the next trade rather than writing a row of zeros a day.
+                if (trades.isEmpty()) {
+                    return 0L;
+                }
+                LocalDate firstTrade = trades.get(0).transactionDate().toLocalDate();
+                first = first == null || firstTrade.isAfter(first) ? firstTrade : first;
+            }
+
+            List<NavPoint> points = calculator.walk(first, through, trades, closes);
+            jdbcTemplate.batchUpdate(INSERT, points, INSERT_BATCH_SIZE, (statement, point) -> {
+                statement.setLong(1, userId);
+                statement.setDate(2, Date.valueOf(point.day()));
+                statement.setBigDecimal(3, money(point.nav()));
+                statement.setBigDecimal(4, money(point.netFlow()));
+                statement.setBigDecimal(5, BigDecimal.valueOf(point.twrIndex()).setScale(10, RoundingMode.HALF_UP));
+            });
+            return (long) points.size();
+        });
+    }
+
+    private static BigDecimal money(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /** Halves its slice of users until it is small enough to process in place. */
+    private final class UserRange extends RecursiveTask<Long> {
+
+        private final List<Long> userIds;
+        private final int from;
+        private final int to;
+        private final LocalDate through;
+        private final DailyCloses closes;
+        private final AtomicInteger failures;
+
+        UserRange(List<Long> userIds, int from, int to, LocalDate through, DailyCloses closes,
+                AtomicInteger failures) {
+            this.userIds = userIds;
+            this.from = from;
+            this.to = to;
+            this.through = through;
+            this.closes = closes;
+            this.failures = failures;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= Math.max(1, usersPerTask)) {
+                long rows = 0;
+                for (int i = from; i < to; i++) {
+                    try {
+                        rows += processUser(userIds.get(i), through, closes);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                        log.warn("Could not compute NAV history for user {}", userIds.get(i), e);
+                    }
+                }
+                return rows;
+            }
+            int middle = (from + to) >>> 1;
+            UserRange left = new UserRange(userIds, from, middle, through, closes, failures);
+            left.fork();
+            long right = new UserRange(userIds, middle, to, through, closes, failures).compute();
+            return right + left.join();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.fintrade.performance;
+
+import java.time.LocalDate;
+
+/** One computed {@code nav_history} row. */
+record NavPoint(LocalDate day, double nav, double netFlow, double twrIndex) {
+}
@@ -0,0 +1,7 @@
+package com.fintrade.performance;
+
+import java.math.BigDecimal;
+
+/** A user's net quantity in one symbol as of some day, and the id of the newest trade in it. */
+public record NavPosition(String symbol, BigDecimal quantity, Long lastTradeId) {
+}
@@ -0,0 +1,12 @@
+package com.fintrade.performance;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of one {@link NavEngine} run.
+ *
+ * @param failedUsers users whose history could not be computed; they are retried by the next run
+ */
+public record NavRunResult(LocalDate through, boolean fromScratch, int users, int failedUsers, long rowsWritten,
+        long elapsedMillis) {
+}
@@ -0,0 +1,22 @@
+package com.fintrade.performance;
+
+import com.fintrade.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** The columns of a {@link Transaction} that NAV computation needs. */
+public record NavTrade(Long id, String symbol, Transaction.TransactionType type, BigDecimal quantity,
+        BigDecimal price, BigDecimal commission, LocalDateTime transactionDate) {
+
+    /** Cash the trade moved into the portfolio: positive for a buy, negative for a sell. */
+    double flow() {
+        double notional = quantity.doubleValue() * price.doubleValue();
+        double fee = commission != null ? commission.doubleValue() : 0;
+        return type == Transaction.TransactionType.BUY ? notional + fee : -(notional - fee);
+    }
+
+    double signedQuantity() {
+        return type == Transaction.TransactionType.BUY ? quantity.doubleValue() : -quantity.doubleValue();
+    }
+}
@@ -0,0 +1,76 @@
+package com.fintrade.performance;
+
+import com.fintrade.dto.PerformanceView;
+import com.fintrade.entity.NavHistory;
+import com.fintrade.entity.User;
+import com.fintrade.repository.NavHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@Transactional(readOnly = true)
+public class PerformanceService {
+
+    private static final int RETURN_SCALE = 6;
+
+    @Autowired
+    private NavHistoryRepository navHistoryRepository;
+
+    /**
+     * NAV series and returns over {@code [from, to]} from the stored history. The TWR is
+     * the ratio of the chained index at both ends; the MWR treats the NAV before the range
+     * as money put in on its first morning and is annualised only for ranges of a year or
+     * more.
+     */
+    public PerformanceView getPerformance(User user, LocalDate from, LocalDate to) {
+        Optional<NavHistory> before = navHistoryRepository.findTopByUserAndNavDateBeforeOrderByNavDateDesc(user,
+                from);
+        List<NavHistory> rows = navHistoryRepository.findByUserAndNavDateBetweenOrderByNavDate(user, from, to);
+        BigDecimal startNav = before.map(NavHistory::getNav).orElse(BigDecimal.ZERO);
+        if (rows.isEmpty()) {
+            return new PerformanceView(from, to, startNav, startNav, BigDecimal.ZERO, null, null, List.of());
+        }
+
+        BigDecimal baseIndex = before.map(NavHistory::getTwrIndex).orElse(BigDecimal.ONE);
+        LocalDate startDay = rows.get(0).getNavDate().minusDays(1);
+        List<PerformanceView.Point> series = new ArrayList<>(rows.size());
+        int[] days = new int[rows.size()];
+        double[] flows = new double[rows.size()];
+        BigDecimal netFlow = BigDecimal.ZERO;
+        for (int i = 0; i < rows.size(); i++) {
+            NavHistory row = rows.get(i);
+            series.add(new PerformanceView.Point(row.getNavDate(), row.getNav(), row.getNetFlow(),
+                    sinceStart(row.getTwrIndex(), baseIndex)));
+            // Flows go in on the morning of their day, i.e. at the previous close.
+            days[i] = (int) (row.getNavDate().toEpochDay() - startDay.toEpochDay()) - 1;
+            flows[i] = row.getNetFlow().doubleValue();
+            netFlow = netFlow.add(row.getNetFlow());
+        }
+
+        NavHistory last = rows.get(rows.size() - 1);
+        int span = (int) (last.getNavDate().toEpochDay() - startDay.toEpochDay());
+        double annual = Returns.moneyWeighted(startNav.doubleValue(), days, flows, span, last.getNav().doubleValue());
+        double mwr = span >= 365 ? annual : Returns.overPeriod(annual, span);
+        return new PerformanceView(from, to, startNav, last.getNav(), netFlow,
+                sinceStart(last.getTwrIndex(), baseIndex),
+                Double.isFinite(mwr) ? BigDecimal.valueOf(mwr).setScale(RETURN_SCALE, RoundingMode.HALF_UP) : null,
+                series);
+    }
+
+    private static BigDecimal sinceStart(BigDecimal index, BigDecimal baseIndex) {
+        if (baseIndex.signum() == 0) {
+            return null;
+        }
+        return index.divide(baseIndex, MathContext.DECIMAL64).subtract(BigDecimal.ONE)
+                .setScale(RETURN_SCALE, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,63 @@
+package com.fintrade.performance;
+
+/** Return figures computed from a stored NAV series. */
+public final class Returns {
+
+    private static final double DAYS_PER_YEAR = 365;
+    private static final int ITERATIONS = 200;
+
+    private Returns() {
+    }
+
+    /**
+     * Money-weighted return: the annual rate at which the starting value plus each day's
+     * net flow grows into the ending value (the XIRR of the investor's cash flows).
+     *
+     * @param days      day offsets from the start of the flows, ascending
+     * @param flows     money put in on each of those days; negative for money taken out
+     * @param endDay    day offset of the ending value
+     * @return the annualised rate, or NaN if no rate balances the flows
+     */
+    public static double moneyWeighted(double startValue, int[] days, double[] flows, int endDay,
+            double endValue) {
+        double low = -0.999999;
+        double high = 1;
+        double lowValue = surplus(low, startValue, days, flows, endDay, endValue);
+        double highValue = surplus(high, startValue, days, flows, endDay, endValue);
+        while (Math.signum(lowValue) == Math.signum(highValue)) {
+            if (high > 1e9) {
+                return Double.NaN;
+            }
+            high *= 10;
+            highValue = surplus(high, startValue, days, flows, endDay, endValue);
+        }
+        // Bisection needs nothing but the sign change, so it cannot diverge the way Newton can.
+        for (int i = 0; i < ITERATIONS && high - low > 1e-12; i++) {
+            double mid = (low + high) / 2;
+            double midValue = surplus(mid, startValue, days, flows, endDay, endValue);
+            if (Math.signum(midValue) == Math.signum(lowValue)) {
+                low = mid;
+                lowValue = midValue;
+            } else {
+                high = mid;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /** Converts an annual rate to the rate earned over {@code days}. */
+    public static double overPeriod(double annualRate, int days) {
+        return Math.pow(1 + annualRate, days / DAYS_PER_YEAR) - 1;
+    }
+
+    /** Ending value minus every flow compounded to the end date at {@code rate}. */
+    private static double surplus(double rate, double startValue, int[] days, double[] flows, int endDay,
+            double endValue) {
+        double growth = Math.log1p(rate) / DAYS_PER_YEAR;
+        double invested = startValue * Math.exp(growth * endDay);
+        for (int i = 0; i < days.length; i++) {
+            invested += flows[i] * Math.exp(growth * (endDay - days[i]));
+        }
+        return endValue - invested;
+    }
+}
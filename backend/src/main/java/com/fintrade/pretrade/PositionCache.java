@@ -0,0 +1,304 @@
+package com.fintrade.pretrade;
+
+import com.fintrade.rollup.RollupService;
+import com.fintrade.securitymaster.SecurityMaster;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Each user's holdings and own trading limits in memory, so pre-trade checks run without a
+ * database round trip. A user is read from {@code portfolios} and {@code trading_limits}
+ * on their first check and kept from then on.
+ *
+ * <p>Writers report holding changes as they make them ({@link #holdingChanged}); the
+ * change is applied as a delta once its transaction commits and dropped if it rolls back.
+ * Deltas add up the same in any order, so concurrent commits need no ordering between
+ * them. A read that overlaps a commit for the same user may or may not include it, so it
+ * answers the check that made it but is not kept; the next check reads again.
+ *
+ * <p>The shares offered by a user's open sell orders are reserved ({@link #reserveSell})
+ * when the order is accepted, so that resting sells cannot add up to more than is held.
+ * A reservation is released as its fills are booked, in the same commit that takes them
+ * out of the holding, and when the rest of the order is cancelled. Like the order books,
+ * reservations live in memory only.
+ *
+ * <p>The cache belongs to one instance and only sees the writes made through it. With
+ * several instances booking for the same user, a check here may pass or reject on stale
+ * holdings; what keeps {@code portfolios} right is that removals and settlements check the
+ * locked row inside their transaction. Every holding change also reports the row as it was
+ * stored before the change; if that is not what the cache holds, another instance wrote
+ * it, and the user is read again at their next check instead of taking the delta.
+ */
+@Component
+public class PositionCache {
+
+    private static final String SELECT_HOLDINGS = "SELECT security_id, quantity FROM portfolios WHERE user_id = ?";
+    private static final String SELECT_LIMITS = "SELECT max_order_quantity, max_order_notional, "
+            + "max_position_quantity FROM trading_limits WHERE user_id = ?";
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /** The user's holding of {@code symbol}, how much of it open sells reserve, and their own limits. */
+    public Position position(long userId, String symbol) {
+        Entry entry = entries.computeIfAbsent(userId, id -> new Entry());
+        long commits;
+        synchronized (entry) {
+            if (entry.holdings != null) {
+                return new Position(entry.holdings.getOrDefault(symbol, BigDecimal.ZERO), entry.reserved(symbol),
+                        entry.limits);
+            }
+            commits = entry.committing == 0 ? entry.commits : -1;
+        }
+
+        Map<String, BigDecimal> holdings = new HashMap<>();
+        jdbcTemplate.query(SELECT_HOLDINGS, row -> {
+            if (row.getBigDecimal(2) != null) {
+                holdings.merge(securityMaster.symbol(row.getInt(1)), row.getBigDecimal(2), BigDecimal::add);
+            }
+        }, userId);
+        List<TradingLimits> limits = jdbcTemplate.query(SELECT_LIMITS, (row, i) -> new TradingLimits(
+                row.getBigDecimal(1), row.getBigDecimal(2), row.getBigDecimal(3)), userId);
+        TradingLimits own = limits.isEmpty() ? null : limits.get(0);
+
+        // A read inside a transaction may see changes that are applied again when it commits.
+        BigDecimal reserved;
+        synchronized (entry) {
+            if (!TransactionSynchronizationManager.isActualTransactionActive() && entry.holdings == null
+                    && commits >= 0 && entry.committing == 0 && entry.commits == commits) {
+                entry.holdings = holdings;
+                entry.limits = own;
+            }
+            reserved = entry.reserved(symbol);
+        }
+        return new Position(holdings.getOrDefault(symbol, BigDecimal.ZERO), reserved, own);
+    }
+
+    /** How much of the user's holding of {@code symbol} open sell orders reserve; never a query. */
+    public BigDecimal reserved(long userId, String symbol) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return BigDecimal.ZERO;
+        }
+        synchronized (entry) {
+            return entry.reserved(symbol);
+        }
+    }
+
+    /**
+     * Reserves {@code quantity} of the user's holding of {@code symbol} for an open sell
+     * order, unless less than that is held and not yet reserved.
+     *
+     * @return whether the quantity was reserved
+     */
+    public boolean reserveSell(long userId, String symbol, BigDecimal quantity) {
+        Entry entry = entries.computeIfAbsent(userId, id -> new Entry());
+        BigDecimal read = null;
+        while (true) {
+            synchronized (entry) {
+                // Holdings are read outside the lock; a read that could not be cached is used as it is.
+                BigDecimal held = entry.holdings != null ? entry.holdings.getOrDefault(symbol, BigDecimal.ZERO)
+                        : read;
+                if (held != null) {
+                    if (quantity.compareTo(held.subtract(entry.reserved(symbol))) > 0) {
+                        return false;
+                    }
+                    entry.reserved.merge(symbol, quantity, BigDecimal::add);
+                    return true;
+                }
+            }
+            read = position(userId, symbol).held();
+        }
+    }
+
+    /**
+     * Releases {@code quantity} of a sell reservation: its fills were booked or the rest of
+     * the order will not fill. Applied when the surrounding transaction commits, together
+     * with the holding changes it books.
+     */
+    public void releaseSell(long userId, String symbol, BigDecimal quantity) {
+        Changes changes = pending();
+        changes.released.computeIfAbsent(userId, id -> new HashMap<>()).merge(symbol, quantity, BigDecimal::add);
+        changes.applyNowIfUnsynchronized();
+    }
+
+    /**
+     * A holding of the user went from {@code before} to {@code after}; either is null if it
+     * did not exist. {@code before} is the stored row, read under its lock.
+     */
+    public void holdingChanged(long userId, RollupService.Holding before, RollupService.Holding after) {
+        Changes changes = pending();
+        Map<String, BigDecimal> deltas = changes.deltas.computeIfAbsent(userId, id -> new HashMap<>());
+        String symbol = before != null ? before.symbol() : after != null ? after.symbol() : null;
+        if (symbol != null) {
+            // The first change in the transaction is the one the cache must agree with.
+            changes.expected.computeIfAbsent(userId, id -> new HashMap<>()).putIfAbsent(symbol,
+                    before != null ? before.quantity() : BigDecimal.ZERO);
+        }
+        if (before != null && after != null && !before.symbol().equals(after.symbol())) {
+            changes.expected.get(userId).putIfAbsent(after.symbol(), BigDecimal.ZERO);
+        }
+        if (before != null) {
+            deltas.merge(before.symbol(), before.quantity().negate(), BigDecimal::add);
+        }
+        if (after != null) {
+            deltas.merge(after.symbol(), after.quantity(), BigDecimal::add);
+        }
+        changes.applyNowIfUnsynchronized();
+    }
+
+    /** The user's limits changed or the user is gone: read them again at their next check. */
+    public void userChanged(long userId) {
+        Changes changes = pending();
+        changes.dropped.add(userId);
+        changes.applyNowIfUnsynchronized();
+    }
+
+    private Changes pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new Changes(this, false);
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Changes changes && changes.owner == this) {
+                return changes;
+            }
+        }
+        Changes changes = new Changes(this, true);
+        TransactionSynchronizationManager.registerSynchronization(changes);
+        return changes;
+    }
+
+    /** Whether the cached holdings are the stored ones the changes started from. */
+    private static boolean agrees(Map<String, BigDecimal> holdings, Map<String, BigDecimal> expected) {
+        if (expected == null) {
+            return true;
+        }
+        for (Map.Entry<String, BigDecimal> stored : expected.entrySet()) {
+            if (holdings.getOrDefault(stored.getKey(), BigDecimal.ZERO).compareTo(stored.getValue()) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** {@code reserved} is the part of {@code held} that the user's open sell orders offer. */
+    public record Position(BigDecimal held, BigDecimal reserved, TradingLimits limits) {
+
+        /** What a new sell may still take. */
+        public BigDecimal available() {
+            return held.subtract(reserved);
+        }
+    }
+
+    private static final class Entry {
+
+        /** Null until read. */
+        Map<String, BigDecimal> holdings;
+        TradingLimits limits;
+        /** Kept when the holdings are dropped: open orders outlive a re-read. */
+        final Map<String, BigDecimal> reserved = new HashMap<>();
+        /** Transactions with changes for this user that are committing now. */
+        int committing;
+        /** Transactions with changes for this user that have finished. */
+        long commits;
+
+        BigDecimal reserved(String symbol) {
+            return reserved.getOrDefault(symbol, BigDecimal.ZERO);
+        }
+    }
+
+    /** The holding changes, released reservations and dropped users of one transaction. */
+    private static final class Changes implements TransactionSynchronization {
+
+        final PositionCache owner;
+        final boolean synchronizedWithTransaction;
+        final Map<Long, Map<String, BigDecimal>> deltas = new HashMap<>();
+        /** The stored quantity each changed holding had before this transaction changed it. */
+        final Map<Long, Map<String, BigDecimal>> expected = new HashMap<>();
+        final Map<Long, Map<String, BigDecimal>> released = new HashMap<>();
+        final Set<Long> dropped = new HashSet<>();
+        private Set<Long> users;
+
+        Changes(PositionCache owner, boolean synchronizedWithTransaction) {
+            this.owner = owner;
+            this.synchronizedWithTransaction = synchronizedWithTransaction;
+        }
+
+        void applyNowIfUnsynchronized() {
+            if (!synchronizedWithTransaction) {
+                beforeCommit(false);
+                afterCompletion(STATUS_COMMITTED);
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            users = new HashSet<>(deltas.keySet());
+            users.addAll(released.keySet());
+            users.addAll(dropped);
+            for (Long userId : users) {
+                Entry entry = owner.entries.computeIfAbsent(userId, id -> new Entry());
+                synchronized (entry) {
+                    entry.committing++;
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (users == null) {
+                return;
+            }
+            for (Long userId : users) {
+                Entry entry = owner.entries.get(userId);
+                synchronized (entry) {
+                    entry.committing--;
+                    entry.commits++;
+                    if (status != STATUS_COMMITTED) {
+                        continue;
+                    }
+                    released.getOrDefault(userId, Map.of()).forEach((symbol, quantity) -> {
+                        BigDecimal left = entry.reserved(symbol).subtract(quantity);
+                        if (left.signum() > 0) {
+                            entry.reserved.put(symbol, left);
+                        } else {
+                            entry.reserved.remove(symbol);
+                        }
+                    });
+                    if (entry.holdings == null) {
+                        continue;
+                    }
+                    if (dropped.contains(userId) || !agrees(entry.holdings, expected.get(userId))) {
+                        entry.holdings = null;
+                        entry.limits = null;
+                        continue;
+                    }
+                    deltas.getOrDefault(userId, Map.of()).forEach((symbol, delta) -> {
+                        BigDecimal held = entry.holdings.getOrDefault(symbol, BigDecimal.ZERO).add(delta);
+                        if (held.signum() == 0) {
+                            entry.holdings.remove(symbol);
+                        } else {
+                            entry.holdings.put(symbol, held);
+                        }
+                    });
+                }
+            }
+        }
+    }
+}
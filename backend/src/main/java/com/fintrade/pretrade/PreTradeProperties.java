@@ -0,0 +1,36 @@
+package com.fintrade.pretrade;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code pretrade} block: {@code defaults} apply to every user without limits of their
+ * own in {@code trading_limits}, and {@code symbols} (upper-case symbol to limits) cap
+ * everyone's orders in that symbol on top of that.
+ */
+@Component
+@ConfigurationProperties("pretrade")
+public class PreTradeProperties {
+
+    private TradingLimits defaults = new TradingLimits();
+    private Map<String, TradingLimits> symbols = new HashMap<>();
+
+    public TradingLimits getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(TradingLimits defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, TradingLimits> getSymbols() {
+        return symbols;
+    }
+
+    public void setSymbols(Map<String, TradingLimits> symbols) {
+        this.symbols = symbols;
+    }
+}
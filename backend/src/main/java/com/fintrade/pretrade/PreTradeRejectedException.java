@@ -0,0 +1,9 @@
+package com.fintrade.pretrade;
+
+/** An order or holding change that would break a pre-trade check; answered with 400. */
+public class PreTradeRejectedException extends RuntimeException {
+
+    public PreTradeRejectedException(String message) {
+        super(message);
+    }
+}
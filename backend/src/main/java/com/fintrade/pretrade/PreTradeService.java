@@ -0,0 +1,175 @@
+package com.fintrade.pretrade;
+
+import com.fintrade.entity.TradingLimit;
+import com.fintrade.repository.TradingLimitRepository;
+import com.fintrade.securitymaster.SecurityMaster;
+import com.fintrade.trading.OrderSide;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Checks an order against the user's holdings and trading limits before it is booked or
+ * sent to the matching engine: a sell may not exceed the shares held and not already
+ * offered by open sell orders, and an order may not exceed the order quantity, order
+ * notional or resulting position caps. Served from {@link PositionCache}, so a check
+ * costs microseconds once the user has been read. Symbols are checked in their
+ * {@link SecurityMaster#canonical} form, so a symbol sent in another letter case meets the
+ * same position and limits.
+ *
+ * <p>{@code fintrade.pretrade.checks} times the checks by {@code result}
+ * ({@code passed} or {@code rejected}).
+ */
+@Service
+public class PreTradeService {
+
+    @Autowired
+    private PositionCache positionCache;
+
+    @Autowired
+    private PreTradeProperties properties;
+
+    @Autowired
+    private TradingLimitRepository tradingLimitRepository;
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer passed;
+    private Timer rejected;
+
+    @PostConstruct
+    void registerTimers() {
+        passed = timer("passed");
+        rejected = timer("rejected");
+    }
+
+    /**
+     * Throws {@link PreTradeRejectedException} if the order may not go ahead. {@code price}
+     * is null for a market order, whose notional is not known until it fills.
+     */
+    public void check(long userId, String symbol, OrderSide side, BigDecimal quantity, BigDecimal price) {
+        timed(userId, symbol, side, quantity, price, false);
+    }
+
+    /**
+     * {@link #check}s an order for the matching engine and, for a sell, reserves its
+     * quantity in {@link PositionCache} until it fills or is cancelled.
+     */
+    public void checkOrder(long userId, String symbol, OrderSide side, BigDecimal quantity, BigDecimal price) {
+        timed(userId, symbol, side, quantity, price, true);
+    }
+
+    private void timed(long userId, String symbol, OrderSide side, BigDecimal quantity, BigDecimal price,
+            boolean reserve) {
+        long started = System.nanoTime();
+        try {
+            verify(userId, securityMaster.canonical(symbol), side, quantity, price, reserve);
+        } catch (PreTradeRejectedException e) {
+            rejected.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        passed.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    private void verify(long userId, String symbol, OrderSide side, BigDecimal quantity, BigDecimal price,
+            boolean reserve) {
+        if (quantity == null || quantity.signum() <= 0) {
+            throw new PreTradeRejectedException("quantity must be positive");
+        }
+        if (price != null && price.signum() <= 0) {
+            throw new PreTradeRejectedException("price must be positive");
+        }
+        PositionCache.Position position = positionCache.position(userId, symbol);
+        TradingLimits own = position.limits();
+        TradingLimits forSymbol = properties.getSymbols().get(symbol);
+
+        BigDecimal maxQuantity = limit(TradingLimits::getMaxOrderQuantity, own, forSymbol);
+        if (maxQuantity != null && quantity.compareTo(maxQuantity) > 0) {
+            throw new PreTradeRejectedException("order quantity " + plain(quantity)
+                    + " is above the limit of " + plain(maxQuantity));
+        }
+        BigDecimal maxNotional = limit(TradingLimits::getMaxOrderNotional, own, forSymbol);
+        if (price != null && maxNotional != null && quantity.multiply(price).compareTo(maxNotional) > 0) {
+            throw new PreTradeRejectedException("order value " + plain(quantity.multiply(price))
+                    + " is above the limit of " + plain(maxNotional));
+        }
+        if (side == OrderSide.SELL) {
+            boolean covered = reserve ? positionCache.reserveSell(userId, symbol, quantity)
+                    : quantity.compareTo(position.available()) <= 0;
+            if (!covered) {
+                // Re-read for the message: a reservation may have failed on a later state than position.
+                PositionCache.Position now = reserve ? positionCache.position(userId, symbol) : position;
+                throw new PreTradeRejectedException("cannot sell " + plain(quantity) + " " + symbol + ", "
+                        + plain(now.held()) + " held" + (now.reserved().signum() > 0
+                                ? " of which " + plain(now.reserved()) + " in open sell orders" : ""));
+            }
+        } else {
+            BigDecimal maxPosition = limit(TradingLimits::getMaxPositionQuantity, own, forSymbol);
+            BigDecimal after = position.held().add(quantity);
+            if (maxPosition != null && after.compareTo(maxPosition) > 0) {
+                throw new PreTradeRejectedException("position in " + symbol + " would be " + plain(after)
+                        + ", above the limit of " + plain(maxPosition));
+            }
+        }
+    }
+
+    /** The user's own value, else the default, capped by the symbol's value if it has one. */
+    private BigDecimal limit(Function<TradingLimits, BigDecimal> field, TradingLimits own, TradingLimits forSymbol) {
+        BigDecimal value = own != null && field.apply(own) != null ? field.apply(own)
+                : field.apply(properties.getDefaults());
+        BigDecimal symbolValue = forSymbol != null ? field.apply(forSymbol) : null;
+        if (value == null || symbolValue == null) {
+            return value != null ? value : symbolValue;
+        }
+        return value.min(symbolValue);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<TradingLimit> getLimits(long userId) {
+        return tradingLimitRepository.findById(userId);
+    }
+
+    /** Replaces the user's own limits; null values fall back to the defaults. */
+    @Transactional
+    public TradingLimit setLimits(long userId, TradingLimits limits) {
+        TradingLimit limit = tradingLimitRepository.findById(userId).orElseGet(() -> new TradingLimit(userId));
+        limit.setMaxOrderQuantity(limits.getMaxOrderQuantity());
+        limit.setMaxOrderNotional(limits.getMaxOrderNotional());
+        limit.setMaxPositionQuantity(limits.getMaxPositionQuantity());
+        TradingLimit saved = tradingLimitRepository.save(limit);
+        positionCache.userChanged(userId);
+        return saved;
+    }
+
+    /** Puts the user back on the defaults. */
+    @Transactional
+    public void clearLimits(long userId) {
+        if (tradingLimitRepository.existsById(userId)) {
+            tradingLimitRepository.deleteById(userId);
+            positionCache.userChanged(userId);
+        }
+    }
+
+    private static String plain(BigDecimal value) {
+        return value.stripTrailingZeros().toPlainString();
+    }
+
+    private Timer timer(String result) {
+        return Timer.builder("fintrade.pretrade.checks")
+                .description("Pre-trade checks of orders and bookings")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
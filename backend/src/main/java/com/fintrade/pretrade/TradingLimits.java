@@ -0,0 +1,47 @@
+package com.fintrade.pretrade;
+
+import java.math.BigDecimal;
+
+/** Caps on a single order and on the position it leaves; a null value sets no cap of its own. */
+public class TradingLimits {
+
+    private BigDecimal maxOrderQuantity;
+    private BigDecimal maxOrderNotional;
+    private BigDecimal maxPositionQuantity;
+
+    public TradingLimits() {
+    }
+
+    public TradingLimits(BigDecimal maxOrderQuantity, BigDecimal maxOrderNotional, BigDecimal maxPositionQuantity) {
+        this.maxOrderQuantity = maxOrderQuantity;
+        this.maxOrderNotional = maxOrderNotional;
+        this.maxPositionQuantity = maxPositionQuantity;
+    }
+
+    /** Shares in one order. */
+    public BigDecimal getMaxOrderQuantity() {
+        return maxOrderQuantity;
+    }
+
+    public void setMaxOrderQuantity(BigDecimal maxOrderQuantity) {
+        this.maxOrderQuantity = maxOrderQuantity;
+    }
+
+    /** Quantity times price of one order; not checked for market orders, which have no price. */
+    public BigDecimal getMaxOrderNotional() {
+        return maxOrderNotional;
+    }
+
+    public void setMaxOrderNotional(BigDecimal maxOrderNotional) {
+        this.maxOrderNotional = maxOrderNotional;
+    }
+
+    /** Shares of one symbol held once a buy is booked. */
+    public BigDecimal getMaxPositionQuantity() {
+        return maxPositionQuantity;
+    }
+
+    public void setMaxPositionQuantity(BigDecimal maxPositionQuantity) {
+        this.maxPositionQuantity = maxPositionQuantity;
+    }
+}
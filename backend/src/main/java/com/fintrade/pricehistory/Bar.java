@@ -0,0 +1,41 @@
+package com.fintrade.pricehistory;
+
+/**
+ * One OHLCV bar. Range queries hand out a single instance that is reloaded from the
+ * mapped file for every bar, so a consumer must not keep a reference past its callback.
+ * Prices are in cents and volume in ten-thousandths, like the order book's units.
+ */
+public final class Bar {
+
+    long time;
+    long open;
+    long high;
+    long low;
+    long close;
+    long volume;
+
+    /** Bucket start, epoch milliseconds UTC. */
+    public long getTime() {
+        return time;
+    }
+
+    public long getOpen() {
+        return open;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    public long getClose() {
+        return close;
+    }
+
+    public long getVolume() {
+        return volume;
+    }
+}
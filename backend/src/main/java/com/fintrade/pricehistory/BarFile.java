@@ -0,0 +1,230 @@
+package com.fintrade.pricehistory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only, memory-mapped file of fixed-size bars for one symbol and resolution.
+ *
+ * <pre>
+ * header  (64 bytes)  int magic, int version, long resolution millis, long bar count
+ * bars    (48 bytes)  long time, open, high, low, close, volume   (little-endian)
+ * </pre>
+ *
+ * Bars are sorted by time, so a range is found by binary search and read straight from
+ * the mapping. Only the newest bar ever changes; it is written under a {@link StampedLock}
+ * and read optimistically, so readers never block the writer.
+ */
+final class BarFile {
+
+    static final int HEADER_BYTES = 64;
+    static final int BAR_BYTES = 48;
+
+    private static final int MAGIC = 0x46544231; // "FTB1"
+    private static final int VERSION = 1;
+    private static final int COUNT_OFFSET = 16;
+
+    private final Path path;
+    private final Resolution resolution;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final long segmentBytes;
+    private final MappedByteBuffer header;
+    private final StampedLock lastBarLock = new StampedLock();
+
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile long count;
+
+    private BarFile(Path path, Resolution resolution, MappedByteBuffer header) {
+        this.path = path;
+        this.resolution = resolution;
+        this.segmentShift = Integer.numberOfTrailingZeros(resolution.getSegmentRecords());
+        this.segmentMask = resolution.getSegmentRecords() - 1;
+        this.segmentBytes = (long) resolution.getSegmentRecords() * BAR_BYTES;
+        this.header = header;
+        this.count = header.getLong(COUNT_OFFSET);
+    }
+
+    static BarFile open(Path path, Resolution resolution) throws IOException {
+        boolean created = !Files.exists(path);
+        if (created) {
+            Files.createDirectories(path.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (created || header.getInt(0) == 0) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putLong(8, resolution.getMillis());
+                header.putLong(COUNT_OFFSET, 0);
+            } else if (header.getInt(0) != MAGIC || header.getLong(8) != resolution.getMillis()) {
+                throw new IOException(path + " is not a " + resolution + " bar file");
+            }
+            return new BarFile(path, resolution, header);
+        }
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * Folds a trade into the bar of its bucket: updates the newest bar or starts a new one.
+     *
+     * @return false if the trade is older than the newest bar and was dropped
+     */
+    synchronized boolean record(long epochMillis, long price, long quantity) {
+        long bucket = resolution.bucketStart(epochMillis);
+        long n = count;
+        if (n > 0) {
+            MappedByteBuffer last = segment(n - 1);
+            int offset = offset(n - 1);
+            long lastTime = last.getLong(offset);
+            if (bucket < lastTime) {
+                return false;
+            }
+            if (bucket == lastTime) {
+                long stamp = lastBarLock.writeLock();
+                try {
+                    last.putLong(offset + 16, Math.max(last.getLong(offset + 16), price));
+                    last.putLong(offset + 24, Math.min(last.getLong(offset + 24), price));
+                    last.putLong(offset + 32, price);
+                    last.putLong(offset + 40, last.getLong(offset + 40) + quantity);
+                } finally {
+                    lastBarLock.unlockWrite(stamp);
+                }
+                return true;
+            }
+        }
+
+        MappedByteBuffer segment = segment(n);
+        int offset = offset(n);
+        segment.putLong(offset, bucket);
+        segment.putLong(offset + 8, price);
+        segment.putLong(offset + 16, price);
+        segment.putLong(offset + 24, price);
+        segment.putLong(offset + 32, price);
+        segment.putLong(offset + 40, quantity);
+        // Publish the bar only once it is fully written.
+        header.putLong(COUNT_OFFSET, n + 1);
+        count = n + 1;
+        return true;
+    }
+
+    /**
+     * Calls {@code consumer} for up to {@code limit} bars with {@code from <= time < to},
+     * oldest first, reusing one {@link Bar}.
+     *
+     * @return the number of bars passed to the consumer
+     */
+    int read(long from, long to, int limit, Consumer<Bar> consumer) {
+        long n = count;
+        long index = firstAtOrAfter(resolution.bucketStart(from), n);
+        Bar bar = new Bar();
+        int emitted = 0;
+        while (index < n && emitted < limit) {
+            if (index == n - 1) {
+                loadNewest(index, bar);
+            } else {
+                load(index, bar);
+            }
+            if (bar.time >= to) {
+                break;
+            }
+            consumer.accept(bar);
+            emitted++;
+            index++;
+        }
+        return emitted;
+    }
+
+    synchronized void force() {
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+        header.force();
+    }
+
+    private long firstAtOrAfter(long time, long n) {
+        long low = 0;
+        long high = n;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (segment(mid).getLong(offset(mid)) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void loadNewest(long index, Bar bar) {
+        long stamp = lastBarLock.tryOptimisticRead();
+        load(index, bar);
+        if (!lastBarLock.validate(stamp)) {
+            stamp = lastBarLock.readLock();
+            try {
+                load(index, bar);
+            } finally {
+                lastBarLock.unlockRead(stamp);
+            }
+        }
+    }
+
+    private void load(long index, Bar bar) {
+        MappedByteBuffer segment = segment(index);
+        int offset = offset(index);
+        bar.time = segment.getLong(offset);
+        bar.open = segment.getLong(offset + 8);
+        bar.high = segment.getLong(offset + 16);
+        bar.low = segment.getLong(offset + 24);
+        bar.close = segment.getLong(offset + 32);
+        bar.volume = segment.getLong(offset + 40);
+    }
+
+    private int offset(long index) {
+        return (int) (index & segmentMask) * BAR_BYTES;
+    }
+
+    private MappedByteBuffer segment(long index) {
+        int segmentIndex = (int) (index >>> segmentShift);
+        MappedByteBuffer[] current = segments;
+        if (segmentIndex < current.length && current[segmentIndex] != null) {
+            return current[segmentIndex];
+        }
+        return mapSegment(segmentIndex);
+    }
+
+    private synchronized MappedByteBuffer mapSegment(int segmentIndex) {
+        MappedByteBuffer[] current = segments;
+        if (segmentIndex < current.length && current[segmentIndex] != null) {
+            return current[segmentIndex];
+        }
+        // Mapping past the end grows the file; the mapping stays valid after the channel closes.
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + segmentIndex * segmentBytes, segmentBytes);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            MappedByteBuffer[] grown = Arrays.copyOf(current, Math.max(current.length, segmentIndex + 1));
+            grown[segmentIndex] = segment;
+            segments = grown;
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map " + path, e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.fintrade.pricehistory;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * OHLCV history per symbol in {@code <directory>/<SYMBOL>/<resolution>.bars}. Every trade
+ * updates the minute, hour and day bar it falls into; queries read the mapped files
+ * directly, so history never has to fit in the heap.
+ */
+@Component
+public class PriceHistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryStore.class);
+
+    // A leading letter or digit keeps "." and ".." out: a symbol is a directory name.
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9][A-Z0-9.\\-]{0,19}");
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private final Path directory;
+    private final Map<String, Map<Resolution, BarFile>> files = new ConcurrentHashMap<>();
+
+    public PriceHistoryStore(@Value("${price-history.directory:data/price-history}") String directory) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+    }
+
+    public static boolean isValidSymbol(String symbol) {
+        return symbol != null && SYMBOL.matcher(symbol).matches();
+    }
+
+    /**
+     * Records a trade. Trades older than a resolution's newest bar cannot be inserted into
+     * the append-only file and are left out of that resolution.
+     *
+     * @param price    in cents
+     * @param quantity in ten-thousandths
+     */
+    public void record(String symbol, long epochMillis, long price, long quantity) {
+        Map<Resolution, BarFile> series = series(symbol, true);
+        for (Resolution resolution : RESOLUTIONS) {
+            if (!series.get(resolution).record(epochMillis, price, quantity)) {
+                log.debug("Dropped late {} trade for {} at {}", resolution, symbol, epochMillis);
+            }
+        }
+    }
+
+    /**
+     * Streams bars with {@code from <= time < to}, oldest first. The {@link Bar} passed to
+     * the consumer is reused between calls.
+     *
+     * @return the number of bars read
+     */
+    public int read(String symbol, Resolution resolution, long from, long to, int limit, Consumer<Bar> consumer) {
+        Map<Resolution, BarFile> series = series(symbol, false);
+        if (series == null) {
+            return 0;
+        }
+        return series.get(resolution).read(from, to, limit, consumer);
+    }
+
+    @PreDestroy
+    public void flush() {
+        files.values().forEach(series -> series.values().forEach(BarFile::force));
+    }
+
+    private Map<Resolution, BarFile> series(String symbol, boolean create) {
+        Map<Resolution, BarFile> series = files.get(symbol);
+        if (series != null) {
+            return series;
+        }
+        // Only symbols that passed this check are ever opened, so the hot path skips it.
+        if (!isValidSymbol(symbol)) {
+            throw new IllegalArgumentException("Invalid symbol: " + symbol);
+        }
+        if (!create && !Files.isDirectory(directory.resolve(symbol))) {
+            return null;
+        }
+        return files.computeIfAbsent(symbol, this::open);
+    }
+
+    private Map<Resolution, BarFile> open(String symbol) {
+        Path symbolDirectory = directory.resolve(symbol).normalize();
+        if (!symbolDirectory.getParent().equals(directory)) {
+            throw new IllegalArgumentException("Invalid symbol: " + symbol);
+        }
+        Map<Resolution, BarFile> series = new EnumMap<>(Resolution.class);
+        try {
+            for (Resolution resolution : Resolution.values()) {
+                series.put(resolution, BarFile.open(
+                        symbolDirectory.resolve(resolution.getFileSuffix() + ".bars"), resolution));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open price history for " + symbol, e);
+        }
+        return series;
+    }
+}
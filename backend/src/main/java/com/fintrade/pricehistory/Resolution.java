@@ -0,0 +1,38 @@
+package com.fintrade.pricehistory;
+
+/**
+ * Bar sizes kept for every symbol. Each resolution maps its file in segments sized so
+ * that ten years of bars take a handful of mappings.
+ */
+public enum Resolution {
+    MINUTE("1m", 60_000L, 1 << 20),
+    HOUR("1h", 3_600_000L, 1 << 14),
+    DAY("1d", 86_400_000L, 1 << 12);
+
+    private final String fileSuffix;
+    private final long millis;
+    private final int segmentRecords;
+
+    Resolution(String fileSuffix, long millis, int segmentRecords) {
+        this.fileSuffix = fileSuffix;
+        this.millis = millis;
+        this.segmentRecords = segmentRecords;
+    }
+
+    public String getFileSuffix() {
+        return fileSuffix;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    int getSegmentRecords() {
+        return segmentRecords;
+    }
+
+    /** Start of the UTC bucket {@code epochMillis} falls into. */
+    public long bucketStart(long epochMillis) {
+        return Math.floorDiv(epochMillis, millis) * millis;
+    }
+}
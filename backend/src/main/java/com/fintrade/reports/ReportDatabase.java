@@ -0,0 +1,115 @@
+package com.fintrade.reports;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The connection pool reports read from. It is separate from the application's pool, so
+ * however long a report runs, it never holds a connection that trading needs. By default
+ * it reaches the primary; {@code reports.datasource.url} points it at a replica instead.
+ * The pool keeps no idle connections while no report runs.
+ */
+@Component
+public class ReportDatabase {
+
+    static final String POOL_NAME = "reporting";
+
+    @Value("${reports.datasource.url:${spring.datasource.url}}")
+    private String url;
+
+    @Value("${reports.datasource.username:${spring.datasource.username}}")
+    private String username;
+
+    @Value("${reports.datasource.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${spring.datasource.driver-class-name:}")
+    private String driverClassName;
+
+    @Value("${reports.datasource.pool-size:${reports.workers:2}}")
+    private int poolSize;
+
+    @Value("${reports.fetch-size:1000}")
+    private int fetchSize;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate snapshot;
+
+    @PostConstruct
+    void open() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(POOL_NAME);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        if (!driverClassName.isEmpty()) {
+            config.setDriverClassName(driverClassName);
+        }
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(0);
+        config.setReadOnly(true);
+        // A reporting database that is down at startup only fails the reports, not the application.
+        config.setInitializationFailTimeout(-1);
+        // The pool is not a bean, so Boot's pool metrics never see it.
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+        dataSource = new HikariDataSource(config);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // With useCursorFetch on MySQL, rows arrive fetchSize at a time instead of all at once.
+        jdbcTemplate.setFetchSize(fetchSize);
+        snapshot = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshot.setReadOnly(true);
+    }
+
+    @PreDestroy
+    void close() {
+        dataSource.close();
+    }
+
+    /**
+     * Runs {@code query} in one read-only repeatable-read transaction, so every part of a
+     * report comes from the same snapshot.
+     */
+    public <T> T read(Query<T> query) throws IOException {
+        try {
+            return snapshot.execute(status -> {
+                try {
+                    return query.run(jdbcTemplate);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Query<T> {
+
+        T run(JdbcTemplate jdbcTemplate) throws IOException;
+    }
+}
@@ -0,0 +1,369 @@
+package com.fintrade.reports;
+
+import com.fintrade.entity.ReportJob;
+import com.fintrade.repository.ReportJobRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates reports in the background. A request only writes a {@code QUEUED} job row and
+ * returns; the job then waits for one of {@code reports.workers} threads, taking its turn
+ * behind the user's other reports once {@code reports.per-user-running} of them are being
+ * generated. A worker reads through {@link ReportDatabase}, never the application's pool,
+ * and writes {@code <reports.directory>/<user>/<job>.<ext>} under a temporary name that
+ * is renamed once complete. A user may have {@code reports.per-user-queued} unfinished
+ * reports; finished ones are deleted after {@code reports.retention}.
+ *
+ * <p>Every instance shares the job rows. A worker claims its job for this instance with a
+ * lease of {@code reports.lease} milliseconds, renewed every {@code reports.lease-renewal};
+ * only a queued job, or one whose lease ran out because its instance stopped, can be
+ * claimed, so a report is generated by one instance at a time. The claim and the request
+ * lock the user's row, so the per-user caps hold across instances. The renewal also picks
+ * up queued jobs and jobs whose lease ran out, including those cut short by a restart.
+ *
+ * <p>{@code fintrade.reports.generation} times the reports by {@code type} and
+ * {@code result}; {@code fintrade.reports.queued} and {@code fintrade.reports.running}
+ * gauge the jobs waiting and being generated on this instance.
+ */
+@Service
+public class ReportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportService.class);
+
+    private static final String LOCK_USER = "SELECT id FROM users WHERE id = ? FOR UPDATE";
+    private static final String COUNT_RUNNING = "SELECT COUNT(*) FROM report_jobs "
+            + "WHERE user_id = ? AND status = 'RUNNING' AND lease_until >= ?";
+    private static final String START = "UPDATE report_jobs SET status = 'RUNNING', "
+            + "started_at = COALESCE(started_at, ?), claimed_by = ?, lease_until = ? "
+            + "WHERE id = ? AND (status = 'QUEUED' OR (status = 'RUNNING' AND lease_until < ?))";
+    private static final String RENEW = "UPDATE report_jobs SET lease_until = ? "
+            + "WHERE claimed_by = ? AND status = 'RUNNING'";
+    private static final String FINISH = "UPDATE report_jobs SET status = ?, finished_at = ?, rows_written = ?, "
+            + "size_bytes = ?, error = ? WHERE id = ? AND claimed_by = ?";
+    private static final String SELECT_EXPIRED = "SELECT id, user_id, type FROM report_jobs "
+            + "WHERE status IN ('DONE', 'FAILED') AND finished_at < ? ORDER BY id LIMIT ?";
+    private static final int CLEANUP_BATCH = 500;
+    private static final int ERROR_LENGTH = 500;
+
+    @Autowired
+    private ReportJobRepository jobRepository;
+
+    @Autowired
+    private ReportDatabase reportDatabase;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${reports.directory:data/reports}")
+    private String directory;
+
+    @Value("${reports.workers:2}")
+    private int workers;
+
+    @Value("${reports.per-user-running:1}")
+    private int perUserRunning;
+
+    @Value("${reports.per-user-queued:5}")
+    private int perUserQueued;
+
+    @Value("${reports.retention:604800000}")
+    private long retentionMillis;
+
+    @Value("${reports.lease:60000}")
+    private long leaseMillis;
+
+    /** Identifies this instance's claims. */
+    private final String instance = UUID.randomUUID().toString();
+
+    private ExecutorService background;
+
+    /** Jobs waiting for a worker, oldest first. Guarded by {@code this}. */
+    private final Deque<ReportJob> waiting = new ArrayDeque<>();
+    /** Ids of the jobs waiting or being generated here, so none is taken twice. Guarded by {@code this}. */
+    private final Set<Long> accepted = new HashSet<>();
+    /** Reports being generated per user. Guarded by {@code this}. */
+    private final Map<Long, Integer> runningByUser = new HashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threads = new AtomicInteger();
+        background = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "report-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("fintrade.reports.queued", this, ReportService::queued)
+                .description("Reports waiting for a worker").register(meterRegistry);
+        Gauge.builder("fintrade.reports.running", running, AtomicInteger::get)
+                .description("Reports being generated").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        background.shutdownNow();
+    }
+
+    /**
+     * Queues a report once this transaction commits; empty if the user already has
+     * {@code reports.per-user-queued} reports unfinished.
+     */
+    @Transactional
+    public Optional<ReportJob> request(long userId, ReportType type, LocalDate from, LocalDate to) {
+        // Held until commit, so two requests of the user on different instances count one after the other.
+        jdbcTemplate.query(LOCK_USER, (row, i) -> row.getLong(1), userId);
+        if (jobRepository.countByUserIdAndStatusIn(userId,
+                EnumSet.of(ReportJob.Status.QUEUED, ReportJob.Status.RUNNING)) >= perUserQueued) {
+            return Optional.empty();
+        }
+        ReportJob job = jobRepository.save(new ReportJob(userId, type, from, to));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(job);
+            }
+        });
+        return Optional.of(job);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ReportJob> getJob(long userId, Long id) {
+        return jobRepository.findById(id).filter(job -> job.getUserId() == userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ReportJob> getJobs(long userId) {
+        return jobRepository.findTop50ByUserIdOrderByIdDesc(userId);
+    }
+
+    /** The finished report's file. */
+    public Path file(ReportJob job) {
+        return Paths.get(directory, String.valueOf(job.getUserId()),
+                job.getId() + "." + job.getType().getExtension());
+    }
+
+    /**
+     * Renews the leases of the reports being generated here, then picks up queued jobs not
+     * yet taken and jobs whose instance stopped renewing their lease. Runs from startup on.
+     */
+    @Scheduled(fixedDelayString = "${reports.lease-renewal:20000}")
+    public void renewAndResume() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(RENEW, Timestamp.valueOf(now.plus(leaseMillis, ChronoUnit.MILLIS)), instance);
+        List<ReportJob> unclaimed = jobRepository.findByStatusOrStatusAndLeaseUntilBeforeOrderById(
+                ReportJob.Status.QUEUED, ReportJob.Status.RUNNING, now);
+        long expired = unclaimed.stream().filter(job -> job.getStatus() == ReportJob.Status.RUNNING).count();
+        if (expired > 0) {
+            log.info("Taking over {} reports whose lease ran out", expired);
+        }
+        unclaimed.forEach(this::submit);
+    }
+
+    /** Removes the files of a user whose rows have been deleted. */
+    public void userDeleted(long userId) {
+        try {
+            FileSystemUtils.deleteRecursively(Paths.get(directory, String.valueOf(userId)));
+        } catch (IOException e) {
+            log.warn("Could not delete the reports of user {}", userId, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reports.cleanup-interval:3600000}")
+    public void cleanUpScheduled() {
+        cleanUp();
+    }
+
+    /** Deletes finished reports older than the retention period, files first, and returns how many. */
+    public int cleanUp() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(retentionMillis, ChronoUnit.MILLIS));
+        int deleted = 0;
+        List<Long> ids;
+        do {
+            ids = jdbcTemplate.query(SELECT_EXPIRED, (row, i) -> {
+                Path file = Paths.get(directory, row.getString(2),
+                        row.getLong(1) + "." + ReportType.valueOf(row.getString(3)).getExtension());
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Could not delete report file {}", file, e);
+                }
+                return row.getLong(1);
+            }, cutoff, CLEANUP_BATCH);
+            if (!ids.isEmpty()) {
+                String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+                deleted += jdbcTemplate.update("DELETE FROM report_jobs WHERE id IN (" + placeholders + ")",
+                        ids.toArray());
+            }
+        } while (ids.size() == CLEANUP_BATCH);
+        if (deleted > 0) {
+            log.info("Deleted {} expired reports", deleted);
+        }
+        return deleted;
+    }
+
+    private void submit(ReportJob job) {
+        synchronized (this) {
+            if (!accepted.add(job.getId())) {
+                return;
+            }
+            waiting.add(job);
+        }
+        dispatch();
+    }
+
+    /** Hands waiting jobs to free workers, skipping users who already have their share running. */
+    private synchronized void dispatch() {
+        if (background.isShutdown()) {
+            return;
+        }
+        Iterator<ReportJob> jobs = waiting.iterator();
+        while (running.get() < workers && jobs.hasNext()) {
+            ReportJob job = jobs.next();
+            if (runningByUser.getOrDefault(job.getUserId(), 0) < perUserRunning) {
+                jobs.remove();
+                runningByUser.merge(job.getUserId(), 1, Integer::sum);
+                running.incrementAndGet();
+                background.execute(() -> {
+                    try {
+                        run(job);
+                    } finally {
+                        finished(job);
+                    }
+                });
+            }
+        }
+    }
+
+    private void finished(ReportJob job) {
+        synchronized (this) {
+            runningByUser.computeIfPresent(job.getUserId(), (user, count) -> count > 1 ? count - 1 : null);
+            running.decrementAndGet();
+            accepted.remove(job.getId());
+        }
+        dispatch();
+    }
+
+    private synchronized int queued() {
+        return waiting.size();
+    }
+
+    private void run(ReportJob job) {
+        long started = System.nanoTime();
+        Path file = file(job);
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        if (!claim(job)) {
+            return;
+        }
+        String result = "failed";
+        try {
+            Files.createDirectories(part.getParent());
+            long rows;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+                rows = reportDatabase.read(jdbc -> ReportWriters.write(job, jdbc, out));
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (jdbcTemplate.update(FINISH, ReportJob.Status.DONE.name(), Timestamp.valueOf(LocalDateTime.now()), rows,
+                    Files.size(file), null, job.getId(), instance) == 0) {
+                log.warn("Report {} was taken over by another instance after its lease ran out", job.getId());
+                return;
+            }
+            result = "done";
+            log.info("Generated {} report {} for user {} ({} rows) in {} ms", job.getType(), job.getId(),
+                    job.getUserId(), rows, (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            deleteQuietly(part);
+            if (Thread.currentThread().isInterrupted()) {
+                log.warn("Report {} interrupted; it is generated again once its lease runs out", job.getId());
+                return;
+            }
+            log.error("Report {} failed", job.getId(), e);
+            String message = String.valueOf(e.getMessage());
+            jdbcTemplate.update(FINISH, ReportJob.Status.FAILED.name(), Timestamp.valueOf(LocalDateTime.now()), 0, 0,
+                    message.substring(0, Math.min(message.length(), ERROR_LENGTH)), job.getId(), instance);
+        } finally {
+            Timer.builder("fintrade.reports.generation")
+                    .description("Time to generate a report")
+                    .tag("type", job.getType().name())
+                    .tag("result", result)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Claims the job for this instance unless another instance holds it or the user already
+     * has {@code reports.per-user-running} reports being generated; a job left queued is
+     * offered again by the next renewal.
+     */
+    private boolean claim(ReportJob job) {
+        Boolean claimed = new TransactionTemplate(transactionManager).execute(status -> {
+            if (jdbcTemplate.query(LOCK_USER, (row, i) -> row.getLong(1), job.getUserId()).isEmpty()) {
+                return false;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp at = Timestamp.valueOf(now);
+            Long generating = jdbcTemplate.queryForObject(COUNT_RUNNING, Long.class, job.getUserId(), at);
+            return generating != null && generating < perUserRunning && jdbcTemplate.update(START, at, instance,
+                    Timestamp.valueOf(now.plus(leaseMillis, ChronoUnit.MILLIS)), job.getId(), at) > 0;
+        });
+        return Boolean.TRUE.equals(claimed);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.fintrade.reports;
+
+public enum ReportType {
+
+    /** Current holdings, the period's transactions and their totals, as JSON. */
+    STATEMENT("application/json", "json"),
+    /** One year's realized gains with short and long term totals, as JSON. */
+    TAX_SUMMARY("application/json", "json"),
+    /** Every transaction of the user, as CSV. */
+    TRANSACTION_HISTORY("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ReportType(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,252 @@
+package com.fintrade.reports;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fintrade.entity.ReportJob;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes each report type row by row as the query returns it, so a report of any size
+ * needs no more memory than one row.
+ */
+final class ReportWriters {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String HOLDINGS = "SELECT s.symbol, s.company_name, p.quantity, p.average_price, "
+            + "p.current_price, p.total_value, p.total_cost FROM portfolios p "
+            + "JOIN securities s ON s.id = p.security_id WHERE p.user_id = ? ORDER BY s.symbol";
+    private static final String TRANSACTION_COLUMNS = "SELECT t.id, t.transaction_date, t.transaction_type, s.symbol, "
+            + "s.company_name, t.quantity, t.price, t.commission, t.total_amount, t.lot_method, t.notes "
+            + "FROM transactions t JOIN securities s ON s.id = t.security_id WHERE t.user_id = ? ";
+    private static final String TRANSACTIONS = TRANSACTION_COLUMNS
+            + "AND t.transaction_date >= ? AND t.transaction_date < ? ORDER BY t.transaction_date, t.id";
+    private static final String ALL_TRANSACTIONS = TRANSACTION_COLUMNS + "ORDER BY t.id";
+    private static final String GAINS = "SELECT symbol, quantity, acquired_at, sold_at, cost_basis, proceeds, gain, "
+            + "long_term FROM realized_gains WHERE user_id = ? AND sold_at >= ? AND sold_at < ? ORDER BY sold_at, id";
+    private static final String CSV_HEADER = "id,transaction_date,transaction_type,symbol,company_name,quantity,"
+            + "price,commission,total_amount,lot_method,notes\r\n";
+
+    private ReportWriters() {
+    }
+
+    /** Writes the job's report to {@code out} and returns the number of rows in it. */
+    static long write(ReportJob job, JdbcTemplate jdbcTemplate, OutputStream out) throws IOException {
+        try {
+            return switch (job.getType()) {
+                case STATEMENT -> statement(job, jdbcTemplate, out);
+                case TAX_SUMMARY -> taxSummary(job, jdbcTemplate, out);
+                case TRANSACTION_HISTORY -> transactionHistory(job, jdbcTemplate, out);
+            };
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long statement(ReportJob job, JdbcTemplate jdbcTemplate, OutputStream out) throws IOException {
+        Totals holdings = new Totals();
+        Totals bought = new Totals();
+        Totals sold = new Totals();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("from", job.getPeriodFrom().toString());
+            generator.writeStringField("to", job.getPeriodTo().toString());
+            writeDateTime(generator, "generatedAt", LocalDateTime.now());
+
+            generator.writeArrayFieldStart("holdings");
+            jdbcTemplate.query(HOLDINGS, row -> {
+                holdings.add(row.getBigDecimal(6), row.getBigDecimal(7), null);
+                unchecked(() -> {
+                    generator.writeStartObject();
+                    generator.writeStringField("symbol", row.getString(1));
+                    generator.writeStringField("companyName", row.getString(2));
+                    writeDecimal(generator, "quantity", row.getBigDecimal(3));
+                    writeDecimal(generator, "averagePrice", row.getBigDecimal(4));
+                    writeDecimal(generator, "currentPrice", row.getBigDecimal(5));
+                    writeDecimal(generator, "totalValue", row.getBigDecimal(6));
+                    writeDecimal(generator, "totalCost", row.getBigDecimal(7));
+                    generator.writeEndObject();
+                });
+            }, job.getUserId());
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("transactions");
+            jdbcTemplate.query(TRANSACTIONS, row -> {
+                ("SELL".equals(row.getString(3)) ? sold : bought).add(row.getBigDecimal(9), null,
+                        row.getBigDecimal(8));
+                unchecked(() -> {
+                    generator.writeStartObject();
+                    generator.writeNumberField("id", row.getLong(1));
+                    writeDateTime(generator, "transactionDate", dateTime(row.getTimestamp(2)));
+                    generator.writeStringField("transactionType", row.getString(3));
+                    generator.writeStringField("symbol", row.getString(4));
+                    generator.writeStringField("companyName", row.getString(5));
+                    writeDecimal(generator, "quantity", row.getBigDecimal(6));
+                    writeDecimal(generator, "price", row.getBigDecimal(7));
+                    writeDecimal(generator, "commission", row.getBigDecimal(8));
+                    writeDecimal(generator, "totalAmount", row.getBigDecimal(9));
+                    generator.writeStringField("notes", row.getString(11));
+                    generator.writeEndObject();
+                });
+            }, job.getUserId(), Timestamp.valueOf(job.getPeriodFrom().atStartOfDay()),
+                    Timestamp.valueOf(job.getPeriodTo().plusDays(1).atStartOfDay()));
+            generator.writeEndArray();
+
+            generator.writeObjectFieldStart("totals");
+            generator.writeNumberField("holdings", holdings.rows);
+            generator.writeNumberField("marketValue", holdings.amount);
+            generator.writeNumberField("costBasis", holdings.cost);
+            generator.writeNumberField("buys", bought.rows);
+            generator.writeNumberField("bought", bought.amount);
+            generator.writeNumberField("sells", sold.rows);
+            generator.writeNumberField("sold", sold.amount);
+            generator.writeNumberField("commission", bought.commission.add(sold.commission));
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        return holdings.rows + bought.rows + sold.rows;
+    }
+
+    private static long taxSummary(ReportJob job, JdbcTemplate jdbcTemplate, OutputStream out) throws IOException {
+        Totals shortTerm = new Totals();
+        Totals longTerm = new Totals();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("year", job.getPeriodFrom().getYear());
+            writeDateTime(generator, "generatedAt", LocalDateTime.now());
+
+            generator.writeArrayFieldStart("gains");
+            jdbcTemplate.query(GAINS, row -> {
+                (row.getBoolean(8) ? longTerm : shortTerm).add(row.getBigDecimal(6), row.getBigDecimal(5), null);
+                unchecked(() -> {
+                    generator.writeStartObject();
+                    generator.writeStringField("symbol", row.getString(1));
+                    writeDecimal(generator, "quantity", row.getBigDecimal(2));
+                    writeDateTime(generator, "acquiredAt", dateTime(row.getTimestamp(3)));
+                    writeDateTime(generator, "soldAt", dateTime(row.getTimestamp(4)));
+                    writeDecimal(generator, "costBasis", row.getBigDecimal(5));
+                    writeDecimal(generator, "proceeds", row.getBigDecimal(6));
+                    writeDecimal(generator, "gain", row.getBigDecimal(7));
+                    generator.writeBooleanField("longTerm", row.getBoolean(8));
+                    generator.writeEndObject();
+                });
+            }, job.getUserId(), Timestamp.valueOf(job.getPeriodFrom().atStartOfDay()),
+                    Timestamp.valueOf(job.getPeriodTo().plusDays(1).atStartOfDay()));
+            generator.writeEndArray();
+
+            writeGains(generator, "shortTerm", shortTerm);
+            writeGains(generator, "longTerm", longTerm);
+            generator.writeEndObject();
+        }
+        return shortTerm.rows + longTerm.rows;
+    }
+
+    private static long transactionHistory(ReportJob job, JdbcTemplate jdbcTemplate, OutputStream out)
+            throws IOException {
+        long[] rows = new long[1];
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write(CSV_HEADER);
+        jdbcTemplate.query(ALL_TRANSACTIONS, row -> {
+            StringBuilder line = new StringBuilder(160);
+            line.append(row.getLong(1)).append(',');
+            LocalDateTime date = dateTime(row.getTimestamp(2));
+            line.append(date != null ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(date) : "").append(',');
+            for (int column = 3; column <= 11; column++) {
+                if (column >= 6 && column <= 9) {
+                    BigDecimal value = row.getBigDecimal(column);
+                    line.append(value != null ? value.toPlainString() : "");
+                } else {
+                    csvText(line, row.getString(column));
+                }
+                line.append(column < 11 ? ',' : '\r');
+            }
+            line.append('\n');
+            rows[0]++;
+            unchecked(() -> writer.write(line.toString()));
+        }, job.getUserId());
+        writer.flush();
+        return rows[0];
+    }
+
+    /** Quotes text that needs it and defuses values a spreadsheet would run as a formula. */
+    private static void csvText(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+        } else {
+            line.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    private static void writeGains(JsonGenerator generator, String name, Totals totals) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeNumberField("lots", totals.rows);
+        generator.writeNumberField("proceeds", totals.amount);
+        generator.writeNumberField("costBasis", totals.cost);
+        generator.writeNumberField("gain", totals.amount.subtract(totals.cost));
+        generator.writeEndObject();
+    }
+
+    private static void writeDecimal(JsonGenerator generator, String name, BigDecimal value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeDateTime(JsonGenerator generator, String name, LocalDateTime value) throws IOException {
+        generator.writeStringField(name, value == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+    }
+
+    private static LocalDateTime dateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static void unchecked(Output output) throws SQLException {
+        try {
+            output.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Output {
+
+        void write() throws IOException, SQLException;
+    }
+
+    /** Running sums over the rows of one section. */
+    private static final class Totals {
+
+        long rows;
+        BigDecimal amount = BigDecimal.ZERO;
+        BigDecimal cost = BigDecimal.ZERO;
+        BigDecimal commission = BigDecimal.ZERO;
+
+        void add(BigDecimal amount, BigDecimal cost, BigDecimal commission) {
+            rows++;
+            this.amount = this.amount.add(amount != null ? amount : BigDecimal.ZERO);
+            this.cost = this.cost.add(cost != null ? cost : BigDecimal.ZERO);
+            this.commission = this.commission.add(commission != null ? commission : BigDecimal.ZERO);
+        }
+    }
+}
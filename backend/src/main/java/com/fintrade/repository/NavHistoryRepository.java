@@ -0,0 +1,20 @@
+package com.fintrade.repository;
+
+import com.fintrade.entity.NavHistory;
+import com.fintrade.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NavHistoryRepository extends JpaRepository<NavHistory, Long> {
+
+    Optional<NavHistory> findTopByUserOrderByNavDateDesc(User user);
+
+    Optional<NavHistory> findTopByUserAndNavDateBeforeOrderByNavDateDesc(User user, LocalDate navDate);
+
+    List<NavHistory> findByUserAndNavDateBetweenOrderByNavDate(User user, LocalDate from, LocalDate to);
+}
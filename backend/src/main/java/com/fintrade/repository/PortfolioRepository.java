@@ -1,21 +1,45 @@
 package com.fintrade.repository;
 
+import com.fintrade.dto.PortfolioSummaryView;
+import com.fintrade.dto.PortfolioView;
 import com.fintrade.entity.Portfolio;
 import com.fintrade.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PortfolioRepository extends JpaRepository<Portfolio, Long> {
 
-    List<Portfolio> findByUser(User user);
+    String VIEW_SELECT = "SELECT new com.fintrade.dto.PortfolioView(p.id, p.symbol, p.companyName, p.quantity, "
+            + "p.averagePrice, p.currentPrice, p.totalValue, p.totalCost, p.profitLoss, p.profitLossPercentage) "
+            + "FROM Portfolio p ";
 
-    List<Portfolio> findByUserOrderBySymbolAsc(User user);
+    List<Portfolio> findByUser(User user);
 
     Optional<Portfolio> findByUserAndSymbol(User user, String symbol);
 
-    List<Portfolio> findByUserAndSymbolContainingIgnoreCase(User user, String symbol);
+    /** Locks the row until the transaction ends, so a check of its quantity holds for the write that follows. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Portfolio> findForUpdateByUserAndSymbol(User user, String symbol);
+
+    /** In security id order; callers sort by symbol. */
+    @Query(VIEW_SELECT + "WHERE p.user = :user")
+    List<PortfolioView> findViewsByUser(@Param("user") User user);
+
+    /** {@code symbols} is compared as security ids; see {@code SecurityMaster.search}. */
+    @Query(VIEW_SELECT + "WHERE p.user = :user AND p.symbol IN :symbols")
+    List<PortfolioView> findViewsByUserAndSymbolIn(@Param("user") User user,
+            @Param("symbols") Collection<String> symbols);
+
+    @Query("SELECT new com.fintrade.dto.PortfolioSummaryView(COALESCE(SUM(p.totalValue), 0BD), "
+            + "COALESCE(SUM(p.profitLoss), 0BD)) FROM Portfolio p WHERE p.user = :user")
+    PortfolioSummaryView summarizeByUser(@Param("user") User user);
 }
@@ -0,0 +1,20 @@
+package com.fintrade.repository;
+
+import com.fintrade.entity.RealizedGain;
+import com.fintrade.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RealizedGainRepository extends JpaRepository<RealizedGain, Long> {
+
+    @Query("SELECT g FROM RealizedGain g WHERE g.user = :user AND g.soldAt >= :from AND g.soldAt < :before "
+            + "ORDER BY g.soldAt, g.id")
+    List<RealizedGain> findByUserAndSoldBetween(@Param("user") User user, @Param("from") LocalDateTime from,
+            @Param("before") LocalDateTime before);
+}
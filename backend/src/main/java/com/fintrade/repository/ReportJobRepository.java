@@ -0,0 +1,21 @@
+package com.fintrade.repository;
+
+import com.fintrade.entity.ReportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+
+    List<ReportJob> findTop50ByUserIdOrderByIdDesc(Long userId);
+
+    /** Jobs in {@code waiting}, and jobs in {@code running} whose lease ran out before {@code expired}. */
+    List<ReportJob> findByStatusOrStatusAndLeaseUntilBeforeOrderById(ReportJob.Status waiting, ReportJob.Status running,
+            LocalDateTime expired);
+
+    long countByUserIdAndStatusIn(Long userId, Collection<ReportJob.Status> statuses);
+}
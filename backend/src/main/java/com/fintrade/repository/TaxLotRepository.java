@@ -0,0 +1,22 @@
+package com.fintrade.repository;
+
+import com.fintrade.entity.TaxLot;
+import com.fintrade.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaxLotRepository extends JpaRepository<TaxLot, Long> {
+
+    @Query("SELECT l FROM TaxLot l WHERE l.user = :user AND l.remainingQuantity > 0 "
+            + "ORDER BY l.symbol, l.acquiredAt, l.transactionId")
+    List<TaxLot> findOpenByUser(@Param("user") User user);
+
+    @Query("SELECT l FROM TaxLot l WHERE l.user = :user AND l.symbol = :symbol AND l.remainingQuantity > 0 "
+            + "ORDER BY l.acquiredAt, l.transactionId")
+    List<TaxLot> findOpenByUserAndSymbol(@Param("user") User user, @Param("symbol") String symbol);
+}
@@ -0,0 +1,9 @@
+package com.fintrade.repository;
+
+import com.fintrade.entity.TradingLimit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TradingLimitRepository extends JpaRepository<TradingLimit, Long> {
+}
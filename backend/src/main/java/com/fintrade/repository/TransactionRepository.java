@@ -1,18 +1,31 @@
 package com.fintrade.repository;
 
+import com.fintrade.dto.TransactionView;
 import com.fintrade.entity.Transaction;
 import com.fintrade.entity.User;
+import com.fintrade.performance.NavPosition;
+import com.fintrade.performance.NavTrade;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    String VIEW_SELECT = "SELECT new com.fintrade.dto.TransactionView(t.id, t.symbol, t.companyName, "
+            + "t.transactionType, t.quantity, t.price, t.totalAmount, t.commission, "
+            + "SUBSTRING(t.notes, 1, " + TransactionView.NOTES_PREVIEW_LENGTH + "), t.transactionDate) "
+            + "FROM Transaction t ";
+
+    String NAV_TRADE_SELECT = "SELECT new com.fintrade.performance.NavTrade(t.id, t.symbol, t.transactionType, "
+            + "t.quantity, t.price, t.commission, t.transactionDate) FROM Transaction t ";
+
     List<Transaction> findByUser(User user);
 
     List<Transaction> findByUserOrderByTransactionDateDesc(User user);
@@ -26,6 +39,43 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
 
-    @Query("SELECT t FROM Transaction t WHERE t.user = :user AND t.symbol LIKE %:symbol% ORDER BY t.transactionDate DESC")
-    List<Transaction> findByUserAndSymbolContainingIgnoreCase(@Param("user") User user, @Param("symbol") String symbol);
+    @Query(VIEW_SELECT + "WHERE t.user = :user ORDER BY t.transactionDate DESC")
+    List<TransactionView> findViewsByUser(@Param("user") User user);
+
+    @Query(VIEW_SELECT + "WHERE t.user = :user ORDER BY t.transactionDate DESC")
+    List<TransactionView> findViewsByUser(@Param("user") User user, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE t.user = :user AND t.symbol = :symbol ORDER BY t.transactionDate DESC")
+    List<TransactionView> findViewsByUserAndSymbol(@Param("user") User user, @Param("symbol") String symbol);
+
+    @Query(VIEW_SELECT + "WHERE t.user = :user AND t.transactionType = :transactionType "
+            + "ORDER BY t.transactionDate DESC")
+    List<TransactionView> findViewsByUserAndTransactionType(@Param("user") User user,
+            @Param("transactionType") Transaction.TransactionType transactionType);
+
+    @Query(VIEW_SELECT + "WHERE t.user = :user AND t.transactionDate BETWEEN :startDate AND :endDate "
+            + "ORDER BY t.transactionDate DESC")
+    List<TransactionView> findViewsByUserAndTransactionDateBetween(@Param("user") User user,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    /** {@code symbols} is compared as security ids; see {@code SecurityMaster.search}. */
+    @Query(VIEW_SELECT + "WHERE t.user = :user AND t.symbol IN :symbols ORDER BY t.transactionDate DESC")
+    List<TransactionView> findViewsByUserAndSymbolIn(@Param("user") User user,
+            @Param("symbols") Collection<String> symbols);
+
+    @Query(NAV_TRADE_SELECT + "WHERE t.user.id = :userId AND t.transactionDate >= :from "
+            + "AND t.transactionDate < :before ORDER BY t.transactionDate, t.id")
+    List<NavTrade> findNavTrades(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("before") LocalDateTime before);
+
+    @Query(NAV_TRADE_SELECT + "WHERE t.id IN :ids")
+    List<NavTrade> findNavTradesByIds(@Param("ids") Collection<Long> ids);
+
+    /** Net quantity per symbol from trades before {@code before}, with the newest trade's id. */
+    @Query("SELECT new com.fintrade.performance.NavPosition(t.symbol, "
+            + "SUM(CASE WHEN t.transactionType = com.fintrade.entity.Transaction$TransactionType.BUY "
+            + "THEN t.quantity ELSE -t.quantity END), MAX(t.id)) "
+            + "FROM Transaction t WHERE t.user.id = :userId AND t.transactionDate < :before GROUP BY t.symbol")
+    List<NavPosition> findNavPositions(@Param("userId") Long userId, @Param("before") LocalDateTime before);
 }
@@ -0,0 +1,9 @@
+package com.fintrade.repository;
+
+import com.fintrade.entity.UnsettledFill;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UnsettledFillRepository extends JpaRepository<UnsettledFill, Long> {
+}
@@ -0,0 +1,19 @@
+package com.fintrade.repository;
+
+import com.fintrade.entity.UserDeletionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserDeletionJobRepository extends JpaRepository<UserDeletionJob, Long> {
+
+    Optional<UserDeletionJob> findTopByUserIdOrderByIdDesc(Long userId);
+
+    /** Jobs in {@code waiting}, and jobs in {@code running} whose lease ran out before {@code expired}. */
+    List<UserDeletionJob> findByStatusOrStatusAndLeaseUntilBeforeOrderById(UserDeletionJob.Status waiting,
+            UserDeletionJob.Status running, LocalDateTime expired);
+}
@@ -0,0 +1,61 @@
+package com.fintrade.repository;
+
+import com.fintrade.dto.UserView;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keyset-paged reads of the user directory. A page is the rows after the last row of the
+ * previous one in the chosen order, with the id breaking ties, so every page costs the
+ * same index range scan however deep it is.
+ */
+public interface UserDirectory {
+
+    /**
+     * Up to {@code limit} users in {@code sort} order.
+     *
+     * @param prefix      matched against the start of username, email, first or last name; null for everyone
+     * @param afterValue  sort value of the previous page's last row, null on the first page
+     * @param afterId     id of the previous page's last row, null on the first page
+     */
+    List<UserView> findPage(String prefix, Sort sort, boolean ascending, Object afterValue, Long afterId, int limit);
+
+    /** Orders the directory can be read in; each is backed by an index. */
+    enum Sort {
+        ID("u.id"),
+        USERNAME("u.username"),
+        EMAIL("u.email"),
+        NAME("u.lastName"),
+        CREATED("u.createdAt");
+
+        private final String path;
+
+        Sort(String path) {
+            this.path = path;
+        }
+
+        String path() {
+            return path;
+        }
+
+        /** The sort value as it is carried in a cursor. */
+        public Object parse(String value) {
+            return switch (this) {
+                case ID -> null;
+                case CREATED -> LocalDateTime.parse(value);
+                default -> value;
+            };
+        }
+
+        public String format(UserView user) {
+            return switch (this) {
+                case ID -> "";
+                case USERNAME -> user.getUsername();
+                case EMAIL -> user.getEmail();
+                case NAME -> user.getLastName();
+                case CREATED -> user.getCreatedAt().toString();
+            };
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.fintrade.repository;
+
+import com.fintrade.dto.UserView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+/** Picked up by Spring Data as the implementation of {@link UserDirectory} on {@link UserRepository}. */
+public class UserDirectoryImpl implements UserDirectory {
+
+    private static final String SELECT = "SELECT new com.fintrade.dto.UserView(u.id, u.username, u.email, "
+            + "u.firstName, u.lastName, u.role, u.enabled, u.createdAt, u.updatedAt) FROM User u WHERE 1 = 1 ";
+    // Prefixes only, so each branch is a range scan on its column's index.
+    private static final String PREFIX = "AND (u.username LIKE :prefix ESCAPE '\\' OR u.email LIKE :prefix ESCAPE '\\' "
+            + "OR u.firstName LIKE :prefix ESCAPE '\\' OR u.lastName LIKE :prefix ESCAPE '\\') ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserView> findPage(String prefix, Sort sort, boolean ascending, Object afterValue, Long afterId,
+            int limit) {
+        String after = ascending ? ">" : "<";
+        String direction = ascending ? " ASC" : " DESC";
+        StringBuilder jpql = new StringBuilder(SELECT);
+        if (prefix != null) {
+            jpql.append(PREFIX);
+        }
+        if (afterId != null) {
+            if (sort == Sort.ID) {
+                jpql.append("AND u.id ").append(after).append(" :afterId ");
+            } else {
+                jpql.append("AND (").append(sort.path()).append(' ').append(after).append(" :afterValue OR (")
+                        .append(sort.path()).append(" = :afterValue AND u.id ").append(after).append(" :afterId)) ");
+            }
+        }
+        jpql.append("ORDER BY ");
+        if (sort != Sort.ID) {
+            jpql.append(sort.path()).append(direction).append(", ");
+        }
+        jpql.append("u.id").append(direction);
+
+        TypedQuery<UserView> query = entityManager.createQuery(jpql.toString(), UserView.class);
+        if (prefix != null) {
+            query.setParameter("prefix", escape(prefix) + "%");
+        }
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+            if (sort != Sort.ID) {
+                query.setParameter("afterValue", afterValue);
+            }
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    private static String escape(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
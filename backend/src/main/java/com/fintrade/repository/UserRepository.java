@@ -1,19 +1,41 @@
 package com.fintrade.repository;
 
+import com.fintrade.dto.UserView;
 import com.fintrade.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserDirectory {
 
     Optional<User> findByUsername(String username);
 
+    /** Locks the row until the transaction ends; see {@code UserDeletionService}. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<User> findForUpdateById(Long id);
+
     Optional<User> findByEmail(String email);
 
     Boolean existsByUsername(String username);
 
     Boolean existsByEmail(String email);
+
+    @Query("SELECT new com.fintrade.dto.UserView(u.id, u.username, u.email, u.firstName, u.lastName, u.role, "
+            + "u.enabled, u.createdAt, u.updatedAt) FROM User u ORDER BY u.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<UserView> streamAllViews();
+
+    @Query("SELECT u.id FROM User u ORDER BY u.id")
+    List<Long> findAllIds();
 }
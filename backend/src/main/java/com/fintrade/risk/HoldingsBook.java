@@ -0,0 +1,98 @@
+package com.fintrade.risk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every user's holdings as parallel primitive arrays: user {@code u} holds
+ * {@code symbolIndexes[offsets[u] .. offsets[u + 1])} with the matching market
+ * {@code values}. Symbol indexes point into {@link #symbols()}, which is also the row
+ * order a {@link ReturnMatrix} for this book is loaded in.
+ */
+public final class HoldingsBook {
+
+    private final long[] userIds;
+    private final int[] offsets;
+    private final int[] symbolIndexes;
+    private final double[] values;
+    private final List<String> symbols;
+
+    private HoldingsBook(long[] userIds, int[] offsets, int[] symbolIndexes, double[] values, List<String> symbols) {
+        this.userIds = userIds;
+        this.offsets = offsets;
+        this.symbolIndexes = symbolIndexes;
+        this.values = values;
+        this.symbols = symbols;
+    }
+
+    public int users() {
+        return userIds.length;
+    }
+
+    public long userId(int user) {
+        return userIds[user];
+    }
+
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] symbolIndexes() {
+        return symbolIndexes;
+    }
+
+    double[] values() {
+        return values;
+    }
+
+    /** Collects holdings row by row; rows must arrive grouped by user. */
+    public static final class Builder {
+
+        private long[] userIds = new long[1024];
+        private int[] offsets = new int[1025];
+        private int[] symbolIndexes = new int[4096];
+        private double[] values = new double[4096];
+        private final Map<String, Integer> symbolIndex = new HashMap<>();
+        private final List<String> symbols = new ArrayList<>();
+        private int users;
+        private int holdings;
+
+        public Builder add(long userId, String symbol, double value) {
+            if (users == 0 || userIds[users - 1] != userId) {
+                if (users == userIds.length) {
+                    userIds = Arrays.copyOf(userIds, users * 2);
+                    offsets = Arrays.copyOf(offsets, users * 2 + 1);
+                }
+                userIds[users++] = userId;
+            }
+            if (holdings == symbolIndexes.length) {
+                symbolIndexes = Arrays.copyOf(symbolIndexes, holdings * 2);
+                values = Arrays.copyOf(values, holdings * 2);
+            }
+            symbolIndexes[holdings] = symbol(symbol);
+            values[holdings++] = value;
+            offsets[users] = holdings;
+            return this;
+        }
+
+        /** Gives {@code symbol} a row even if nobody holds it, e.g. the benchmark. */
+        public int symbol(String symbol) {
+            return symbolIndex.computeIfAbsent(symbol, key -> {
+                symbols.add(key);
+                return symbols.size() - 1;
+            });
+        }
+
+        public HoldingsBook build() {
+            return new HoldingsBook(Arrays.copyOf(userIds, users), Arrays.copyOf(offsets, users + 1),
+                    Arrays.copyOf(symbolIndexes, holdings), Arrays.copyOf(values, holdings), List.copyOf(symbols));
+        }
+    }
+}
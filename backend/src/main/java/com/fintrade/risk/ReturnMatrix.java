@@ -0,0 +1,126 @@
+package com.fintrade.risk;
+
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.fintrade.pricehistory.Resolution;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Daily simple returns for a set of symbols over the same weekdays, in one dense array:
+ * symbol {@code s}'s return on day {@code d} is {@code returns[s * days + d]}. Each
+ * symbol's series is contiguous, so the per-portfolio loops stream through memory in
+ * order and the JIT can vectorise them.
+ *
+ * <p>A day without a bar carries the previous close forward (a zero return), and days
+ * before a symbol's first bar are zero too.
+ */
+public final class ReturnMatrix {
+
+    private static final long DAY_MILLIS = Resolution.DAY.getMillis();
+    /** How far before the window to look for a close to carry into its first day. */
+    private static final int SEED_DAYS = 31;
+
+    private final LocalDate asOf;
+    private final int days;
+    private final String[] symbols;
+    private final Map<String, Integer> index;
+    private final double[] returns;
+
+    public ReturnMatrix(LocalDate asOf, int days, String[] symbols, double[] returns) {
+        if (returns.length != symbols.length * days) {
+            throw new IllegalArgumentException("Expected " + symbols.length * days + " returns");
+        }
+        this.asOf = asOf;
+        this.days = days;
+        this.symbols = symbols;
+        this.returns = returns;
+        this.index = new HashMap<>(symbols.length * 2);
+        for (int i = 0; i < symbols.length; i++) {
+            index.put(symbols[i], i);
+        }
+    }
+
+    /** Reads the returns of the {@code days} weekdays ending on {@code asOf} from the daily bars. */
+    public static ReturnMatrix load(PriceHistoryStore store, List<String> symbols, LocalDate asOf, int days) {
+        long[] calendar = weekdays(asOf, days + 1);
+        double[] returns = new double[symbols.size() * days];
+        double[] closes = new double[days + 1];
+        for (int s = 0; s < symbols.size(); s++) {
+            closes(store, symbols.get(s), calendar, closes);
+            int base = s * days;
+            for (int d = 0; d < days; d++) {
+                double previous = closes[d];
+                returns[base + d] = previous > 0 ? closes[d + 1] / previous - 1 : 0;
+            }
+        }
+        return new ReturnMatrix(asOf, days, symbols.toArray(String[]::new), returns);
+    }
+
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    public List<String> symbols() {
+        return Arrays.asList(symbols);
+    }
+
+    /** @return the symbol's row, or -1 if it is not in the matrix */
+    public int indexOf(String symbol) {
+        Integer i = index.get(symbol);
+        return i != null ? i : -1;
+    }
+
+    public boolean containsAll(Set<String> wanted) {
+        return index.keySet().containsAll(wanted);
+    }
+
+    double[] returns() {
+        return returns;
+    }
+
+    /** Day starts (epoch ms) of the {@code count} weekdays ending on {@code last}, oldest first. */
+    private static long[] weekdays(LocalDate last, int count) {
+        long[] calendar = new long[count];
+        LocalDate day = last;
+        for (int i = count - 1; i >= 0; day = day.minusDays(1)) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                calendar[i--] = day.toEpochDay() * DAY_MILLIS;
+            }
+        }
+        return calendar;
+    }
+
+    /** The close in effect on each calendar day, or 0 before the symbol's first bar. */
+    private static void closes(PriceHistoryStore store, String symbol, long[] calendar, double[] closes) {
+        Arrays.fill(closes, 0);
+        if (!PriceHistoryStore.isValidSymbol(symbol)) {
+            return;
+        }
+        int[] next = { 0 };
+        double[] last = { 0 };
+        store.read(symbol, Resolution.DAY, calendar[0] - SEED_DAYS * DAY_MILLIS,
+                calendar[calendar.length - 1] + DAY_MILLIS, Integer.MAX_VALUE, bar -> {
+                    while (next[0] < calendar.length && calendar[next[0]] < bar.getTime()) {
+                        closes[next[0]++] = last[0];
+                    }
+                    last[0] = bar.getClose();
+                });
+        while (next[0] < calendar.length) {
+            closes[next[0]++] = last[0];
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.fintrade.risk;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Risk of every portfolio in a {@link HoldingsBook}, split across a fork-join pool. */
+public final class RiskBatch {
+
+    private static final int USERS_PER_TASK = 512;
+
+    private RiskBatch() {
+    }
+
+    /** @return figures indexed like the book's users */
+    public static RiskFigures[] compute(HoldingsBook book, ReturnMatrix matrix, int benchmarkIndex,
+            int parallelism) {
+        RiskFigures[] results = new RiskFigures[book.users()];
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.invoke(new UserRange(book, matrix, benchmarkIndex, results, 0, book.users()));
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    private static final class UserRange extends RecursiveAction {
+
+        private final HoldingsBook book;
+        private final ReturnMatrix matrix;
+        private final int benchmarkIndex;
+        private final RiskFigures[] results;
+        private final int from;
+        private final int to;
+
+        UserRange(HoldingsBook book, ReturnMatrix matrix, int benchmarkIndex, RiskFigures[] results, int from,
+                int to) {
+            this.book = book;
+            this.matrix = matrix;
+            this.benchmarkIndex = benchmarkIndex;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= USERS_PER_TASK) {
+                RiskCalculator calculator = new RiskCalculator(matrix, benchmarkIndex);
+                int[] offsets = book.offsets();
+                for (int u = from; u < to; u++) {
+                    results[u] = calculator.compute(book.symbolIndexes(), book.values(), offsets[u], offsets[u + 1]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new UserRange(book, matrix, benchmarkIndex, results, from, middle),
+                    new UserRange(book, matrix, benchmarkIndex, results, middle, to));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.fintrade.risk;
+
+import java.util.Arrays;
+
+/**
+ * Computes {@link RiskFigures} for one portfolio at a time against a {@link ReturnMatrix}.
+ * The portfolio's daily returns are built as a weighted sum of the holdings' contiguous
+ * return rows, then every statistic is a straight pass over that one {@code double[]}.
+ * Scratch arrays are reused between portfolios, so an instance belongs to one thread.
+ */
+public final class RiskCalculator {
+
+    static final double TRADING_DAYS_PER_YEAR = 252;
+
+    private final double[] returns;
+    private final int days;
+    private final int benchmarkOffset;
+    private final double benchmarkMean;
+    private final double benchmarkVariance;
+    private final double[] portfolio;
+    private final double[] sorted;
+
+    /** @param benchmarkIndex the benchmark's row in {@code matrix}, or -1 for none */
+    public RiskCalculator(ReturnMatrix matrix, int benchmarkIndex) {
+        this.returns = matrix.returns();
+        this.days = matrix.getDays();
+        this.benchmarkOffset = benchmarkIndex >= 0 ? benchmarkIndex * days : -1;
+        this.portfolio = new double[days];
+        this.sorted = new double[days];
+        if (benchmarkOffset >= 0 && days > 1) {
+            double sum = 0;
+            for (int d = 0; d < days; d++) {
+                sum += returns[benchmarkOffset + d];
+            }
+            double mean = sum / days;
+            double squares = 0;
+            for (int d = 0; d < days; d++) {
+                double deviation = returns[benchmarkOffset + d] - mean;
+                squares += deviation * deviation;
+            }
+            benchmarkMean = mean;
+            benchmarkVariance = squares / (days - 1);
+        } else {
+            benchmarkMean = 0;
+            benchmarkVariance = 0;
+        }
+    }
+
+    /** Risk of the holdings {@code [from, to)} of the given arrays. */
+    public RiskFigures compute(int[] symbolIndexes, double[] values, int from, int to) {
+        double total = 0;
+        for (int h = from; h < to; h++) {
+            total += values[h];
+        }
+        if (total <= 0 || days < 2) {
+            return RiskFigures.EMPTY;
+        }
+
+        Arrays.fill(portfolio, 0);
+        for (int h = from; h < to; h++) {
+            double weight = values[h] / total;
+            int offset = symbolIndexes[h] * days;
+            for (int d = 0; d < days; d++) {
+                portfolio[d] += weight * returns[offset + d];
+            }
+        }
+
+        double sum = 0;
+        for (int d = 0; d < days; d++) {
+            sum += portfolio[d];
+        }
+        double mean = sum / days;
+        double squares = 0;
+        for (int d = 0; d < days; d++) {
+            double deviation = portfolio[d] - mean;
+            squares += deviation * deviation;
+        }
+        double products = 0;
+        if (benchmarkOffset >= 0) {
+            for (int d = 0; d < days; d++) {
+                products += (portfolio[d] - mean) * (returns[benchmarkOffset + d] - benchmarkMean);
+            }
+        }
+        double variance = squares / (days - 1);
+        double covariance = products / (days - 1);
+        double beta = benchmarkVariance > 0 ? covariance / benchmarkVariance : Double.NaN;
+        double correlation = benchmarkVariance > 0 && variance > 0
+                ? covariance / Math.sqrt(variance * benchmarkVariance)
+                : Double.NaN;
+
+        System.arraycopy(portfolio, 0, sorted, 0, days);
+        Arrays.sort(sorted);
+        return new RiskFigures(total, Math.sqrt(variance * TRADING_DAYS_PER_YEAR), beta, correlation,
+                loss(0.95, total), loss(0.99, total));
+    }
+
+    /** The loss exceeded on {@code 1 - confidence} of the days in the window. */
+    private double loss(double confidence, double value) {
+        int index = (int) Math.floor((1 - confidence) * days);
+        return Math.max(0, -sorted[Math.min(index, days - 1)] * value);
+    }
+}
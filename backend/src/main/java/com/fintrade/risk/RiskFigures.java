@@ -0,0 +1,12 @@
+package com.fintrade.risk;
+
+/**
+ * Risk of one portfolio over the matrix window. Beta and correlation are against the
+ * benchmark symbol and NaN when it has no price history; the VaR figures are one-day
+ * historical losses in money, positive for a loss.
+ */
+public record RiskFigures(double value, double volatility, double beta, double correlation, double valueAtRisk95,
+        double valueAtRisk99) {
+
+    static final RiskFigures EMPTY = new RiskFigures(0, 0, Double.NaN, Double.NaN, 0, 0);
+}
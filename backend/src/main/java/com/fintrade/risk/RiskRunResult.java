@@ -0,0 +1,7 @@
+package com.fintrade.risk;
+
+import java.time.LocalDate;
+
+/** Outcome of one {@link RiskService#run} over every portfolio. */
+public record RiskRunResult(LocalDate asOf, int portfolios, int symbols, int days, long elapsedMillis) {
+}
@@ -0,0 +1,201 @@
+package com.fintrade.risk;
+
+import com.fintrade.dto.PortfolioView;
+import com.fintrade.dto.RiskView;
+import com.fintrade.entity.User;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.fintrade.repository.PortfolioRepository;
+import com.fintrade.repository.UserRepository;
+import com.fintrade.service.ResourceVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Portfolio risk over the last {@code risk.lookback-days} weekdays of daily returns.
+ *
+ * <p>A nightly run loads every holding into a {@link HoldingsBook}, the returns of every
+ * held symbol into one {@link ReturnMatrix} and computes all portfolios in parallel. The
+ * results are kept in memory with the portfolio version they were computed at; a request
+ * is answered from them while the user's holdings are unchanged and computed on the spot
+ * against the same matrix otherwise.
+ */
+@Service
+public class RiskService {
+
+    private static final Logger log = LoggerFactory.getLogger(RiskService.class);
+
+    private static final String HOLDINGS = "SELECT p.user_id, s.symbol, p.total_value FROM portfolios p "
+            + "JOIN securities s ON s.id = p.security_id WHERE p.quantity > 0 ORDER BY p.user_id";
+    private static final int FETCH_SIZE = 1000;
+    private static final int RATIO_SCALE = 6;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${risk.lookback-days:756}")
+    private int lookbackDays;
+
+    @Value("${risk.benchmark-symbol:SPY}")
+    private String benchmarkSymbol;
+
+    @Value("${risk.parallelism:4}")
+    private int parallelism;
+
+    private final Object matrixLock = new Object();
+    private volatile ReturnMatrix matrix;
+    private volatile Snapshot snapshot;
+
+    @Scheduled(cron = "${risk.nightly-cron:0 0 1 * * *}", zone = "UTC")
+    public void runNightly() {
+        run(lastClose());
+    }
+
+    /** Recomputes every portfolio as of the close of {@code asOf}. */
+    public synchronized RiskRunResult run(LocalDate asOf) {
+        long started = System.nanoTime();
+        // Versions are read before the holdings, so a result can only look older than its data.
+        List<Long> userIds = userRepository.findAllIds();
+        long[] ids = new long[userIds.size()];
+        long[] versionsBefore = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = userIds.get(i);
+            versionsBefore[i] = resourceVersionService.getVersion(ids[i], ResourceVersionService.Resource.PORTFOLIO);
+        }
+
+        HoldingsBook.Builder builder = new HoldingsBook.Builder();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(HOLDINGS);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) row -> builder.add(row.getLong(1), row.getString(2), row.getDouble(3)));
+        int benchmark = builder.symbol(benchmarkSymbol);
+        HoldingsBook book = builder.build();
+
+        ReturnMatrix loaded = ReturnMatrix.load(priceHistoryStore, book.symbols(), asOf, lookbackDays);
+        RiskFigures[] figures = RiskBatch.compute(book, loaded, benchmark, parallelism);
+
+        long[] bookIds = new long[book.users()];
+        long[] versions = new long[book.users()];
+        for (int u = 0; u < bookIds.length; u++) {
+            bookIds[u] = book.userId(u);
+            int known = Arrays.binarySearch(ids, bookIds[u]);
+            versions[u] = known >= 0 ? versionsBefore[known] : -1;
+        }
+        matrix = loaded;
+        snapshot = new Snapshot(asOf, bookIds, versions, figures);
+
+        RiskRunResult result = new RiskRunResult(asOf, book.users(), loaded.size(), lookbackDays,
+                (System.nanoTime() - started) / 1_000_000);
+        log.info("Risk run as of {}: {} portfolios over {} symbols in {} ms", asOf, result.portfolios(),
+                result.symbols(), result.elapsedMillis());
+        return result;
+    }
+
+    public RiskView getRisk(User user) {
+        LocalDate asOf = lastClose();
+        Snapshot current = snapshot;
+        if (current != null && current.asOf().equals(asOf)) {
+            RiskFigures figures = current.lookup(user.getId(),
+                    resourceVersionService.getVersion(user.getId(), ResourceVersionService.Resource.PORTFOLIO));
+            if (figures != null) {
+                return toView(asOf, figures);
+            }
+        }
+
+        List<PortfolioView> holdings = portfolioRepository.findViewsByUser(user);
+        Set<String> symbols = new LinkedHashSet<>();
+        holdings.forEach(holding -> symbols.add(holding.getSymbol()));
+        ReturnMatrix returns = matrixFor(symbols, asOf);
+        int[] symbolIndexes = new int[holdings.size()];
+        double[] values = new double[holdings.size()];
+        int count = 0;
+        for (PortfolioView holding : holdings) {
+            if (holding.getQuantity().signum() > 0 && holding.getTotalValue() != null) {
+                symbolIndexes[count] = returns.indexOf(holding.getSymbol());
+                values[count++] = holding.getTotalValue().doubleValue();
+            }
+        }
+        RiskFigures figures = new RiskCalculator(returns, returns.indexOf(benchmarkSymbol))
+                .compute(symbolIndexes, values, 0, count);
+        return toView(asOf, figures);
+    }
+
+    /** The shared matrix, reloaded with extra rows if it is stale or missing a symbol. */
+    private ReturnMatrix matrixFor(Set<String> symbols, LocalDate asOf) {
+        ReturnMatrix current = matrix;
+        if (current != null && current.getAsOf().equals(asOf) && current.containsAll(symbols)) {
+            return current;
+        }
+        synchronized (matrixLock) {
+            current = matrix;
+            if (current != null && current.getAsOf().equals(asOf) && current.containsAll(symbols)) {
+                return current;
+            }
+            Set<String> rows = new LinkedHashSet<>();
+            if (current != null && current.getAsOf().equals(asOf)) {
+                rows.addAll(current.symbols());
+            }
+            rows.addAll(symbols);
+            rows.add(benchmarkSymbol);
+            ReturnMatrix loaded = ReturnMatrix.load(priceHistoryStore, new ArrayList<>(rows), asOf, lookbackDays);
+            matrix = loaded;
+            return loaded;
+        }
+    }
+
+    private RiskView toView(LocalDate asOf, RiskFigures figures) {
+        return new RiskView(asOf, lookbackDays, benchmarkSymbol, money(figures.value()),
+                ratio(figures.volatility()), ratio(figures.beta()), ratio(figures.correlation()),
+                money(figures.valueAtRisk95()), money(figures.valueAtRisk99()));
+    }
+
+    private static LocalDate lastClose() {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(1);
+    }
+
+    private static BigDecimal money(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal ratio(double value) {
+        return Double.isFinite(value) ? BigDecimal.valueOf(value).setScale(RATIO_SCALE, RoundingMode.HALF_UP) : null;
+    }
+
+    /** Results of the last run by user id, ascending. */
+    private record Snapshot(LocalDate asOf, long[] userIds, long[] versions, RiskFigures[] figures) {
+
+        RiskFigures lookup(long userId, long version) {
+            int i = Arrays.binarySearch(userIds, userId);
+            return i >= 0 && versions[i] == version ? figures[i] : null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.fintrade.rollup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Signed changes to the rollup rows, summed per row. Rows are kept in key order so that
+ * every writer upserts them in the same order and two commits cannot wait on each other
+ * for rollup rows. Not thread-safe.
+ */
+final class RollupDeltas {
+
+    final Map<HoldingKey, Sums> holdings = new TreeMap<>();
+    final Map<VolumeKey, Sums> volumes = new TreeMap<>();
+
+    void holding(String symbol, int stripe, long holders, BigDecimal quantity, BigDecimal marketValue,
+            BigDecimal costBasis) {
+        holdings.computeIfAbsent(new HoldingKey(symbol, stripe), key -> new Sums())
+                .add(holders, quantity, marketValue, costBasis);
+    }
+
+    void volume(LocalDate day, String symbol, int stripe, long trades, BigDecimal buyQuantity,
+            BigDecimal sellQuantity, BigDecimal notional) {
+        volumes.computeIfAbsent(new VolumeKey(day, symbol, stripe), key -> new Sums())
+                .add(trades, buyQuantity, sellQuantity, notional);
+    }
+
+    boolean isEmpty() {
+        return holdings.values().stream().allMatch(Sums::isZero) && volumes.values().stream().allMatch(Sums::isZero);
+    }
+
+    void clear() {
+        holdings.clear();
+        volumes.clear();
+    }
+
+    record HoldingKey(String symbol, int stripe) implements Comparable<HoldingKey> {
+
+        private static final Comparator<HoldingKey> ORDER = Comparator.comparing(HoldingKey::symbol)
+                .thenComparingInt(HoldingKey::stripe);
+
+        @Override
+        public int compareTo(HoldingKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    record VolumeKey(LocalDate day, String symbol, int stripe) implements Comparable<VolumeKey> {
+
+        private static final Comparator<VolumeKey> ORDER = Comparator.comparing(VolumeKey::day)
+                .thenComparing(VolumeKey::symbol).thenComparingInt(VolumeKey::stripe);
+
+        @Override
+        public int compareTo(VolumeKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    /** A count and three amounts; what they mean depends on the table. */
+    static final class Sums {
+
+        long count;
+        BigDecimal first = BigDecimal.ZERO;
+        BigDecimal second = BigDecimal.ZERO;
+        BigDecimal third = BigDecimal.ZERO;
+
+        void add(long count, BigDecimal first, BigDecimal second, BigDecimal third) {
+            this.count += count;
+            this.first = this.first.add(first);
+            this.second = this.second.add(second);
+            this.third = this.third.add(third);
+        }
+
+        boolean isZero() {
+            return count == 0 && first.signum() == 0 && second.signum() == 0 && third.signum() == 0;
+        }
+    }
+}
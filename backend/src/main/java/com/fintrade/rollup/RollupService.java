@@ -0,0 +1,258 @@
+package com.fintrade.rollup;
+
+import com.fintrade.dto.AumView;
+import com.fintrade.dto.TradeVolumeView;
+import com.fintrade.entity.Portfolio;
+import com.fintrade.entity.Transaction;
+import com.fintrade.securitymaster.SecurityMaster;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Platform-wide holdings per symbol and trade volume per symbol and day, kept in
+ * {@code symbol_rollups} and {@code trade_volume_daily} so the admin dashboard never
+ * scans portfolios or transactions.
+ *
+ * <p>Every change is applied as a signed delta that is added to the row, so concurrent
+ * writers commute and never read a rollup. Each row is split into {@code rollups.stripes}
+ * stripes by user id, which keeps a popular symbol from serialising every trade in it;
+ * reads sum the stripes. Deltas made in a transaction are collected and written just
+ * before it commits, summed per row and in row order, so a settlement batch touches each
+ * rollup row once and lock order is the same for every writer.
+ */
+@Service
+public class RollupService {
+
+    private static final String UPSERT_HOLDING = "INSERT INTO symbol_rollups (symbol, stripe, holders, quantity, "
+            + "market_value, cost_basis) VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "holders = holders + VALUES(holders), quantity = quantity + VALUES(quantity), "
+            + "market_value = market_value + VALUES(market_value), cost_basis = cost_basis + VALUES(cost_basis)";
+    private static final String UPSERT_VOLUME = "INSERT INTO trade_volume_daily (trade_date, symbol, stripe, trades, "
+            + "buy_quantity, sell_quantity, notional) VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "trades = trades + VALUES(trades), buy_quantity = buy_quantity + VALUES(buy_quantity), "
+            + "sell_quantity = sell_quantity + VALUES(sell_quantity), notional = notional + VALUES(notional)";
+    private static final String LOCK_HOLDING = "SELECT security_id, quantity, total_value, total_cost FROM portfolios "
+            + "WHERE id = ? FOR UPDATE";
+    private static final String AUM = "SELECT symbol, SUM(holders), SUM(quantity), SUM(market_value), "
+            + "SUM(cost_basis) FROM symbol_rollups GROUP BY symbol";
+    private static final String VOLUME = "SELECT trade_date, SUM(trades), SUM(buy_quantity), SUM(sell_quantity), "
+            + "SUM(notional) FROM trade_volume_daily WHERE trade_date BETWEEN ? AND ? ";
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${rollups.stripes:8}")
+    private int stripes;
+
+    /**
+     * Reads a holding as it is stored and locks it until the transaction ends, so the
+     * difference to what is saved next is exactly what that save changes.
+     */
+    public Holding lockHolding(Long portfolioId) {
+        if (portfolioId == null) {
+            return null;
+        }
+        List<Holding> rows = jdbcTemplate.query(LOCK_HOLDING, (row, i) -> new Holding(securityMaster.symbol(
+                row.getInt(1)), row.getBigDecimal(2), row.getBigDecimal(3), row.getBigDecimal(4)), portfolioId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /** A holding went from {@code before} to {@code after}; either is null if it did not exist. */
+    public void holdingChanged(long userId, Holding before, Holding after) {
+        RollupDeltas deltas = pending();
+        int stripe = stripe(userId);
+        if (before != null) {
+            deltas.holding(before.symbol(), stripe, before.isHeld() ? -1 : 0, before.quantity().negate(),
+                    before.marketValue().negate(), before.costBasis().negate());
+        }
+        if (after != null) {
+            deltas.holding(after.symbol(), stripe, after.isHeld() ? 1 : 0, after.quantity(), after.marketValue(),
+                    after.costBasis());
+        }
+        writeIfUnbound(deltas);
+    }
+
+    /** A transaction went from {@code before} to {@code after}; either is null if it did not exist. */
+    public void tradeChanged(long userId, Trade before, Trade after) {
+        RollupDeltas deltas = pending();
+        int stripe = stripe(userId);
+        if (before != null) {
+            deltas.volume(before.date(), before.symbol(), stripe, -1, before.buyQuantity().negate(),
+                    before.sellQuantity().negate(), before.notional().negate());
+        }
+        if (after != null) {
+            deltas.volume(after.date(), after.symbol(), stripe, 1, after.buyQuantity(), after.sellQuantity(),
+                    after.notional());
+        }
+        writeIfUnbound(deltas);
+    }
+
+    /** Holdings per symbol by market value, largest first, with platform totals over every symbol. */
+    @Transactional(readOnly = true)
+    public AumView getAum(int limit) {
+        List<AumView.SymbolAum> rows = jdbcTemplate.query(AUM, (row, i) -> new AumView.SymbolAum(row.getString(1),
+                row.getLong(2), row.getBigDecimal(3), row.getBigDecimal(4), row.getBigDecimal(5)));
+        BigDecimal marketValue = BigDecimal.ZERO;
+        BigDecimal costBasis = BigDecimal.ZERO;
+        long positions = 0;
+        List<AumView.SymbolAum> held = new ArrayList<>(rows.size());
+        for (AumView.SymbolAum row : rows) {
+            if (row.holders() == 0 && row.quantity().signum() == 0) {
+                continue;
+            }
+            marketValue = marketValue.add(row.marketValue());
+            costBasis = costBasis.add(row.costBasis());
+            positions += row.holders();
+            held.add(row);
+        }
+        held.sort(Comparator.comparing(AumView.SymbolAum::marketValue).reversed()
+                .thenComparing(AumView.SymbolAum::symbol));
+        return new AumView(marketValue, costBasis, positions, held.size(),
+                held.subList(0, Math.min(limit, held.size())));
+    }
+
+    /** Trades per day from the start of {@code from} to the end of {@code to}, in one symbol or all of them. */
+    @Transactional(readOnly = true)
+    public TradeVolumeView getVolume(LocalDate from, LocalDate to, String symbol) {
+        String sql = VOLUME + (symbol != null ? "AND symbol = ? " : "") + "GROUP BY trade_date ORDER BY trade_date";
+        Object[] args = symbol != null ? new Object[] { Date.valueOf(from), Date.valueOf(to), symbol }
+                : new Object[] { Date.valueOf(from), Date.valueOf(to) };
+        List<TradeVolumeView.Day> days = jdbcTemplate.query(sql, (row, i) -> new TradeVolumeView.Day(
+                row.getDate(1).toLocalDate(), row.getLong(2), row.getBigDecimal(3), row.getBigDecimal(4),
+                row.getBigDecimal(5)), args);
+        long trades = 0;
+        BigDecimal notional = BigDecimal.ZERO;
+        List<TradeVolumeView.Day> traded = new ArrayList<>(days.size());
+        for (TradeVolumeView.Day day : days) {
+            if (day.trades() != 0) {
+                trades += day.trades();
+                notional = notional.add(day.notional());
+                traded.add(day);
+            }
+        }
+        return new TradeVolumeView(from, to, symbol, trades, notional, traded);
+    }
+
+    /** Writes deltas now, in the caller's transaction if there is one. */
+    void write(RollupDeltas deltas) {
+        List<Map.Entry<RollupDeltas.HoldingKey, RollupDeltas.Sums>> holdings = deltas.holdings.entrySet().stream()
+                .filter(entry -> !entry.getValue().isZero()).toList();
+        jdbcTemplate.batchUpdate(UPSERT_HOLDING, holdings, BATCH_SIZE, (statement, entry) -> {
+            RollupDeltas.Sums sums = entry.getValue();
+            statement.setString(1, entry.getKey().symbol());
+            statement.setInt(2, entry.getKey().stripe());
+            statement.setLong(3, sums.count);
+            statement.setBigDecimal(4, sums.first);
+            statement.setBigDecimal(5, sums.second);
+            statement.setBigDecimal(6, sums.third);
+        });
+        List<Map.Entry<RollupDeltas.VolumeKey, RollupDeltas.Sums>> volumes = deltas.volumes.entrySet().stream()
+                .filter(entry -> !entry.getValue().isZero()).toList();
+        jdbcTemplate.batchUpdate(UPSERT_VOLUME, volumes, BATCH_SIZE, (statement, entry) -> {
+            RollupDeltas.Sums sums = entry.getValue();
+            statement.setDate(1, Date.valueOf(entry.getKey().day()));
+            statement.setString(2, entry.getKey().symbol());
+            statement.setInt(3, entry.getKey().stripe());
+            statement.setLong(4, sums.count);
+            statement.setBigDecimal(5, sums.first);
+            statement.setBigDecimal(6, sums.second);
+            statement.setBigDecimal(7, sums.third);
+        });
+        deltas.clear();
+    }
+
+    private int stripe(long userId) {
+        return (int) Math.floorMod(userId, (long) Math.max(1, stripes));
+    }
+
+    /**
+     * The current transaction's deltas, registered to be written before it commits, or a
+     * fresh set outside a transaction. Looked up among the transaction's synchronizations
+     * so that a suspended outer transaction keeps its own.
+     */
+    private RollupDeltas pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new RollupDeltas();
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Flush flush && flush.owner() == this) {
+                return flush.deltas();
+            }
+        }
+        Flush flush = new Flush(this, new RollupDeltas());
+        TransactionSynchronizationManager.registerSynchronization(flush);
+        return flush.deltas();
+    }
+
+    private void writeIfUnbound(RollupDeltas deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(deltas);
+        }
+    }
+
+    private record Flush(RollupService owner, RollupDeltas deltas) implements TransactionSynchronization {
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            owner.write(deltas);
+        }
+    }
+
+    /** A holding's figures as they are stored; null amounts count as zero. */
+    public record Holding(String symbol, BigDecimal quantity, BigDecimal marketValue, BigDecimal costBasis) {
+
+        public Holding {
+            quantity = quantity != null ? quantity : BigDecimal.ZERO;
+            marketValue = marketValue != null ? marketValue : BigDecimal.ZERO;
+            costBasis = costBasis != null ? costBasis : BigDecimal.ZERO;
+        }
+
+        public static Holding of(Portfolio portfolio) {
+            return new Holding(portfolio.getSymbol(), portfolio.getQuantity(), portfolio.getTotalValue(),
+                    portfolio.getTotalCost());
+        }
+
+        boolean isHeld() {
+            return quantity.signum() > 0;
+        }
+    }
+
+    /** The part of a transaction the volume rollup counts; {@link #of} is null for an undated one. */
+    public record Trade(LocalDate date, String symbol, BigDecimal buyQuantity, BigDecimal sellQuantity,
+            BigDecimal notional) {
+
+        public static Trade of(Transaction transaction) {
+            return of(transaction.getTransactionDate(), transaction.getSymbol(), transaction.getTransactionType(),
+                    transaction.getQuantity(), transaction.getTotalAmount());
+        }
+
+        public static Trade of(LocalDateTime transactionDate, String symbol, Transaction.TransactionType type,
+                BigDecimal quantity, BigDecimal totalAmount) {
+            if (transactionDate == null) {
+                return null;
+            }
+            BigDecimal traded = quantity != null ? quantity : BigDecimal.ZERO;
+            boolean buy = type == Transaction.TransactionType.BUY;
+            return new Trade(transactionDate.toLocalDate(), symbol, buy ? traded : BigDecimal.ZERO,
+                    buy ? BigDecimal.ZERO : traded, totalAmount != null ? totalAmount : BigDecimal.ZERO);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.fintrade.rollup;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one {@link RollupVerifier} check.
+ *
+ * @param mismatches rollup rows that differed from the recompute
+ * @param repaired   whether the differences were added back to the rollups
+ */
+public record RollupVerification(LocalDateTime checkedAt, int symbols, int symbolDays, int mismatches,
+        boolean repaired, long elapsedMillis) {
+}
@@ -0,0 +1,143 @@
+package com.fintrade.rollup;
+
+import com.fintrade.securitymaster.SecurityMaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the rollups against a full recompute from portfolios and transactions.
+ *
+ * <p>Both sides are read in one repeatable-read transaction on the primary, so they come
+ * from the same snapshot and a trade committing meanwhile is either in both or in
+ * neither. The difference is then added back as a delta of its own: it stays right
+ * whatever has been committed since, because later changes moved both sides alike.
+ */
+@Component
+public class RollupVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupVerifier.class);
+
+    private static final String ROLLUP_HOLDINGS = "SELECT symbol, SUM(holders), SUM(quantity), SUM(market_value), "
+            + "SUM(cost_basis) FROM symbol_rollups GROUP BY symbol";
+    private static final String HOLDINGS = "SELECT security_id, SUM(CASE WHEN quantity > 0 THEN 1 ELSE 0 END), "
+            + "SUM(COALESCE(quantity, 0)), SUM(COALESCE(total_value, 0)), SUM(COALESCE(total_cost, 0)) "
+            + "FROM portfolios GROUP BY security_id";
+    private static final String ROLLUP_VOLUME = "SELECT trade_date, symbol, SUM(trades), SUM(buy_quantity), "
+            + "SUM(sell_quantity), SUM(notional) FROM trade_volume_daily GROUP BY trade_date, symbol";
+    private static final String VOLUME = "SELECT CAST(transaction_date AS DATE), security_id, COUNT(*), "
+            + "SUM(CASE WHEN transaction_type = 'BUY' THEN COALESCE(quantity, 0) ELSE 0 END), "
+            + "SUM(CASE WHEN transaction_type = 'BUY' THEN 0 ELSE COALESCE(quantity, 0) END), "
+            + "SUM(COALESCE(total_amount, 0)) FROM transactions WHERE transaction_date IS NOT NULL "
+            + "GROUP BY CAST(transaction_date AS DATE), security_id";
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${rollups.repair:true}")
+    private boolean repair;
+
+    private volatile RollupVerification lastResult;
+
+    @Scheduled(cron = "${rollups.verify-cron:0 15 * * * *}", zone = "UTC")
+    public void verifyScheduled() {
+        verify();
+    }
+
+    public synchronized RollupVerification verify() {
+        long started = System.nanoTime();
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        RollupDeltas corrections = new RollupDeltas();
+        int[] counts = snapshot.execute(status -> {
+            Map<String, RollupDeltas.Sums> holdings = new HashMap<>();
+            jdbcTemplate.query(HOLDINGS, row -> {
+                holdings.computeIfAbsent(securityMaster.symbol(row.getInt(1)), key -> new RollupDeltas.Sums())
+                        .add(row.getLong(2), row.getBigDecimal(3), row.getBigDecimal(4), row.getBigDecimal(5));
+            });
+            jdbcTemplate.query(ROLLUP_HOLDINGS, row -> {
+                holdings.computeIfAbsent(row.getString(1), key -> new RollupDeltas.Sums()).add(-row.getLong(2),
+                        row.getBigDecimal(3).negate(), row.getBigDecimal(4).negate(), row.getBigDecimal(5).negate());
+            });
+            Map<RollupDeltas.VolumeKey, RollupDeltas.Sums> volumes = new HashMap<>();
+            jdbcTemplate.query(VOLUME, row -> {
+                volumes.computeIfAbsent(volumeKey(row.getDate(1).toLocalDate(), securityMaster.symbol(row.getInt(2))),
+                        key -> new RollupDeltas.Sums()).add(row.getLong(3), row.getBigDecimal(4),
+                        row.getBigDecimal(5), row.getBigDecimal(6));
+            });
+            jdbcTemplate.query(ROLLUP_VOLUME, row -> {
+                volumes.computeIfAbsent(volumeKey(row.getDate(1).toLocalDate(), row.getString(2)),
+                        key -> new RollupDeltas.Sums()).add(-row.getLong(3), row.getBigDecimal(4).negate(),
+                        row.getBigDecimal(5).negate(), row.getBigDecimal(6).negate());
+            });
+
+            // What is left after subtracting the rollup from the recompute is the drift.
+            holdings.forEach((symbol, drift) -> {
+                if (!drift.isZero()) {
+                    corrections.holding(symbol, 0, drift.count, drift.first, drift.second, drift.third);
+                }
+            });
+            volumes.forEach((key, drift) -> {
+                if (!drift.isZero()) {
+                    corrections.volume(key.day(), key.symbol(), 0, drift.count, drift.first, drift.second,
+                            drift.third);
+                }
+            });
+            return new int[] { holdings.size(), volumes.size() };
+        });
+
+        int mismatches = corrections.holdings.size() + corrections.volumes.size();
+        Set<String> driftedSymbols = new HashSet<>();
+        corrections.holdings.keySet().forEach(key -> driftedSymbols.add(key.symbol()));
+        corrections.volumes.keySet().forEach(key -> driftedSymbols.add(key.symbol()));
+        boolean repaired = false;
+        if (mismatches > 0 && repair) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> rollupService.write(corrections));
+            repaired = true;
+        }
+        RollupVerification result = new RollupVerification(LocalDateTime.now(), counts[0], counts[1], mismatches,
+                repaired, (System.nanoTime() - started) / 1_000_000);
+        lastResult = result;
+        if (mismatches > 0) {
+            log.warn("Rollups drifted in {} rows ({}), {}", mismatches, driftedSymbols,
+                    repaired ? "repaired" : "left as they are");
+        } else {
+            log.info("Rollups verified: {} symbols, {} symbol-days in {} ms", result.symbols(), result.symbolDays(),
+                    result.elapsedMillis());
+        }
+        return result;
+    }
+
+    /** The result of the last check, or null before the first. */
+    public RollupVerification getLastResult() {
+        return lastResult;
+    }
+
+    private static RollupDeltas.VolumeKey volumeKey(LocalDate day, String symbol) {
+        return new RollupDeltas.VolumeKey(day, symbol, 0);
+    }
+}
@@ -0,0 +1,23 @@
+package com.fintrade.securitymaster;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/** Reads the company name of a security id column. The name itself is never written. */
+@Converter
+public class CompanyNameConverter implements AttributeConverter<String, Integer> {
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @Override
+    public Integer convertToDatabaseColumn(String companyName) {
+        return null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return securityMaster.companyName(id);
+    }
+}
@@ -0,0 +1,26 @@
+package com.fintrade.securitymaster;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Stores a symbol as its security id, so the entity keeps its {@code symbol} attribute and
+ * a query on it compares integers. A symbol that was never listed matches no row.
+ */
+@Converter
+public class SecurityIdConverter implements AttributeConverter<String, Integer> {
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @Override
+    public Integer convertToDatabaseColumn(String symbol) {
+        return securityMaster.id(symbol);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return securityMaster.symbol(id);
+    }
+}
@@ -0,0 +1,27 @@
+package com.fintrade.securitymaster;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Gives a row about to be written the master's company name in place of the one it was
+ * created with. The symbol must already be listed; see {@link SecurityMaster#list}.
+ */
+public class SecurityListingListener {
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @PrePersist
+    @PreUpdate
+    void list(SecurityReference reference) {
+        if (reference.getSymbol() != null) {
+            Integer id = securityMaster.id(reference.getSymbol());
+            if (id == null) {
+                throw new IllegalStateException(reference.getSymbol() + " is not listed");
+            }
+            reference.setCompanyName(securityMaster.companyName(id));
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.fintrade.securitymaster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code securities} table in memory, as a dictionary from symbol to security id and
+ * back. Portfolios and transactions store the id (see {@link SecurityIdConverter}), so
+ * turning one into the other on every read and write costs a map lookup. The table is
+ * read at startup; a symbol or id missing from memory, e.g. one listed by another
+ * instance, is read on first use, and a symbol that is not listed is remembered as such
+ * for {@code security-master.miss-ttl} milliseconds, up to
+ * {@code security-master.miss-cache-size} symbols at a time. A symbol is listed the first
+ * time it is booked, and the company name it is listed with is the one every row shows
+ * from then on.
+ *
+ * <p>Reads that miss run on the caller's connection, inside its transaction if it has
+ * one; with {@code useCursorFetch} they can run while it streams a result set. Listing
+ * commits a transaction of its own and so must happen before the booking transaction
+ * starts: the services call {@link #list} first, and rows only look their symbol up.
+ */
+@Component
+public class SecurityMaster {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityMaster.class);
+
+    private static final String SELECT = "SELECT id, symbol, company_name FROM securities ";
+    private static final String INSERT = "INSERT INTO securities (symbol, company_name, created_at) VALUES (?, ?, ?)";
+    private static final RowMapper<Listing> LISTING = (row, i) -> new Listing(row.getInt(1), row.getString(2),
+            row.getString(3));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // The transaction manager needs the entity manager factory, which needs the converters that use this.
+    @Autowired
+    private ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @Value("${security-master.miss-ttl:5000}")
+    private long missTtlMillis;
+
+    @Value("${security-master.miss-cache-size:10000}")
+    private int missCacheSize;
+
+    private final Map<String, Listing> bySymbol = new ConcurrentHashMap<>();
+    private final Map<Integer, Listing> byId = new ConcurrentHashMap<>();
+    /** Symbols found not to be listed, with the {@link System#nanoTime} until which that is believed. */
+    private final Map<String, Long> misses = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Listing> listings = jdbcTemplate.query(SELECT, LISTING);
+        listings.forEach(this::remember);
+        log.info("Loaded {} securities", listings.size());
+    }
+
+    /** The symbol's security id, or null if it has never been listed. */
+    public Integer id(String symbol) {
+        if (symbol == null || symbol.isEmpty()) {
+            return null;
+        }
+        Listing listing = bySymbol.get(symbol);
+        if (listing == null) {
+            Long missUntil = misses.get(symbol);
+            if (missUntil != null && missUntil - System.nanoTime() > 0) {
+                return null;
+            }
+            listing = read(SELECT + "WHERE symbol = ?", symbol);
+            if (listing != null) {
+                // Another case of a listed symbol, where the collation ignores case.
+                bySymbol.putIfAbsent(symbol, listing);
+                misses.remove(symbol);
+            } else {
+                rememberMiss(symbol);
+            }
+        }
+        return listing != null ? listing.id() : null;
+    }
+
+    /**
+     * Clients can send any number of unknown symbols, so once the misses fill up the expired
+     * ones are dropped, and while it is still full a new miss is simply not remembered.
+     */
+    private void rememberMiss(String symbol) {
+        long now = System.nanoTime();
+        if (misses.size() >= missCacheSize) {
+            misses.values().removeIf(until -> until - now <= 0);
+            if (misses.size() >= missCacheSize) {
+                return;
+            }
+        }
+        misses.put(symbol, now + TimeUnit.MILLISECONDS.toNanos(missTtlMillis));
+    }
+
+    /**
+     * The symbol's security id, listing the symbol under {@code companyName} if it is new.
+     * A new symbol is listed in a transaction of its own, so it may not be listed while a
+     * transaction is active: that would hold a second connection while the caller's waits.
+     */
+    public int list(String symbol, String companyName) {
+        Integer id = id(symbol);
+        if (id != null) {
+            return id;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException(symbol + " must be listed before the transaction that books it");
+        }
+        KeyHolder key = new GeneratedKeyHolder();
+        try {
+            new TransactionTemplate(transactionManager.getObject()).executeWithoutResult(status ->
+                    jdbcTemplate.update(connection -> {
+                        PreparedStatement insert = connection.prepareStatement(INSERT, new String[] { "id" });
+                        insert.setString(1, symbol);
+                        insert.setString(2, companyName);
+                        insert.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                        return insert;
+                    }, key));
+            // Known from the insert, so it need not be read back.
+            Listing listing = new Listing(key.getKey().intValue(), symbol, companyName);
+            remember(listing);
+            misses.remove(symbol);
+            return listing.id();
+        } catch (DuplicateKeyException e) {
+            // Listed meanwhile by another request or instance.
+        }
+        misses.remove(symbol);
+        id = id(symbol);
+        if (id == null) {
+            throw new IllegalStateException("Could not list " + symbol);
+        }
+        return id;
+    }
+
+    /**
+     * {@code symbol} as it is listed, in whatever letter case it was given; in upper case if
+     * it is not listed. State kept in memory by symbol, such as positions, reservations and
+     * limits, is keyed by this form only.
+     */
+    public String canonical(String symbol) {
+        if (symbol == null) {
+            return null;
+        }
+        String upper = symbol.toUpperCase(Locale.ROOT);
+        Integer id = id(upper);
+        if (id == null && !upper.equals(symbol)) {
+            id = id(symbol);
+        }
+        return id != null ? symbol(id) : upper;
+    }
+
+    public String symbol(Integer id) {
+        Listing listing = listing(id);
+        return listing != null ? listing.symbol() : null;
+    }
+
+    public String companyName(Integer id) {
+        Listing listing = listing(id);
+        return listing != null ? listing.companyName() : null;
+    }
+
+    /**
+     * Listed symbols that contain {@code fragment}, ignoring case, from memory. Symbols listed
+     * by another instance are found once this one has read them, at the latest on the next
+     * {@link #refresh}.
+     */
+    public List<String> search(String fragment) {
+        String wanted = fragment.toUpperCase(Locale.ROOT);
+        return byId.values().stream()
+                .map(Listing::symbol)
+                .filter(symbol -> symbol.toUpperCase(Locale.ROOT).contains(wanted))
+                .sorted()
+                .toList();
+    }
+
+    /** Reads the table again, for the symbols other instances have listed since startup. */
+    @Scheduled(fixedDelayString = "${security-master.refresh-interval:60000}")
+    public void refresh() {
+        jdbcTemplate.query(SELECT, LISTING).forEach(this::remember);
+    }
+
+    private Listing listing(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        Listing listing = byId.get(id);
+        return listing != null ? listing : read(SELECT + "WHERE id = ?", id);
+    }
+
+    private Listing read(String sql, Object key) {
+        List<Listing> listings = jdbcTemplate.query(sql, LISTING, key);
+        if (listings.isEmpty()) {
+            return null;
+        }
+        remember(listings.get(0));
+        return listings.get(0);
+    }
+
+    private void remember(Listing listing) {
+        bySymbol.put(listing.symbol(), listing);
+        byId.put(listing.id(), listing);
+    }
+
+    private record Listing(int id, String symbol, String companyName) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.fintrade.securitymaster;
+
+/** An entity that refers to a security by its symbol, stored as the security id. */
+public interface SecurityReference {
+
+    String getSymbol();
+
+    String getCompanyName();
+
+    void setCompanyName(String companyName);
+}
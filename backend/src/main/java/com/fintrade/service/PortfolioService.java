@@ -1,13 +1,26 @@
 package com.fintrade.service;
 
+import com.fintrade.dto.PortfolioSummaryView;
+import com.fintrade.dto.PortfolioView;
 import com.fintrade.entity.Portfolio;
 import com.fintrade.entity.User;
+import com.fintrade.event.PortfolioChangedEvent;
+import com.fintrade.journal.TradeJournal;
+import com.fintrade.pretrade.PositionCache;
+import com.fintrade.pretrade.PreTradeRejectedException;
 import com.fintrade.repository.PortfolioRepository;
+import com.fintrade.rollup.RollupService;
+import com.fintrade.securitymaster.SecurityMaster;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,81 +31,198 @@ public class PortfolioService {
     @Autowired
     private PortfolioRepository portfolioRepository;
 
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private TradeJournal tradeJournal;
+
+    @Autowired
+    private PositionCache positionCache;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private ReadCoalescer readCoalescer;
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** A new symbol is listed before the transaction starts. */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Portfolio createPortfolio(Portfolio portfolio) {
-        return portfolioRepository.save(portfolio);
+        portfolio.setSymbol(list(portfolio.getSymbol(), portfolio.getCompanyName()));
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Portfolio saved = portfolioRepository.save(portfolio);
+            rollupService.holdingChanged(saved.getUser().getId(), null, RollupService.Holding.of(saved));
+            positionCache.holdingChanged(saved.getUser().getId(), null, RollupService.Holding.of(saved));
+            tradeJournal.holdingChanged(saved);
+            eventPublisher.publishEvent(new PortfolioChangedEvent(saved.getUser().getId()));
+            return saved;
+        });
     }
 
-    public List<Portfolio> getPortfoliosByUser(User user) {
-        return portfolioRepository.findByUserOrderBySymbolAsc(user);
+    /**
+     * Concurrent calls for the same user and portfolio version share one query and its
+     * unmodifiable result, sorted before it is shared; see {@link ReadCoalescer}.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<PortfolioView> getPortfoliosByUser(User user) {
+        long version = resourceVersionService.getVersion(user.getId(), ResourceVersionService.Resource.PORTFOLIO);
+        return readCoalescer.read("portfolio.views", List.of(user.getId(), version),
+                () -> List.copyOf(sortedBySymbol(portfolioRepository.findViewsByUser(user))));
     }
 
+    @Transactional(readOnly = true)
     public Optional<Portfolio> getPortfolioByUserAndSymbol(User user, String symbol) {
         return portfolioRepository.findByUserAndSymbol(user, symbol);
     }
 
-    public List<Portfolio> searchPortfoliosBySymbol(User user, String symbol) {
-        return portfolioRepository.findByUserAndSymbolContainingIgnoreCase(user, symbol);
+    @Transactional(readOnly = true)
+    public List<PortfolioView> searchPortfoliosBySymbol(User user, String symbol) {
+        List<String> symbols = securityMaster.search(symbol);
+        return symbols.isEmpty() ? List.of()
+                : sortedBySymbol(portfolioRepository.findViewsByUserAndSymbolIn(user, symbols));
     }
 
+    private static List<PortfolioView> sortedBySymbol(List<PortfolioView> views) {
+        views.sort(Comparator.comparing(PortfolioView::getSymbol, Comparator.nullsLast(Comparator.naturalOrder())));
+        return views;
+    }
+
+    /** A new symbol is listed before the transaction starts. */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Portfolio updatePortfolio(Portfolio portfolio) {
-        return portfolioRepository.save(portfolio);
+        portfolio.setSymbol(list(portfolio.getSymbol(), portfolio.getCompanyName()));
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            // The stored row, not the entity: callers change managed holdings before saving them.
+            RollupService.Holding before = rollupService.lockHolding(portfolio.getId());
+            Portfolio saved = portfolioRepository.saveAndFlush(portfolio);
+            rollupService.holdingChanged(saved.getUser().getId(), before, RollupService.Holding.of(saved));
+            positionCache.holdingChanged(saved.getUser().getId(), before, RollupService.Holding.of(saved));
+            tradeJournal.holdingChanged(saved);
+            eventPublisher.publishEvent(new PortfolioChangedEvent(saved.getUser().getId()));
+            return saved;
+        });
     }
 
     public void deletePortfolio(Long id) {
-        portfolioRepository.deleteById(id);
+        portfolioRepository.findById(id).ifPresent(portfolio -> {
+            RollupService.Holding before = rollupService.lockHolding(id);
+            portfolioRepository.delete(portfolio);
+            rollupService.holdingChanged(portfolio.getUser().getId(), before, null);
+            positionCache.holdingChanged(portfolio.getUser().getId(), before, null);
+            tradeJournal.holdingDeleted(portfolio);
+            eventPublisher.publishEvent(new PortfolioChangedEvent(portfolio.getUser().getId()));
+        });
     }
 
+    /** A new symbol is listed before the transaction starts. */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Portfolio addToPortfolio(User user, String symbol, String companyName,
             BigDecimal quantity, BigDecimal price) {
-        Optional<Portfolio> existingPortfolio = getPortfolioByUserAndSymbol(user, symbol);
-
-        if (existingPortfolio.isPresent()) {
-            Portfolio portfolio = existingPortfolio.get();
-            BigDecimal newQuantity = portfolio.getQuantity().add(quantity);
-            BigDecimal newTotalCost = portfolio.getTotalCost().add(quantity.multiply(price));
-            BigDecimal newAveragePrice = newTotalCost.divide(newQuantity, 2, BigDecimal.ROUND_HALF_UP);
-
-            portfolio.setQuantity(newQuantity);
-            portfolio.setAveragePrice(newAveragePrice);
-            portfolio.setCurrentPrice(price); // Update current price
-
-            return updatePortfolio(portfolio);
-        } else {
-            Portfolio newPortfolio = new Portfolio(symbol, companyName, quantity, price, price, user);
-            return createPortfolio(newPortfolio);
-        }
+        String listed = list(symbol, companyName);
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Optional<Portfolio> existingPortfolio = getPortfolioByUserAndSymbol(user, listed);
+
+            if (existingPortfolio.isPresent()) {
+                Portfolio portfolio = existingPortfolio.get();
+                applyBuy(portfolio, quantity, price);
+                return updatePortfolio(portfolio);
+            } else {
+                Portfolio newPortfolio = new Portfolio(listed, companyName, quantity, price, price, user);
+                return createPortfolio(newPortfolio);
+            }
+        });
     }
 
-    public Portfolio removeFromPortfolio(User user, String symbol, BigDecimal quantity) {
-        Optional<Portfolio> existingPortfolio = getPortfolioByUserAndSymbol(user, symbol);
+    /**
+     * Lists a new symbol in a transaction of its own, which the booking transaction must not
+     * have started yet, and returns the symbol as listed; see {@link SecurityMaster#list}
+     * and {@link SecurityMaster#canonical}.
+     */
+    private String list(String symbol, String companyName) {
+        if (symbol == null) {
+            return null;
+        }
+        String listed = securityMaster.canonical(symbol);
+        securityMaster.list(listed, companyName);
+        return listed;
+    }
 
-        if (existingPortfolio.isPresent()) {
-            Portfolio portfolio = existingPortfolio.get();
-            BigDecimal newQuantity = portfolio.getQuantity().subtract(quantity);
+    /**
+     * Folds a buy into an existing holding: quantity grows and the average price
+     * becomes the cost-weighted average of the old and new lots.
+     */
+    static void applyBuy(Portfolio portfolio, BigDecimal quantity, BigDecimal price) {
+        BigDecimal newQuantity = portfolio.getQuantity().add(quantity);
+        BigDecimal newTotalCost = portfolio.getTotalCost().add(quantity.multiply(price));
+        BigDecimal newAveragePrice = newTotalCost.divide(newQuantity, 2, BigDecimal.ROUND_HALF_UP);
+
+        portfolio.setQuantity(newQuantity);
+        portfolio.setAveragePrice(newAveragePrice);
+        portfolio.setCurrentPrice(price); // Update current price
+    }
 
-            if (newQuantity.compareTo(BigDecimal.ZERO) <= 0) {
-                deletePortfolio(portfolio.getId());
-                return null;
-            } else {
-                portfolio.setQuantity(newQuantity);
-                return updatePortfolio(portfolio);
-            }
+    /**
+     * Takes {@code quantity} shares out of the user's holding, deleting it once none are
+     * left. Rejected with {@link PreTradeRejectedException} if the user holds fewer that
+     * open sell orders do not already offer. The holding is checked as stored, with its row
+     * locked, rather than as cached, which may miss another instance's writes.
+     */
+    public Portfolio removeFromPortfolio(User user, String requestedSymbol, BigDecimal quantity) {
+        String symbol = securityMaster.canonical(requestedSymbol);
+        Optional<Portfolio> existingPortfolio = portfolioRepository.findForUpdateByUserAndSymbol(user, symbol);
+        BigDecimal held = existingPortfolio.map(Portfolio::getQuantity).orElse(BigDecimal.ZERO);
+        BigDecimal reserved = positionCache.reserved(user.getId(), symbol);
+        if (quantity.signum() <= 0 || quantity.compareTo(held.subtract(reserved)) > 0) {
+            throw new PreTradeRejectedException("cannot remove " + quantity.toPlainString() + " " + symbol + ", "
+                    + held.toPlainString() + " held" + (reserved.signum() > 0
+                            ? " of which " + reserved.toPlainString() + " in open sell orders" : ""));
         }
+        return reduceHolding(existingPortfolio.get(), quantity);
+    }
 
-        return null;
+    /**
+     * Books the seller's side of a matched fill. A sell of more than is held, which the
+     * order's reservation should have ruled out, is refused with {@link IllegalStateException}
+     * rather than booked, so the fill is set aside in {@code unsettled_fills} for review.
+     * Like {@link #removeFromPortfolio}, it checks the locked row.
+     */
+    public Portfolio settleSell(User user, String requestedSymbol, BigDecimal quantity) {
+        String symbol = securityMaster.canonical(requestedSymbol);
+        Optional<Portfolio> existingPortfolio = portfolioRepository.findForUpdateByUserAndSymbol(user, symbol);
+        BigDecimal held = existingPortfolio.map(Portfolio::getQuantity).orElse(BigDecimal.ZERO);
+        if (quantity.compareTo(held) > 0) {
+            throw new IllegalStateException("cannot settle a sell of " + quantity.toPlainString() + " " + symbol
+                    + " for user " + user.getId() + ", " + held.toPlainString() + " held");
+        }
+        return reduceHolding(existingPortfolio.get(), quantity);
     }
 
-    public BigDecimal getTotalPortfolioValue(User user) {
-        List<Portfolio> portfolios = getPortfoliosByUser(user);
-        return portfolios.stream()
-                .map(Portfolio::getTotalValue)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /** Takes {@code quantity}, at most what is held, out of the holding; none left deletes it. */
+    private Portfolio reduceHolding(Portfolio portfolio, BigDecimal quantity) {
+        BigDecimal newQuantity = portfolio.getQuantity().subtract(quantity);
+        if (newQuantity.signum() == 0) {
+            deletePortfolio(portfolio.getId());
+            return null;
+        }
+        portfolio.setQuantity(newQuantity);
+        return updatePortfolio(portfolio);
     }
 
-    public BigDecimal getTotalProfitLoss(User user) {
-        List<Portfolio> portfolios = getPortfoliosByUser(user);
-        return portfolios.stream()
-                .map(Portfolio::getProfitLoss)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /** Coalesced like {@link #getPortfoliosByUser}. */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public PortfolioSummaryView getPortfolioSummary(User user) {
+        long version = resourceVersionService.getVersion(user.getId(), ResourceVersionService.Resource.PORTFOLIO);
+        return readCoalescer.read("portfolio.summary", List.of(user.getId(), version),
+                () -> portfolioRepository.summarizeByUser(user));
     }
 }
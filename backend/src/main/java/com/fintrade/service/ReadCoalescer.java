@@ -0,0 +1,92 @@
+package com.fintrade.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight reads: concurrent calls with the same read name and key share one call of
+ * the loader and its result. Nothing is kept once the call returns, so a read that starts
+ * after it sees the database as it is then. Callers put the resource version from
+ * {@link ResourceVersionService} into the key, so a read that starts after a committed
+ * change never joins a call that started before it.
+ *
+ * <p>Callers inside a transaction always run their own read, since they may need to see
+ * their own uncommitted changes; coalesced reads should run outside one and let the
+ * repository open its own, so waiting callers hold no connection. Results are shared
+ * between threads and must not be modified.
+ *
+ * <p>{@code fintrade.reads.coalescing} counts calls per {@code read} with
+ * {@code result} {@code executed} (ran the loader) or {@code joined} (shared a call).
+ */
+@Service
+public class ReadCoalescer {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    public ReadCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T read(String read, Object key, Supplier<T> loader) {
+        Counter[] outcome = counters(read);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            outcome[0].increment();
+            return loader.get();
+        }
+        Key id = new Key(read, key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            outcome[1].increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        outcome[0].increment();
+        try {
+            T result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    private Counter[] counters(String read) {
+        return counters.computeIfAbsent(read, name -> new Counter[] { counter(name, "executed"),
+                counter(name, "joined") });
+    }
+
+    private Counter counter(String read, String result) {
+        return Counter.builder("fintrade.reads.coalescing")
+                .description("Reads that ran a query, and reads that shared one already running")
+                .tag("read", read)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Key(String read, Object key) {
+    }
+}
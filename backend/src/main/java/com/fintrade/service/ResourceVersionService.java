@@ -0,0 +1,67 @@
+package com.fintrade.service;
+
+import com.fintrade.datasource.ReadYourWritesTracker;
+import com.fintrade.event.PortfolioChangedEvent;
+import com.fintrade.event.TransactionChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory version counters per user and resource, bumped after every committed
+ * mutation. Controllers read the counter before loading data, so a response can
+ * only ever be tagged with a version that is older than or equal to its contents.
+ *
+ * <p>The counters belong to one instance, so ETags are only sound with a single instance,
+ * or with every user's requests pinned to one: another instance does not see the bump and
+ * would go on answering 304 for data that has changed. A bump also keeps the user's reads
+ * on the primary for the replica sticky window, whoever made the write, so that a bumped
+ * ETag never labels a response read from a replica that is still behind.
+ */
+@Service
+public class ResourceVersionService {
+
+    public enum Resource {
+        PORTFOLIO, TRANSACTIONS
+    }
+
+    // Counters restart at zero on boot; the epoch keeps old ETags from matching again.
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Long, AtomicLongArray> versions = new ConcurrentHashMap<>();
+
+    /** Only present when reads are routed to replicas. */
+    @Autowired(required = false)
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    public long getVersion(Long userId, Resource resource) {
+        AtomicLongArray counters = versions.get(userId);
+        return counters == null ? 0 : counters.get(resource.ordinal());
+    }
+
+    public String getETag(Long userId, Resource resource, String view) {
+        return "\"" + view + "-" + epoch + "-" + userId + "-" + getVersion(userId, resource) + "\"";
+    }
+
+    public void bump(Long userId, Resource resource) {
+        versions.computeIfAbsent(userId, id -> new AtomicLongArray(Resource.values().length))
+                .incrementAndGet(resource.ordinal());
+        if (readYourWritesTracker != null) {
+            readYourWritesTracker.recordWrite(userId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPortfolioChanged(PortfolioChangedEvent event) {
+        bump(event.getUserId(), Resource.PORTFOLIO);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        bump(event.getUserId(), Resource.TRANSACTIONS);
+    }
+}
@@ -1,11 +1,23 @@
 package com.fintrade.service;
 
+import com.fintrade.dto.TransactionView;
 import com.fintrade.entity.Transaction;
 import com.fintrade.entity.User;
+import com.fintrade.event.TransactionChangedEvent;
+import com.fintrade.journal.TradeJournal;
 import com.fintrade.repository.TransactionRepository;
+import com.fintrade.rollup.RollupService;
+import com.fintrade.securitymaster.SecurityMaster;
+import com.fintrade.taxlots.LotPick;
+import com.fintrade.taxlots.TaxLotService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,47 +30,146 @@ public class TransactionService {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private TaxLotService taxLotService;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private TradeJournal tradeJournal;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private ReadCoalescer readCoalescer;
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Transaction createTransaction(Transaction transaction) {
-        return transactionRepository.save(transaction);
+        return createTransaction(transaction, List.of());
     }
 
-    public List<Transaction> getTransactionsByUser(User user) {
-        return transactionRepository.findByUserOrderByTransactionDateDesc(user);
+    /**
+     * Saves the transaction and updates the user's tax lots; {@code picks} name the lots a SPECIFIC sell closes.
+     * A new symbol is listed before the transaction starts.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Transaction createTransaction(Transaction transaction, List<LotPick> picks) {
+        transaction.setSymbol(list(transaction.getSymbol(), transaction.getCompanyName()));
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Transaction saved = transactionRepository.save(transaction);
+            taxLotService.record(saved, picks);
+            rollupService.tradeChanged(saved.getUser().getId(), null, RollupService.Trade.of(saved));
+            tradeJournal.transactionBooked(saved);
+            eventPublisher.publishEvent(new TransactionChangedEvent(saved.getUser().getId()));
+            return saved;
+        });
     }
 
-    public List<Transaction> getTransactionsByUserAndSymbol(User user, String symbol) {
-        return transactionRepository.findByUserAndSymbol(user, symbol);
+    /**
+     * Concurrent calls for the same user and transactions version share one query and its
+     * unmodifiable result; see {@link ReadCoalescer}.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<TransactionView> getTransactionsByUser(User user) {
+        long version = resourceVersionService.getVersion(user.getId(), ResourceVersionService.Resource.TRANSACTIONS);
+        return readCoalescer.read("transaction.views", List.of(user.getId(), version),
+                () -> List.copyOf(transactionRepository.findViewsByUser(user)));
     }
 
-    public List<Transaction> getTransactionsByUserAndType(User user, Transaction.TransactionType transactionType) {
-        return transactionRepository.findByUserAndTransactionType(user, transactionType);
+    @Transactional(readOnly = true)
+    public List<TransactionView> getTransactionsByUserAndSymbol(User user, String symbol) {
+        return transactionRepository.findViewsByUserAndSymbol(user, symbol);
     }
 
-    public List<Transaction> getTransactionsByUserAndDateRange(User user, LocalDateTime startDate,
+    @Transactional(readOnly = true)
+    public List<TransactionView> getTransactionsByUserAndType(User user,
+            Transaction.TransactionType transactionType) {
+        return transactionRepository.findViewsByUserAndTransactionType(user, transactionType);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionView> getTransactionsByUserAndDateRange(User user, LocalDateTime startDate,
             LocalDateTime endDate) {
-        return transactionRepository.findByUserAndTransactionDateBetween(user, startDate, endDate);
+        return transactionRepository.findViewsByUserAndTransactionDateBetween(user, startDate, endDate);
     }
 
-    public List<Transaction> searchTransactionsBySymbol(User user, String symbol) {
-        return transactionRepository.findByUserAndSymbolContainingIgnoreCase(user, symbol);
+    @Transactional(readOnly = true)
+    public List<TransactionView> searchTransactionsBySymbol(User user, String symbol) {
+        List<String> symbols = securityMaster.search(symbol);
+        return symbols.isEmpty() ? List.of() : transactionRepository.findViewsByUserAndSymbolIn(user, symbols);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Transaction> getTransactionById(Long id) {
         return transactionRepository.findById(id);
     }
 
+    /** A new symbol is listed before the transaction starts. */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Transaction updateTransaction(Transaction transaction) {
-        return transactionRepository.save(transaction);
+        transaction.setSymbol(list(transaction.getSymbol(), transaction.getCompanyName()));
+        return new TransactionTemplate(transactionManager).execute(status -> update(transaction));
+    }
+
+    private Transaction update(Transaction transaction) {
+        String previousSymbol = transaction.getSymbol();
+        RollupService.Trade before = null;
+        Optional<Transaction> existing = transactionRepository.findById(transaction.getId());
+        if (existing.isPresent()) {
+            previousSymbol = existing.get().getSymbol();
+            // Taken before the save merges the edit into the same managed instance.
+            before = RollupService.Trade.of(existing.get());
+            // Lots are matched in date order, so an edit that leaves out the date keeps the old one.
+            if (transaction.getTransactionDate() == null) {
+                transaction.setTransactionDate(existing.get().getTransactionDate());
+            }
+            transaction.setCreatedAt(existing.get().getCreatedAt());
+        }
+        Transaction saved = transactionRepository.saveAndFlush(transaction);
+        taxLotService.transactionChanged(saved.getUser().getId(), previousSymbol, saved.getSymbol());
+        rollupService.tradeChanged(saved.getUser().getId(), before, RollupService.Trade.of(saved));
+        tradeJournal.transactionUpdated(saved);
+        eventPublisher.publishEvent(new TransactionChangedEvent(saved.getUser().getId()));
+        return saved;
+    }
+
+    /**
+     * Lists a new symbol in a transaction of its own, before the booking transaction starts,
+     * and returns the symbol as listed; see {@link SecurityMaster#canonical}.
+     */
+    private String list(String symbol, String companyName) {
+        if (symbol == null) {
+            return null;
+        }
+        String listed = securityMaster.canonical(symbol);
+        securityMaster.list(listed, companyName);
+        return listed;
     }
 
     public void deleteTransaction(Long id) {
-        transactionRepository.deleteById(id);
+        transactionRepository.findById(id).ifPresent(transaction -> {
+            transactionRepository.delete(transaction);
+            transactionRepository.flush();
+            taxLotService.transactionDeleted(transaction);
+            rollupService.tradeChanged(transaction.getUser().getId(), RollupService.Trade.of(transaction), null);
+            tradeJournal.transactionDeleted(transaction);
+            eventPublisher.publishEvent(new TransactionChangedEvent(transaction.getUser().getId()));
+        });
     }
 
-    public List<Transaction> getRecentTransactions(User user, int limit) {
-        List<Transaction> allTransactions = getTransactionsByUser(user);
-        return allTransactions.stream()
-                .limit(limit)
-                .toList();
+    @Transactional(readOnly = true)
+    public List<TransactionView> getRecentTransactions(User user, int limit) {
+        return transactionRepository.findViewsByUser(user, PageRequest.of(0, limit));
     }
 }
@@ -1,14 +1,21 @@
 package com.fintrade.service;
 
+import com.fintrade.dto.UserPage;
+import com.fintrade.dto.UserView;
 import com.fintrade.entity.User;
+import com.fintrade.repository.UserDirectory;
 import com.fintrade.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -41,10 +48,45 @@ public class UserService {
         return userRepository.existsByEmail(email);
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<UserView> consumer) {
+        try (Stream<UserView> users = userRepository.streamAllViews()) {
+            users.forEach(consumer);
+        }
     }
 
+    /**
+     * One page of the directory. {@code after} is the {@code nextCursor} of the previous
+     * page, read with the same sort, direction and prefix.
+     *
+     * @throws IllegalArgumentException if the cursor is not one this method handed out
+     */
+    @Transactional(readOnly = true)
+    public UserPage getUserPage(String prefix, UserDirectory.Sort sort, boolean ascending, String after, int limit) {
+        Object afterValue = null;
+        Long afterId = null;
+        if (after != null) {
+            try {
+                String cursor = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+                int colon = cursor.indexOf(':');
+                afterId = Long.valueOf(cursor.substring(0, colon));
+                afterValue = sort.parse(cursor.substring(colon + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("after is not a valid cursor", e);
+            }
+        }
+        String search = prefix == null || prefix.isBlank() ? null : prefix.trim();
+        List<UserView> users = userRepository.findPage(search, sort, ascending, afterValue, afterId, limit + 1);
+        if (users.size() <= limit) {
+            return new UserPage(users, null);
+        }
+        UserView last = users.get(limit - 1);
+        String next = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((last.getId() + ":" + sort.format(last)).getBytes(StandardCharsets.UTF_8));
+        return new UserPage(users.subList(0, limit), next);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
     }
@@ -52,8 +94,4 @@ public class UserService {
     public User updateUser(User user) {
         return userRepository.save(user);
     }
-
-    public void deleteUser(Long id) {
-        userRepository.deleteById(id);
-    }
 }
@@ -0,0 +1,25 @@
+package com.fintrade.startup;
+
+import com.fintrade.trading.MatchingEngine;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    /**
+     * With {@code spring.main.lazy-initialization} (the {@code fast-startup} profile) beans are
+     * created when first used. The connection pool, Hibernate and the matching engine stay
+     * eager so the first requests after startup do not wait for them; beans with
+     * {@code @Scheduled} methods are kept eager by Spring Boot itself.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter requestPathInfrastructure() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, EntityManagerFactory.class,
+                MatchingEngine.class);
+    }
+}
@@ -0,0 +1,7 @@
+package com.fintrade.taxlots;
+
+import java.math.BigDecimal;
+
+/** A lot named on a SPECIFIC sell, by the id of the BUY transaction that opened it. */
+public record LotPick(Long lotId, BigDecimal quantity) {
+}
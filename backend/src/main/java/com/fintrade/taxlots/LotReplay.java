@@ -0,0 +1,158 @@
+package com.fintrade.taxlots;
+
+import com.fintrade.entity.Transaction.LotMethod;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replays one user's trades into {@link OpenLots} per symbol and collects every lot and
+ * every realized gain as rows for a batch insert. Trades must arrive in transaction-date
+ * order within each symbol. A lot is written once: when it is sold out, or by
+ * {@link #finish()} if it is still open.
+ */
+final class LotReplay implements OpenLots.MatchListener {
+
+    private final LotMethod defaultMethod;
+    private final Map<String, OpenLots> books = new HashMap<>();
+    private final LotRows lots = new LotRows();
+    private final GainRows gains = new GainRows();
+
+    private String symbol;
+    private OpenLots book;
+    private long sellId;
+    private long soldAt;
+    private long unmatched;
+
+    LotReplay(LotMethod defaultMethod) {
+        this.defaultMethod = defaultMethod;
+    }
+
+    void buy(String symbol, long transactionId, long time, long quantity, long cost) {
+        bookFor(symbol).add(transactionId, time, quantity, cost);
+    }
+
+    /** {@code method} may be null for the default; picks may be null. */
+    void sell(String symbol, long transactionId, long time, long quantity, long proceeds, LotMethod method,
+            long[] pickLotIds, long[] pickQuantities) {
+        OpenLots open = bookFor(symbol);
+        sellId = transactionId;
+        soldAt = time;
+        unmatched += open.sell(quantity, proceeds, method != null ? method : defaultMethod, pickLotIds,
+                pickQuantities, this);
+    }
+
+    @Override
+    public void matched(int lot, long quantity, long cost, long proceeds) {
+        gains.add(symbol, sellId, book.lotId(lot), quantity, book.acquiredAt(lot), soldAt, cost, proceeds);
+        if (book.remaining(lot) == 0) {
+            lots.add(symbol, book, lot);
+        }
+    }
+
+    /** Adds the lots that are still open; call once after the last trade. */
+    void finish() {
+        for (Map.Entry<String, OpenLots> entry : books.entrySet()) {
+            OpenLots open = entry.getValue();
+            for (int lot = open.start(); lot < open.end(); lot++) {
+                if (open.remaining(lot) > 0) {
+                    lots.add(entry.getKey(), open, lot);
+                }
+            }
+        }
+    }
+
+    LotRows lots() {
+        return lots;
+    }
+
+    GainRows gains() {
+        return gains;
+    }
+
+    /** Quantity sold that no lot covered, i.e. sold short or before its buy was recorded. */
+    long unmatched() {
+        return unmatched;
+    }
+
+    private OpenLots bookFor(String symbol) {
+        if (!symbol.equals(this.symbol)) {
+            this.symbol = symbol;
+            book = books.computeIfAbsent(symbol, key -> new OpenLots());
+        }
+        return book;
+    }
+
+    /** Lots in column arrays. */
+    static final class LotRows {
+
+        String[] symbols = new String[64];
+        long[] lotIds = new long[64];
+        long[] acquiredAt = new long[64];
+        long[] quantities = new long[64];
+        long[] costs = new long[64];
+        long[] remaining = new long[64];
+        long[] remainingCosts = new long[64];
+        int size;
+
+        void add(String symbol, OpenLots book, int lot) {
+            if (size == lotIds.length) {
+                int capacity = size * 2;
+                symbols = Arrays.copyOf(symbols, capacity);
+                lotIds = Arrays.copyOf(lotIds, capacity);
+                acquiredAt = Arrays.copyOf(acquiredAt, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                costs = Arrays.copyOf(costs, capacity);
+                remaining = Arrays.copyOf(remaining, capacity);
+                remainingCosts = Arrays.copyOf(remainingCosts, capacity);
+            }
+            symbols[size] = symbol;
+            lotIds[size] = book.lotId(lot);
+            acquiredAt[size] = book.acquiredAt(lot);
+            quantities[size] = book.quantity(lot);
+            costs[size] = book.cost(lot);
+            remaining[size] = book.remaining(lot);
+            remainingCosts[size] = book.remainingCost(lot);
+            size++;
+        }
+    }
+
+    /** Realized gains in column arrays. */
+    static final class GainRows {
+
+        String[] symbols = new String[64];
+        long[] sellIds = new long[64];
+        long[] lotIds = new long[64];
+        long[] quantities = new long[64];
+        long[] acquiredAt = new long[64];
+        long[] soldAt = new long[64];
+        long[] costs = new long[64];
+        long[] proceeds = new long[64];
+        int size;
+
+        void add(String symbol, long sellId, long lotId, long quantity, long acquiredAt, long soldAt, long cost,
+                long proceeds) {
+            if (size == lotIds.length) {
+                int capacity = size * 2;
+                symbols = Arrays.copyOf(symbols, capacity);
+                sellIds = Arrays.copyOf(sellIds, capacity);
+                lotIds = Arrays.copyOf(lotIds, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                this.acquiredAt = Arrays.copyOf(this.acquiredAt, capacity);
+                this.soldAt = Arrays.copyOf(this.soldAt, capacity);
+                costs = Arrays.copyOf(costs, capacity);
+                this.proceeds = Arrays.copyOf(this.proceeds, capacity);
+            }
+            symbols[size] = symbol;
+            sellIds[size] = sellId;
+            lotIds[size] = lotId;
+            quantities[size] = quantity;
+            this.acquiredAt[size] = acquiredAt;
+            this.soldAt[size] = soldAt;
+            costs[size] = cost;
+            this.proceeds[size] = proceeds;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.fintrade.taxlots;
+
+import com.fintrade.entity.Transaction.LotMethod;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The lots of one user in one symbol, in the order they were bought, held in parallel
+ * primitive arrays. Quantities are in {@link com.fintrade.trading.Units} and money in
+ * millionths of a dollar ({@link #MONEY_SCALE}), so quantity times price in cents is exact.
+ *
+ * <p>FIFO sells consume from the head and LIFO sells from the tail. A lot sold out of the
+ * middle by specific identification stays where it is with nothing remaining and is
+ * skipped once either end reaches it. Cost and proceeds are split pro rata by quantity;
+ * the last share of a lot or of a sale takes whatever is left, so nothing is lost to
+ * rounding. Not thread-safe.
+ */
+final class OpenLots {
+
+    static final int MONEY_SCALE = 6;
+
+    private long[] lotIds;
+    private long[] acquiredAt;
+    private long[] quantities;
+    private long[] costs;
+    private long[] remaining;
+    private long[] remainingCosts;
+    private int head;
+    private int tail;
+    private Map<Long, Integer> positions;
+
+    private long saleQuantity;
+    private long saleProceeds;
+    private long saleMatched;
+    private long saleAllocated;
+
+    OpenLots() {
+        this(16);
+    }
+
+    OpenLots(int capacity) {
+        int size = Math.max(4, capacity);
+        lotIds = new long[size];
+        acquiredAt = new long[size];
+        quantities = new long[size];
+        costs = new long[size];
+        remaining = new long[size];
+        remainingCosts = new long[size];
+    }
+
+    /** Appends a new lot; {@code cost} is the total paid including commission. */
+    void add(long lotId, long acquiredAt, long quantity, long cost) {
+        restore(lotId, acquiredAt, quantity, cost, quantity, cost);
+    }
+
+    /** Appends a lot that has already been partly sold. */
+    void restore(long lotId, long acquiredAt, long quantity, long cost, long remainingQuantity, long remainingCost) {
+        if (tail == lotIds.length) {
+            makeRoom();
+        }
+        lotIds[tail] = lotId;
+        this.acquiredAt[tail] = acquiredAt;
+        quantities[tail] = quantity;
+        costs[tail] = cost;
+        remaining[tail] = remainingQuantity;
+        remainingCosts[tail] = remainingCost;
+        if (positions != null) {
+            positions.put(lotId, tail);
+        }
+        tail++;
+    }
+
+    /**
+     * Sells {@code quantity} for {@code proceeds} net of commission. With picks, the named
+     * lots are sold first, each up to its picked quantity; the rest of the sale, and all of
+     * it otherwise, comes from the head for FIFO and SPECIFIC and from the tail for LIFO.
+     *
+     * @return the quantity no open lot covered
+     */
+    long sell(long quantity, long proceeds, LotMethod method, long[] pickLotIds, long[] pickQuantities,
+            MatchListener listener) {
+        saleQuantity = quantity;
+        saleProceeds = proceeds;
+        saleMatched = 0;
+        saleAllocated = 0;
+        if (pickLotIds != null) {
+            for (int p = 0; p < pickLotIds.length && saleMatched < quantity; p++) {
+                Integer lot = positionOf(pickLotIds[p]);
+                if (lot != null && remaining[lot] > 0) {
+                    take(lot, Math.min(pickQuantities[p], Math.min(remaining[lot], quantity - saleMatched)),
+                            listener);
+                }
+            }
+        }
+        while (saleMatched < quantity && trim()) {
+            int lot = method == LotMethod.LIFO ? tail - 1 : head;
+            take(lot, Math.min(remaining[lot], quantity - saleMatched), listener);
+        }
+        return quantity - saleMatched;
+    }
+
+    /** What is left of a lot, or zero if it is closed or not in this book. */
+    long openQuantity(long lotId) {
+        Integer lot = positionOf(lotId);
+        return lot != null ? remaining[lot] : 0;
+    }
+
+    /** Slots from {@code start()} (inclusive) to {@code end()} (exclusive); closed lots have nothing remaining. */
+    int start() {
+        return head;
+    }
+
+    int end() {
+        return tail;
+    }
+
+    long lotId(int lot) {
+        return lotIds[lot];
+    }
+
+    long acquiredAt(int lot) {
+        return acquiredAt[lot];
+    }
+
+    long quantity(int lot) {
+        return quantities[lot];
+    }
+
+    long cost(int lot) {
+        return costs[lot];
+    }
+
+    long remaining(int lot) {
+        return remaining[lot];
+    }
+
+    long remainingCost(int lot) {
+        return remainingCosts[lot];
+    }
+
+    private void take(int lot, long quantity, MatchListener listener) {
+        if (quantity <= 0) {
+            return;
+        }
+        long cost = quantity == remaining[lot] ? remainingCosts[lot]
+                : Math.min(remainingCosts[lot], share(costs[lot], quantity, quantities[lot]));
+        remaining[lot] -= quantity;
+        remainingCosts[lot] -= cost;
+        saleMatched += quantity;
+        long proceeds = saleMatched == saleQuantity ? saleProceeds - saleAllocated
+                : share(saleProceeds, quantity, saleQuantity);
+        saleAllocated += proceeds;
+        listener.matched(lot, quantity, cost, proceeds);
+    }
+
+    /** Drops closed lots off both ends; false once nothing is open. */
+    private boolean trim() {
+        while (head < tail && remaining[head] == 0) {
+            head++;
+        }
+        while (tail > head && remaining[tail - 1] == 0) {
+            tail--;
+        }
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+            positions = null;
+            return false;
+        }
+        return true;
+    }
+
+    private Integer positionOf(long lotId) {
+        if (positions == null) {
+            positions = new HashMap<>();
+            for (int i = head; i < tail; i++) {
+                positions.put(lotIds[i], i);
+            }
+        }
+        Integer lot = positions.get(lotId);
+        // Slots past the tail are reused, so an entry can outlive its lot.
+        return lot != null && lot >= head && lot < tail && lotIds[lot] == lotId ? lot : null;
+    }
+
+    private void makeRoom() {
+        trim();
+        int live = tail - head;
+        if (head > 0 && live <= lotIds.length / 2) {
+            shift(live);
+        } else {
+            int size = lotIds.length * 2;
+            lotIds = Arrays.copyOf(lotIds, size);
+            acquiredAt = Arrays.copyOf(acquiredAt, size);
+            quantities = Arrays.copyOf(quantities, size);
+            costs = Arrays.copyOf(costs, size);
+            remaining = Arrays.copyOf(remaining, size);
+            remainingCosts = Arrays.copyOf(remainingCosts, size);
+        }
+    }
+
+    private void shift(int live) {
+        System.arraycopy(lotIds, head, lotIds, 0, live);
+        System.arraycopy(acquiredAt, head, acquiredAt, 0, live);
+        System.arraycopy(quantities, head, quantities, 0, live);
+        System.arraycopy(costs, head, costs, 0, live);
+        System.arraycopy(remaining, head, remaining, 0, live);
+        System.arraycopy(remainingCosts, head, remainingCosts, 0, live);
+        head = 0;
+        tail = live;
+        positions = null;
+    }
+
+    /** {@code total * part / whole}, rounded half up, without overflowing. */
+    static long share(long total, long part, long whole) {
+        long high = Math.multiplyHigh(total, part);
+        long product = total * part;
+        if ((high == 0 && product >= 0) || (high == -1 && product < 0)) {
+            return Math.floorDiv(product + whole / 2, whole);
+        }
+        return new BigDecimal(BigInteger.valueOf(total).multiply(BigInteger.valueOf(part)))
+                .divide(BigDecimal.valueOf(whole), 0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /** Receives each piece of a sale as it is matched against a lot. */
+    interface MatchListener {
+
+        void matched(int lot, long quantity, long cost, long proceeds);
+    }
+}
@@ -0,0 +1,5 @@
+package com.fintrade.taxlots;
+
+/** Outcome of rebuilding tax lots from transactions. */
+public record TaxLotRebuildResult(int users, long trades, long lots, long gains, long elapsedMillis) {
+}
@@ -0,0 +1,427 @@
+package com.fintrade.taxlots;
+
+import com.fintrade.dto.RealizedGainsView;
+import com.fintrade.dto.TaxLotView;
+import com.fintrade.entity.RealizedGain;
+import com.fintrade.entity.TaxLot;
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.Transaction.LotMethod;
+import com.fintrade.entity.User;
+import com.fintrade.repository.RealizedGainRepository;
+import com.fintrade.repository.TaxLotRepository;
+import com.fintrade.repository.UserRepository;
+import com.fintrade.securitymaster.SecurityMaster;
+import com.fintrade.trading.Units;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tax lots and realized gains, kept up to date as transactions are recorded.
+ *
+ * <p>A BUY opens a lot. A SELL locks the symbol's open lots, closes them with its lot
+ * method ({@code tax-lots.default-method} unless the sell names one) and writes one
+ * realized gain per lot it touches, so recording a trade never replays history. A trade
+ * dated before the newest one in its symbol, an edit or a delete can change how later
+ * sells matched; those replay the symbol's trades instead. Everything joins the caller's
+ * transaction. Quantity sold beyond the open lots is left unmatched.
+ */
+@Service
+@Transactional
+public class TaxLotService {
+
+    private static final Logger log = LoggerFactory.getLogger(TaxLotService.class);
+
+    private static final String INSERT_LOT = "INSERT INTO tax_lots (transaction_id, user_id, symbol, acquired_at, "
+            + "quantity, cost_basis, remaining_quantity, remaining_cost) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_LOT = "UPDATE tax_lots SET remaining_quantity = ?, remaining_cost = ? "
+            + "WHERE transaction_id = ?";
+    private static final String OPEN_LOTS = "SELECT transaction_id, acquired_at, quantity, cost_basis, "
+            + "remaining_quantity, remaining_cost FROM tax_lots WHERE user_id = ? AND symbol = ? "
+            + "AND remaining_quantity > 0 ORDER BY acquired_at, transaction_id FOR UPDATE";
+    private static final String INSERT_GAIN = "INSERT INTO realized_gains (user_id, symbol, sell_transaction_id, "
+            + "lot_transaction_id, quantity, acquired_at, sold_at, cost_basis, proceeds, gain, long_term) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SELECTION = "INSERT INTO tax_lot_selections (sell_transaction_id, "
+            + "lot_transaction_id, quantity, pick_order) VALUES (?, ?, ?, ?)";
+    private static final String LATER_TRADES = "SELECT COUNT(*) FROM transactions WHERE user_id = ? "
+            + "AND security_id = ? "
+            + "AND id <> ? AND transaction_date > ?";
+    private static final String TRADES = "SELECT t.id, s.symbol, t.transaction_type, t.quantity, t.price, "
+            + "t.commission, t.transaction_date, t.lot_method FROM transactions t "
+            + "JOIN securities s ON s.id = t.security_id WHERE t.user_id = ? ";
+    private static final String SELECTIONS = "SELECT s.sell_transaction_id, s.lot_transaction_id, s.quantity "
+            + "FROM tax_lot_selections s JOIN transactions t ON t.id = s.sell_transaction_id WHERE t.user_id = ? ";
+    private static final int FETCH_SIZE = 1000;
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private TaxLotRepository taxLotRepository;
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @Autowired
+    private RealizedGainRepository realizedGainRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${tax-lots.default-method:FIFO}")
+    private LotMethod defaultMethod;
+
+    /**
+     * Applies a transaction that was just saved. {@code picks} name the lots a SPECIFIC
+     * sell closes and must add up to its quantity.
+     *
+     * @throws IllegalArgumentException if the picks do not fit the sell or its open lots
+     */
+    public void record(Transaction transaction, List<LotPick> picks) {
+        boolean sell = transaction.getTransactionType() == Transaction.TransactionType.SELL;
+        boolean specific = transaction.getLotMethod() == LotMethod.SPECIFIC;
+        if (specific ? !sell || picks.isEmpty() : !picks.isEmpty()) {
+            throw new IllegalArgumentException("lots must be named exactly when a sell uses the SPECIFIC lot method");
+        }
+        Long userId = transaction.getUser().getId();
+        long quantity = Units.quantity(transaction.getQuantity());
+        long[] pickLotIds = new long[picks.size()];
+        long[] pickQuantities = new long[picks.size()];
+        long picked = 0;
+        for (int p = 0; p < pickLotIds.length; p++) {
+            pickLotIds[p] = picks.get(p).lotId();
+            pickQuantities[p] = Units.quantity(picks.get(p).quantity());
+            picked += pickQuantities[p];
+        }
+        if (specific && picked != quantity) {
+            throw new IllegalArgumentException("the named lots must add up to the quantity sold");
+        }
+        if (specific) {
+            saveSelections(transaction.getId(), pickLotIds, pickQuantities);
+        }
+
+        if (transaction.getTransactionDate().isBefore(transaction.getCreatedAt())
+                && hasLaterTrades(userId, transaction)) {
+            replay(userId, transaction.getSymbol());
+            return;
+        }
+        if (!sell) {
+            long cost = Math.addExact(Math.multiplyExact(quantity, Units.price(transaction.getPrice())),
+                    money(transaction.getCommission()));
+            jdbcTemplate.update(INSERT_LOT, transaction.getId(), userId, transaction.getSymbol(),
+                    time(millis(transaction.getTransactionDate())), Units.quantity(quantity), amount(cost),
+                    Units.quantity(quantity), amount(cost));
+            return;
+        }
+
+        OpenLots open = new OpenLots();
+        jdbcTemplate.query(OPEN_LOTS, (RowCallbackHandler) row -> open.restore(row.getLong(1),
+                millis(row.getObject(2, LocalDateTime.class)), Units.quantity(row.getBigDecimal(3)),
+                money(row.getBigDecimal(4)), Units.quantity(row.getBigDecimal(5)), money(row.getBigDecimal(6))),
+                userId, transaction.getSymbol());
+        for (int p = 0; p < pickLotIds.length; p++) {
+            if (open.openQuantity(pickLotIds[p]) < pickQuantities[p]) {
+                throw new IllegalArgumentException("lot " + pickLotIds[p] + " does not have "
+                        + Units.quantity(pickQuantities[p]).stripTrailingZeros().toPlainString() + " shares open");
+            }
+        }
+
+        LotReplay.GainRows gains = new LotReplay.GainRows();
+        List<Integer> touched = new ArrayList<>();
+        long soldAt = millis(transaction.getTransactionDate());
+        long unmatched = open.sell(quantity, proceeds(transaction, quantity),
+                transaction.getLotMethod() != null ? transaction.getLotMethod() : defaultMethod, pickLotIds,
+                pickQuantities, (lot, matched, cost, proceeds) -> {
+                    gains.add(transaction.getSymbol(), transaction.getId(), open.lotId(lot), matched,
+                            open.acquiredAt(lot), soldAt, cost, proceeds);
+                    touched.add(lot);
+                });
+        if (unmatched > 0) {
+            log.debug("Sell {} of user {} left {} {} unmatched", transaction.getId(), userId,
+                    Units.quantity(unmatched), transaction.getSymbol());
+        }
+        jdbcTemplate.batchUpdate(UPDATE_LOT, touched, BATCH_SIZE, (statement, lot) -> {
+            statement.setBigDecimal(1, Units.quantity(open.remaining(lot)));
+            statement.setBigDecimal(2, amount(open.remainingCost(lot)));
+            statement.setLong(3, open.lotId(lot));
+        });
+        insertGains(userId, gains);
+    }
+
+    /** Replays the given symbols after one of the user's transactions was edited. */
+    public void transactionChanged(Long userId, String... symbols) {
+        for (String symbol : new LinkedHashSet<>(List.of(symbols))) {
+            replay(userId, symbol);
+        }
+    }
+
+    /** Forgets the lots a deleted sell named and replays its symbol. */
+    public void transactionDeleted(Transaction transaction) {
+        if (transaction.getTransactionType() == Transaction.TransactionType.SELL) {
+            jdbcTemplate.update("DELETE FROM tax_lot_selections WHERE sell_transaction_id = ?", transaction.getId());
+        }
+        replay(transaction.getUser().getId(), transaction.getSymbol());
+    }
+
+    /** Rebuilds every lot and realized gain of one user from their transactions. */
+    public TaxLotRebuildResult rebuild(Long userId) {
+        long started = System.nanoTime();
+        long[] counts = replay(userId, null);
+        return new TaxLotRebuildResult(1, counts[0], counts[1], counts[2], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Rebuilds every user, each in a transaction of their own. */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TaxLotRebuildResult rebuildAll() {
+        long started = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Long> userIds = userRepository.findAllIds();
+        long[] totals = new long[3];
+        for (Long userId : userIds) {
+            long[] counts = transaction.execute(status -> replay(userId, null));
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += counts[i];
+            }
+        }
+        TaxLotRebuildResult result = new TaxLotRebuildResult(userIds.size(), totals[0], totals[1], totals[2],
+                (System.nanoTime() - started) / 1_000_000);
+        log.info("Rebuilt tax lots of {} users: {} trades, {} lots, {} gains in {} ms", result.users(),
+                result.trades(), result.lots(), result.gains(), result.elapsedMillis());
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<TaxLotView> getOpenLots(User user, String symbol) {
+        List<TaxLot> lots = symbol != null ? taxLotRepository.findOpenByUserAndSymbol(user, symbol)
+                : taxLotRepository.findOpenByUser(user);
+        return lots.stream()
+                .map(lot -> new TaxLotView(lot.getTransactionId(), lot.getSymbol(), lot.getAcquiredAt(),
+                        lot.getQuantity(), lot.getRemainingQuantity(), cents(lot.getRemainingCost()),
+                        lot.getRemainingCost().divide(lot.getRemainingQuantity(), 4, RoundingMode.HALF_UP)))
+                .toList();
+    }
+
+    /** Gains realized by sells from the start of {@code from} to the end of {@code to}. */
+    @Transactional(readOnly = true)
+    public RealizedGainsView getRealizedGains(User user, LocalDate from, LocalDate to) {
+        List<RealizedGain> rows = realizedGainRepository.findByUserAndSoldBetween(user, from.atStartOfDay(),
+                to.plusDays(1).atStartOfDay());
+        BigDecimal proceeds = BigDecimal.ZERO;
+        BigDecimal costBasis = BigDecimal.ZERO;
+        BigDecimal shortTerm = BigDecimal.ZERO;
+        BigDecimal longTerm = BigDecimal.ZERO;
+        List<RealizedGainsView.Gain> gains = new ArrayList<>(rows.size());
+        for (RealizedGain row : rows) {
+            proceeds = proceeds.add(row.getProceeds());
+            costBasis = costBasis.add(row.getCostBasis());
+            if (row.isLongTerm()) {
+                longTerm = longTerm.add(row.getGain());
+            } else {
+                shortTerm = shortTerm.add(row.getGain());
+            }
+            gains.add(new RealizedGainsView.Gain(row.getSymbol(), row.getSellTransactionId(),
+                    row.getLotTransactionId(), row.getQuantity(), row.getAcquiredAt(), row.getSoldAt(),
+                    cents(row.getProceeds()), cents(row.getCostBasis()), cents(row.getGain()), row.isLongTerm()));
+        }
+        return new RealizedGainsView(from, to, cents(proceeds), cents(costBasis), cents(shortTerm), cents(longTerm),
+                cents(shortTerm.add(longTerm)), gains);
+    }
+
+    /**
+     * Replaces the user's lots and gains, in one symbol or all of them, with a replay of
+     * their trades.
+     *
+     * @return trades replayed, lots written and gains written
+     */
+    private long[] replay(Long userId, String symbol) {
+        String filter = symbol != null ? "AND symbol = ? " : "";
+        Object[] arguments = symbol != null ? new Object[] { userId, symbol } : new Object[] { userId };
+        jdbcTemplate.update("DELETE FROM realized_gains WHERE user_id = ? " + filter, arguments);
+        jdbcTemplate.update("DELETE FROM tax_lots WHERE user_id = ? " + filter, arguments);
+
+        Map<Long, long[][]> picks = loadSelections(userId, symbol);
+        LotReplay replay = new LotReplay(defaultMethod);
+        long[] trades = { 0 };
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(TRADES
+                    + (symbol != null ? "AND s.symbol = ? " : "") + "ORDER BY s.symbol, t.transaction_date, t.id");
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setLong(1, userId);
+            if (symbol != null) {
+                statement.setString(2, symbol);
+            }
+            return statement;
+        }, (RowCallbackHandler) row -> {
+            long id = row.getLong(1);
+            long quantity = Units.quantity(row.getBigDecimal(4));
+            long notional = Math.multiplyExact(quantity, Units.price(row.getBigDecimal(5)));
+            long commission = money(row.getBigDecimal(6));
+            long time = millis(row.getObject(7, LocalDateTime.class));
+            if (Transaction.TransactionType.BUY.name().equals(row.getString(3))) {
+                replay.buy(row.getString(2), id, time, quantity, notional + commission);
+            } else {
+                String method = row.getString(8);
+                long[][] named = picks.get(id);
+                replay.sell(row.getString(2), id, time, quantity, notional - commission,
+                        method != null ? LotMethod.valueOf(method) : null, named != null ? named[0] : null,
+                        named != null ? named[1] : null);
+            }
+            trades[0]++;
+        });
+        replay.finish();
+
+        insertLots(userId, replay.lots());
+        insertGains(userId, replay.gains());
+        if (replay.unmatched() > 0) {
+            log.debug("Replay of user {} left {} shares unmatched", userId, Units.quantity(replay.unmatched()));
+        }
+        return new long[] { trades[0], replay.lots().size, replay.gains().size };
+    }
+
+    /** Lot ids and quantities named by each sell, in the order they were named. */
+    private Map<Long, long[][]> loadSelections(Long userId, String symbol) {
+        Map<Long, List<long[]>> bySell = new HashMap<>();
+        String sql = SELECTIONS + (symbol != null ? "AND t.security_id = ? " : "")
+                + "ORDER BY s.sell_transaction_id, s.pick_order";
+        Object[] arguments = symbol != null ? new Object[] { userId, securityMaster.id(symbol) }
+                : new Object[] { userId };
+        jdbcTemplate.query(sql, (RowCallbackHandler) row -> bySell
+                .computeIfAbsent(row.getLong(1), id -> new ArrayList<>())
+                .add(new long[] { row.getLong(2), Units.quantity(row.getBigDecimal(3)) }), arguments);
+        Map<Long, long[][]> picks = new HashMap<>();
+        bySell.forEach((sellId, named) -> {
+            long[][] columns = new long[2][named.size()];
+            for (int i = 0; i < named.size(); i++) {
+                columns[0][i] = named.get(i)[0];
+                columns[1][i] = named.get(i)[1];
+            }
+            picks.put(sellId, columns);
+        });
+        return picks;
+    }
+
+    private boolean hasLaterTrades(Long userId, Transaction transaction) {
+        Long later = jdbcTemplate.queryForObject(LATER_TRADES, Long.class, userId,
+                securityMaster.id(transaction.getSymbol()),
+                transaction.getId(), transaction.getTransactionDate());
+        return later != null && later > 0;
+    }
+
+    private void saveSelections(Long sellId, long[] lotIds, long[] quantities) {
+        batch(INSERT_SELECTION, lotIds.length, (statement, i) -> {
+            statement.setLong(1, sellId);
+            statement.setLong(2, lotIds[i]);
+            statement.setBigDecimal(3, Units.quantity(quantities[i]));
+            statement.setInt(4, i);
+        });
+    }
+
+    private void insertLots(Long userId, LotReplay.LotRows lots) {
+        batch(INSERT_LOT, lots.size, (statement, i) -> {
+            statement.setLong(1, lots.lotIds[i]);
+            statement.setLong(2, userId);
+            statement.setString(3, lots.symbols[i]);
+            statement.setObject(4, time(lots.acquiredAt[i]));
+            statement.setBigDecimal(5, Units.quantity(lots.quantities[i]));
+            statement.setBigDecimal(6, amount(lots.costs[i]));
+            statement.setBigDecimal(7, Units.quantity(lots.remaining[i]));
+            statement.setBigDecimal(8, amount(lots.remainingCosts[i]));
+        });
+    }
+
+    private void insertGains(Long userId, LotReplay.GainRows gains) {
+        batch(INSERT_GAIN, gains.size, (statement, i) -> {
+            LocalDateTime acquiredAt = time(gains.acquiredAt[i]);
+            LocalDateTime soldAt = time(gains.soldAt[i]);
+            statement.setLong(1, userId);
+            statement.setString(2, gains.symbols[i]);
+            statement.setLong(3, gains.sellIds[i]);
+            statement.setLong(4, gains.lotIds[i]);
+            statement.setBigDecimal(5, Units.quantity(gains.quantities[i]));
+            statement.setObject(6, acquiredAt);
+            statement.setObject(7, soldAt);
+            statement.setBigDecimal(8, amount(gains.costs[i]));
+            statement.setBigDecimal(9, amount(gains.proceeds[i]));
+            statement.setBigDecimal(10, amount(gains.proceeds[i] - gains.costs[i]));
+            statement.setBoolean(11, soldAt.isAfter(acquiredAt.plusYears(1)));
+        });
+    }
+
+    /** Runs {@code rows} statements in batches of {@link #BATCH_SIZE}. */
+    private void batch(String sql, int rows, RowSetter setter) {
+        for (int start = 0; start < rows; start += BATCH_SIZE) {
+            int offset = start;
+            int size = Math.min(BATCH_SIZE, rows - start);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    setter.set(statement, offset + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    private static long proceeds(Transaction sell, long quantity) {
+        return Math.multiplyExact(quantity, Units.price(sell.getPrice())) - money(sell.getCommission());
+    }
+
+    private static long money(BigDecimal amount) {
+        return amount == null ? 0
+                : amount.setScale(OpenLots.MONEY_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal amount(long money) {
+        return BigDecimal.valueOf(money, OpenLots.MONEY_SCALE);
+    }
+
+    private static BigDecimal cents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime time(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private interface RowSetter {
+
+        void set(PreparedStatement statement, int row) throws SQLException;
+    }
+}
@@ -0,0 +1,9 @@
+package com.fintrade.trading;
+
+import java.util.List;
+
+/**
+ * Top levels of both sides of a book, best price first.
+ */
+public record BookDepth(String symbol, List<BookLevel> bids, List<BookLevel> asks) {
+}
@@ -0,0 +1,7 @@
+package com.fintrade.trading;
+
+/**
+ * One aggregated price level of a depth snapshot, in {@link Units}.
+ */
+public record BookLevel(long price, long quantity, int orders) {
+}
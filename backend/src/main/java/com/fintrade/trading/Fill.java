@@ -0,0 +1,9 @@
+package com.fintrade.trading;
+
+/**
+ * One match between a buy and a sell order, in {@link Units}. {@code executedAt} is
+ * epoch milliseconds.
+ */
+public record Fill(String symbol, String companyName, long price, long quantity, long buyOrderId, long buyUserId,
+        long sellOrderId, long sellUserId, long executedAt) {
+}
@@ -0,0 +1,12 @@
+package com.fintrade.trading;
+
+/**
+ * Receives every match as it happens. Called on the matching thread, so implementations
+ * must not block; primitives keep the matching loop free of allocations.
+ */
+@FunctionalInterface
+public interface FillListener {
+
+    void onFill(long takerOrderId, long takerUserId, OrderSide takerSide, long makerOrderId, long makerUserId,
+            long price, long quantity);
+}
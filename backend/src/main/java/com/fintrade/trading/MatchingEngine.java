@@ -0,0 +1,304 @@
+package com.fintrade.trading;
+
+import com.fintrade.pretrade.PositionCache;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Single-threaded matcher behind a Disruptor ring buffer. Request threads publish
+ * orders into the ring; one thread owns every {@link OrderBook} and matches without
+ * locks, and a second handler behind it batches the fills into the database, so
+ * persistence never holds up matching. Books live in memory only.
+ *
+ * <p>A sell order's quantity is reserved in {@link PositionCache} before it is submitted
+ * ({@code PreTradeService.checkOrder}). The matcher releases what will no longer fill as
+ * soon as the order is cancelled, or fails, so a new order can use it straight away, and
+ * settlement releases the rest as the fills are booked.
+ */
+@Component
+public class MatchingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchingEngine.class);
+
+    @Autowired
+    private TradeSettlementService settlementService;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    @Autowired
+    private PositionCache positionCache;
+
+    @Value("${trading.ring-size:65536}")
+    private int ringSize;
+
+    @Value("${trading.settlement-batch-size:500}")
+    private int settlementBatchSize;
+
+    private final AtomicLong orderIds = new AtomicLong();
+    private final Map<String, OrderBook> books = new HashMap<>();
+    private final Map<Long, RestingOrder> openOrders = new HashMap<>();
+
+    private Disruptor<OrderEvent> disruptor;
+    private RingBuffer<OrderEvent> ringBuffer;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threads = new AtomicInteger();
+        disruptor = new Disruptor<>(OrderEvent::new, ringSize, runnable -> {
+            Thread thread = new Thread(runnable, "matching-engine-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, ProducerType.MULTI, new BlockingWaitStrategy());
+        disruptor.setDefaultExceptionHandler(new LoggingExceptionHandler());
+        disruptor.handleEventsWith(this::match).then(new SettlementHandler());
+        ringBuffer = disruptor.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        try {
+            // Lets the settlement handler flush whatever is still in the ring.
+            disruptor.shutdown(30, TimeUnit.SECONDS);
+        } catch (com.lmax.disruptor.TimeoutException e) {
+            log.warn("Matching engine did not drain within 30s, unsettled fills may be lost");
+            disruptor.halt();
+        }
+    }
+
+    /** Reserves an order id, so a caller that stops waiting for the reply still knows its order. */
+    public long nextOrderId() {
+        return orderIds.incrementAndGet();
+    }
+
+    public CompletableFuture<OrderResult> submit(long userId, String symbol, String companyName, OrderSide side,
+            OrderType type, long price, long quantity) {
+        return submit(nextOrderId(), userId, symbol, companyName, side, type, price, quantity);
+    }
+
+    public CompletableFuture<OrderResult> submit(long orderId, long userId, String symbol, String companyName,
+            OrderSide side, OrderType type, long price, long quantity) {
+        CompletableFuture<OrderResult> reply = publish(OrderEvent.Type.SUBMIT, event -> {
+            event.orderId = orderId;
+            event.userId = userId;
+            event.symbol = symbol;
+            event.companyName = companyName;
+            event.side = side;
+            event.orderType = type;
+            event.price = price;
+            event.quantity = quantity;
+        }).thenApply(OrderResult.class::cast);
+        if (side == OrderSide.SELL) {
+            reply.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    positionCache.releaseSell(userId, symbol, Units.quantity(quantity));
+                }
+            });
+        }
+        return reply;
+    }
+
+    public CompletableFuture<Boolean> cancel(long userId, long orderId) {
+        return publish(OrderEvent.Type.CANCEL, event -> {
+            event.orderId = orderId;
+            event.userId = userId;
+        }).thenApply(Boolean.class::cast);
+    }
+
+    /**
+     * Cancels every resting order of a user. Completes once the fills of everything the
+     * user submitted before this call have been settled, so nothing more will be booked
+     * for them unless they submit again.
+     */
+    public CompletableFuture<Integer> cancelAll(long userId) {
+        return publish(OrderEvent.Type.CANCEL_USER, event -> event.userId = userId)
+                .thenApply(Integer.class::cast);
+    }
+
+    public CompletableFuture<BookDepth> depth(String symbol, int levels) {
+        return publish(OrderEvent.Type.DEPTH, event -> {
+            event.symbol = symbol;
+            event.levels = levels;
+        }).thenApply(BookDepth.class::cast);
+    }
+
+    private CompletableFuture<Object> publish(OrderEvent.Type type, Consumer<OrderEvent> fields) {
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        boolean published = ringBuffer.tryPublishEvent((event, sequence) -> {
+            event.reset(type, reply);
+            fields.accept(event);
+        });
+        if (!published) {
+            reply.completeExceptionally(new RejectedExecutionException("Order queue is full"));
+        }
+        return reply;
+    }
+
+    private void match(OrderEvent event, long sequence, boolean endOfBatch) {
+        try {
+            switch (event.type) {
+                case SUBMIT -> event.reply.complete(process(event));
+                case CANCEL -> {
+                    RestingOrder order = openOrders.get(event.orderId);
+                    boolean cancelled = order != null && order.book.cancel(event.orderId, event.userId);
+                    if (cancelled) {
+                        unfilled(order);
+                    }
+                    event.reply.complete(cancelled);
+                }
+                case CANCEL_USER -> {
+                    // Answered by the settlement handler once the fills ahead of it are written.
+                    List<RestingOrder> orders = openOrders.values().stream()
+                            .filter(order -> order.userId == event.userId).toList();
+                    orders.forEach(order -> {
+                        order.book.cancel(order.orderId, order.userId);
+                        unfilled(order);
+                    });
+                    event.quantity = orders.size();
+                }
+                case DEPTH -> {
+                    OrderBook book = books.get(event.symbol);
+                    event.reply.complete(book == null
+                            ? new BookDepth(event.symbol, List.of(), List.of())
+                            : new BookDepth(event.symbol, book.depth(OrderSide.BUY, event.levels),
+                                    book.depth(OrderSide.SELL, event.levels)));
+                }
+            }
+        } catch (RuntimeException e) {
+            event.fills.clear();
+            event.reply.completeExceptionally(e);
+        }
+    }
+
+    /** Releases the reservation of a cancelled order's remainder. */
+    private void unfilled(RestingOrder order) {
+        if (order.side == OrderSide.SELL) {
+            positionCache.releaseSell(order.userId, order.book.getSymbol(), Units.quantity(order.remaining));
+        }
+    }
+
+    private OrderResult process(OrderEvent event) {
+        OrderBook book = books.computeIfAbsent(event.symbol, symbol -> new OrderBook(symbol,
+                event.companyName != null ? event.companyName : symbol, openOrders));
+        event.companyName = book.getCompanyName();
+        event.timestamp = System.currentTimeMillis();
+        long remaining = book.submit(event.orderId, event.userId, event.side, event.orderType, event.price,
+                event.quantity, event);
+
+        long filled = event.quantity - remaining;
+        OrderStatus status;
+        if (remaining == 0) {
+            status = OrderStatus.FILLED;
+        } else if (!openOrders.containsKey(event.orderId)) {
+            // A market order's remainder, or one stopped short of trading with its own user.
+            status = OrderStatus.CANCELLED;
+            if (event.side == OrderSide.SELL) {
+                positionCache.releaseSell(event.userId, event.symbol, Units.quantity(remaining));
+            }
+        } else {
+            status = filled > 0 ? OrderStatus.PARTIALLY_FILLED : OrderStatus.OPEN;
+        }
+        return new OrderResult(event.orderId, status, filled, remaining, List.copyOf(event.fills));
+    }
+
+    /**
+     * Runs behind the matcher and writes fills in batches: everything the matcher has
+     * finished when this handler catches up, capped at the configured batch size. Each
+     * fill is also a trade print for the price history.
+     */
+    private final class SettlementHandler implements EventHandler<OrderEvent> {
+
+        private final List<Fill> batch = new ArrayList<>();
+
+        @Override
+        public void onEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+            if (event.type == OrderEvent.Type.SUBMIT) {
+                for (Fill fill : event.fills) {
+                    try {
+                        priceHistoryStore.record(fill.symbol(), fill.executedAt(), fill.price(), fill.quantity());
+                    } catch (RuntimeException e) {
+                        log.warn("Could not record {} trade in the price history", fill.symbol(), e);
+                    }
+                }
+                batch.addAll(event.fills);
+            }
+            boolean barrier = event.type == OrderEvent.Type.CANCEL_USER;
+            if (!batch.isEmpty() && (endOfBatch || barrier || batch.size() >= settlementBatchSize)) {
+                try {
+                    settle();
+                } finally {
+                    batch.clear();
+                }
+            }
+            if (barrier && !event.reply.isDone()) {
+                event.reply.complete((int) event.quantity);
+            }
+        }
+
+        /**
+         * Books the batch in one transaction. If that fails, one bad fill must not cost the
+         * others, so each is booked on its own and the ones that still fail are dead-lettered.
+         */
+        private void settle() {
+            try {
+                settlementService.settle(batch);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Could not settle a batch of {} fills, settling them one by one", batch.size(), e);
+            }
+            for (Fill fill : batch) {
+                try {
+                    settlementService.settle(List.of(fill));
+                } catch (RuntimeException e) {
+                    log.error("Could not settle {}, keeping it in unsettled_fills", fill, e);
+                    try {
+                        settlementService.deadLetter(fill, e);
+                    } catch (RuntimeException lost) {
+                        log.error("Could not keep unsettled fill {}", fill, lost);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class LoggingExceptionHandler implements ExceptionHandler<OrderEvent> {
+
+        @Override
+        public void handleEventException(Throwable ex, long sequence, OrderEvent event) {
+            log.error("Order event {} failed", sequence, ex);
+        }
+
+        @Override
+        public void handleOnStartException(Throwable ex) {
+            log.error("Matching engine failed to start", ex);
+        }
+
+        @Override
+        public void handleOnShutdownException(Throwable ex) {
+            log.error("Matching engine failed to stop", ex);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.fintrade.trading;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Price-time priority limit order book for one symbol. Not thread-safe: every book is
+ * owned by the matching thread and never touched from anywhere else.
+ */
+public final class OrderBook {
+
+    private final String symbol;
+    private final String companyName;
+    private final TreeMap<Long, PriceLevel> bids = new TreeMap<>(Collections.reverseOrder());
+    private final TreeMap<Long, PriceLevel> asks = new TreeMap<>();
+    private final Map<Long, RestingOrder> openOrders;
+
+    public OrderBook(String symbol, String companyName) {
+        this(symbol, companyName, new HashMap<>());
+    }
+
+    /**
+     * @param openOrders resting orders by id, shared by all books of an engine so an order
+     *                   can be cancelled by id alone
+     */
+    OrderBook(String symbol, String companyName, Map<Long, RestingOrder> openOrders) {
+        this.symbol = symbol;
+        this.companyName = companyName;
+        this.openOrders = openOrders;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    /**
+     * Matches an incoming order against the opposite side, best price first and oldest
+     * first within a price, at the resting order's price. A limit order's remainder rests
+     * in the book; a market order's remainder is dropped. An order never trades with its
+     * own user's resting orders: on reaching one it stops, keeping the fills made so far,
+     * and its remainder is dropped rather than rested (cancel newest).
+     *
+     * @return the quantity that did not fill
+     */
+    public long submit(long orderId, long userId, OrderSide side, OrderType type, long price, long quantity,
+            FillListener listener) {
+        TreeMap<Long, PriceLevel> opposite = side == OrderSide.BUY ? asks : bids;
+        long remaining = quantity;
+        boolean selfTrade = false;
+
+        while (remaining > 0 && !selfTrade && !opposite.isEmpty()) {
+            PriceLevel level = opposite.firstEntry().getValue();
+            if (type == OrderType.LIMIT && !crosses(side, price, level.price)) {
+                break;
+            }
+            while (remaining > 0 && level.head != null) {
+                RestingOrder maker = level.head;
+                if (maker.userId == userId) {
+                    selfTrade = true;
+                    break;
+                }
+                long traded = Math.min(remaining, maker.remaining);
+                listener.onFill(orderId, userId, side, maker.orderId, maker.userId, level.price, traded);
+                remaining -= traded;
+                maker.remaining -= traded;
+                level.quantity -= traded;
+                if (maker.remaining == 0) {
+                    level.remove(maker);
+                    openOrders.remove(maker.orderId);
+                }
+            }
+            if (level.isEmpty()) {
+                opposite.pollFirstEntry();
+            }
+        }
+
+        if (remaining > 0 && type == OrderType.LIMIT && !selfTrade) {
+            RestingOrder order = new RestingOrder(orderId, userId, side, price, remaining, this);
+            TreeMap<Long, PriceLevel> own = side == OrderSide.BUY ? bids : asks;
+            PriceLevel level = own.get(price);
+            if (level == null) {
+                level = new PriceLevel(price);
+                own.put(price, level);
+            }
+            level.append(order);
+            openOrders.put(orderId, order);
+        }
+        return remaining;
+    }
+
+    /**
+     * Removes a resting order if it belongs to {@code userId}.
+     *
+     * @return whether an order was removed
+     */
+    public boolean cancel(long orderId, long userId) {
+        RestingOrder order = openOrders.get(orderId);
+        if (order == null || order.book != this || order.userId != userId) {
+            return false;
+        }
+        PriceLevel level = order.level;
+        level.remove(order);
+        openOrders.remove(orderId);
+        if (level.isEmpty()) {
+            (order.side == OrderSide.BUY ? bids : asks).remove(level.price);
+        }
+        return true;
+    }
+
+    public List<BookLevel> depth(OrderSide side, int levels) {
+        TreeMap<Long, PriceLevel> book = side == OrderSide.BUY ? bids : asks;
+        List<BookLevel> depth = new ArrayList<>(Math.min(levels, book.size()));
+        Iterator<PriceLevel> iterator = book.values().iterator();
+        while (iterator.hasNext() && depth.size() < levels) {
+            PriceLevel level = iterator.next();
+            depth.add(new BookLevel(level.price, level.quantity, level.orders));
+        }
+        return depth;
+    }
+
+    public int restingOrders() {
+        int count = 0;
+        for (PriceLevel level : bids.values()) {
+            count += level.orders;
+        }
+        for (PriceLevel level : asks.values()) {
+            count += level.orders;
+        }
+        return count;
+    }
+
+    private static boolean crosses(OrderSide side, long limitPrice, long restingPrice) {
+        return side == OrderSide.BUY ? restingPrice <= limitPrice : restingPrice >= limitPrice;
+    }
+}
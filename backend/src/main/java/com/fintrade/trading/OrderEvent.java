@@ -0,0 +1,59 @@
+package com.fintrade.trading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A slot in the matching ring buffer. Slots are preallocated and overwritten on every
+ * publish; the matcher appends the fills it produces so the settlement handler behind it
+ * can pick them up from the same slot.
+ */
+final class OrderEvent implements FillListener {
+
+    enum Type {
+        SUBMIT, CANCEL, CANCEL_USER, DEPTH
+    }
+
+    Type type;
+    long orderId;
+    long userId;
+    String symbol;
+    String companyName;
+    OrderSide side;
+    OrderType orderType;
+    long price;
+    long quantity;
+    int levels;
+    long timestamp;
+    CompletableFuture<Object> reply;
+    final List<Fill> fills = new ArrayList<>();
+
+    void reset(Type type, CompletableFuture<Object> reply) {
+        this.type = type;
+        this.reply = reply;
+        orderId = 0;
+        userId = 0;
+        symbol = null;
+        companyName = null;
+        side = null;
+        orderType = null;
+        price = 0;
+        quantity = 0;
+        levels = 0;
+        timestamp = 0;
+        fills.clear();
+    }
+
+    @Override
+    public void onFill(long takerOrderId, long takerUserId, OrderSide takerSide, long makerOrderId,
+            long makerUserId, long price, long quantity) {
+        if (takerSide == OrderSide.BUY) {
+            fills.add(new Fill(symbol, companyName, price, quantity, takerOrderId, takerUserId, makerOrderId,
+                    makerUserId, timestamp));
+        } else {
+            fills.add(new Fill(symbol, companyName, price, quantity, makerOrderId, makerUserId, takerOrderId,
+                    takerUserId, timestamp));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.fintrade.trading;
+
+import java.util.List;
+
+/**
+ * What happened to an order on arrival. Quantities are in {@link Units}.
+ */
+public record OrderResult(long orderId, OrderStatus status, long filledQuantity, long remainingQuantity,
+        List<Fill> fills) {
+}
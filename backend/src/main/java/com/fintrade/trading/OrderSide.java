@@ -0,0 +1,5 @@
+package com.fintrade.trading;
+
+public enum OrderSide {
+    BUY, SELL
+}
@@ -0,0 +1,5 @@
+package com.fintrade.trading;
+
+public enum OrderStatus {
+    OPEN, PARTIALLY_FILLED, FILLED, CANCELLED
+}
@@ -0,0 +1,8 @@
+package com.fintrade.trading;
+
+public enum OrderType {
+    /** Rests in the book at its limit price once nothing more crosses. */
+    LIMIT,
+    /** Takes whatever liquidity is in the book; any remainder is cancelled. */
+    MARKET
+}
@@ -0,0 +1,52 @@
+package com.fintrade.trading;
+
+/**
+ * All resting orders at one price on one side, oldest first.
+ */
+final class PriceLevel {
+
+    final long price;
+    RestingOrder head;
+    RestingOrder tail;
+    long quantity;
+    int orders;
+
+    PriceLevel(long price) {
+        this.price = price;
+    }
+
+    void append(RestingOrder order) {
+        order.level = this;
+        order.prev = tail;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        quantity += order.remaining;
+        orders++;
+    }
+
+    void remove(RestingOrder order) {
+        if (order.prev == null) {
+            head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        quantity -= order.remaining;
+        orders--;
+        order.prev = null;
+        order.next = null;
+        order.level = null;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+}
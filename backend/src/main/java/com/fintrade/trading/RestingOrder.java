@@ -0,0 +1,28 @@
+package com.fintrade.trading;
+
+/**
+ * An order waiting in the book. Orders at one price form an intrusive doubly linked
+ * list in arrival order, so both filling the head and cancelling from the middle are O(1).
+ */
+final class RestingOrder {
+
+    final long orderId;
+    final long userId;
+    final OrderSide side;
+    final long price;
+    final OrderBook book;
+    long remaining;
+
+    PriceLevel level;
+    RestingOrder prev;
+    RestingOrder next;
+
+    RestingOrder(long orderId, long userId, OrderSide side, long price, long remaining, OrderBook book) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.side = side;
+        this.price = price;
+        this.remaining = remaining;
+        this.book = book;
+    }
+}
@@ -0,0 +1,108 @@
+package com.fintrade.trading;
+
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.UnsettledFill;
+import com.fintrade.entity.User;
+import com.fintrade.pretrade.PositionCache;
+import com.fintrade.repository.UnsettledFillRepository;
+import com.fintrade.repository.UserRepository;
+import com.fintrade.securitymaster.SecurityMaster;
+import com.fintrade.service.PortfolioService;
+import com.fintrade.service.TransactionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Books matched fills: a BUY and a SELL transaction per fill plus the matching
+ * position changes, one database transaction per batch. Fills that cannot be booked,
+ * for instance a sell of more than the seller still holds, are kept in
+ * {@code unsettled_fills} instead. Either way the fill's sell reservation is released.
+ */
+@Service
+@Transactional
+public class TradeSettlementService {
+
+    private static final int ERROR_LENGTH = 500;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private UnsettledFillRepository unsettledFillRepository;
+
+    @Autowired
+    private PositionCache positionCache;
+
+    @Autowired
+    private SecurityMaster securityMaster;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Lists the batch's new symbols first, each in a transaction of its own, then books the batch in one. */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void settle(List<Fill> fills) {
+        for (Fill fill : fills) {
+            securityMaster.list(fill.symbol(), fill.companyName());
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> book(fills));
+    }
+
+    private void book(List<Fill> fills) {
+        Set<Long> userIds = new HashSet<>();
+        for (Fill fill : fills) {
+            userIds.add(fill.buyUserId());
+            userIds.add(fill.sellUserId());
+        }
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        for (Fill fill : fills) {
+            BigDecimal price = Units.price(fill.price());
+            BigDecimal quantity = Units.quantity(fill.quantity());
+            User buyer = users.get(fill.buyUserId());
+            User seller = users.get(fill.sellUserId());
+
+            transactionService.createTransaction(new Transaction(fill.symbol(), fill.companyName(),
+                    Transaction.TransactionType.BUY, quantity, price, BigDecimal.ZERO,
+                    "Order #" + fill.buyOrderId(), buyer));
+            transactionService.createTransaction(new Transaction(fill.symbol(), fill.companyName(),
+                    Transaction.TransactionType.SELL, quantity, price, BigDecimal.ZERO,
+                    "Order #" + fill.sellOrderId(), seller));
+            portfolioService.addToPortfolio(buyer, fill.symbol(), fill.companyName(), quantity, price);
+            portfolioService.settleSell(seller, fill.symbol(), quantity);
+            positionCache.releaseSell(fill.sellUserId(), fill.symbol(), quantity);
+        }
+    }
+
+    /** Keeps a fill that could not be booked, with the reason. */
+    public void deadLetter(Fill fill, Exception cause) {
+        String error = String.valueOf(cause.getMessage());
+        unsettledFillRepository.save(new UnsettledFill(fill.symbol(), fill.companyName(), Units.price(fill.price()),
+                Units.quantity(fill.quantity()), fill.buyOrderId(), fill.buyUserId(), fill.sellOrderId(),
+                fill.sellUserId(), LocalDateTime.ofInstant(Instant.ofEpochMilli(fill.executedAt()),
+                        ZoneId.systemDefault()), error.substring(0, Math.min(error.length(), ERROR_LENGTH))));
+        positionCache.releaseSell(fill.sellUserId(), fill.symbol(), Units.quantity(fill.quantity()));
+    }
+}
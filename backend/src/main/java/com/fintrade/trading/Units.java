@@ -0,0 +1,44 @@
+package com.fintrade.trading;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The matcher works on longs: prices in cents and quantities in ten-thousandths, the
+ * same scales as the {@code price} and {@code quantity} columns.
+ */
+public final class Units {
+
+    public static final int PRICE_SCALE = 2;
+    public static final int QUANTITY_SCALE = 4;
+
+    private Units() {
+    }
+
+    public static long price(BigDecimal price) {
+        return toUnits(price, PRICE_SCALE, "price");
+    }
+
+    public static long quantity(BigDecimal quantity) {
+        return toUnits(quantity, QUANTITY_SCALE, "quantity");
+    }
+
+    public static BigDecimal price(long units) {
+        return BigDecimal.valueOf(units, PRICE_SCALE);
+    }
+
+    public static BigDecimal quantity(long units) {
+        return BigDecimal.valueOf(units, QUANTITY_SCALE);
+    }
+
+    private static long toUnits(BigDecimal value, int scale, String name) {
+        if (value.signum() <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        try {
+            return value.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(name + " allows at most " + scale + " decimal places");
+        }
+    }
+}
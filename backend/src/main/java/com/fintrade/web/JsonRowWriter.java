@@ -0,0 +1,11 @@
+package com.fintrade.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface JsonRowWriter<T> {
+
+    void write(JsonGenerator generator, T row) throws IOException;
+}
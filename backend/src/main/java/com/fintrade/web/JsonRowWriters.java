@@ -0,0 +1,82 @@
+package com.fintrade.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fintrade.dto.TransactionView;
+import com.fintrade.dto.UserView;
+import com.fintrade.pricehistory.Bar;
+import com.fintrade.trading.Units;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Hand-written field writers for the streamed list endpoints. The output matches
+ * what Jackson produces for the same view objects.
+ */
+public final class JsonRowWriters {
+
+    public static final JsonRowWriter<TransactionView> TRANSACTION = (generator, row) -> {
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.getId());
+        generator.writeStringField("symbol", row.getSymbol());
+        generator.writeStringField("companyName", row.getCompanyName());
+        writeEnum(generator, "transactionType", row.getTransactionType());
+        writeDecimal(generator, "quantity", row.getQuantity());
+        writeDecimal(generator, "price", row.getPrice());
+        writeDecimal(generator, "totalAmount", row.getTotalAmount());
+        writeDecimal(generator, "commission", row.getCommission());
+        generator.writeStringField("notesPreview", row.getNotesPreview());
+        writeDateTime(generator, "transactionDate", row.getTransactionDate());
+        generator.writeEndObject();
+    };
+
+    public static final JsonRowWriter<UserView> USER = (generator, row) -> {
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.getId());
+        generator.writeStringField("username", row.getUsername());
+        generator.writeStringField("email", row.getEmail());
+        generator.writeStringField("firstName", row.getFirstName());
+        generator.writeStringField("lastName", row.getLastName());
+        writeEnum(generator, "role", row.getRole());
+        if (row.getEnabled() == null) {
+            generator.writeNullField("enabled");
+        } else {
+            generator.writeBooleanField("enabled", row.getEnabled());
+        }
+        writeDateTime(generator, "createdAt", row.getCreatedAt());
+        writeDateTime(generator, "updatedAt", row.getUpdatedAt());
+        generator.writeEndObject();
+    };
+
+    public static final JsonRowWriter<Bar> BAR = (generator, row) -> {
+        generator.writeStartObject();
+        generator.writeNumberField("time", row.getTime());
+        generator.writeNumberField("open", Units.price(row.getOpen()));
+        generator.writeNumberField("high", Units.price(row.getHigh()));
+        generator.writeNumberField("low", Units.price(row.getLow()));
+        generator.writeNumberField("close", Units.price(row.getClose()));
+        generator.writeNumberField("volume", Units.quantity(row.getVolume()));
+        generator.writeEndObject();
+    };
+
+    private JsonRowWriters() {
+    }
+
+    private static void writeDecimal(JsonGenerator generator, String name, BigDecimal value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeEnum(JsonGenerator generator, String name, Enum<?> value) throws IOException {
+        generator.writeStringField(name, value == null ? null : value.name());
+    }
+
+    private static void writeDateTime(JsonGenerator generator, String name, LocalDateTime value) throws IOException {
+        generator.writeStringField(name, value == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+    }
+}
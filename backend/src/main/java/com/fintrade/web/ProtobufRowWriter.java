@@ -0,0 +1,11 @@
+package com.fintrade.web;
+
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface ProtobufRowWriter<T> {
+
+    void write(CodedOutputStream output, T row) throws IOException;
+}
@@ -0,0 +1,111 @@
+package com.fintrade.web;
+
+import com.fintrade.dto.PortfolioSummaryView;
+import com.fintrade.dto.PortfolioView;
+import com.fintrade.dto.TransactionView;
+import com.fintrade.pricehistory.Bar;
+import com.fintrade.trading.Units;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Encoders for the messages in proto/fintrade.proto. Lists are written as the
+ * repeated field 1 of their wrapper message, so they can be streamed row by row.
+ */
+public final class ProtobufRowWriters {
+
+    public static final ProtobufRowWriter<PortfolioView> PORTFOLIO = (output, row) -> {
+        writeInt64(output, 1, row.getId());
+        writeString(output, 2, row.getSymbol());
+        writeString(output, 3, row.getCompanyName());
+        writeDecimal(output, 4, row.getQuantity());
+        writeDecimal(output, 5, row.getAveragePrice());
+        writeDecimal(output, 6, row.getCurrentPrice());
+        writeDecimal(output, 7, row.getTotalValue());
+        writeDecimal(output, 8, row.getTotalCost());
+        writeDecimal(output, 9, row.getProfitLoss());
+        writeDecimal(output, 10, row.getProfitLossPercentage());
+    };
+
+    public static final ProtobufRowWriter<TransactionView> TRANSACTION = (output, row) -> {
+        writeInt64(output, 1, row.getId());
+        writeString(output, 2, row.getSymbol());
+        writeString(output, 3, row.getCompanyName());
+        if (row.getTransactionType() != null) {
+            // Enum numbers start at 1 so that 0 stays "unspecified".
+            output.writeEnum(4, row.getTransactionType().ordinal() + 1);
+        }
+        writeDecimal(output, 5, row.getQuantity());
+        writeDecimal(output, 6, row.getPrice());
+        writeDecimal(output, 7, row.getTotalAmount());
+        writeDecimal(output, 8, row.getCommission());
+        writeString(output, 9, row.getNotesPreview());
+        writeTimestamp(output, 10, row.getTransactionDate());
+    };
+
+    public static final ProtobufRowWriter<PortfolioSummaryView> SUMMARY = (output, row) -> {
+        writeDecimal(output, 1, row.getTotalValue());
+        writeDecimal(output, 2, row.getTotalProfitLoss());
+    };
+
+    public static final ProtobufRowWriter<Bar> BAR = (output, row) -> {
+        output.writeInt64(1, row.getTime());
+        writeDecimal(output, 2, row.getOpen(), Units.PRICE_SCALE);
+        writeDecimal(output, 3, row.getHigh(), Units.PRICE_SCALE);
+        writeDecimal(output, 4, row.getLow(), Units.PRICE_SCALE);
+        writeDecimal(output, 5, row.getClose(), Units.PRICE_SCALE);
+        writeDecimal(output, 6, row.getVolume(), Units.QUANTITY_SCALE);
+    };
+
+    private ProtobufRowWriters() {
+    }
+
+    public static <T> void writeRepeated(CodedOutputStream output, ByteArrayOutputStream buffer,
+            ProtobufRowWriter<T> rowWriter, T row) throws IOException {
+        buffer.reset();
+        CodedOutputStream rowOutput = CodedOutputStream.newInstance(buffer, 256);
+        rowWriter.write(rowOutput, row);
+        rowOutput.flush();
+        output.writeByteArray(1, buffer.toByteArray());
+    }
+
+    private static void writeInt64(CodedOutputStream output, int field, Long value) throws IOException {
+        if (value != null) {
+            output.writeInt64(field, value);
+        }
+    }
+
+    private static void writeString(CodedOutputStream output, int field, String value) throws IOException {
+        if (value != null) {
+            output.writeString(field, value);
+        }
+    }
+
+    private static void writeDecimal(CodedOutputStream output, int field, BigDecimal value) throws IOException {
+        if (value != null) {
+            writeDecimal(output, field, value.unscaledValue().longValueExact(), value.scale());
+        }
+    }
+
+    private static void writeDecimal(CodedOutputStream output, int field, long unscaled, int scale)
+            throws IOException {
+        output.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(CodedOutputStream.computeSInt64Size(1, unscaled)
+                + CodedOutputStream.computeInt32Size(2, scale));
+        output.writeSInt64(1, unscaled);
+        output.writeInt32(2, scale);
+    }
+
+    private static void writeTimestamp(CodedOutputStream output, int field, LocalDateTime value)
+            throws IOException {
+        if (value != null) {
+            output.writeInt64(field, value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+}
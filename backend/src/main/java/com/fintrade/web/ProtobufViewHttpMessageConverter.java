@@ -0,0 +1,89 @@
+package com.fintrade.web;
+
+import com.fintrade.dto.PortfolioSummaryView;
+import com.fintrade.dto.PortfolioView;
+import com.fintrade.dto.TransactionView;
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes the portfolio and transaction read views as protobuf. Only the types with
+ * a message in proto/fintrade.proto are supported; everything else falls through
+ * to the other converters.
+ */
+public class ProtobufViewHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public ProtobufViewHttpMessageConverter() {
+        super(ResponseFormat.PROTOBUF.getMediaType());
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return PortfolioSummaryView.class.equals(clazz) || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && (PortfolioSummaryView.class.equals(clazz) || listElementWriter(type) != null);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody());
+        if (value instanceof PortfolioSummaryView summary) {
+            ProtobufRowWriters.SUMMARY.write(output, summary);
+        } else {
+            writeList(output, (List<?>) value, listElementWriter(type));
+        }
+        output.flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void writeList(CodedOutputStream output, List<?> rows, ProtobufRowWriter<T> rowWriter)
+            throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        for (Object row : rows) {
+            ProtobufRowWriters.writeRepeated(output, buffer, rowWriter, (T) row);
+        }
+    }
+
+    private ProtobufRowWriter<?> listElementWriter(Type type) {
+        if (!(type instanceof ParameterizedType parameterized)
+                || !List.class.equals(parameterized.getRawType())) {
+            return null;
+        }
+        Type element = parameterized.getActualTypeArguments()[0];
+        if (PortfolioView.class.equals(element)) {
+            return ProtobufRowWriters.PORTFOLIO;
+        }
+        if (TransactionView.class.equals(element)) {
+            return ProtobufRowWriters.TRANSACTION;
+        }
+        return null;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+}
@@ -0,0 +1,46 @@
+package com.fintrade.web;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes a JSON array straight to the response as rows are produced, so neither the
+ * row list nor the serialized document is ever held in memory.
+ */
+public final class StreamingJsonArray {
+
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+    private StreamingJsonArray() {
+    }
+
+    public static <T> StreamingResponseBody cbor(Consumer<Consumer<T>> rows, JsonRowWriter<T> rowWriter) {
+        return of(CBOR_FACTORY, rows, rowWriter);
+    }
+
+    public static <T> StreamingResponseBody of(JsonFactory jsonFactory, Consumer<Consumer<T>> rows,
+            JsonRowWriter<T> rowWriter) {
+        return out -> {
+            try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                rows.accept(row -> {
+                    try {
+                        rowWriter.write(generator, row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+}
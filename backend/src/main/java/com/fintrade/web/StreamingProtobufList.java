@@ -0,0 +1,34 @@
+package com.fintrade.web;
+
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+public final class StreamingProtobufList {
+
+    private StreamingProtobufList() {
+    }
+
+    public static <T> StreamingResponseBody of(Consumer<Consumer<T>> rows, ProtobufRowWriter<T> rowWriter) {
+        return out -> {
+            CodedOutputStream output = CodedOutputStream.newInstance(out);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+            try {
+                rows.accept(row -> {
+                    try {
+                        ProtobufRowWriters.writeRepeated(output, buffer, rowWriter, row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            output.flush();
+        };
+    }
+}
@@ -0,0 +1,127 @@
+package com.fintrade.controller;
+
+import com.fintrade.entity.User;
+import com.jayway.jsonpath.JsonPath;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static com.fintrade.support.QueryBudget.countQueries;
+import static com.fintrade.support.QueryBudget.queryBudget;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AdminControllerQueryBudgetTest extends ApiTestSupport {
+
+    private User admin;
+    private User member;
+
+    @BeforeEach
+    void setUp() {
+        admin = createUser(User.Role.ADMIN);
+        member = createUser(User.Role.USER);
+    }
+
+    @Test
+    void usersPagesStayWithinBudget() throws Exception {
+        String prefix = "keyset" + member.getId() + "_";
+        for (String name : new String[] { "a", "b", "c" }) {
+            userRepository.save(new User(prefix + name, prefix + name + "@example.com", "hash", "Key", "Set"));
+        }
+
+        MvcResult first = mockMvc.perform(get("/api/admin/users").with(countQueries())
+                .param("q", prefix)
+                .param("sort", "username")
+                .param("direction", "desc")
+                .param("limit", "2")
+                .header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].username").value(prefix + "c"))
+                .andExpect(jsonPath("$.items[0].password").doesNotExist())
+                .andExpect(queryBudget(2))
+                .andReturn();
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(get("/api/admin/users").with(countQueries())
+                .param("q", prefix)
+                .param("sort", "username")
+                .param("direction", "desc")
+                .param("limit", "2")
+                .param("after", cursor)
+                .header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].username").value(prefix + "a"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void exportStaysWithinBudget() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/admin/users/export").with(countQueries())
+                .header("Authorization", bearer(admin)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void userByIdStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/admin/users/" + member.getId()).with(countQueries())
+                .header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void updateUserStaysWithinBudget() throws Exception {
+        mockMvc.perform(put("/api/admin/users/" + member.getId()).with(countQueries())
+                .header("Authorization", bearer(admin))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Renamed\",\"lastName\":\"Member\",\"email\":\""
+                        + member.getEmail() + "\",\"enabled\":true,\"role\":\"USER\"}"))
+                .andExpect(status().isOk())
+                // Auth, the locked user row, the check for a deletion job, the update.
+                .andExpect(queryBudget(4));
+    }
+
+    @Test
+    void toggleStatusStaysWithinBudget() throws Exception {
+        mockMvc.perform(put("/api/admin/users/" + member.getId() + "/toggle-status").with(countQueries())
+                .header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                // As for an update.
+                .andExpect(queryBudget(4));
+    }
+
+    @Test
+    void deleteUserStaysWithinBudget() throws Exception {
+        mockMvc.perform(delete("/api/admin/users/" + member.getId()).with(countQueries())
+                .header("Authorization", bearer(admin)))
+                .andExpect(status().isAccepted())
+                .andExpect(queryBudget(5));
+    }
+
+    @Test
+    void recordTicksStaysWithinBudget() throws Exception {
+        mockMvc.perform(post("/api/admin/prices/ticks").with(countQueries())
+                .header("Authorization", bearer(admin))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"symbol\":\"QTCK\",\"time\":\"2024-01-02T15:00:00Z\",\"price\":\"10.50\",\"quantity\":\"3\"},"
+                        + "{\"symbol\":\"QTCK\",\"time\":1704207660000,\"price\":\"10.75\",\"quantity\":\"1\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(1));
+    }
+}
@@ -0,0 +1,35 @@
+package com.fintrade.controller;
+
+import com.fintrade.entity.User;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static com.fintrade.support.QueryBudget.countQueries;
+import static com.fintrade.support.QueryBudget.queryBudget;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthControllerQueryBudgetTest extends ApiTestSupport {
+
+    @Test
+    void signinStaysWithinBudget() throws Exception {
+        User user = createUser(User.Role.USER);
+
+        mockMvc.perform(post("/api/auth/signin").with(countQueries())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + user.getUsername() + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(1));
+    }
+
+    @Test
+    void signupStaysWithinBudget() throws Exception {
+        mockMvc.perform(post("/api/auth/signup").with(countQueries())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"newbudgetuser\",\"email\":\"newbudgetuser@example.com\","
+                        + "\"password\":\"password123\",\"firstName\":\"New\",\"lastName\":\"User\"}"))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(3));
+    }
+}
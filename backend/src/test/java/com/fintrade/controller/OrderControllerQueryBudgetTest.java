@@ -0,0 +1,74 @@
+package com.fintrade.controller;
+
+import com.fintrade.entity.User;
+import com.fintrade.pretrade.PositionCache;
+import com.fintrade.support.ApiTestSupport;
+import com.fintrade.trading.MatchingEngine;
+import com.fintrade.trading.OrderSide;
+import com.fintrade.trading.OrderType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import static com.fintrade.support.QueryBudget.countQueries;
+import static com.fintrade.support.QueryBudget.queryBudget;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Matching itself never touches the database; only orders that do not cross are used
+ * here, because fills are settled on the engine's own thread.
+ */
+class OrderControllerQueryBudgetTest extends ApiTestSupport {
+
+    @Autowired
+    private MatchingEngine matchingEngine;
+
+    @Autowired
+    private PositionCache positionCache;
+
+    private User user;
+    private long restingOrderId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        user = createUser(User.Role.USER);
+        securityMaster.list("QBDG", "Budget Corp.");
+        restingOrderId = matchingEngine.submit(user.getId(), "QBDG", "Budget Corp.", OrderSide.BUY,
+                OrderType.LIMIT, 1_000, 10_000).get().orderId();
+        // Pre-trade checks read a user's positions once and then from memory, as on a warm instance.
+        positionCache.position(user.getId(), "QBDG");
+    }
+
+    @Test
+    void placeStaysWithinBudget() throws Exception {
+        mockMvc.perform(post("/api/orders").with(countQueries())
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"QBDG\",\"side\":\"BUY\",\"type\":\"LIMIT\",\"quantity\":\"2\",\"price\":\"9.50\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("OPEN"))
+                // Auth only; the pre-trade checks add nothing.
+                .andExpect(queryBudget(1));
+    }
+
+    @Test
+    void cancelStaysWithinBudget() throws Exception {
+        mockMvc.perform(delete("/api/orders/" + restingOrderId).with(countQueries())
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(1));
+    }
+
+    @Test
+    void bookStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/orders/book/QBDG").with(countQueries())
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(1));
+    }
+}
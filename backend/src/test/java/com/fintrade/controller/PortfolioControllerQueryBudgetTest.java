@@ -0,0 +1,126 @@
+package com.fintrade.controller;
+
+import com.fintrade.entity.Portfolio;
+import com.fintrade.entity.User;
+import com.fintrade.repository.PortfolioRepository;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import java.math.BigDecimal;
+
+import static com.fintrade.support.QueryBudget.countQueries;
+import static com.fintrade.support.QueryBudget.queryBudget;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PortfolioControllerQueryBudgetTest extends ApiTestSupport {
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    private User user;
+    private Portfolio apple;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser(User.Role.USER);
+        securityMaster.list("AAPL", "Apple Inc.");
+        securityMaster.list("MSFT", "Microsoft Corp.");
+        securityMaster.list("NVDA", "NVIDIA Corp.");
+        apple = portfolioRepository.save(new Portfolio("AAPL", "Apple Inc.", new BigDecimal("10"),
+                new BigDecimal("150.00"), new BigDecimal("170.00"), user));
+        portfolioRepository.save(new Portfolio("MSFT", "Microsoft Corp.", new BigDecimal("5"),
+                new BigDecimal("300.00"), new BigDecimal("320.00"), user));
+        portfolioRepository.save(new Portfolio("NVDA", "NVIDIA Corp.", new BigDecimal("2"),
+                new BigDecimal("400.00"), new BigDecimal("450.00"), user));
+    }
+
+    @Test
+    void allStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/portfolio/all").with(countQueries())
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void searchStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/portfolio/search").with(countQueries())
+                .param("symbol", "A")
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void summaryStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/portfolio/summary").with(countQueries())
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void performanceStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/portfolio/performance").with(countQueries())
+                .param("from", "2024-01-01")
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(3));
+    }
+
+    @Test
+    void riskStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/portfolio/risk").with(countQueries())
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void addStaysWithinBudget() throws Exception {
+        mockMvc.perform(post("/api/portfolio/add").with(countQueries())
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"AAPL\",\"companyName\":\"Apple Inc.\",\"quantity\":\"5\",\"price\":\"160.00\"}"))
+                .andExpect(status().isOk())
+                // Auth, the holding, its stored row read under lock for the rollups, the update, the rollup upsert.
+                .andExpect(queryBudget(5));
+    }
+
+    @Test
+    void removeStaysWithinBudget() throws Exception {
+        mockMvc.perform(post("/api/portfolio/remove").with(countQueries())
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"AAPL\",\"quantity\":\"4\"}"))
+                .andExpect(status().isOk())
+                // Auth, the holding, its stored row read under lock for the rollups, the update, the rollup upsert.
+                .andExpect(queryBudget(5));
+    }
+
+    @Test
+    void updateStaysWithinBudget() throws Exception {
+        mockMvc.perform(put("/api/portfolio/update/" + apple.getId()).with(countQueries())
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"AAPL\",\"companyName\":\"Apple Inc.\",\"quantity\":12,"
+                        + "\"averagePrice\":150.00,\"currentPrice\":175.00}"))
+                .andExpect(status().isOk())
+                // Auth, the holding, its stored row read under lock for the rollups, the update, the rollup upsert.
+                .andExpect(queryBudget(5));
+    }
+
+    @Test
+    void deleteStaysWithinBudget() throws Exception {
+        mockMvc.perform(delete("/api/portfolio/delete/" + apple.getId()).with(countQueries())
+                .header("Authorization", bearer(user)))
+                .andExpect(queryBudget(2));
+    }
+}
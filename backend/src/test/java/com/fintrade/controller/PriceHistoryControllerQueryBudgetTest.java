@@ -0,0 +1,48 @@
+package com.fintrade.controller;
+
+import com.fintrade.entity.User;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static com.fintrade.support.QueryBudget.countQueries;
+import static com.fintrade.support.QueryBudget.queryBudget;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Bars come from the mapped files, so only authentication touches the database. */
+class PriceHistoryControllerQueryBudgetTest extends ApiTestSupport {
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser(User.Role.USER);
+        priceHistoryStore.record("QBAR", 1_700_000_000_000L, 12_345, 20_000);
+    }
+
+    @Test
+    void barsStayWithinBudget() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/prices/QBAR/bars").with(countQueries())
+                .param("resolution", "MINUTE")
+                .param("from", "2023-11-14T00:00:00Z")
+                .param("to", "2023-11-15T00:00:00Z")
+                .header("Authorization", bearer(user)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].close").value(123.45))
+                .andExpect(queryBudget(1));
+    }
+}
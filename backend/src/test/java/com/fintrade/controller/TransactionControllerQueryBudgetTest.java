@@ -0,0 +1,143 @@
+package com.fintrade.controller;
+
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.User;
+import com.fintrade.pretrade.PositionCache;
+import com.fintrade.repository.TransactionRepository;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+
+import static com.fintrade.support.QueryBudget.countQueries;
+import static com.fintrade.support.QueryBudget.queryBudget;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TransactionControllerQueryBudgetTest extends ApiTestSupport {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PositionCache positionCache;
+
+    private User user;
+    private Transaction buy;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser(User.Role.USER);
+        securityMaster.list("AAPL", "Apple Inc.");
+        securityMaster.list("MSFT", "Microsoft Corp.");
+        buy = transactionRepository.save(new Transaction("AAPL", "Apple Inc.", Transaction.TransactionType.BUY,
+                new BigDecimal("10"), new BigDecimal("150.00"), new BigDecimal("1.00"), "Initial position", user));
+        transactionRepository.save(new Transaction("MSFT", "Microsoft Corp.", Transaction.TransactionType.BUY,
+                new BigDecimal("5"), new BigDecimal("300.00"), BigDecimal.ZERO, null, user));
+        transactionRepository.save(new Transaction("AAPL", "Apple Inc.", Transaction.TransactionType.SELL,
+                new BigDecimal("2"), new BigDecimal("170.00"), new BigDecimal("1.00"), "Trim", user));
+        // Pre-trade checks read a user's positions once and then from memory, as on a warm instance.
+        positionCache.position(user.getId(), "AAPL");
+    }
+
+    @Test
+    void allStaysWithinBudget() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/transactions/all").with(countQueries())
+                .header("Authorization", bearer(user)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void recentStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/transactions/recent").with(countQueries())
+                .param("limit", "2")
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void searchStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/transactions/search").with(countQueries())
+                .param("symbol", "AA")
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void filterByTypeStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/transactions/filter").with(countQueries())
+                .param("type", "buy")
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void filterByDateRangeStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/transactions/filter").with(countQueries())
+                .param("startDate", "2000-01-01T00:00:00")
+                .param("endDate", "2100-01-01T00:00:00")
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void createStaysWithinBudget() throws Exception {
+        mockMvc.perform(post("/api/transactions/create").with(countQueries())
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"TSLA\",\"companyName\":\"Tesla Inc.\",\"transactionType\":\"buy\","
+                        + "\"quantity\":\"3\",\"price\":\"200.00\",\"notes\":\"New position\"}"))
+                .andExpect(status().isOk())
+                // Auth; TSLA is new, so a dictionary miss and its listing; the transaction, its tax lot and
+                // the daily volume upsert. The pre-trade checks add nothing.
+                .andExpect(queryBudget(6));
+    }
+
+    @Test
+    void getByIdStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/transactions/" + buy.getId()).with(countQueries())
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void updateStaysWithinBudget() throws Exception {
+        mockMvc.perform(put("/api/transactions/update/" + buy.getId()).with(countQueries())
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"AAPL\",\"companyName\":\"Apple Inc.\",\"transactionType\":\"BUY\","
+                        + "\"quantity\":10,\"price\":155.00,\"commission\":1.00,\"notes\":\"Corrected price\"}"))
+                .andExpect(status().isOk())
+                // Auth, load and update; the symbol's lots are replayed: two deletes, two reads and two batch
+                // inserts, of lots and realized gains; the daily volume upsert.
+                .andExpect(queryBudget(10));
+    }
+
+    @Test
+    void deleteStaysWithinBudget() throws Exception {
+        mockMvc.perform(delete("/api/transactions/delete/" + buy.getId()).with(countQueries())
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                // Auth, load and delete; the symbol's replay, with no lots left to insert; the daily volume upsert.
+                .andExpect(queryBudget(8));
+    }
+}
@@ -0,0 +1,65 @@
+package com.fintrade.datasource;
+
+import com.fintrade.entity.User;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteTrackingDataSourceTest {
+
+    private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(60_000);
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:write-tracking;DB_CLOSE_DELAY=-1");
+        WriteTrackingDataSource dataSource = new WriteTrackingDataSource(h2, tracker);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS notes (id INT PRIMARY KEY)");
+        jdbcTemplate.update("DELETE FROM notes");
+
+        User user = new User("writer", "writer@example.com", "secret", "Write", "Tracker");
+        user.setId(7L);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void onlyTransactionsThatChangedRowsMakeTheUserSticky() {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notes", Integer.class));
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE notes SET id = id + 1 WHERE id < 0"));
+        assertFalse(tracker.isSticky());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO notes (id) VALUES (1)");
+            status.setRollbackOnly();
+        });
+        assertFalse(tracker.isSticky());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO notes (id) VALUES (2)");
+            jdbcTemplate.update("INSERT INTO notes (id) VALUES (3)");
+        });
+        assertTrue(tracker.isSticky());
+    }
+}
@@ -0,0 +1,136 @@
+package com.fintrade.deletion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.User;
+import com.fintrade.rollup.RollupVerifier;
+import com.fintrade.service.PortfolioService;
+import com.fintrade.service.TransactionService;
+import com.fintrade.support.ApiTestSupport;
+import com.fintrade.trading.MatchingEngine;
+import com.fintrade.trading.OrderSide;
+import com.fintrade.trading.OrderType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UserDeletionServiceTest extends ApiTestSupport {
+
+    @Autowired
+    private UserDeletionService userDeletionService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private MatchingEngine matchingEngine;
+
+    @Autowired
+    private RollupVerifier rollupVerifier;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void deletionDisablesAtOnceThenRemovesEverythingInChunks() throws Exception {
+        rollupVerifier.verify();
+        User user = createUser(User.Role.USER);
+        User admin = createUser(User.Role.ADMIN);
+        for (int i = 0; i < 5; i++) {
+            Transaction buy = new Transaction("GONE", "Gone Inc.", Transaction.TransactionType.BUY,
+                    new BigDecimal("2"), new BigDecimal("10.00"), BigDecimal.ZERO, null, user);
+            transactionService.createTransaction(buy);
+            portfolioService.addToPortfolio(user, "GONE", "Gone Inc.", new BigDecimal("2"), new BigDecimal("10.00"));
+        }
+        matchingEngine.submit(user.getId(), "GONE", "Gone Inc.", OrderSide.BUY, OrderType.LIMIT, 900, 10_000).get();
+        String token = bearer(user);
+
+        ReflectionTestUtils.setField(userDeletionService, "chunkSize", 2);
+        try {
+            String body = mockMvc.perform(delete("/api/admin/users/" + user.getId())
+                    .header("Authorization", bearer(admin)))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.userId").value(user.getId()))
+                    .andReturn().getResponse().getContentAsString();
+            long jobId = objectMapper.readTree(body).get("id").asLong();
+
+            mockMvc.perform(get("/api/portfolio/all").header("Authorization", token))
+                    .andExpect(status().isForbidden());
+
+            JsonNode job = awaitDone(jobId, admin);
+            assertEquals("DONE", job.get("status").asText());
+            // Five transactions, five lots and one holding, two rows at a time, then the user.
+            assertEquals(12, job.get("rowsDeleted").asLong());
+        } finally {
+            ReflectionTestUtils.setField(userDeletionService, "chunkSize", 500);
+        }
+
+        assertTrue(userRepository.findById(user.getId()).isEmpty());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE user_id = ?",
+                Long.class, user.getId()));
+        assertEquals(0, matchingEngine.depth("GONE", 5).get().bids().size());
+        assertEquals(0, rollupVerifier.verify().mismatches());
+    }
+
+    @Test
+    void aDeletionRunningElsewhereIsTakenOverOnlyOnceItsLeaseRunsOut() throws Exception {
+        User user = createUser(User.Role.USER);
+        User admin = createUser(User.Role.ADMIN);
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO user_deletion_jobs (user_id, username, status, rows_deleted, requested_at, "
+                + "started_at, claimed_by, lease_until) VALUES (?, ?, 'RUNNING', 0, ?, ?, 'elsewhere', ?)",
+                user.getId(), user.getUsername(), Timestamp.valueOf(now), Timestamp.valueOf(now),
+                Timestamp.valueOf(now.plusHours(1)));
+        long jobId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM user_deletion_jobs WHERE user_id = ?",
+                Long.class, user.getId());
+
+        userDeletionService.renewAndResume();
+        Thread.sleep(200);
+        assertTrue(userRepository.findById(user.getId()).isPresent());
+        // The user may not be re-enabled while their rows are being removed.
+        mockMvc.perform(put("/api/admin/users/" + user.getId() + "/toggle-status")
+                .header("Authorization", bearer(admin)))
+                .andExpect(status().isConflict());
+
+        jdbcTemplate.update("UPDATE user_deletion_jobs SET lease_until = ? WHERE id = ?",
+                Timestamp.valueOf(now.minusMinutes(1)), jobId);
+        userDeletionService.renewAndResume();
+        assertEquals("DONE", awaitDone(jobId, admin).get("status").asText());
+        assertTrue(userRepository.findById(user.getId()).isEmpty());
+    }
+
+    private JsonNode awaitDone(long jobId, User admin) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String body = mockMvc.perform(get("/api/admin/users/deletions/" + jobId)
+                    .header("Authorization", bearer(admin)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode job = objectMapper.readTree(body);
+            if (!job.get("status").asText().equals("PENDING") && !job.get("status").asText().equals("RUNNING")) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("User deletion " + jobId + " did not finish");
+    }
+}
@@ -0,0 +1,150 @@
+package com.fintrade.idempotency;
+
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.User;
+import com.fintrade.service.TransactionService;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+class IdempotencyFilterTest extends ApiTestSupport {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdempotencyStore store;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Test
+    void retryGetsTheStoredResponseWithoutBookingAgain() throws Exception {
+        User user = createUser(User.Role.USER);
+        MockHttpServletResponse first = create(user, "retry-1", "3");
+        MockHttpServletResponse retry = create(user, "retry-1", "3");
+
+        assertEquals(200, first.getStatus());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(200, retry.getStatus());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals(1, transactions(user));
+
+        // Keys belong to a user: the same key from someone else is a new request.
+        User other = createUser(User.Role.USER);
+        assertNull(create(other, "retry-1", "3").getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(1, transactions(other));
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejected() throws Exception {
+        User user = createUser(User.Role.USER);
+        create(user, "reuse-1", "3");
+
+        assertEquals(422, create(user, "reuse-1", "4").getStatus());
+        assertEquals(1, transactions(user));
+    }
+
+    @Test
+    void concurrentDuplicatesRunOnce() throws Exception {
+        User user = createUser(User.Role.USER);
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                responses.add(clients.submit(() -> create(user, "storm-1", "5")));
+            }
+            String body = null;
+            for (Future<MockHttpServletResponse> response : responses) {
+                assertEquals(200, response.get().getStatus());
+                if (body == null) {
+                    body = response.get().getContentAsString();
+                }
+                assertEquals(body, response.get().getContentAsString());
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        assertEquals(1, transactions(user));
+    }
+
+    @Test
+    void expiredKeysAreCleanedUp() throws Exception {
+        User user = createUser(User.Role.USER);
+        create(user, "old-1", "1");
+        jdbcTemplate.update("UPDATE idempotency_keys SET expires_at = ? WHERE scope = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), String.valueOf(user.getId()));
+
+        assertTrue(store.cleanUp() >= 1);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys WHERE scope = ?",
+                Integer.class, String.valueOf(user.getId())));
+    }
+
+    @Test
+    void aKeyWhoseChangesWereBookedIsNeverRunAgain() throws Exception {
+        User user = createUser(User.Role.USER);
+        IdempotencyStore.Key key = new IdempotencyStore.Key(String.valueOf(user.getId()), "booked-1");
+        IdempotencyStore.Decision first = store.begin(key, "fingerprint");
+        assertEquals(IdempotencyStore.Outcome.PROCEED, first.outcome());
+        transactionService.createTransaction(buy(user));
+        // The request fails after booking, so no response is stored; the claim then goes stale.
+        store.release(first.claim());
+        jdbcTemplate.update("UPDATE idempotency_keys SET created_at = ? WHERE scope = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)), key.scope());
+
+        assertEquals(IdempotencyStore.Outcome.UNANSWERED, store.begin(key, "fingerprint").outcome());
+        assertEquals(1, transactions(user));
+    }
+
+    @Test
+    void aRequestThatLostItsClaimDoesNotBook() throws Exception {
+        User user = createUser(User.Role.USER);
+        IdempotencyStore.Key key = new IdempotencyStore.Key(String.valueOf(user.getId()), "taken-1");
+        IdempotencyStore.Decision first = store.begin(key, "fingerprint");
+        // A retry on another instance took the key over while this request was still running.
+        jdbcTemplate.update("UPDATE idempotency_keys SET claim_token = 'retry' WHERE scope = ?", key.scope());
+
+        assertThrows(IllegalStateException.class, () -> transactionService.createTransaction(buy(user)));
+        store.release(first.claim());
+        assertEquals(0, transactions(user));
+    }
+
+    private static Transaction buy(User user) {
+        return new Transaction("IDEM", "Idem Inc.", Transaction.TransactionType.BUY, new BigDecimal("1"),
+                new BigDecimal("10.00"), BigDecimal.ZERO, null, user);
+    }
+
+    private MockHttpServletResponse create(User user, String key, String quantity) throws Exception {
+        return mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", bearer(user))
+                .header(IdempotencyFilter.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"IDEM\",\"companyName\":\"Idem Inc.\",\"transactionType\":\"buy\","
+                        + "\"quantity\":\"" + quantity + "\",\"price\":\"10.00\"}"))
+                .andReturn().getResponse();
+    }
+
+    private int transactions(User user) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE user_id = ?", Integer.class,
+                user.getId());
+    }
+}
@@ -0,0 +1,129 @@
+package com.fintrade.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+
+    private static final int SEGMENT_ENTRIES = 8;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rollsOverSegmentsAndReplaysFromAnySequence() throws IOException {
+        try (Journal journal = Journal.open(directory, SEGMENT_ENTRIES)) {
+            for (int i = 1; i <= 20; i++) {
+                assertEquals(i, journal.append(booked(i)));
+            }
+            assertEquals(3, segmentFiles());
+
+            List<JournalRecord> replayed = new ArrayList<>();
+            List<Long> sequences = new ArrayList<>();
+            assertEquals(20, journal.replay(7, entry -> {
+                sequences.add(entry.sequence());
+                replayed.add(entry.toRecord());
+            }));
+            assertEquals(14, replayed.size());
+            assertEquals(7L, sequences.get(0));
+            assertEquals(booked(7), replayed.get(0));
+            assertEquals(booked(20), replayed.get(13));
+            assertEquals(20, journal.replay(21, entry -> { }));
+        }
+    }
+
+    @Test
+    void reopensWhereItLeftOff() throws IOException {
+        try (Journal journal = Journal.open(directory, SEGMENT_ENTRIES)) {
+            for (int i = 1; i <= 11; i++) {
+                journal.append(booked(i));
+            }
+        }
+        try (Journal journal = Journal.open(directory, SEGMENT_ENTRIES)) {
+            assertEquals(1, journal.firstSequence());
+            assertEquals(11, journal.lastSequence());
+            assertEquals(12, journal.append(booked(12)));
+            List<JournalRecord> replayed = new ArrayList<>();
+            journal.replay(1, entry -> replayed.add(entry.toRecord()));
+            assertEquals(12, replayed.size());
+            assertEquals(booked(12), replayed.get(11));
+        }
+    }
+
+    @Test
+    void dropsACorruptTailOnOpen() throws IOException {
+        try (Journal journal = Journal.open(directory, SEGMENT_ENTRIES)) {
+            for (int i = 1; i <= 5; i++) {
+                journal.append(booked(i));
+            }
+        }
+        // Flip a byte in the body of entry 5, as a write cut short by a crash might leave it.
+        Path segment = JournalSegment.fileName(directory, 1);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0x7f }),
+                    JournalSegment.HEADER_BYTES + 4L * JournalEntry.BYTES + JournalEntry.QUANTITY_OFFSET);
+        }
+        try (Journal journal = Journal.open(directory, SEGMENT_ENTRIES)) {
+            assertEquals(4, journal.lastSequence());
+            assertEquals(5, journal.append(booked(50)));
+            List<JournalRecord> replayed = new ArrayList<>();
+            journal.replay(5, entry -> replayed.add(entry.toRecord()));
+            assertEquals(List.of(booked(50)), replayed);
+        }
+    }
+
+    @Test
+    void subscriptionCatchesUpAndFollowsAppends() throws Exception {
+        try (Journal journal = Journal.open(directory, SEGMENT_ENTRIES)) {
+            journal.append(booked(1));
+            journal.append(booked(2));
+            List<Long> entityIds = new ArrayList<>();
+            CountDownLatch received = new CountDownLatch(10);
+            Journal.Subscription subscription = journal.subscribe(2, entry -> {
+                synchronized (entityIds) {
+                    entityIds.add(entry.entityId());
+                }
+                received.countDown();
+            });
+            for (int i = 3; i <= 11; i++) {
+                journal.append(booked(i));
+            }
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+            // The position moves on once the listener has returned.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (subscription.position() < 11 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            subscription.close();
+            synchronized (entityIds) {
+                assertEquals(List.of(2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L), entityIds);
+            }
+            assertEquals(11, subscription.position());
+        }
+    }
+
+    private long segmentFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static JournalRecord booked(long id) {
+        return new JournalRecord(JournalEntryType.TRANSACTION_BOOKED, 1_700_000_000_000L + id, id, 42,
+                id % 2 == 0 ? JournalRecord.BUY : JournalRecord.SELL, id * 10_000, 15_025, 99, "ACME");
+    }
+}
@@ -0,0 +1,60 @@
+package com.fintrade.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TradeJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void entriesFollowTheOrderTransactionsReachedCommit() {
+        TradeJournal tradeJournal = new TradeJournal(directory.toString(), 8);
+        try {
+            TransactionSynchronization first = inTransaction(() -> tradeJournal.userDeleted(1));
+            TransactionSynchronization rolledBack = inTransaction(() -> tradeJournal.userDeleted(2));
+            TransactionSynchronization second = inTransaction(() -> tradeJournal.userDeleted(3));
+
+            first.beforeCommit(false);
+            rolledBack.beforeCommit(false);
+            second.beforeCommit(false);
+            second.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            assertEquals(List.of(), userIds(tradeJournal));
+
+            first.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            assertEquals(List.of(1L), userIds(tradeJournal));
+
+            rolledBack.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            tradeJournal.userDeleted(4);
+            assertEquals(List.of(1L, 3L, 4L), userIds(tradeJournal));
+        } finally {
+            tradeJournal.close();
+        }
+    }
+
+    /** Runs {@code work} with synchronization active and returns the journal's synchronization. */
+    private static TransactionSynchronization inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations().get(0);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static List<Long> userIds(TradeJournal tradeJournal) {
+        List<Long> userIds = new ArrayList<>();
+        tradeJournal.replay(1, entry -> userIds.add(entry.userId()));
+        return userIds;
+    }
+}
@@ -0,0 +1,95 @@
+package com.fintrade.performance;
+
+import com.fintrade.entity.Transaction;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NavCalculatorTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2024, 3, 4);
+
+    @TempDir
+    Path directory;
+
+    private DailyCloses closes;
+
+    @BeforeEach
+    void setUp() {
+        PriceHistoryStore store = new PriceHistoryStore(directory.toString());
+        long[] prices = { 11_000, 12_100, 12_100, 13_310 };
+        for (int i = 0; i < prices.length; i++) {
+            store.record("ACME", DAY_1.plusDays(i).atTime(20, 0).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                    prices[i], 10_000);
+        }
+        closes = new DailyCloses(store);
+    }
+
+    @Test
+    void chainsDailyReturnsAroundFlows() {
+        List<NavTrade> trades = List.of(
+                trade(Transaction.TransactionType.BUY, "ACME", "10", "100.00", 0),
+                trade(Transaction.TransactionType.BUY, "ACME", "10", "121.00", 2),
+                trade(Transaction.TransactionType.SELL, "ACME", "20", "133.10", 3));
+
+        List<NavPoint> points = new NavCalculator().walk(DAY_1, DAY_1.plusDays(3), trades, closes);
+
+        assertPoint(points.get(0), 1100, 1000, 1.1);
+        assertPoint(points.get(1), 1210, 0, 1.21);
+        // Buying at the close earns nothing that day.
+        assertPoint(points.get(2), 2420, 1210, 1.21);
+        // Selling out at the close still earns the day's move on the whole position.
+        assertPoint(points.get(3), 0, -2662, 1.331);
+    }
+
+    @Test
+    void resumesFromStoredStateWithTheSameResult() {
+        List<NavTrade> later = List.of(trade(Transaction.TransactionType.BUY, "ACME", "10", "121.00", 2));
+        NavCalculator resumed = new NavCalculator(1210, 1.21);
+        resumed.hold("ACME", 10, 100);
+
+        List<NavPoint> points = resumed.walk(DAY_1.plusDays(2), DAY_1.plusDays(3), later, closes);
+
+        assertPoint(points.get(0), 2420, 1210, 1.21);
+        assertPoint(points.get(1), 2662, 0, 1.331);
+    }
+
+    @Test
+    void valuesSymbolsWithoutBarsAtTheirLastTradePrice() {
+        List<NavTrade> trades = List.of(trade(Transaction.TransactionType.BUY, "NOBAR", "4", "25.00", 0));
+
+        List<NavPoint> points = new NavCalculator().walk(DAY_1, DAY_1.plusDays(1), trades, closes);
+
+        assertPoint(points.get(1), 100, 0, 1);
+    }
+
+    @Test
+    void moneyWeightedReturnSolvesForTheRate() {
+        assertEquals(0.10, Returns.moneyWeighted(100, new int[0], new double[0], 365, 110), 1e-9);
+        // 100 added on day 182 is only invested for half the year at the same rate.
+        double rate = Returns.moneyWeighted(100, new int[] { 182 }, new double[] { 100 }, 365, 214.89);
+        assertEquals(0.10, rate, 1e-3);
+        assertEquals(0.0487, Returns.overPeriod(0.10, 182), 1e-4);
+    }
+
+    private static NavTrade trade(Transaction.TransactionType type, String symbol, String quantity, String price,
+            int day) {
+        return new NavTrade(null, symbol, type, new BigDecimal(quantity), new BigDecimal(price), BigDecimal.ZERO,
+                DAY_1.plusDays(day).atTime(15, 0));
+    }
+
+    private static void assertPoint(NavPoint point, double nav, double netFlow, double twrIndex) {
+        assertEquals(nav, point.nav(), 1e-6);
+        assertEquals(netFlow, point.netFlow(), 1e-6);
+        assertEquals(twrIndex, point.twrIndex(), 1e-9);
+    }
+}
@@ -0,0 +1,77 @@
+package com.fintrade.performance;
+
+import com.fintrade.entity.NavHistory;
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.User;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.fintrade.repository.NavHistoryRepository;
+import com.fintrade.repository.TransactionRepository;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NavEngineTest extends ApiTestSupport {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2023, 6, 5);
+
+    @Autowired
+    private NavEngine navEngine;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private NavHistoryRepository navHistoryRepository;
+
+    @Test
+    void incrementalRunsMatchARecompute() {
+        User user = createUser(User.Role.USER);
+        long[] closes = { 11_000, 12_100, 12_100, 13_310 };
+        for (int i = 0; i < closes.length; i++) {
+            priceHistoryStore.record("NAVE", DAY_1.plusDays(i).atTime(20, 0).toInstant(ZoneOffset.UTC)
+                    .toEpochMilli(), closes[i], 10_000);
+        }
+        save(user, Transaction.TransactionType.BUY, "10", "100.00", 0);
+        save(user, Transaction.TransactionType.BUY, "10", "121.00", 2);
+
+        navEngine.run(DAY_1.plusDays(1), false);
+        assertEquals(2, history(user).size());
+        navEngine.run(DAY_1.plusDays(3), false);
+        navEngine.run(DAY_1.plusDays(3), false);
+        List<NavHistory> incremental = history(user);
+
+        navEngine.run(DAY_1.plusDays(3), true);
+        List<NavHistory> recomputed = history(user);
+
+        assertEquals(4, incremental.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, recomputed.get(i).getNav().compareTo(incremental.get(i).getNav()));
+            assertEquals(0, recomputed.get(i).getTwrIndex().compareTo(incremental.get(i).getTwrIndex()));
+        }
+        assertEquals(0, new BigDecimal("2662.00").compareTo(recomputed.get(3).getNav()));
+        assertEquals(0, new BigDecimal("1.331").compareTo(recomputed.get(3).getTwrIndex()));
+    }
+
+    private void save(User user, Transaction.TransactionType type, String quantity, String price, int day) {
+        Transaction transaction = new Transaction("NAVE", "Nav Engine Corp.", type, new BigDecimal(quantity),
+                new BigDecimal(price), BigDecimal.ZERO, null, user);
+        transaction.setTransactionDate(DAY_1.plusDays(day).atTime(15, 0));
+        securityMaster.list(transaction.getSymbol(), transaction.getCompanyName());
+        transactionRepository.save(transaction);
+    }
+
+    private List<NavHistory> history(User user) {
+        return navHistoryRepository.findByUserAndNavDateBetweenOrderByNavDate(user, LocalDate.EPOCH,
+                DAY_1.plusDays(10));
+    }
+}
@@ -0,0 +1,181 @@
+package com.fintrade.pretrade;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintrade.entity.User;
+import com.fintrade.service.PortfolioService;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PreTradeServiceTest extends ApiTestSupport {
+
+    @Autowired
+    private PositionCache positionCache;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void sellsAndRemovalsCannotExceedTheHolding() throws Exception {
+        User user = createUser(User.Role.USER);
+        book(user, "SELL", "HOLD", "5", status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: cannot sell 5 HOLD, 0 held"));
+
+        portfolio(user, "add", "8").andExpect(status().isOk());
+        book(user, "SELL", "HOLD", "5", status().isOk());
+        book(user, "SELL", "HOLD", "9", status().isBadRequest());
+
+        portfolio(user, "remove", "9").andExpect(status().isBadRequest());
+        assertEquals(0, new BigDecimal("8").compareTo(positionCache.position(user.getId(), "HOLD").held()));
+        portfolio(user, "remove", "8").andExpect(status().isOk());
+        book(user, "SELL", "HOLD", "1", status().isBadRequest());
+    }
+
+    @Test
+    void openSellOrdersReserveTheSharesTheyOffer() throws Exception {
+        User user = createUser(User.Role.USER);
+        portfolio(user, "add", "8").andExpect(status().isOk());
+        String resting = order(user, "5", status().isOk()).andReturn().getResponse().getContentAsString();
+        long orderId = objectMapper.readTree(resting).get("orderId").asLong();
+
+        order(user, "4", status().isBadRequest()).andExpect(jsonPath("$.message")
+                .value("Error: cannot sell 4 HOLD, 8 held of which 5 in open sell orders"));
+        book(user, "SELL", "HOLD", "4", status().isBadRequest());
+        portfolio(user, "remove", "4").andExpect(status().isBadRequest());
+        order(user, "3", status().isOk());
+
+        mockMvc.perform(delete("/api/orders/" + orderId).header("Authorization", bearer(user)))
+                .andExpect(status().isOk());
+        assertEquals(0, new BigDecimal("3").compareTo(positionCache.reserved(user.getId(), "HOLD")));
+        portfolio(user, "remove", "5").andExpect(status().isOk());
+    }
+
+    @Test
+    void symbolLimitsCapEveryoneAndUserLimitsReplaceTheDefaults() throws Exception {
+        User user = createUser(User.Role.USER);
+        User admin = createUser(User.Role.ADMIN);
+        book(user, "BUY", "CAPPED", "11", status().isBadRequest());
+        book(user, "BUY", "CAPPED", "10", status().isOk());
+
+        mockMvc.perform(put("/api/admin/users/" + user.getId() + "/trading-limits")
+                .header("Authorization", bearer(admin))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"maxOrderQuantity\":100,\"maxPositionQuantity\":5}"))
+                .andExpect(status().isOk());
+        book(user, "BUY", "CAPPED", "11", status().isBadRequest());
+        portfolio(user, "add", "5").andExpect(status().isOk());
+        book(user, "BUY", "HOLD", "1", status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: position in HOLD would be 6, above the limit of 5"));
+
+        mockMvc.perform(delete("/api/admin/users/" + user.getId() + "/trading-limits")
+                .header("Authorization", bearer(admin)))
+                .andExpect(status().isOk());
+        book(user, "BUY", "HOLD", "1", status().isOk());
+    }
+
+    @Test
+    void aSymbolInAnotherCaseMeetsTheListedSymbolsLimitsAndPosition() throws Exception {
+        User user = createUser(User.Role.USER);
+        book(user, "BUY", "CAPPED", "10", status().isOk());
+        book(user, "BUY", "capped", "11", status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: order quantity 11 is above the limit of 10"));
+
+        portfolio(user, "add", "8").andExpect(status().isOk());
+        book(user, "SELL", "hold", "9", status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: cannot sell 9 HOLD, 8 held"));
+        mockMvc.perform(post("/api/portfolio/remove")
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"hold\",\"quantity\":\"3\"}"))
+                .andExpect(status().isOk());
+        assertEquals(0, new BigDecimal("5").compareTo(positionCache.position(user.getId(), "HOLD").held()));
+    }
+
+    @Test
+    void cacheFollowsCommittedChangesOnly() {
+        User user = createUser(User.Role.USER);
+        assertEquals(BigDecimal.ZERO, positionCache.position(user.getId(), "KEPT").held());
+        portfolioService.addToPortfolio(user, "KEPT", "Kept Inc.", new BigDecimal("5"), new BigDecimal("10.00"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            portfolioService.addToPortfolio(user, "KEPT", "Kept Inc.", new BigDecimal("3"), new BigDecimal("10.00"));
+            status.setRollbackOnly();
+        });
+        assertEquals(0, new BigDecimal("5").compareTo(positionCache.position(user.getId(), "KEPT").held()));
+
+        // Served from memory: a write that bypasses PortfolioService is not seen.
+        jdbcTemplate.update("UPDATE portfolios SET quantity = 100 WHERE user_id = ?", user.getId());
+        assertEquals(0, new BigDecimal("5").compareTo(positionCache.position(user.getId(), "KEPT").held()));
+    }
+
+    @Test
+    void removalsCheckTheStoredHoldingAndResyncTheCache() {
+        User user = createUser(User.Role.USER);
+        portfolioService.addToPortfolio(user, "SHARED", "Shared Inc.", new BigDecimal("5"), new BigDecimal("10.00"));
+        assertEquals(0, new BigDecimal("5").compareTo(positionCache.position(user.getId(), "SHARED").held()));
+
+        // Another instance sells down to 1: the cache still says 5, the locked row decides.
+        jdbcTemplate.update("UPDATE portfolios SET quantity = 1 WHERE user_id = ?", user.getId());
+        assertThrows(PreTradeRejectedException.class,
+                () -> portfolioService.removeFromPortfolio(user, "SHARED", new BigDecimal("3")));
+
+        // And then buys up to 100: the removal is booked and the cache reads the user again.
+        jdbcTemplate.update("UPDATE portfolios SET quantity = 100 WHERE user_id = ?", user.getId());
+        portfolioService.removeFromPortfolio(user, "SHARED", new BigDecimal("50"));
+        assertEquals(0, new BigDecimal("50").compareTo(positionCache.position(user.getId(), "SHARED").held()));
+    }
+
+    private ResultActions book(User user, String type, String symbol,
+            String quantity, ResultMatcher expected) throws Exception {
+        return mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"" + symbol + "\",\"companyName\":\"Pre Trade Inc.\",\"transactionType\":\""
+                        + type + "\",\"quantity\":\"" + quantity + "\",\"price\":\"10.00\"}"))
+                .andExpect(expected);
+    }
+
+    /** A limit sell priced to rest in the book. */
+    private ResultActions order(User user, String quantity, ResultMatcher expected) throws Exception {
+        return mockMvc.perform(post("/api/orders")
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"HOLD\",\"side\":\"SELL\",\"quantity\":\"" + quantity
+                        + "\",\"price\":\"9999.00\"}"))
+                .andExpect(expected);
+    }
+
+    private ResultActions portfolio(User user, String action, String quantity)
+            throws Exception {
+        return mockMvc.perform(post("/api/portfolio/" + action)
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"HOLD\",\"companyName\":\"Hold Inc.\",\"quantity\":\"" + quantity
+                        + "\",\"price\":\"10.00\"}"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.fintrade.pricehistory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceHistoryStoreTest {
+
+    private static final long T0 = Instant.parse("2024-03-04T14:30:00Z").toEpochMilli();
+    private static final long MINUTE = Resolution.MINUTE.getMillis();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rollsTradesUpIntoEveryResolution() {
+        PriceHistoryStore store = new PriceHistoryStore(directory.toString());
+        store.record("ACME", T0, 1_000, 10_000);
+        store.record("ACME", T0 + 20_000, 1_200, 5_000);
+        store.record("ACME", T0 + 40_000, 900, 5_000);
+        store.record("ACME", T0 + MINUTE, 1_100, 10_000);
+
+        List<long[]> minutes = read(store, Resolution.MINUTE, 0, Long.MAX_VALUE, 100);
+        assertEquals(2, minutes.size());
+        assertBar(minutes.get(0), T0, 1_000, 1_200, 900, 900, 20_000);
+        assertBar(minutes.get(1), T0 + MINUTE, 1_100, 1_100, 1_100, 1_100, 10_000);
+
+        List<long[]> days = read(store, Resolution.DAY, 0, Long.MAX_VALUE, 100);
+        assertEquals(1, days.size());
+        assertBar(days.get(0), Resolution.DAY.bucketStart(T0), 1_000, 1_200, 900, 1_100, 30_000);
+        assertEquals(1, read(store, Resolution.HOUR, 0, Long.MAX_VALUE, 100).size());
+    }
+
+    @Test
+    void symbolsCannotNameAPathOutsideTheStore() {
+        PriceHistoryStore store = new PriceHistoryStore(directory.resolve("store").toString());
+        for (String symbol : new String[] { ".", "..", "-", ".HIDDEN", "" }) {
+            assertFalse(PriceHistoryStore.isValidSymbol(symbol), symbol);
+            assertThrows(IllegalArgumentException.class, () -> store.record(symbol, T0, 1_000, 1), symbol);
+        }
+        assertTrue(PriceHistoryStore.isValidSymbol("BRK.B"));
+        assertEquals(0, directory.toFile().list().length);
+    }
+
+    @Test
+    void dropsTradesOlderThanTheNewestBar() {
+        PriceHistoryStore store = new PriceHistoryStore(directory.toString());
+        store.record("ACME", T0 + MINUTE, 1_000, 10_000);
+        store.record("ACME", T0, 5_000, 10_000);
+
+        List<long[]> minutes = read(store, Resolution.MINUTE, 0, Long.MAX_VALUE, 100);
+        assertEquals(1, minutes.size());
+        assertBar(minutes.get(0), T0 + MINUTE, 1_000, 1_000, 1_000, 1_000, 10_000);
+        // The same trade still lands in the current hour bar.
+        assertBar(read(store, Resolution.HOUR, 0, Long.MAX_VALUE, 100).get(0),
+                Resolution.HOUR.bucketStart(T0), 1_000, 5_000, 1_000, 5_000, 20_000);
+    }
+
+    @Test
+    void readsRangesAcrossSegmentsAndReopens() {
+        PriceHistoryStore store = new PriceHistoryStore(directory.toString());
+        int bars = Resolution.DAY.getSegmentRecords() + 10;
+        long day = Resolution.DAY.getMillis();
+        for (int i = 0; i < bars; i++) {
+            store.record("ACME", i * day, 100 + i, 1);
+        }
+        store.flush();
+
+        PriceHistoryStore reopened = new PriceHistoryStore(directory.toString());
+        long from = (bars - 20) * day + 1;
+        List<long[]> range = read(reopened, Resolution.DAY, from, (bars - 5) * day, 100);
+        assertEquals(15, range.size());
+        assertEquals((bars - 20) * day, range.get(0)[0]);
+        assertEquals(100 + bars - 6, range.get(14)[4]);
+
+        assertEquals(3, read(reopened, Resolution.DAY, 0, Long.MAX_VALUE, 3).size());
+        assertEquals(0, read(reopened, Resolution.DAY, 0, Long.MAX_VALUE, 3, "NONE").size());
+    }
+
+    private static List<long[]> read(PriceHistoryStore store, Resolution resolution, long from, long to, int limit) {
+        return read(store, resolution, from, to, limit, "ACME");
+    }
+
+    private static List<long[]> read(PriceHistoryStore store, Resolution resolution, long from, long to, int limit,
+            String symbol) {
+        List<long[]> bars = new ArrayList<>();
+        store.read(symbol, resolution, from, to, limit, bar -> bars.add(new long[] {
+                bar.getTime(), bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose(), bar.getVolume() }));
+        return bars;
+    }
+
+    private static void assertBar(long[] bar, long time, long open, long high, long low, long close, long volume) {
+        assertEquals(List.of(time, open, high, low, close, volume),
+                List.of(bar[0], bar[1], bar[2], bar[3], bar[4], bar[5]));
+    }
+}
@@ -0,0 +1,167 @@
+package com.fintrade.reports;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.User;
+import com.fintrade.service.TransactionService;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ReportServiceTest extends ApiTestSupport {
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reportsAreGeneratedInTheBackgroundAndDownloaded() throws Exception {
+        User user = createUser(User.Role.USER);
+        transactionService.createTransaction(new Transaction("RPT", "Report, Inc.", Transaction.TransactionType.BUY,
+                new BigDecimal("4"), new BigDecimal("25.00"), new BigDecimal("1.00"), "=HYPERLINK(\"x\")", user));
+        transactionService.createTransaction(new Transaction("RPT", "Report, Inc.", Transaction.TransactionType.SELL,
+                new BigDecimal("1"), new BigDecimal("30.00"), BigDecimal.ZERO, null, user));
+
+        long historyId = requestReport(user, "{\"type\":\"TRANSACTION_HISTORY\"}");
+        JsonNode history = awaitFinished(user, historyId);
+        assertEquals("DONE", history.get("status").asText());
+        assertEquals(2, history.get("rowsWritten").asLong());
+        String csv = mockMvc.perform(get("/api/reports/" + historyId + "/download")
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"fintrade-transaction-history-" + historyId + ".csv\""))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = csv.split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,transaction_date,transaction_type,symbol,company_name,quantity,price,commission,"
+                + "total_amount,lot_method,notes", lines[0]);
+        // Commas and quotes are quoted, and a formula is kept from running in a spreadsheet.
+        assertEquals(",BUY,RPT,\"Report, Inc.\",4.00,25.00,1.00,101.00,,\"'=HYPERLINK(\"\"x\"\")\"",
+                lines[1].substring(lines[1].indexOf(',', lines[1].indexOf(',') + 1)));
+
+        LocalDate today = LocalDate.now();
+        long statementId = requestReport(user, "{\"type\":\"STATEMENT\",\"from\":\"" + today.minusDays(1)
+                + "\",\"to\":\"" + today + "\"}");
+        assertEquals("DONE", awaitFinished(user, statementId).get("status").asText());
+        mockMvc.perform(get("/api/reports/" + statementId + "/download").header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(2))
+                .andExpect(jsonPath("$.totals.buys").value(1))
+                .andExpect(jsonPath("$.totals.sells").value(1))
+                .andExpect(jsonPath("$.totals.commission").value(1.0));
+
+        mockMvc.perform(get("/api/reports").header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(statementId))
+                .andExpect(jsonPath("$[1].id").value(historyId));
+    }
+
+    @Test
+    void reportsAreCheckedCappedAndPrivate() throws Exception {
+        User user = createUser(User.Role.USER);
+        mockMvc.perform(post("/api/reports").header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON).content("{\"type\":\"STATEMENT\",\"from\":\"2025-02-01\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/reports").header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON).content("{\"type\":\"INVOICE\"}"))
+                .andExpect(status().isBadRequest());
+
+        long id = requestReport(user, "{\"type\":\"TAX_SUMMARY\",\"year\":2025}");
+        JsonNode job = awaitFinished(user, id);
+        assertEquals("2025-01-01", job.get("periodFrom").asText());
+        assertEquals("2025-12-31", job.get("periodTo").asText());
+
+        User other = createUser(User.Role.USER);
+        mockMvc.perform(get("/api/reports/" + id).header("Authorization", bearer(other)))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/reports/" + id + "/download").header("Authorization", bearer(other)))
+                .andExpect(status().isNotFound());
+
+        ReflectionTestUtils.setField(reportService, "perUserQueued", 0);
+        try {
+            mockMvc.perform(post("/api/reports").header("Authorization", bearer(user))
+                    .contentType(MediaType.APPLICATION_JSON).content("{\"type\":\"TRANSACTION_HISTORY\"}"))
+                    .andExpect(status().isTooManyRequests());
+        } finally {
+            ReflectionTestUtils.setField(reportService, "perUserQueued", 5);
+        }
+    }
+
+    @Test
+    void aReportIsGeneratedByOneInstanceAndTakenOverOnceItsLeaseRunsOut() throws Exception {
+        User user = createUser(User.Role.USER);
+        LocalDateTime now = LocalDateTime.now();
+        // The user's report another instance is generating, its lease still running.
+        jdbcTemplate.update("INSERT INTO report_jobs (user_id, type, status, rows_written, size_bytes, requested_at, "
+                + "started_at, claimed_by, lease_until) VALUES (?, 'TRANSACTION_HISTORY', 'RUNNING', 0, 0, ?, ?, "
+                + "'elsewhere', ?)", user.getId(), Timestamp.valueOf(now), Timestamp.valueOf(now),
+                Timestamp.valueOf(now.plusHours(1)));
+        long elsewhereId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM report_jobs WHERE user_id = ?",
+                Long.class, user.getId());
+
+        long id = requestReport(user, "{\"type\":\"TRANSACTION_HISTORY\"}");
+        reportService.renewAndResume();
+        Thread.sleep(300);
+        // The new report waits its turn behind the one running elsewhere, which is left alone.
+        assertEquals("QUEUED", jobStatus(id));
+        assertEquals("RUNNING", jobStatus(elsewhereId));
+
+        jdbcTemplate.update("UPDATE report_jobs SET lease_until = ? WHERE id = ?",
+                Timestamp.valueOf(now.minusMinutes(1)), elsewhereId);
+        reportService.renewAndResume();
+        assertEquals("DONE", awaitFinished(user, elsewhereId).get("status").asText());
+        assertEquals("DONE", awaitFinished(user, id).get("status").asText());
+    }
+
+    private String jobStatus(long id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM report_jobs WHERE id = ?", String.class, id);
+    }
+
+    private long requestReport(User user, String body) throws Exception {
+        String response = mockMvc.perform(post("/api/reports").header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    private JsonNode awaitFinished(User user, long id) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String body = mockMvc.perform(get("/api/reports/" + id).header("Authorization", bearer(user)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode job = objectMapper.readTree(body);
+            if (!job.get("status").asText().equals("QUEUED") && !job.get("status").asText().equals("RUNNING")) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Report " + id + " did not finish");
+    }
+}
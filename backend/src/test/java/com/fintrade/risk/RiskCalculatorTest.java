@@ -0,0 +1,74 @@
+package com.fintrade.risk;
+
+import com.fintrade.pricehistory.PriceHistoryStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RiskCalculatorTest {
+
+    private static final LocalDate FRIDAY = LocalDate.of(2024, 3, 8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void measuresAgainstTheBenchmark() {
+        double[] benchmark = { 0.01, -0.01, 0.02, -0.02 };
+        double[] returns = new double[12];
+        for (int d = 0; d < 4; d++) {
+            returns[d] = benchmark[d];
+            returns[4 + d] = 2 * benchmark[d];
+            returns[8 + d] = -benchmark[d];
+        }
+        ReturnMatrix matrix = new ReturnMatrix(FRIDAY, 4, new String[] { "SPY", "LEVR", "HEDG" }, returns);
+        RiskCalculator calculator = new RiskCalculator(matrix, 0);
+
+        RiskFigures levered = calculator.compute(new int[] { 1 }, new double[] { 1_000 }, 0, 1);
+        assertEquals(2, levered.beta(), 1e-12);
+        assertEquals(1, levered.correlation(), 1e-12);
+        assertEquals(2 * Math.sqrt(0.001 / 3 * 252), levered.volatility(), 1e-12);
+        assertEquals(40, levered.valueAtRisk99(), 1e-9);
+
+        // Half levered, half hedge: +0.5 beta, and the worst day is half the benchmark's.
+        RiskFigures mixed = calculator.compute(new int[] { 1, 2 }, new double[] { 500, 500 }, 0, 2);
+        assertEquals(0.5, mixed.beta(), 1e-12);
+        assertEquals(10, mixed.valueAtRisk95(), 1e-9);
+        assertEquals(RiskFigures.EMPTY, calculator.compute(new int[0], new double[0], 0, 0));
+    }
+
+    @Test
+    void loadsWeekdayReturnsCarryingClosesForward() {
+        PriceHistoryStore store = new PriceHistoryStore(directory.toString());
+        // Thursday the 29th, then Monday to Friday of the next week with Wednesday missing.
+        record(store, LocalDate.of(2024, 2, 29), 10_000);
+        record(store, LocalDate.of(2024, 3, 4), 11_000);
+        record(store, LocalDate.of(2024, 3, 5), 12_100);
+        record(store, LocalDate.of(2024, 3, 7), 10_890);
+        record(store, FRIDAY, 10_890);
+
+        ReturnMatrix matrix = ReturnMatrix.load(store, List.of("ACME", "NONE"), FRIDAY, 5);
+
+        assertArrayEquals(new double[] { 0.1, 0.1, 0, -0.1, 0 }, row(matrix, 0), 1e-12);
+        assertArrayEquals(new double[5], row(matrix, 1));
+        assertTrue(matrix.containsAll(java.util.Set.of("ACME")));
+    }
+
+    private static void record(PriceHistoryStore store, LocalDate day, long close) {
+        store.record("ACME", day.atTime(20, 0).toInstant(ZoneOffset.UTC).toEpochMilli(), close, 1);
+    }
+
+    private static double[] row(ReturnMatrix matrix, int symbol) {
+        double[] row = new double[matrix.getDays()];
+        System.arraycopy(matrix.returns(), symbol * matrix.getDays(), row, 0, row.length);
+        return row;
+    }
+}
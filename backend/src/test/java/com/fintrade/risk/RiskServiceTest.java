@@ -0,0 +1,62 @@
+package com.fintrade.risk;
+
+import com.fintrade.dto.RiskView;
+import com.fintrade.entity.Portfolio;
+import com.fintrade.entity.User;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.fintrade.repository.PortfolioRepository;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static com.fintrade.support.QueryBudget.countQueries;
+import static com.fintrade.support.QueryBudget.queryBudget;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RiskServiceTest extends ApiTestSupport {
+
+    @Autowired
+    private RiskService riskService;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Test
+    void nightlyResultsMatchLiveOnesAndSkipTheDatabase() throws Exception {
+        LocalDate yesterday = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        for (int i = 40; i >= 0; i--) {
+            long time = yesterday.minusDays(i).atTime(20, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+            priceHistoryStore.record("SPY", time, 40_000 + (i % 3) * 400, 1);
+            priceHistoryStore.record("RSKA", time, 10_000 + (i % 3) * 100, 1);
+        }
+        User user = createUser(User.Role.USER);
+        securityMaster.list("RSKA", "Risk Corp.");
+        portfolioRepository.save(new Portfolio("RSKA", "Risk Corp.", new BigDecimal("10"), new BigDecimal("90.00"),
+                new BigDecimal("100.00"), user));
+
+        RiskView live = riskService.getRisk(user);
+        riskService.run(yesterday);
+        RiskView nightly = riskService.getRisk(user);
+
+        assertEquals(0, new BigDecimal("1000.00").compareTo(nightly.getPortfolioValue()));
+        assertEquals(live.getVolatility(), nightly.getVolatility());
+        assertEquals(live.getBeta(), nightly.getBeta());
+        assertEquals(0, BigDecimal.ONE.compareTo(nightly.getBeta()));
+        assertEquals(0, BigDecimal.ONE.compareTo(nightly.getCorrelation()));
+        mockMvc.perform(get("/api/portfolio/risk").with(countQueries())
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.benchmark").value("SPY"))
+                .andExpect(queryBudget(1));
+    }
+}
@@ -0,0 +1,114 @@
+package com.fintrade.rollup;
+
+import com.fintrade.dto.AumView;
+import com.fintrade.dto.TradeVolumeView;
+import com.fintrade.entity.Portfolio;
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.User;
+import com.fintrade.repository.PortfolioRepository;
+import com.fintrade.service.PortfolioService;
+import com.fintrade.service.TransactionService;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static com.fintrade.support.QueryBudget.countQueries;
+import static com.fintrade.support.QueryBudget.queryBudget;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RollupServiceTest extends ApiTestSupport {
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private RollupVerifier rollupVerifier;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Test
+    void mutationsKeepTheRollupsEqualToARecompute() throws Exception {
+        // Other tests write portfolios behind the services' back; start from a clean slate.
+        rollupVerifier.verify();
+        User first = createUser(User.Role.USER);
+        User second = createUser(User.Role.USER);
+
+        trade(first, Transaction.TransactionType.BUY, "10", "100.00");
+        portfolioService.addToPortfolio(first, "RLUP", "Rollup Inc.", new BigDecimal("10"), new BigDecimal("100.00"));
+        trade(second, Transaction.TransactionType.BUY, "4", "110.00");
+        portfolioService.addToPortfolio(second, "RLUP", "Rollup Inc.", new BigDecimal("4"), new BigDecimal("110.00"));
+        Transaction sell = trade(first, Transaction.TransactionType.SELL, "10", "120.00");
+        portfolioService.removeFromPortfolio(first, "RLUP", new BigDecimal("10"));
+        sell.setQuantity(new BigDecimal("6"));
+        transactionService.updateTransaction(sell);
+        Transaction mistake = trade(second, Transaction.TransactionType.BUY, "1", "1.00");
+        transactionService.deleteTransaction(mistake.getId());
+
+        AumView aum = rollupService.getAum(200);
+        AumView.SymbolAum row = aum.getSymbols().stream().filter(symbol -> symbol.symbol().equals("RLUP"))
+                .findFirst().orElseThrow();
+        assertEquals(1, row.holders());
+        assertEquals(0, new BigDecimal("4").compareTo(row.quantity()));
+        assertEquals(0, new BigDecimal("440.00").compareTo(row.marketValue()));
+
+        TradeVolumeView volume = rollupService.getVolume(LocalDate.now(), LocalDate.now(), "RLUP");
+        assertEquals(3, volume.getTrades());
+        assertEquals(0, new BigDecimal("14").compareTo(volume.getDays().get(0).buyQuantity()));
+        assertEquals(0, new BigDecimal("6").compareTo(volume.getDays().get(0).sellQuantity()));
+        assertEquals(0, new BigDecimal("2160.00").compareTo(volume.getNotional()));
+
+        assertEquals(0, rollupVerifier.verify().mismatches());
+    }
+
+    @Test
+    void verifyRepairsDriftAndTheDashboardReadsNoEntities() throws Exception {
+        rollupVerifier.verify();
+        User user = createUser(User.Role.USER);
+        securityMaster.list("RDRIFT", "Drift Corp.");
+        portfolioRepository.save(new Portfolio("RDRIFT", "Drift Corp.", new BigDecimal("3"),
+                new BigDecimal("10.00"), new BigDecimal("12.00"), user));
+
+        RollupVerification drifted = rollupVerifier.verify();
+        assertTrue(drifted.mismatches() > 0);
+        assertTrue(drifted.repaired());
+        assertEquals(0, rollupVerifier.verify().mismatches());
+        assertTrue(rollupService.getAum(200).getSymbols().stream()
+                .anyMatch(row -> row.symbol().equals("RDRIFT") && row.holders() == 1));
+
+        User admin = createUser(User.Role.ADMIN);
+        mockMvc.perform(get("/api/admin/rollups/aum").with(countQueries())
+                .header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                // Auth and the rollup query.
+                .andExpect(queryBudget(2));
+        mockMvc.perform(get("/api/admin/rollups/volume").with(countQueries())
+                .param("symbol", "RDRIFT")
+                .header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                .andExpect(queryBudget(2));
+    }
+
+    private Transaction trade(User user, Transaction.TransactionType type, String quantity, String price) {
+        Transaction transaction = new Transaction();
+        transaction.setUser(user);
+        transaction.setSymbol("RLUP");
+        transaction.setCompanyName("Rollup Inc.");
+        transaction.setTransactionType(type);
+        transaction.setQuantity(new BigDecimal(quantity));
+        transaction.setPrice(new BigDecimal(price));
+        return transactionService.createTransaction(transaction);
+    }
+}
@@ -0,0 +1,115 @@
+package com.fintrade.securitymaster;
+
+import com.fintrade.dto.PortfolioView;
+import com.fintrade.dto.TransactionView;
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.User;
+import com.fintrade.service.PortfolioService;
+import com.fintrade.service.TransactionService;
+import com.fintrade.support.ApiTestSupport;
+import com.fintrade.support.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SecurityMasterTest extends ApiTestSupport {
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rowsStoreTheSecurityIdAndShowTheListedName() {
+        User user = createUser(User.Role.USER);
+        transactionService.createTransaction(new Transaction("SMA", "Security Master Corp",
+                Transaction.TransactionType.BUY, new BigDecimal("2"), new BigDecimal("10.00"), BigDecimal.ZERO, null,
+                user));
+        transactionService.createTransaction(new Transaction("SMA", "Renamed Corp", Transaction.TransactionType.BUY,
+                new BigDecimal("3"), new BigDecimal("11.00"), BigDecimal.ZERO, null, user));
+        portfolioService.addToPortfolio(user, "SMA", "Other Name", new BigDecimal("5"), new BigDecimal("11.00"));
+
+        Integer id = securityMaster.id("SMA");
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM securities WHERE symbol = 'SMA'",
+                Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE user_id = ? AND security_id = ?", Integer.class,
+                user.getId(), id));
+        assertEquals(id, jdbcTemplate.queryForObject("SELECT security_id FROM portfolios WHERE user_id = ?",
+                Integer.class, user.getId()));
+
+        List<TransactionView> transactions = transactionService.getTransactionsByUserAndSymbol(user, "SMA");
+        assertEquals(2, transactions.size());
+        transactions.forEach(view -> assertEquals("Security Master Corp", view.getCompanyName()));
+        assertEquals("Security Master Corp",
+                portfolioService.getPortfolioByUserAndSymbol(user, "SMA").orElseThrow().getCompanyName());
+    }
+
+    @Test
+    void newSymbolsAreListedBeforeTheBookingTransactionAndMissesAreRemembered() {
+        User user = createUser(User.Role.USER);
+        // Listing inside a transaction would hold a second connection while the first waits.
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> securityMaster.list("SMNEW", "New Corp.")));
+
+        SqlStatementCounter.reset();
+        assertNull(securityMaster.id("SMMISS"));
+        assertNull(securityMaster.id("SMMISS"));
+        assertEquals(1, SqlStatementCounter.statements().size());
+
+        transactionService.createTransaction(new Transaction("SMMISS", "Missed Corp.", Transaction.TransactionType.BUY,
+                new BigDecimal("1"), new BigDecimal("10.00"), BigDecimal.ZERO, null, user));
+        assertNotNull(securityMaster.id("SMMISS"));
+        assertEquals(1, transactionService.getTransactionsByUserAndSymbol(user, "SMMISS").size());
+    }
+
+    @Test
+    void rememberedMissesAreBounded() {
+        Map<?, ?> misses = (Map<?, ?>) ReflectionTestUtils.getField(securityMaster, "misses");
+        misses.clear();
+        ReflectionTestUtils.setField(securityMaster, "missCacheSize", 2);
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertNull(securityMaster.id("SMBOUND" + i));
+            }
+            assertEquals(2, misses.size());
+        } finally {
+            ReflectionTestUtils.setField(securityMaster, "missCacheSize", 10000);
+        }
+    }
+
+    @Test
+    void symbolSearchMatchesListedSymbols() {
+        User user = createUser(User.Role.USER);
+        portfolioService.addToPortfolio(user, "SRCHB", "Search B", new BigDecimal("1"), new BigDecimal("5.00"));
+        portfolioService.addToPortfolio(user, "SRCHA", "Search A", new BigDecimal("1"), new BigDecimal("5.00"));
+        portfolioService.addToPortfolio(user, "ELSE", "Elsewhere", new BigDecimal("1"), new BigDecimal("5.00"));
+
+        List<PortfolioView> found = portfolioService.searchPortfoliosBySymbol(user, "rch");
+        assertEquals(List.of("SRCHA", "SRCHB"), found.stream().map(PortfolioView::getSymbol).toList());
+        assertEquals(0, transactionService.searchTransactionsBySymbol(user, "rch").size());
+        assertEquals(0, portfolioService.searchPortfoliosBySymbol(user, "NOSUCH").size());
+        // A fragment is matched literally, not as a LIKE pattern.
+        assertEquals(0, portfolioService.searchPortfoliosBySymbol(user, "SRCH%").size());
+        assertEquals(0, portfolioService.searchPortfoliosBySymbol(user, "S_CH").size());
+    }
+}
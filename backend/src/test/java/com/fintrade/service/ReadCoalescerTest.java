@@ -0,0 +1,89 @@
+package com.fintrade.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadCoalescerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ReadCoalescer coalescer = new ReadCoalescer(registry);
+
+    @Test
+    void concurrentReadsOfOneKeyShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(callers.submit(() -> coalescer.read("test", List.of(1L, 0L), () -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return "rows";
+                })));
+            }
+            // Release the query only once the other three are waiting on it.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (count("joined") < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("rows", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, count("executed"));
+        assertEquals(3, count("joined"));
+    }
+
+    @Test
+    void nothingIsKeptAfterTheCall() {
+        AtomicInteger calls = new AtomicInteger();
+        coalescer.read("test", List.of(1L, 0L), calls::incrementAndGet);
+        assertEquals(2, coalescer.read("test", List.of(1L, 0L), calls::incrementAndGet));
+        // A new version is a new key even while an older read is running.
+        assertEquals(3, coalescer.read("test", List.of(1L, 1L), calls::incrementAndGet));
+        assertEquals(0, count("joined"));
+    }
+
+    @Test
+    void failuresReachTheCallerAndAreNotKept() {
+        assertThrows(IllegalStateException.class, () -> coalescer.read("test", 1L, () -> {
+            throw new IllegalStateException("down");
+        }));
+        assertEquals("ok", coalescer.read("test", 1L, () -> "ok"));
+        assertTrue(count("executed") == 2);
+    }
+
+    /** Zero until the first such read registers the counter. */
+    private long count(String result) {
+        Counter counter = registry.find("fintrade.reads.coalescing").tag("read", "test").tag("result", result)
+                .counter();
+        return counter != null ? (long) counter.count() : 0;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.fintrade.startup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles({ "test", "fast-startup" })
+class StartupConfigTest {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Test
+    void requestPathInfrastructureAndScheduledBeansStartEagerly() {
+        for (String bean : new String[] { "dataSource", "entityManagerFactory", "matchingEngine", "riskService",
+                "tradeJournal" }) {
+            assertFalse(beanFactory.getBeanDefinition(bean).isLazyInit(), bean);
+            assertTrue(beanFactory.containsSingleton(bean), bean);
+        }
+    }
+
+    @Test
+    void controllersWaitForTheirFirstRequest() {
+        assertTrue(beanFactory.getBeanDefinition("portfolioController").isLazyInit());
+        assertFalse(beanFactory.containsSingleton("portfolioController"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.fintrade.support;
+
+import com.fintrade.entity.User;
+import com.fintrade.repository.UserRepository;
+import com.fintrade.security.JwtUtil;
+import com.fintrade.securitymaster.SecurityMaster;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base for MockMvc tests against the in-memory database. Authenticated requests
+ * always include the JWT filter's user lookup, so their query budgets start at one.
+ * {@link SqlStatementCounter} counts every statement sent over the DataSource.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+public abstract class ApiTestSupport {
+
+    protected static final String PASSWORD = "password123";
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected PasswordEncoder passwordEncoder;
+
+    @Autowired
+    protected JwtUtil jwtUtil;
+
+    /** Symbols of rows saved straight through a repository must be listed first. */
+    @Autowired
+    protected SecurityMaster securityMaster;
+
+    protected User createUser(User.Role role) {
+        String username = "budget" + USER_SEQUENCE.incrementAndGet();
+        User user = new User(username, username + "@example.com", passwordEncoder.encode(PASSWORD), "Budget", "User");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    protected String bearer(User user) {
+        return "Bearer " + jwtUtil.generateToken(user);
+    }
+}
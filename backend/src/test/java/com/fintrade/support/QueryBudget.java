@@ -0,0 +1,43 @@
+package com.fintrade.support;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Per-request SQL budgets for MockMvc tests:
+ *
+ * <pre>
+ * mockMvc.perform(get("/api/portfolio/all").with(countQueries()))
+ *         .andExpect(queryBudget(2));
+ * </pre>
+ *
+ * For streamed responses assert on the {@code asyncDispatch} result so the rows written
+ * on the async thread are included.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static RequestPostProcessor countQueries() {
+        return request -> {
+            SqlStatementCounter.reset();
+            return request;
+        };
+    }
+
+    public static ResultMatcher queryBudget(int maxStatements) {
+        return result -> {
+            List<String> statements = SqlStatementCounter.statements();
+            if (statements.size() > maxStatements) {
+                fail(String.format("%s %s ran %d SQL statements, budget is %d:%n  %s",
+                        result.getRequest().getMethod(), result.getRequest().getRequestURI(),
+                        statements.size(), maxStatements, String.join(System.lineSeparator() + "  ", statements)));
+            }
+        };
+    }
+}
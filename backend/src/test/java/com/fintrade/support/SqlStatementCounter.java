@@ -0,0 +1,117 @@
+package com.fintrade.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every SQL statement executed through the application's DataSource, whether it
+ * comes from Hibernate or a JdbcTemplate, on the thread that reset the log and on the
+ * threads that write async responses. A batch counts once, when it is executed.
+ * Imported by {@link ApiTestSupport}, which wraps the DataSource bean; the log is static.
+ */
+public class SqlStatementCounter implements BeanPostProcessor {
+
+    /** Prefix of the task executor threads that write streamed (async) responses. */
+    private static final String ASYNC_THREAD_PREFIX = "task-";
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+    private static volatile Thread requestThread;
+
+    /** Starts a new log, counting statements run on the calling thread and on async request threads. */
+    public static void reset() {
+        requestThread = Thread.currentThread();
+        STATEMENTS.clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+            return new CountingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    private static final class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return proxy(Connection.class, super.getConnection(), null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return proxy(Connection.class, super.getConnection(username, password), null);
+        }
+    }
+
+    private static void record(String sql) {
+        Thread thread = Thread.currentThread();
+        // Background workers, e.g. a user deletion started by the request, are not the request's queries.
+        if (thread == requestThread || thread.getName().startsWith(ASYNC_THREAD_PREFIX)) {
+            STATEMENTS.add(sql);
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, T target, String sql) {
+        return type.cast(Proxy.newProxyInstance(SqlStatementCounter.class.getClassLoader(), new Class<?>[] { type },
+                new Counting(target, sql)));
+    }
+
+    /** Wraps the statements a connection creates and records each statement execution. */
+    private static final class Counting implements InvocationHandler {
+
+        private final Object target;
+        private final String sql;
+
+        Counting(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            String name = method.getName();
+            if (target instanceof Connection) {
+                return switch (name) {
+                    case "createStatement" -> proxy(Statement.class, (Statement) result, null);
+                    case "prepareStatement" -> proxy(PreparedStatement.class, (PreparedStatement) result,
+                            (String) args[0]);
+                    case "prepareCall" -> proxy(CallableStatement.class, (CallableStatement) result,
+                            (String) args[0]);
+                    default -> result;
+                };
+            }
+            if (name.startsWith("execute")) {
+                record(args != null && args.length > 0 && args[0] instanceof String text ? text : String.valueOf(sql));
+            }
+            return result;
+        }
+    }
+}
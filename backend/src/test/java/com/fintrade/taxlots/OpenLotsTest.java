@@ -0,0 +1,58 @@
+package com.fintrade.taxlots;
+
+import com.fintrade.entity.Transaction.LotMethod;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OpenLotsTest {
+
+    private final OpenLots lots = new OpenLots(4);
+    private final List<long[]> matches = new ArrayList<>();
+    private final OpenLots.MatchListener recorder = (lot, quantity, cost, proceeds) -> matches
+            .add(new long[] { lots.lotId(lot), quantity, cost, proceeds });
+
+    @Test
+    void fifoAndLifoSellFromOppositeEnds() {
+        lots.add(1, 100, 10, 1_000);
+        lots.add(2, 200, 10, 2_000);
+
+        assertEquals(0, lots.sell(15, 4_500, LotMethod.FIFO, null, null, recorder));
+        assertMatch(matches.get(0), 1, 10, 1_000, 3_000);
+        assertMatch(matches.get(1), 2, 5, 1_000, 1_500);
+
+        lots.add(3, 300, 10, 3_000);
+        matches.clear();
+        assertEquals(2, lots.sell(17, 1_700, LotMethod.LIFO, null, null, recorder));
+        assertMatch(matches.get(0), 3, 10, 3_000, 1_000);
+        assertMatch(matches.get(1), 2, 5, 1_000, 500);
+    }
+
+    @Test
+    void namedLotsGoFirstAndSplitsNeverLoseCost() {
+        for (int lot = 1; lot <= 3; lot++) {
+            lots.add(lot, lot, 3, 100);
+        }
+
+        lots.sell(2, 0, LotMethod.SPECIFIC, new long[] { 2 }, new long[] { 1 }, recorder);
+        assertMatch(matches.get(0), 2, 1, 33, 0);
+        assertMatch(matches.get(1), 1, 1, 33, 0);
+
+        matches.clear();
+        lots.sell(7, 0, LotMethod.FIFO, null, null, recorder);
+        long cost = matches.stream().mapToLong(match -> match[2]).sum();
+        assertEquals(300 - 66, cost);
+        assertEquals(0, lots.openQuantity(1) + lots.openQuantity(2) + lots.openQuantity(3));
+        assertEquals(OpenLots.share(Long.MAX_VALUE / 2, 4, 8), Long.MAX_VALUE / 4 + 1);
+    }
+
+    private static void assertMatch(long[] match, long lotId, long quantity, long cost, long proceeds) {
+        assertEquals(lotId, match[0]);
+        assertEquals(quantity, match[1]);
+        assertEquals(cost, match[2]);
+        assertEquals(proceeds, match[3]);
+    }
+}
@@ -0,0 +1,131 @@
+package com.fintrade.taxlots;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintrade.dto.RealizedGainsView;
+import com.fintrade.dto.TaxLotView;
+import com.fintrade.entity.User;
+import com.fintrade.service.PortfolioService;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static com.fintrade.support.QueryBudget.countQueries;
+import static com.fintrade.support.QueryBudget.queryBudget;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TaxLotServiceTest extends ApiTestSupport {
+
+    @Autowired
+    private TaxLotService taxLotService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Test
+    void sellsRealizeGainsAsTheyAreRecordedAndMatchARebuild() throws Exception {
+        User user = createUser(User.Role.USER);
+        create(user, "BUY", "10", "100.00", "1.00", "", status().isOk());
+        create(user, "BUY", "10", "120.00", "0", "", status().isOk());
+        hold(user, "20");
+        create(user, "SELL", "15", "150.00", "1.50", "", status().isOk());
+        create(user, "SELL", "2", "130.00", "0", ",\"lotMethod\":\"lifo\"", status().isOk());
+
+        RealizedGainsView recorded = taxLotService.getRealizedGains(user, LocalDate.EPOCH, today());
+        assertEquals(new BigDecimal("667.50"), recorded.getTotalGain());
+        assertEquals(3, recorded.getGains().size());
+        assertEquals(new BigDecimal("1001.00"), recorded.getGains().get(0).costBasis());
+        assertEquals(new BigDecimal("749.50"), recorded.getGains().get(1).proceeds());
+        assertEquals(new BigDecimal("240.00"), recorded.getGains().get(2).costBasis());
+
+        taxLotService.rebuild(user.getId());
+        RealizedGainsView rebuilt = taxLotService.getRealizedGains(user, LocalDate.EPOCH, today());
+        assertEquals(recorded.getGains(), rebuilt.getGains());
+        List<TaxLotView> open = taxLotService.getOpenLots(user, null);
+        assertEquals(1, open.size());
+        assertEquals(new BigDecimal("360.00"), open.get(0).getCostBasis());
+
+        mockMvc.perform(get("/api/portfolio/lots").with(countQueries())
+                .param("symbol", "LOTS")
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].remainingQuantity").value(3))
+                .andExpect(queryBudget(2));
+        mockMvc.perform(get("/api/transactions/realized-gains").with(countQueries())
+                .header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.shortTermGain").value(667.50))
+                .andExpect(queryBudget(2));
+    }
+
+    @Test
+    void specificSellsCloseTheNamedLotsAndKeepThemThroughEdits() throws Exception {
+        User user = createUser(User.Role.USER);
+        long first = create(user, "BUY", "5", "10.00", "0", "", status().isOk()).get("id").asLong();
+        long second = create(user, "BUY", "5", "20.00", "0", "", status().isOk()).get("id").asLong();
+        hold(user, "10");
+
+        create(user, "SELL", "4", "30.00", "0", specific(second, "6"), status().isBadRequest());
+        create(user, "SELL", "4", "30.00", "0", ",\"lots\":[{\"transactionId\":" + second + ",\"quantity\":4}]",
+                status().isBadRequest());
+        create(user, "SELL", "4", "30.00", "0",
+                ",\"lotMethod\":\"SPECIFIC\",\"lots\":[{\"transactionId\":" + second + ",\"quantity\":3},"
+                        + "{\"transactionId\":" + first + ",\"quantity\":1}]",
+                status().isOk());
+
+        mockMvc.perform(put("/api/transactions/update/" + first)
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"LOTS\",\"companyName\":\"Lots Inc.\",\"transactionType\":\"BUY\","
+                        + "\"quantity\":5,\"price\":12.00,\"commission\":0}"))
+                .andExpect(status().isOk());
+
+        RealizedGainsView gains = taxLotService.getRealizedGains(user, LocalDate.EPOCH, today());
+        assertEquals(2, gains.getGains().size());
+        assertEquals(second, gains.getGains().get(0).lotTransactionId());
+        assertEquals(first, gains.getGains().get(1).lotTransactionId());
+        assertEquals(new BigDecimal("72.00"), gains.getCostBasis());
+        assertEquals(new BigDecimal("48.00"), gains.getTotalGain());
+    }
+
+    private JsonNode create(User user, String type, String quantity, String price, String commission, String extra,
+            ResultMatcher expected) throws Exception {
+        String body = mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", bearer(user))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"LOTS\",\"companyName\":\"Lots Inc.\",\"transactionType\":\"" + type + "\","
+                        + "\"quantity\":\"" + quantity + "\",\"price\":\"" + price + "\",\"commission\":\""
+                        + commission + "\"" + extra + "}"))
+                .andExpect(expected)
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    /** Sells are checked against the holding, which bookings do not change by themselves. */
+    private void hold(User user, String quantity) {
+        portfolioService.addToPortfolio(user, "LOTS", "Lots Inc.", new BigDecimal(quantity), new BigDecimal("10.00"));
+    }
+
+    private static String specific(long lot, String quantity) {
+        return ",\"lotMethod\":\"SPECIFIC\",\"lots\":[{\"transactionId\":" + lot + ",\"quantity\":" + quantity + "}]";
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+}
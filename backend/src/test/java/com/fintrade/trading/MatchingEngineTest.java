@@ -0,0 +1,140 @@
+package com.fintrade.trading;
+
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.User;
+import com.fintrade.entity.UnsettledFill;
+import com.fintrade.repository.PortfolioRepository;
+import com.fintrade.repository.TransactionRepository;
+import com.fintrade.repository.UnsettledFillRepository;
+import com.fintrade.service.PortfolioService;
+import com.fintrade.support.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchingEngineTest extends ApiTestSupport {
+
+    @Autowired
+    private MatchingEngine matchingEngine;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private UnsettledFillRepository unsettledFillRepository;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Test
+    void fillsAreSettledAsTransactionsAndPositions() throws Exception {
+        User seller = createUser(User.Role.USER);
+        User buyer = createUser(User.Role.USER);
+        portfolioService.addToPortfolio(seller, "MTCH", "Match Corp.", new BigDecimal("3"), new BigDecimal("20.00"));
+
+        matchingEngine.submit(seller.getId(), "MTCH", "Match Corp.", OrderSide.SELL, OrderType.LIMIT, 2_550,
+                30_000).get();
+        OrderResult result = matchingEngine.submit(buyer.getId(), "MTCH", null, OrderSide.BUY, OrderType.MARKET, 0,
+                12_500).get();
+
+        assertEquals(OrderStatus.FILLED, result.status());
+        List<Transaction> bought = awaitTransactions(buyer);
+        assertEquals(Transaction.TransactionType.BUY, bought.get(0).getTransactionType());
+        assertEquals(0, new BigDecimal("25.50").compareTo(bought.get(0).getPrice()));
+        assertEquals(0, new BigDecimal("1.25").compareTo(bought.get(0).getQuantity()));
+        assertEquals("Match Corp.", bought.get(0).getCompanyName());
+        assertEquals(Transaction.TransactionType.SELL, awaitTransactions(seller).get(0).getTransactionType());
+        assertEquals(0, new BigDecimal("1.25").compareTo(
+                portfolioRepository.findByUserAndSymbol(buyer, "MTCH").orElseThrow().getQuantity()));
+        assertEquals(0, new BigDecimal("1.75").compareTo(
+                portfolioRepository.findByUserAndSymbol(seller, "MTCH").orElseThrow().getQuantity()));
+    }
+
+    @Test
+    void aSellOfMoreThanIsHeldIsKeptUnsettled() throws Exception {
+        User seller = createUser(User.Role.USER);
+        User buyer = createUser(User.Role.USER);
+        portfolioService.addToPortfolio(seller, "OVER", "Over Inc.", new BigDecimal("1"), new BigDecimal("10.00"));
+        // Submitted without the order check, so nothing reserved the seller's single share.
+        matchingEngine.submit(seller.getId(), "OVER", null, OrderSide.SELL, OrderType.LIMIT, 1_000, 20_000).get();
+        matchingEngine.submit(buyer.getId(), "OVER", null, OrderSide.BUY, OrderType.MARKET, 0, 20_000).get();
+
+        UnsettledFill kept = awaitUnsettled(buyer);
+        assertEquals(seller.getId(), kept.getSellUserId());
+        assertTrue(kept.getError().startsWith("cannot settle a sell of 2"));
+        assertEquals(0, BigDecimal.ONE.compareTo(
+                portfolioRepository.findByUserAndSymbol(seller, "OVER").orElseThrow().getQuantity()));
+    }
+
+    @Test
+    void aFillThatCannotBeBookedIsKeptWithoutCostingTheOthers() throws Exception {
+        User seller = createUser(User.Role.USER);
+        User buyer = createUser(User.Role.USER);
+        portfolioService.addToPortfolio(seller, "BOOKED", "Booked Inc.", new BigDecimal("1"), new BigDecimal("9.00"));
+        // Too long for the symbol column, so its fill cannot be booked.
+        matchingEngine.submit(seller.getId(), "UNBOOKABLE12", null, OrderSide.SELL, OrderType.LIMIT, 1_000,
+                10_000).get();
+        matchingEngine.submit(seller.getId(), "BOOKED", null, OrderSide.SELL, OrderType.LIMIT, 1_000, 10_000).get();
+
+        CompletableFuture<OrderResult> bad = matchingEngine.submit(buyer.getId(), "UNBOOKABLE12", null,
+                OrderSide.BUY, OrderType.MARKET, 0, 10_000);
+        CompletableFuture<OrderResult> good = matchingEngine.submit(buyer.getId(), "BOOKED", null, OrderSide.BUY,
+                OrderType.MARKET, 0, 10_000);
+        assertEquals(OrderStatus.FILLED, bad.get().status());
+        assertEquals(OrderStatus.FILLED, good.get().status());
+
+        List<Transaction> bought = awaitTransactions(buyer);
+        assertEquals(1, bought.size());
+        assertEquals("BOOKED", bought.get(0).getSymbol());
+        UnsettledFill kept = awaitUnsettled(buyer);
+        assertEquals("UNBOOKABLE12", kept.getSymbol());
+        assertEquals(seller.getId(), kept.getSellUserId());
+    }
+
+    @Test
+    void anOrderDoesNotTradeWithItsOwnUser() throws Exception {
+        User user = createUser(User.Role.USER);
+        matchingEngine.submit(user.getId(), "SELF", null, OrderSide.SELL, OrderType.LIMIT, 1_000, 10_000).get();
+
+        OrderResult result = matchingEngine.submit(user.getId(), "SELF", null, OrderSide.BUY, OrderType.LIMIT,
+                1_000, 10_000).get();
+
+        assertEquals(OrderStatus.CANCELLED, result.status());
+        assertEquals(0, result.filledQuantity());
+        assertEquals(1, matchingEngine.depth("SELF", 5).get().asks().size());
+        assertTrue(matchingEngine.depth("SELF", 5).get().bids().isEmpty());
+    }
+
+    private UnsettledFill awaitUnsettled(User buyer) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Optional<UnsettledFill> fill = unsettledFillRepository.findAll().stream()
+                    .filter(row -> row.getBuyUserId().equals(buyer.getId())).findFirst();
+            if (fill.isPresent()) {
+                return fill.get();
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Fill was not kept for " + buyer.getUsername());
+    }
+
+    private List<Transaction> awaitTransactions(User user) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            List<Transaction> transactions = transactionRepository.findByUserOrderByTransactionDateDesc(user);
+            if (!transactions.isEmpty()) {
+                return transactions;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Fills were not settled for " + user.getUsername());
+    }
+}
@@ -0,0 +1,94 @@
+package com.fintrade.trading;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderBookTest {
+
+    private final OrderBook book = new OrderBook("AAPL", "Apple Inc.");
+    private final List<long[]> fills = new ArrayList<>();
+    private final FillListener recorder = (takerOrderId, takerUserId, takerSide, makerOrderId, makerUserId, price,
+            quantity) -> fills.add(new long[] { makerOrderId, price, quantity });
+
+    @Test
+    void fillsBestPriceFirstThenOldestFirst() {
+        book.submit(1, 10, OrderSide.SELL, OrderType.LIMIT, 10_100, 5, recorder);
+        book.submit(2, 11, OrderSide.SELL, OrderType.LIMIT, 10_000, 5, recorder);
+        book.submit(3, 12, OrderSide.SELL, OrderType.LIMIT, 10_000, 5, recorder);
+
+        long remaining = book.submit(4, 20, OrderSide.BUY, OrderType.LIMIT, 10_100, 12, recorder);
+
+        assertEquals(0, remaining);
+        assertEquals(3, fills.size());
+        assertFill(fills.get(0), 2, 10_000, 5);
+        assertFill(fills.get(1), 3, 10_000, 5);
+        assertFill(fills.get(2), 1, 10_100, 2);
+        assertEquals(List.of(new BookLevel(10_100, 3, 1)), book.depth(OrderSide.SELL, 10));
+    }
+
+    @Test
+    void limitRemainderRestsAtItsPrice() {
+        book.submit(1, 10, OrderSide.SELL, OrderType.LIMIT, 10_000, 5, recorder);
+
+        long remaining = book.submit(2, 20, OrderSide.BUY, OrderType.LIMIT, 9_900, 8, recorder);
+
+        assertEquals(8, remaining);
+        assertTrue(fills.isEmpty());
+        assertEquals(List.of(new BookLevel(9_900, 8, 1)), book.depth(OrderSide.BUY, 10));
+        assertEquals(2, book.restingOrders());
+    }
+
+    @Test
+    void marketRemainderIsDropped() {
+        book.submit(1, 10, OrderSide.BUY, OrderType.LIMIT, 9_900, 5, recorder);
+
+        long remaining = book.submit(2, 20, OrderSide.SELL, OrderType.MARKET, 0, 8, recorder);
+
+        assertEquals(3, remaining);
+        assertFill(fills.get(0), 1, 9_900, 5);
+        assertEquals(0, book.restingOrders());
+    }
+
+    @Test
+    void orderStopsBeforeTradingWithItsOwnUser() {
+        book.submit(1, 10, OrderSide.SELL, OrderType.LIMIT, 10_000, 5, recorder);
+        book.submit(2, 20, OrderSide.SELL, OrderType.LIMIT, 10_000, 5, recorder);
+        book.submit(3, 11, OrderSide.SELL, OrderType.LIMIT, 10_100, 5, recorder);
+
+        long remaining = book.submit(4, 20, OrderSide.BUY, OrderType.LIMIT, 10_100, 12, recorder);
+
+        assertEquals(7, remaining);
+        assertEquals(1, fills.size());
+        assertFill(fills.get(0), 1, 10_000, 5);
+        // The remainder neither trades with order 2 nor rests against it.
+        assertTrue(book.depth(OrderSide.BUY, 10).isEmpty());
+        assertEquals(List.of(new BookLevel(10_000, 5, 1), new BookLevel(10_100, 5, 1)),
+                book.depth(OrderSide.SELL, 10));
+    }
+
+    @Test
+    void cancelOnlyRemovesTheOwnersOrder() {
+        book.submit(1, 10, OrderSide.BUY, OrderType.LIMIT, 9_900, 5, recorder);
+        book.submit(2, 10, OrderSide.BUY, OrderType.LIMIT, 9_900, 7, recorder);
+
+        assertFalse(book.cancel(1, 99));
+        assertTrue(book.cancel(1, 10));
+        assertFalse(book.cancel(1, 10));
+        assertEquals(List.of(new BookLevel(9_900, 7, 1)), book.depth(OrderSide.BUY, 10));
+
+        assertTrue(book.cancel(2, 10));
+        assertTrue(book.depth(OrderSide.BUY, 10).isEmpty());
+    }
+
+    private static void assertFill(long[] fill, long makerOrderId, long price, long quantity) {
+        assertEquals(makerOrderId, fill[0]);
+        assertEquals(price, fill[1]);
+        assertEquals(quantity, fill[2]);
+    }
+}
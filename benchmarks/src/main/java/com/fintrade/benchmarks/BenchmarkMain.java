@@ -0,0 +1,26 @@
+package com.fintrade.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Runs JMH with the GC profiler attached, so
+ * every result carries its allocation rate ({@code gc.alloc.rate.norm} is bytes per
+ * operation) next to the score. Passing any {@code -prof} replaces the default.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = Arrays.asList(args);
+        if (!jmhArgs.contains("-prof")) {
+            String[] withGc = Arrays.copyOf(args, args.length + 2);
+            withGc[args.length] = "-prof";
+            withGc[args.length + 1] = "gc";
+            args = withGc;
+        }
+        org.openjdk.jmh.Main.main(args);
+    }
+}
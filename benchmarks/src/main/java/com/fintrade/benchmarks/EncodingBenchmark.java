@@ -0,0 +1,85 @@
+package com.fintrade.benchmarks;
+
+import com.fintrade.dto.PortfolioView;
+import com.fintrade.dto.TransactionView;
+import com.fintrade.web.ProtobufRowWriters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode CPU per response for the negotiated formats. Bytes on the wire for the
+ * same payloads are printed by {@link EncodingSizeReport}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({ "TYPICAL", "LARGE" })
+    public SampleViews.Size size;
+
+    private List<PortfolioView> portfolios;
+    private List<TransactionView> transactions;
+
+    @Setup
+    public void setUp() {
+        portfolios = SampleViews.portfolios(size);
+        transactions = SampleViews.transactions(size);
+    }
+
+    @Benchmark
+    public byte[] portfoliosJson() throws IOException {
+        return ViewEncoders.json(portfolios);
+    }
+
+    @Benchmark
+    public byte[] portfoliosJsonGzip() throws IOException {
+        return ViewEncoders.gzip(ViewEncoders.json(portfolios));
+    }
+
+    @Benchmark
+    public byte[] portfoliosCbor() throws IOException {
+        return ViewEncoders.cbor(portfolios);
+    }
+
+    @Benchmark
+    public byte[] portfoliosProtobuf() throws IOException {
+        return ViewEncoders.protobuf(portfolios, ProtobufRowWriters.PORTFOLIO);
+    }
+
+    @Benchmark
+    public byte[] transactionsJson() throws IOException {
+        return ViewEncoders.json(transactions);
+    }
+
+    @Benchmark
+    public byte[] transactionsJsonGzip() throws IOException {
+        return ViewEncoders.gzip(ViewEncoders.json(transactions));
+    }
+
+    @Benchmark
+    public byte[] transactionsCbor() throws IOException {
+        return ViewEncoders.cbor(transactions);
+    }
+
+    @Benchmark
+    public byte[] transactionsProtobuf() throws IOException {
+        return ViewEncoders.protobuf(transactions, ProtobufRowWriters.TRANSACTION);
+    }
+}
@@ -0,0 +1,40 @@
+package com.fintrade.benchmarks;
+
+import com.fintrade.dto.PortfolioView;
+import com.fintrade.dto.TransactionView;
+import com.fintrade.web.ProtobufRowWriters;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Prints the response size of each format, raw and gzipped, for the payloads used
+ * by {@link EncodingBenchmark}.
+ */
+public final class EncodingSizeReport {
+
+    private EncodingSizeReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.printf("%-8s %-13s %-9s %12s %12s%n", "size", "payload", "format", "bytes", "gzip bytes");
+        for (SampleViews.Size size : SampleViews.Size.values()) {
+            List<PortfolioView> portfolios = SampleViews.portfolios(size);
+            List<TransactionView> transactions = SampleViews.transactions(size);
+
+            print(size, "portfolios", "json", ViewEncoders.json(portfolios));
+            print(size, "portfolios", "cbor", ViewEncoders.cbor(portfolios));
+            print(size, "portfolios", "protobuf", ViewEncoders.protobuf(portfolios, ProtobufRowWriters.PORTFOLIO));
+            print(size, "transactions", "json", ViewEncoders.json(transactions));
+            print(size, "transactions", "cbor", ViewEncoders.cbor(transactions));
+            print(size, "transactions", "protobuf",
+                    ViewEncoders.protobuf(transactions, ProtobufRowWriters.TRANSACTION));
+        }
+    }
+
+    private static void print(SampleViews.Size size, String payload, String format, byte[] body)
+            throws IOException {
+        System.out.printf("%-8s %-13s %-9s %12d %12d%n", size, payload, format, body.length,
+                ViewEncoders.gzip(body).length);
+    }
+}
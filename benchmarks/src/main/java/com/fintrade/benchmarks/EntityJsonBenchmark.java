@@ -0,0 +1,73 @@
+package com.fintrade.benchmarks;
+
+import com.fintrade.entity.Portfolio;
+import com.fintrade.entity.SampleEntities;
+import com.fintrade.entity.Transaction;
+import com.fintrade.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialisation of the {@code Portfolio} and {@code Transaction} entities, as
+ * returned by the add/remove and create endpoints and by any list still built from
+ * entities rather than views. Compare with {@link EncodingBenchmark} for the views.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityJsonBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Holdings {
+
+        @Param({ "10", "100", "1000" })
+        public int holdingsPerUser;
+
+        List<Portfolio> portfolios;
+
+        @Setup
+        public void setUp() {
+            portfolios = SampleEntities.portfolios(SampleEntities.user(), holdingsPerUser);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Page {
+
+        @Param({ "20", "100", "500" })
+        public int transactionsPerPage;
+
+        List<Transaction> transactions;
+
+        @Setup
+        public void setUp() {
+            User user = SampleEntities.user();
+            transactions = SampleEntities.transactions(user, transactionsPerPage, 50);
+        }
+    }
+
+    @Benchmark
+    public byte[] portfolios(Holdings holdings) throws IOException {
+        return ViewEncoders.json(holdings.portfolios);
+    }
+
+    @Benchmark
+    public byte[] transactions(Page page) throws IOException {
+        return ViewEncoders.json(page.transactions);
+    }
+}
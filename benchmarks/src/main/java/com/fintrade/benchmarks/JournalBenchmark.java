@@ -0,0 +1,81 @@
+package com.fintrade.benchmarks;
+
+import com.fintrade.journal.Journal;
+import com.fintrade.journal.JournalEntryType;
+import com.fintrade.journal.JournalListener;
+import com.fintrade.journal.JournalRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Appending one booking to the trade journal, and replaying a journal of {@code entries}
+ * bookings into a listener that sums them, as a cache rebuilding at startup would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+    private static final int SEGMENT_ENTRIES = 1 << 20;
+
+    @Param({ "1000000" })
+    public int entries;
+
+    private Path directory;
+    private Journal journal;
+    private long checksum;
+    private final JournalListener sink = entry -> checksum += entry.quantity() * entry.price();
+    private final JournalRecord booking = new JournalRecord(JournalEntryType.TRANSACTION_BOOKED,
+            1_700_000_000_000L, 1, 42, JournalRecord.BUY, 10_000, 15_025, 0, "ACME");
+
+    @Setup(Level.Trial)
+    public void writeJournal() throws IOException {
+        directory = Files.createTempDirectory("journal-bench");
+        journal = Journal.open(directory, SEGMENT_ENTRIES);
+        for (int i = 0; i < entries; i++) {
+            journal.append(booking);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteJournal() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long append() {
+        return journal.append(booking);
+    }
+
+    /** Every entry written at setup, read in place with its checksum verified. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long replay() {
+        journal.replay(1, sink);
+        return checksum;
+    }
+}
@@ -0,0 +1,120 @@
+package com.fintrade.benchmarks;
+
+import com.fintrade.trading.FillListener;
+import com.fintrade.trading.OrderBook;
+import com.fintrade.trading.OrderSide;
+import com.fintrade.trading.OrderType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-thread matching throughput, one operation per order event. The event mix is
+ * roughly what an active symbol sees: mostly passive limit orders near the touch, about
+ * as many cancels, and marketable limit and market orders that take liquidity. Cancels
+ * walk the order ids oldest first but leave the newest {@value #LIVE_ORDERS} alone, so the
+ * book stays at a realistic depth. The matcher thread in {@code MatchingEngine} runs
+ * exactly this loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    private static final int EVENTS = 1 << 20;
+    private static final long MID = 10_000;
+    private static final int USERS = 1024;
+    private static final int LIVE_ORDERS = 2_000;
+
+    private static final byte LIMIT = 0;
+    private static final byte CANCEL = 1;
+    private static final byte MARKET = 2;
+
+    private final byte[] kinds = new byte[EVENTS];
+    private final boolean[] buys = new boolean[EVENTS];
+    private final long[] prices = new long[EVENTS];
+    private final long[] quantities = new long[EVENTS];
+
+    private OrderBook book;
+    private long nextOrderId;
+    private long cancelCursor;
+    private int cursor;
+    private long filled;
+    private final FillListener listener = (takerOrderId, takerUserId, takerSide, makerOrderId, makerUserId, price,
+            quantity) -> filled += quantity;
+
+    @Setup
+    public void generate() {
+        Random random = new Random(11);
+        for (int i = 0; i < EVENTS; i++) {
+            double kind = random.nextDouble();
+            boolean buy = random.nextBoolean();
+            buys[i] = buy;
+            quantities[i] = (1 + random.nextInt(100)) * 100L;
+            if (kind < 0.40) {
+                kinds[i] = LIMIT;
+                // Four in five rest behind the touch, the rest cross by up to five ticks.
+                long offset = random.nextInt(5) < 4 ? -(1 + random.nextInt(20)) : random.nextInt(6);
+                prices[i] = buy ? MID + offset : MID - offset;
+            } else if (kind < 0.92) {
+                kinds[i] = CANCEL;
+            } else {
+                kinds[i] = MARKET;
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetBook() {
+        book = new OrderBook("BNCH", "Benchmark Corp.");
+        nextOrderId = 0;
+        cancelCursor = 0;
+        cursor = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkBook() {
+        if (book.restingOrders() > 10 * LIVE_ORDERS) {
+            throw new IllegalStateException("Book grew to " + book.restingOrders() + " orders, the mix is unbalanced");
+        }
+    }
+
+    @Benchmark
+    public long processEvent() {
+        int i = cursor++ & (EVENTS - 1);
+        OrderSide side = buys[i] ? OrderSide.BUY : OrderSide.SELL;
+        switch (kinds[i]) {
+            case LIMIT: {
+                long orderId = ++nextOrderId;
+                return book.submit(orderId, orderId % USERS, side, OrderType.LIMIT, prices[i], quantities[i],
+                        listener);
+            }
+            case MARKET: {
+                long orderId = ++nextOrderId;
+                return book.submit(orderId, orderId % USERS, side, OrderType.MARKET, 0, quantities[i], listener);
+            }
+            default: {
+                if (cancelCursor >= nextOrderId - LIVE_ORDERS) {
+                    return 0;
+                }
+                long target = ++cancelCursor;
+                return book.cancel(target, target % USERS) ? 1 : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.fintrade.benchmarks;
+
+import com.fintrade.pricehistory.Bar;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import com.fintrade.pricehistory.Resolution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Range reads over ten years of minute bars (about a million, one trade per minute of
+ * every weekday's 6.5-hour session), and the cost of recording one trade. Reads start at
+ * a random day of the history, so they cover cold and hot pages alike once the files are
+ * bigger than the page cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceHistoryBenchmark {
+
+    private static final String SYMBOL = "BNCH";
+    private static final long MINUTE = Resolution.MINUTE.getMillis();
+    private static final long DAY = Resolution.DAY.getMillis();
+    private static final long START = Instant.parse("2015-01-05T14:30:00Z").toEpochMilli();
+    private static final int YEARS = 10;
+    private static final int SESSION_MINUTES = 390;
+
+    private Path directory;
+    private PriceHistoryStore store;
+    private int tradingDays;
+    private final Random random = new Random(3);
+    private long checksum;
+    private final Consumer<Bar> sink = bar -> checksum += bar.getClose();
+
+    private long nextTrade;
+
+    @Setup(Level.Trial)
+    public void writeHistory() throws IOException {
+        directory = Files.createTempDirectory("price-history-bench");
+        store = new PriceHistoryStore(directory.toString());
+        Random prices = new Random(7);
+        long price = 10_000;
+        for (long day = START; day < START + YEARS * 365 * DAY; day += DAY) {
+            int weekday = (int) Math.floorMod(day / DAY + 3, 7); // 0 = Monday
+            if (weekday >= 5) {
+                continue;
+            }
+            for (int minute = 0; minute < SESSION_MINUTES; minute++) {
+                price = Math.max(100, price + prices.nextInt(21) - 10);
+                store.record(SYMBOL, day + minute * MINUTE, price, 100L * (1 + prices.nextInt(50)));
+            }
+            tradingDays++;
+        }
+        nextTrade = START + YEARS * 365 * DAY;
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteHistory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /** One session of minute bars, as a day chart asks for. */
+    @Benchmark
+    public long readDayOfMinutes() {
+        long from = randomDay();
+        store.read(SYMBOL, Resolution.MINUTE, from, from + DAY, 100_000, sink);
+        return checksum;
+    }
+
+    /** A month of minute bars, about 8,000 rows. */
+    @Benchmark
+    public long readMonthOfMinutes() {
+        long from = randomDay();
+        store.read(SYMBOL, Resolution.MINUTE, from, from + 30 * DAY, 100_000, sink);
+        return checksum;
+    }
+
+    /** The whole ten years as daily bars, about 2,600 rows. */
+    @Benchmark
+    public long readDecadeOfDays() {
+        store.read(SYMBOL, Resolution.DAY, 0, Long.MAX_VALUE, 100_000, sink);
+        return checksum;
+    }
+
+    /** One trade folded into the current minute, hour and day bars, a new minute every 60. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long recordTrade() {
+        nextTrade += 1_000;
+        store.record(SYMBOL, nextTrade, 10_000 + (nextTrade & 63), 100);
+        return nextTrade;
+    }
+
+    private long randomDay() {
+        return START + (long) random.nextInt(tradingDays * 7 / 5) * DAY;
+    }
+}
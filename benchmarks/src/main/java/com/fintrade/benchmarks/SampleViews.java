@@ -0,0 +1,98 @@
+package com.fintrade.benchmarks;
+
+import com.fintrade.dto.PortfolioView;
+import com.fintrade.dto.TransactionView;
+import com.fintrade.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic view rows shaped like production data: four-decimal quantities,
+ * two-decimal prices and a mix of empty and filled notes.
+ */
+public final class SampleViews {
+
+    public enum Size {
+        TYPICAL(25, 250),
+        LARGE(500, 50_000);
+
+        final int holdings;
+        final int transactions;
+
+        Size(int holdings, int transactions) {
+            this.holdings = holdings;
+            this.transactions = transactions;
+        }
+    }
+
+    private static final String[] NOTES = {
+            null,
+            "Monthly DCA",
+            "Rebalance after earnings; trimmed position back to target weight of 4%",
+    };
+
+    private SampleViews() {
+    }
+
+    public static List<PortfolioView> portfolios(Size size) {
+        return portfolios(size.holdings);
+    }
+
+    public static List<PortfolioView> portfolios(int holdings) {
+        Random random = new Random(42);
+        List<PortfolioView> rows = new ArrayList<>(holdings);
+        for (int i = 0; i < holdings; i++) {
+            BigDecimal quantity = decimal(random, 1, 5_000, 4);
+            BigDecimal averagePrice = decimal(random, 5, 900, 2);
+            BigDecimal currentPrice = decimal(random, 5, 900, 2);
+            BigDecimal totalValue = quantity.multiply(currentPrice).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal totalCost = quantity.multiply(averagePrice).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal profitLoss = totalValue.subtract(totalCost);
+            BigDecimal percentage = profitLoss.multiply(BigDecimal.valueOf(100))
+                    .divide(totalCost, 2, RoundingMode.HALF_UP);
+            rows.add(new PortfolioView((long) i + 1, symbol(i), "Company " + symbol(i) + " Holdings Inc.",
+                    quantity, averagePrice, currentPrice, totalValue, totalCost, profitLoss, percentage));
+        }
+        return rows;
+    }
+
+    public static List<TransactionView> transactions(Size size) {
+        return transactions(size.transactions, size.holdings);
+    }
+
+    public static List<TransactionView> transactions(int count, int holdings) {
+        Random random = new Random(7);
+        LocalDateTime start = LocalDateTime.of(2020, 1, 2, 9, 30);
+        List<TransactionView> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String symbol = symbol(random.nextInt(holdings));
+            BigDecimal quantity = decimal(random, 1, 500, 4);
+            BigDecimal price = decimal(random, 5, 900, 2);
+            BigDecimal commission = decimal(random, 0, 10, 2);
+            rows.add(new TransactionView((long) i + 1, symbol, "Company " + symbol + " Holdings Inc.",
+                    random.nextInt(3) == 0 ? Transaction.TransactionType.SELL : Transaction.TransactionType.BUY,
+                    quantity, price, quantity.multiply(price).setScale(2, RoundingMode.HALF_UP), commission,
+                    NOTES[random.nextInt(NOTES.length)], start.plusMinutes(37L * i)));
+        }
+        return rows;
+    }
+
+    private static String symbol(int index) {
+        StringBuilder symbol = new StringBuilder();
+        int value = index;
+        do {
+            symbol.append((char) ('A' + value % 26));
+            value /= 26;
+        } while (value > 0 && symbol.length() < 4);
+        return symbol.append("XQ").toString();
+    }
+
+    private static BigDecimal decimal(Random random, int min, int max, int scale) {
+        return BigDecimal.valueOf(min + random.nextDouble() * (max - min)).setScale(scale, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,60 @@
+package com.fintrade.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fintrade.web.ProtobufRowWriter;
+import com.fintrade.web.ProtobufRowWriters;
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The encoders the web layer uses, configured the way Spring Boot configures them.
+ */
+final class ViewEncoders {
+
+    static final ObjectMapper JSON = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    static final ObjectMapper CBOR = Jackson2ObjectMapperBuilder.json()
+            .factory(new CBORFactory())
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private ViewEncoders() {
+    }
+
+    static byte[] json(Object value) throws IOException {
+        return JSON.writeValueAsBytes(value);
+    }
+
+    static byte[] cbor(Object value) throws IOException {
+        return CBOR.writeValueAsBytes(value);
+    }
+
+    static <T> byte[] protobuf(List<T> rows, ProtobufRowWriter<T> rowWriter) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(out);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        for (T row : rows) {
+            ProtobufRowWriters.writeRepeated(output, buffer, rowWriter, row);
+        }
+        output.flush();
+        return out.toByteArray();
+    }
+
+    // Same stream and default level Tomcat uses for server.compression.
+    static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,63 @@
+package com.fintrade.entity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revaluing a user's whole book: a new current price per holding followed by the
+ * {@code @PreUpdate} callback, which recomputes value, cost and profit/loss.
+ * Lives in the entity package because the callback is protected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortfolioValuationBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int holdingsPerUser;
+
+    private List<Portfolio> portfolios;
+    private BigDecimal[][] ticks;
+    private int tick;
+
+    @Setup
+    public void setUp() {
+        portfolios = SampleEntities.portfolios(SampleEntities.user(), holdingsPerUser);
+        // Two prices per holding, a cent either side of the current one, so values never drift.
+        ticks = new BigDecimal[2][holdingsPerUser];
+        for (int i = 0; i < holdingsPerUser; i++) {
+            BigDecimal price = portfolios.get(i).getCurrentPrice();
+            ticks[0][i] = price.add(new BigDecimal("0.01")).setScale(2, RoundingMode.HALF_UP);
+            ticks[1][i] = price.subtract(new BigDecimal("0.01")).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+
+    @Benchmark
+    public void revalue(Blackhole blackhole) {
+        BigDecimal[] prices = ticks[tick++ & 1];
+        for (int i = 0; i < prices.length; i++) {
+            Portfolio portfolio = portfolios.get(i);
+            portfolio.setCurrentPrice(prices[i]);
+            portfolio.onUpdate();
+            blackhole.consume(portfolio.getProfitLossPercentage());
+        }
+    }
+}
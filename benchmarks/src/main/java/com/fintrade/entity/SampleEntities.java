@@ -0,0 +1,50 @@
+package com.fintrade.entity;
+
+import com.fintrade.benchmarks.SampleViews;
+import com.fintrade.dto.PortfolioView;
+import com.fintrade.dto.TransactionView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entities built from {@link SampleViews} rows and run through their {@code @PrePersist}
+ * callbacks, so derived totals and timestamps look like rows loaded from the database.
+ */
+public final class SampleEntities {
+
+    private SampleEntities() {
+    }
+
+    public static User user() {
+        User user = new User("bench-user", "bench@fintrade.test", "password123", "Bench", "User");
+        user.setId(1L);
+        return user;
+    }
+
+    public static List<Portfolio> portfolios(User user, int holdings) {
+        List<Portfolio> rows = new ArrayList<>(holdings);
+        for (PortfolioView view : SampleViews.portfolios(holdings)) {
+            Portfolio portfolio = new Portfolio(view.getSymbol(), view.getCompanyName(), view.getQuantity(),
+                    view.getAveragePrice(), view.getCurrentPrice(), user);
+            portfolio.setId(view.getId());
+            portfolio.onCreate();
+            rows.add(portfolio);
+        }
+        return rows;
+    }
+
+    public static List<Transaction> transactions(User user, int count, int holdings) {
+        List<Transaction> rows = new ArrayList<>(count);
+        for (TransactionView view : SampleViews.transactions(count, holdings)) {
+            Transaction transaction = new Transaction(view.getSymbol(), view.getCompanyName(),
+                    view.getTransactionType(), view.getQuantity(), view.getPrice(), view.getCommission(),
+                    view.getNotesPreview(), user);
+            transaction.setId(view.getId());
+            transaction.setTransactionDate(view.getTransactionDate());
+            transaction.onCreate();
+            rows.add(transaction);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,93 @@
+package com.fintrade.performance;
+
+import com.fintrade.entity.Transaction;
+import com.fintrade.pricehistory.PriceHistoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The in-memory part of recomputing one user's NAV history from scratch: ten years of
+ * days, a buy in a random holding every week, every holding valued at every close. Users
+ * times this score, divided by {@code performance.parallelism}, bounds the CPU side of a
+ * full recompute; the database reads and batch inserts come on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavWalkBenchmark {
+
+    private static final LocalDate FIRST = LocalDate.of(2015, 1, 1);
+    private static final LocalDate LAST = FIRST.plusYears(10).minusDays(1);
+
+    @Param({ "10", "50" })
+    public int holdingsPerUser;
+
+    private Path directory;
+    private DailyCloses closes;
+    private List<NavTrade> trades;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("nav-bench");
+        PriceHistoryStore store = new PriceHistoryStore(directory.toString());
+        Random random = new Random(5);
+        for (int s = 0; s < holdingsPerUser; s++) {
+            long price = 5_000 + random.nextInt(20_000);
+            for (LocalDate day = FIRST; !day.isAfter(LAST); day = day.plusDays(1)) {
+                price = Math.max(100, price + random.nextInt(201) - 100);
+                store.record(symbol(s), day.atTime(20, 0).toInstant(ZoneOffset.UTC).toEpochMilli(), price, 100);
+            }
+        }
+        closes = new DailyCloses(store);
+
+        trades = new ArrayList<>();
+        for (LocalDate day = FIRST; !day.isAfter(LAST); day = day.plusWeeks(1)) {
+            trades.add(new NavTrade(null, symbol(random.nextInt(holdingsPerUser)), Transaction.TransactionType.BUY,
+                    BigDecimal.TEN, new BigDecimal("50.00"), BigDecimal.ZERO, day.atTime(15, 0)));
+        }
+        // Loads every series up front, as the first users of a run would.
+        new NavCalculator().walk(FIRST, LAST, trades, closes);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<NavPoint> walkTenYears() {
+        return new NavCalculator().walk(FIRST, LAST, trades, closes);
+    }
+
+    private static String symbol(int index) {
+        return "S" + index;
+    }
+}
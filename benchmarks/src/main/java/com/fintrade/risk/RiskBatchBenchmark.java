@@ -0,0 +1,91 @@
+package com.fintrade.risk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The nightly risk run without the database: {@code portfolios} portfolios of 5 to 40
+ * holdings drawn from 500 symbols, against three years (756 days) of daily returns. The
+ * whole-book score is the CPU time of the nightly run; {@code onePortfolio} is the cost
+ * of answering a request on the spot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RiskBatchBenchmark {
+
+    private static final int SYMBOLS = 500;
+    private static final int DAYS = 756;
+
+    @Param({ "100000" })
+    public int portfolios;
+
+    private ReturnMatrix matrix;
+    private HoldingsBook book;
+    private RiskCalculator calculator;
+    private int[] sampleSymbols;
+    private double[] sampleValues;
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(17);
+        String[] symbols = new String[SYMBOLS];
+        double[] returns = new double[SYMBOLS * DAYS];
+        for (int s = 0; s < SYMBOLS; s++) {
+            symbols[s] = "S" + s;
+            double beta = 0.5 + random.nextDouble();
+            for (int d = 0; d < DAYS; d++) {
+                // Symbol 0 is the market; the rest follow it with their own noise.
+                double market = s == 0 ? random.nextGaussian() * 0.01 : returns[d];
+                returns[s * DAYS + d] = s == 0 ? market : beta * market + random.nextGaussian() * 0.015;
+            }
+        }
+        matrix = new ReturnMatrix(LocalDate.of(2024, 12, 31), DAYS, symbols, returns);
+
+        HoldingsBook.Builder builder = new HoldingsBook.Builder();
+        for (int u = 0; u < portfolios; u++) {
+            int holdings = 5 + random.nextInt(36);
+            for (int h = 0; h < holdings; h++) {
+                builder.add(u, symbols[1 + random.nextInt(SYMBOLS - 1)], 1_000 + random.nextInt(50_000));
+            }
+        }
+        builder.symbol(symbols[0]);
+        book = builder.build();
+
+        calculator = new RiskCalculator(matrix, 0);
+        sampleSymbols = new int[20];
+        sampleValues = new double[20];
+        for (int h = 0; h < 20; h++) {
+            sampleSymbols[h] = 1 + random.nextInt(SYMBOLS - 1);
+            sampleValues[h] = 1_000 + random.nextInt(50_000);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public RiskFigures[] wholeBook() {
+        return RiskBatch.compute(book, matrix, matrix.indexOf("S0"), parallelism);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public RiskFigures onePortfolio() {
+        return calculator.compute(sampleSymbols, sampleValues, 0, sampleSymbols.length);
+    }
+}
@@ -0,0 +1,61 @@
+package com.fintrade.service;
+
+import com.fintrade.entity.Portfolio;
+import com.fintrade.entity.SampleEntities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The average-price arithmetic of {@code PortfolioService.addToPortfolio} for a buy
+ * into every holding of a user, without the repository round trips around it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortfolioBuyBenchmark {
+
+    private static final BigDecimal QUANTITY = new BigDecimal("1.2500");
+
+    @Param({ "10", "100", "1000" })
+    public int holdingsPerUser;
+
+    private List<Portfolio> portfolios;
+    private BigDecimal[] prices;
+
+    // Quantities only grow, so start every iteration from the same book.
+    @Setup(Level.Iteration)
+    public void setUp() {
+        portfolios = SampleEntities.portfolios(SampleEntities.user(), holdingsPerUser);
+        prices = new BigDecimal[holdingsPerUser];
+        for (int i = 0; i < holdingsPerUser; i++) {
+            prices[i] = portfolios.get(i).getCurrentPrice();
+        }
+    }
+
+    @Benchmark
+    public void buyIntoEveryHolding(Blackhole blackhole) {
+        for (int i = 0; i < prices.length; i++) {
+            Portfolio portfolio = portfolios.get(i);
+            PortfolioService.applyBuy(portfolio, QUANTITY, prices[i]);
+            blackhole.consume(portfolio.getAveragePrice());
+        }
+    }
+}
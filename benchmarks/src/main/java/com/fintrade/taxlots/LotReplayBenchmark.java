@@ -0,0 +1,85 @@
+package com.fintrade.taxlots;
+
+import com.fintrade.entity.Transaction.LotMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory part of rebuilding one user's tax lots: 100k trades over 20 symbols, six
+ * buys to four sells, each sell spanning a few lots. The database read and the batch
+ * inserts of the resulting lot and gain rows come on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LotReplayBenchmark {
+
+    private static final int TRADES = 100_000;
+    private static final int SYMBOLS = 20;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    @Param({ "FIFO", "LIFO" })
+    public LotMethod method;
+
+    private String[] symbols;
+    private boolean[] buys;
+    private int[] symbolIndexes;
+    private long[] quantities;
+    private long[] amounts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(9);
+        symbols = new String[SYMBOLS];
+        for (int s = 0; s < SYMBOLS; s++) {
+            symbols[s] = "S" + s;
+        }
+        buys = new boolean[TRADES];
+        symbolIndexes = new int[TRADES];
+        quantities = new long[TRADES];
+        amounts = new long[TRADES];
+        long[] held = new long[SYMBOLS];
+        for (int t = 0; t < TRADES; t++) {
+            int s = random.nextInt(SYMBOLS);
+            long price = 5_000 + random.nextInt(20_000);
+            boolean buy = held[s] == 0 || random.nextInt(10) < 6;
+            long quantity = buy ? (1 + random.nextInt(100)) * 10_000L
+                    : Math.min(held[s], (1 + random.nextInt(200)) * 10_000L);
+            held[s] += buy ? quantity : -quantity;
+            buys[t] = buy;
+            symbolIndexes[t] = s;
+            quantities[t] = quantity;
+            amounts[t] = quantity * price;
+        }
+    }
+
+    @Benchmark
+    public LotReplay replayOneUser() {
+        LotReplay replay = new LotReplay(method);
+        for (int t = 0; t < TRADES; t++) {
+            if (buys[t]) {
+                replay.buy(symbols[symbolIndexes[t]], t, t * DAY_MILLIS / 40, quantities[t], amounts[t]);
+            } else {
+                replay.sell(symbols[symbolIndexes[t]], t, t * DAY_MILLIS / 40, quantities[t], amounts[t], null, null,
+                        null);
+            }
+        }
+        replay.finish();
+        return replay;
+    }
+}
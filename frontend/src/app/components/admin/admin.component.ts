@@ -1,7 +1,8 @@
-import { Component, OnInit } from "@angular/core";
+import { Component, OnDestroy, OnInit } from "@angular/core";
 import { CommonModule } from "@angular/common";
+import { Subject, Subscription, debounceTime, distinctUntilChanged } from "rxjs";
 import { AdminService } from "../../services/admin.service";
-import { User } from "../../models/user.model";
+import { User, UserSort } from "../../models/user.model";
 
 @Component({
   selector: "app-admin",
@@ -26,9 +27,38 @@ import { User } from "../../models/user.model";
               class="card-header d-flex justify-content-between align-items-center"
             >
               <h5 class="mb-0"><i class="fas fa-users me-2"></i>All Users</h5>
-              <button class="btn btn-outline-secondary" (click)="loadUsers()">
-                <i class="fas fa-sync-alt me-1"></i>Refresh
-              </button>
+              <div class="d-flex gap-2">
+                <input
+                  type="search"
+                  class="form-control"
+                  placeholder="Username, email or name starts with..."
+                  (input)="search$.next($any($event.target).value)"
+                />
+                <select
+                  class="form-select"
+                  (change)="changeSort($any($event.target).value)"
+                >
+                  <option value="ID">ID</option>
+                  <option value="USERNAME">Username</option>
+                  <option value="EMAIL">Email</option>
+                  <option value="NAME">Last name</option>
+                  <option value="CREATED">Created</option>
+                </select>
+                <button
+                  class="btn btn-outline-secondary"
+                  (click)="toggleDirection()"
+                  [title]="direction === 'asc' ? 'Ascending' : 'Descending'"
+                >
+                  <i
+                    class="fas"
+                    [class.fa-sort-amount-up]="direction === 'asc'"
+                    [class.fa-sort-amount-down]="direction === 'desc'"
+                  ></i>
+                </button>
+                <button class="btn btn-outline-secondary" (click)="loadUsers()">
+                  <i class="fas fa-sync-alt me-1"></i>Refresh
+                </button>
+              </div>
             </div>
             <div class="card-body">
               <div *ngIf="isLoading" class="text-center py-4">
@@ -108,7 +138,15 @@ import { User } from "../../models/user.model";
                     </tr>
                   </tbody>
                 </table>
-              </div>
+                <div *ngIf="nextCursor" class="text-center">
+                  <button
+                    class="btn btn-outline-primary"
+                    (click)="loadMore()"
+                    [disabled]="isLoadingMore"
+                  >
+                    {{ isLoadingMore ? "Loading..." : "Load more" }}
+                  </button>
+                </div>
             </div>
           </div>
         </div>
@@ -131,28 +169,92 @@ import { User } from "../../models/user.model";
     `,
   ],
 })
-export class AdminComponent implements OnInit {
+export class AdminComponent implements OnInit, OnDestroy {
+  private static readonly PAGE_SIZE = 50;
+
   users: User[] = [];
   isLoading = false;
+  isLoadingMore = false;
+  nextCursor: string | null = null;
+  query = "";
+  sort: UserSort = "ID";
+  direction: "asc" | "desc" = "asc";
+  readonly search$ = new Subject<string>();
+  private searchSubscription?: Subscription;
 
   constructor(private adminService: AdminService) {}
 
   ngOnInit(): void {
+    this.searchSubscription = this.search$
+      .pipe(debounceTime(300), distinctUntilChanged())
+      .subscribe((query) => {
+        this.query = query.trim();
+        this.loadUsers();
+      });
+    this.loadUsers();
+  }
+
+  ngOnDestroy(): void {
+    this.searchSubscription?.unsubscribe();
+  }
+
+  changeSort(sort: UserSort): void {
+    this.sort = sort;
+    this.loadUsers();
+  }
+
+  toggleDirection(): void {
+    this.direction = this.direction === "asc" ? "desc" : "asc";
     this.loadUsers();
   }
 
+  /** Reloads from the first page with the current search and sort. */
   loadUsers(): void {
     this.isLoading = true;
-    this.adminService.getAllUsers().subscribe({
-      next: (users) => {
-        this.users = users;
-        this.isLoading = false;
-      },
-      error: (error) => {
-        console.error("Error loading users:", error);
-        this.isLoading = false;
-      },
-    });
+    this.adminService
+      .getUsers({
+        q: this.query,
+        sort: this.sort,
+        direction: this.direction,
+        limit: AdminComponent.PAGE_SIZE,
+      })
+      .subscribe({
+        next: (page) => {
+          this.users = page.items;
+          this.nextCursor = page.nextCursor;
+          this.isLoading = false;
+        },
+        error: (error) => {
+          console.error("Error loading users:", error);
+          this.isLoading = false;
+        },
+      });
+  }
+
+  loadMore(): void {
+    if (!this.nextCursor) {
+      return;
+    }
+    this.isLoadingMore = true;
+    this.adminService
+      .getUsers({
+        q: this.query,
+        sort: this.sort,
+        direction: this.direction,
+        after: this.nextCursor,
+        limit: AdminComponent.PAGE_SIZE,
+      })
+      .subscribe({
+        next: (page) => {
+          this.users = this.users.concat(page.items);
+          this.nextCursor = page.nextCursor;
+          this.isLoadingMore = false;
+        },
+        error: (error) => {
+          console.error("Error loading users:", error);
+          this.isLoadingMore = false;
+        },
+      });
   }
 
   toggleUserStatus(user: User): void {
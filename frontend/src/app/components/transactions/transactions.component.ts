@@ -209,7 +209,7 @@ import {
                             | currency : "USD" : "symbol" : "1.2-2"
                         }}</strong>
                       </td>
-                      <td>{{ transaction.notes || "-" }}</td>
+                      <td>{{ transaction.notesPreview || "-" }}</td>
                       <td>
                         <div class="btn-group" role="group">
                           <button
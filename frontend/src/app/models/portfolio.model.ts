@@ -9,8 +9,8 @@ export interface Portfolio {
   totalCost: number;
   profitLoss: number;
   profitLossPercentage: number;
-  createdAt: string;
-  updatedAt: string;
+  createdAt?: string;
+  updatedAt?: string;
 }
 
 export interface PortfolioSummary {
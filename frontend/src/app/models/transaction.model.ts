@@ -7,10 +7,11 @@ export interface Transaction {
   price: number;
   totalAmount: number;
   commission: number;
-  notes: string;
+  notes?: string;
+  notesPreview?: string;
   transactionDate: string;
-  createdAt: string;
-  updatedAt: string;
+  createdAt?: string;
+  updatedAt?: string;
 }
 
 export interface CreateTransactionRequest {
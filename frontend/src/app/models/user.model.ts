@@ -10,6 +10,13 @@ export interface User {
   updatedAt: string;
 }
 
+export interface UserPage {
+  items: User[];
+  nextCursor: string | null;
+}
+
+export type UserSort = "ID" | "USERNAME" | "EMAIL" | "NAME" | "CREATED";
+
 export interface LoginRequest {
   username: string;
   password: string;
@@ -1,8 +1,8 @@
 import { Injectable } from "@angular/core";
-import { HttpClient } from "@angular/common/http";
+import { HttpClient, HttpParams } from "@angular/common/http";
 import { Observable } from "rxjs";
 import { environment } from "../../environments/environment";
-import { User } from "../models/user.model";
+import { User, UserPage, UserSort } from "../models/user.model";
 
 @Injectable({
   providedIn: "root",
@@ -12,8 +12,30 @@ export class AdminService {
 
   constructor(private http: HttpClient) {}
 
-  getAllUsers(): Observable<User[]> {
-    return this.http.get<User[]>(`${this.apiUrl}/admin/users`);
+  getUsers(options: {
+    q?: string;
+    sort?: UserSort;
+    direction?: "asc" | "desc";
+    after?: string | null;
+    limit?: number;
+  }): Observable<UserPage> {
+    let params = new HttpParams();
+    if (options.q) {
+      params = params.set("q", options.q);
+    }
+    if (options.sort) {
+      params = params.set("sort", options.sort);
+    }
+    if (options.direction) {
+      params = params.set("direction", options.direction);
+    }
+    if (options.after) {
+      params = params.set("after", options.after);
+    }
+    if (options.limit) {
+      params = params.set("limit", options.limit);
+    }
+    return this.http.get<UserPage>(`${this.apiUrl}/admin/users`, { params });
   }
 
   getUserById(id: number): Observable<User> {
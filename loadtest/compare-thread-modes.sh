@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# Runs ConcurrencyBenchmark against the backend twice: on Tomcat's platform-thread pool and
+# with the "virtual" profile. Both runs use the same connection pool size so only the
+# threading model differs. Needs a Java 21+ JDK and the MySQL database from application.yml.
+# Extra arguments are passed to the driver, e.g. --clients=1000,5000 --duration=30
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+mvn -B -q package -DskipTests
+ulimit -n 65536 || echo "could not raise the open file limit; 10k clients need about 20k descriptors"
+
+JAR=backend/target/fintrade-backend-0.0.1-SNAPSHOT-exec.jar
+POOL_SIZE=${POOL_SIZE:-32}
+
+for mode in platform virtual; do
+  profile_arg=""
+  if [ "$mode" = "virtual" ]; then
+    profile_arg="--spring.profiles.active=virtual"
+  fi
+
+  java -Djdk.tracePinnedThreads=short -jar "$JAR" $profile_arg \
+    --spring.jpa.show-sql=false \
+    --spring.datasource.hikari.maximum-pool-size="$POOL_SIZE" \
+    > "loadtest/target/backend-$mode.log" 2>&1 &
+  backend_pid=$!
+  until [ "$(curl -s -o /dev/null -w '%{http_code}' http://localhost:8080/api/portfolio/all)" != "000" ]; do
+    sleep 1
+  done
+
+  echo "== $mode threads"
+  java -cp loadtest/target/loadtest.jar com.fintrade.loadtest.ConcurrencyBenchmark "$@"
+
+  kill "$backend_pid"
+  wait "$backend_pid" || true
+done
+
+echo "Pinned virtual threads, if any, are logged in loadtest/target/backend-virtual.log"
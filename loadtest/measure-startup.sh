@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# Measures time to first successful request: from launching the JVM until a signup through the
+# full stack (security, controller, JPA, MySQL) returns 200. Compares the plain exec jar, the
+# same jar with lazy initialisation (fast-startup Spring profile), and the fast-startup Maven
+# build that adds the AOT-processed context and the CDS archive. Needs the MySQL database from
+# application.yml. RUNS sets the launches per mode (default 5); extra arguments are passed to
+# the backend, e.g. --spring.datasource.url=...
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+# The baseline jar is built without the profile; the profile builds in a directory of its own.
+mvn -B -q -pl backend clean package -DskipTests
+mvn -B -q -pl backend -Pfast-startup package -DskipTests
+LOG_DIR=$PWD/loadtest/target
+mkdir -p "$LOG_DIR"
+
+EXEC_JAR=$PWD/backend/target/fintrade-backend-0.0.1-SNAPSHOT-exec.jar
+FAST_DIR=$PWD/backend/target/fast-startup
+FAST_JAR=fintrade-backend-0.0.1-SNAPSHOT-fast-startup.jar
+RUNS=${RUNS:-5}
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Prints the milliseconds from launch until the first 200 answer to a signup.
+first_success_ms() {
+  local mode=$1 run=$2 started backend_pid
+  shift 2
+  started=$(now_ms)
+  "$@" --spring.jpa.show-sql=false > "$LOG_DIR/startup-$mode-$run.log" 2>&1 &
+  backend_pid=$!
+  local body="{\"username\":\"startup$started\",\"email\":\"startup$started@example.com\",\
+\"password\":\"password\",\"firstName\":\"Start\",\"lastName\":\"Up\"}"
+  until [ "$(curl -s -o /dev/null -w '%{http_code}' -H 'Content-Type: application/json' \
+      -d "$body" http://localhost:8080/api/auth/signup)" = "200" ]; do
+    if ! kill -0 "$backend_pid" 2>/dev/null; then
+      echo "backend exited, see $LOG_DIR/startup-$mode-$run.log" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  echo $(( $(now_ms) - started ))
+  kill "$backend_pid"
+  wait "$backend_pid" || true
+}
+
+for mode in baseline lazy aot-cds; do
+  times=()
+  for run in $(seq 1 "$RUNS"); do
+    case $mode in
+      baseline) times+=("$(first_success_ms "$mode" "$run" java -jar "$EXEC_JAR" "$@")") ;;
+      lazy) times+=("$(first_success_ms "$mode" "$run" java -jar "$EXEC_JAR" \
+          --spring.profiles.active=fast-startup "$@")") ;;
+      # the CDS archive only matches the class path it was trained with, so run from its directory
+      aot-cds) times+=("$(cd "$FAST_DIR" && first_success_ms "$mode" "$run" java \
+          -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar "$FAST_JAR" \
+          --spring.profiles.active=fast-startup "$@")") ;;
+    esac
+  done
+  median=$(printf '%s\n' "${times[@]}" | sort -n | sed -n "$(( (RUNS + 1) / 2 ))p")
+  echo "== $mode: median ${median} ms to first successful request (runs: ${times[*]})"
+done
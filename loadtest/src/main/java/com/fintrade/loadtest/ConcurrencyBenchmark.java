@@ -0,0 +1,121 @@
+package com.fintrade.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop driver: each simulated client sends its next request as soon as the
+ * previous one completes. Clients are async callbacks rather than threads, so 10k of
+ * them fit in one JVM. The mix is mostly JDBC-bound reads plus a share of BCrypt-bound
+ * logins, which is where platform and virtual thread modes differ.
+ *
+ * <pre>
+ * java -cp loadtest.jar com.fintrade.loadtest.ConcurrencyBenchmark \
+ *     --url=http://localhost:8080 --clients=1000,5000,10000 --warmup=15 --duration=60
+ * </pre>
+ */
+public final class ConcurrencyBenchmark {
+
+    private static final String[] READ_PATHS = {
+            "/api/portfolio/summary",
+            "/api/portfolio/all",
+            "/api/transactions/recent?limit=20",
+    };
+
+    private final FinTradeClient client;
+    private final List<FinTradeClient.Account> accounts;
+    private final double loginRatio;
+
+    private final Recorder latencies = new Recorder(3);
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean running;
+    private volatile boolean measuring;
+
+    private ConcurrencyBenchmark(FinTradeClient client, List<FinTradeClient.Account> accounts, double loginRatio) {
+        this.client = client;
+        this.accounts = accounts;
+        this.loginRatio = loginRatio;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        FinTradeClient client = new FinTradeClient(options.get("url", "http://localhost:8080"));
+        int[] clientCounts = options.getInts("clients", "1000,5000,10000");
+        Duration warmup = Duration.ofSeconds(options.getLong("warmup", 15));
+        Duration duration = Duration.ofSeconds(options.getLong("duration", 60));
+
+        List<FinTradeClient.Account> accounts = client.prepareAccounts("loadtest",
+                options.getInt("users", 200), options.getInt("transactions-per-user", 20));
+        ConcurrencyBenchmark benchmark = new ConcurrencyBenchmark(client, accounts,
+                options.getDouble("login-ratio", 0.05));
+
+        System.out.printf("%8s %10s %8s %10s %10s %10s %10s%n",
+                "clients", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms");
+        for (int clients : clientCounts) {
+            benchmark.run(clients, warmup, duration);
+        }
+        System.exit(0);
+    }
+
+    private void run(int clients, Duration warmup, Duration duration) throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(clients);
+        running = true;
+        for (int i = 0; i < clients; i++) {
+            next(i, stopped);
+        }
+
+        Thread.sleep(warmup.toMillis());
+        latencies.reset();
+        errors.reset();
+        measuring = true;
+        Thread.sleep(duration.toMillis());
+        measuring = false;
+        Histogram histogram = latencies.getIntervalHistogram();
+        long failed = errors.sum();
+
+        running = false;
+        stopped.await(2, TimeUnit.MINUTES);
+
+        long requests = histogram.getTotalCount();
+        System.out.printf("%8d %10d %8d %10.0f %10.2f %10.2f %10.2f%n", clients, requests, failed,
+                requests / (double) duration.toSeconds(), millis(histogram, 50), millis(histogram, 99),
+                millis(histogram, 99.9));
+    }
+
+    private void next(int clientId, CountDownLatch stopped) {
+        if (!running) {
+            stopped.countDown();
+            return;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        FinTradeClient.Account account = accounts.get(clientId % accounts.size());
+        HttpRequest request = random.nextDouble() < loginRatio
+                ? client.signinRequest(account.username(), account.password())
+                : client.get(READ_PATHS[random.nextInt(READ_PATHS.length)], account);
+
+        long start = System.nanoTime();
+        client.http().sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (measuring) {
+                latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                if (error != null || response.statusCode() >= 400) {
+                    errors.increment();
+                }
+            }
+            next(clientId, stopped);
+        });
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
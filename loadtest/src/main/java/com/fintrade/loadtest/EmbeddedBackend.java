@@ -0,0 +1,52 @@
+package com.fintrade.loadtest;
+
+import com.fintrade.FintradeBackendApplication;
+import com.fintrade.entity.User;
+import com.fintrade.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The backend started in this JVM with the {@code loadtest} profile, which swaps MySQL
+ * for an in-memory H2 database in MySQL mode.
+ */
+final class EmbeddedBackend implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedBackend(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * @param profiles extra profiles on top of {@code loadtest}, e.g. {@code virtual}
+     * @param args     Spring properties as {@code --name=value}
+     */
+    static EmbeddedBackend start(String[] profiles, String[] args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FintradeBackendApplication.class)
+                .profiles("loadtest")
+                .profiles(profiles)
+                .run(args);
+        return new EmbeddedBackend(context);
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    /**
+     * There is no API for granting the admin role, so it is set in the database directly.
+     */
+    void promoteToAdmin(String username) {
+        UserRepository users = context.getBean(UserRepository.class);
+        User user = users.findByUsername(username)
+                .orElseThrow(() -> new IllegalStateException("No user " + username));
+        user.setRole(User.Role.ADMIN);
+        users.save(user);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,125 @@
+package com.fintrade.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Thin HTTP client for the FinTrade API, shared by the load drivers.
+ */
+final class FinTradeClient {
+
+    record Account(String username, String password, String token) {
+    }
+
+    private static final Pattern TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final String baseUrl;
+    private final HttpClient http;
+
+    FinTradeClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2))
+                .build();
+    }
+
+    HttpClient http() {
+        return http;
+    }
+
+    /**
+     * Signs up (or reuses) {@code count} users and logs each one in. New users get
+     * {@code transactionsPerUser} transactions and matching holdings so reads hit real rows.
+     */
+    List<Account> prepareAccounts(String prefix, int count, int transactionsPerUser)
+            throws IOException, InterruptedException {
+        List<Account> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String username = prefix + "-" + i;
+            String password = "loadtest-" + i;
+            boolean created = send(signupRequest(username, password)).statusCode() == 200;
+
+            Account account = login(username, password);
+            if (created) {
+                seed(account, i, transactionsPerUser);
+            }
+            accounts.add(account);
+        }
+        return accounts;
+    }
+
+    Account login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<String> signin = send(signinRequest(username, password));
+        Matcher token = TOKEN.matcher(signin.body());
+        if (signin.statusCode() != 200 || !token.find()) {
+            throw new IllegalStateException("Could not log in as " + username + ": " + signin.statusCode());
+        }
+        return new Account(username, password, token.group(1));
+    }
+
+    HttpRequest signinRequest(String username, String password) {
+        return post("/api/auth/signin", null, """
+                {"username":"%s","password":"%s"}
+                """.formatted(username, password));
+    }
+
+    HttpRequest signupRequest(String username, String password) {
+        return post("/api/auth/signup", null, """
+                {"username":"%s","email":"%s@loadtest.local","password":"%s","firstName":"Load","lastName":"Test"}
+                """.formatted(username, username, password));
+    }
+
+    HttpRequest tradeRequest(Account account, String symbol, String price) {
+        return post("/api/transactions/create", account, """
+                {"symbol":"%s","companyName":"Load Test %s","transactionType":"BUY","quantity":"3","price":"%s","notes":"loadtest"}
+                """.formatted(symbol, symbol, price));
+    }
+
+    HttpRequest get(String path, Account account) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .header("Authorization", "Bearer " + account.token())
+                .GET()
+                .build();
+    }
+
+    HttpRequest post(String path, Account account, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (account != null) {
+            builder.header("Authorization", "Bearer " + account.token());
+        }
+        return builder.build();
+    }
+
+    private void seed(Account account, int userIndex, int transactions) throws IOException, InterruptedException {
+        for (int i = 0; i < transactions; i++) {
+            String symbol = "LT" + (char) ('A' + (userIndex + i) % 26);
+            String price = (50 + i) + ".25";
+            send(tradeRequest(account, symbol, price));
+            send(post("/api/portfolio/add", account, """
+                    {"symbol":"%s","companyName":"Load Test %s","quantity":"3","price":"%s"}
+                    """.formatted(symbol, symbol, price)));
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
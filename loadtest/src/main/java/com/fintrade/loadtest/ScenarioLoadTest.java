@@ -0,0 +1,240 @@
+package com.fintrade.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop scenario driver. Every operation arrives as a Poisson stream at its own
+ * rate, whether or not earlier requests have come back, and latency is measured from
+ * the intended send time so a stalled server shows up in the percentiles instead of
+ * just slowing the driver down. Without {@code --url} the backend is started in this
+ * JVM on an embedded H2 database in MySQL mode, so no MySQL or prepared dataset is needed.
+ *
+ * <pre>
+ * java -jar loadtest/target/loadtest.jar \
+ *     --rates=signup=2,signin=10,trade=40,portfolio=150,admin=1 --warmup=15 --duration=60
+ * </pre>
+ */
+public final class ScenarioLoadTest {
+
+    enum Operation {
+        SIGNUP("POST /api/auth/signup"),
+        SIGNIN("POST /api/auth/signin"),
+        TRADE("POST /api/transactions/create"),
+        PORTFOLIO("GET /api/portfolio/all"),
+        ADMIN("GET /api/admin/users");
+
+        final String endpoint;
+
+        Operation(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    private static final String DEFAULT_RATES = "signup=2,signin=10,trade=40,portfolio=150,admin=1";
+
+    private final FinTradeClient client;
+    private final List<FinTradeClient.Account> accounts;
+    private final FinTradeClient.Account admin;
+    private final Map<Operation, Double> rates;
+    private final int maxInFlight;
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> dropped = new EnumMap<>(Operation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong signups = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private volatile long measureFrom = Long.MAX_VALUE;
+
+    private ScenarioLoadTest(FinTradeClient client, List<FinTradeClient.Account> accounts,
+            FinTradeClient.Account admin, Map<Operation, Double> rates, int maxInFlight) {
+        this.client = client;
+        this.accounts = accounts;
+        this.admin = admin;
+        this.rates = rates;
+        this.maxInFlight = maxInFlight;
+        for (Operation operation : rates.keySet()) {
+            latencies.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+            dropped.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        Map<Operation, Double> rates = parseRates(options.get("rates", DEFAULT_RATES));
+
+        EmbeddedBackend backend = null;
+        String url = options.get("url", null);
+        if (url == null) {
+            System.out.println("Starting the backend on an embedded H2 database");
+            String profiles = options.get("profiles", "");
+            backend = EmbeddedBackend.start(profiles.isBlank() ? new String[0] : profiles.split(","),
+                    options.passThrough("spring."));
+            url = backend.baseUrl();
+        }
+
+        FinTradeClient client = new FinTradeClient(url);
+        int users = options.getInt("users", 100);
+        System.out.printf("Preparing %d users against %s%n", users, url);
+        List<FinTradeClient.Account> accounts = client.prepareAccounts("scenario", users,
+                options.getInt("transactions-per-user", 10));
+
+        FinTradeClient.Account admin = null;
+        String adminLogin = options.get("admin", null);
+        if (adminLogin != null) {
+            int separator = adminLogin.indexOf(':');
+            admin = client.login(adminLogin.substring(0, separator), adminLogin.substring(separator + 1));
+        } else if (backend != null) {
+            admin = client.prepareAccounts("scenario-admin", 1, 0).get(0);
+            backend.promoteToAdmin(admin.username());
+        } else if (rates.remove(Operation.ADMIN) != null) {
+            System.out.println("No --admin=username:password given, skipping the admin listing");
+        }
+
+        ScenarioLoadTest loadTest = new ScenarioLoadTest(client, accounts, admin, rates,
+                options.getInt("max-in-flight", 10_000));
+        loadTest.run(Duration.ofSeconds(options.getLong("warmup", 15)),
+                Duration.ofSeconds(options.getLong("duration", 60)));
+
+        if (backend != null) {
+            backend.close();
+        }
+        System.exit(0);
+    }
+
+    private static Map<Operation, Double> parseRates(String spec) {
+        Map<Operation, Double> rates = new EnumMap<>(Operation.class);
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split("=");
+            double rate = Double.parseDouble(parts[1]);
+            if (rate > 0) {
+                rates.put(Operation.valueOf(parts[0].toUpperCase()), rate);
+            }
+        }
+        return rates;
+    }
+
+    private void run(Duration warmup, Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureUntil = start + warmup.toNanos() + duration.toNanos();
+        measureFrom = start + warmup.toNanos();
+
+        Thread dispatcher = new Thread(() -> dispatch(measureUntil), "scenario-dispatcher");
+        dispatcher.start();
+        dispatcher.join();
+
+        // Requests sent inside the window still count, so give the slow ones time to finish.
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        report(duration);
+    }
+
+    private void dispatch(long until) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Operation> operations = new ArrayList<>(rates.keySet());
+        long[] next = new long[operations.size()];
+        long now = System.nanoTime();
+        for (int i = 0; i < next.length; i++) {
+            next[i] = now + interArrival(random, rates.get(operations.get(i)));
+        }
+
+        while (true) {
+            int due = 0;
+            for (int i = 1; i < next.length; i++) {
+                if (next[i] < next[due]) {
+                    due = i;
+                }
+            }
+            long intended = next[due];
+            if (intended >= until) {
+                return;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = operations.get(due);
+            send(operation, intended, random);
+            next[due] += interArrival(random, rates.get(operation));
+        }
+    }
+
+    private static long interArrival(ThreadLocalRandom random, double perSecond) {
+        return (long) (-Math.log(1 - random.nextDouble()) * TimeUnit.SECONDS.toNanos(1) / perSecond);
+    }
+
+    private void send(Operation operation, long intended, ThreadLocalRandom random) {
+        boolean measured = intended >= measureFrom;
+        if (inFlight.get() >= maxInFlight) {
+            if (measured) {
+                dropped.get(operation).increment();
+            }
+            return;
+        }
+
+        inFlight.incrementAndGet();
+        client.http().sendAsync(request(operation, random), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        latencies.get(operation).recordValue(
+                                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+                        if (error != null || response.statusCode() >= 400) {
+                            errors.get(operation).increment();
+                        }
+                    }
+                });
+    }
+
+    private HttpRequest request(Operation operation, ThreadLocalRandom random) {
+        FinTradeClient.Account account = accounts.get(random.nextInt(accounts.size()));
+        return switch (operation) {
+            case SIGNUP -> client.signupRequest("signup-" + runId + "-" + signups.incrementAndGet(), "loadtest-signup");
+            case SIGNIN -> client.signinRequest(account.username(), account.password());
+            case TRADE -> client.tradeRequest(account, "LT" + (char) ('A' + random.nextInt(26)),
+                    (50 + random.nextInt(50)) + ".25");
+            case PORTFOLIO -> client.get("/api/portfolio/all", account);
+            case ADMIN -> client.get("/api/admin/users", admin);
+        };
+    }
+
+    private void report(Duration duration) {
+        System.out.printf("%-30s %8s %9s %7s %8s %9s %9s %9s %9s%n", "endpoint", "target/s", "requests",
+                "errors", "dropped", "req/s", "p50 ms", "p99 ms", "p99.9 ms");
+        for (Map.Entry<Operation, Double> entry : rates.entrySet()) {
+            Operation operation = entry.getKey();
+            Histogram histogram = latencies.get(operation).getIntervalHistogram();
+            long requests = histogram.getTotalCount();
+            System.out.printf("%-30s %8.1f %9d %7d %8d %9.1f %9.2f %9.2f %9.2f%n", operation.endpoint,
+                    entry.getValue(), requests, errors.get(operation).sum(), dropped.get(operation).sum(),
+                    requests / (double) duration.toSeconds(), millis(histogram, 50), millis(histogram, 99),
+                    millis(histogram, 99.9));
+        }
+        if (inFlight.get() > 0) {
+            System.out.printf("%d requests were still running when the report was taken%n", inFlight.get());
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}